@@ -0,0 +1,123 @@
+package com.stockdock.bars;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Bars of several symbols on a shared timestamp axis: the union of the timestamps of all series,
+ * in increasing order. Each series keeps its own {@link BarColumns}; for every bar it records the
+ * position of its timestamp on the axis, so a symbol without a bar at some timestamp costs nothing.
+ *
+ * Serialized by {@link AlignedBarsSerializer} column by column, with {@code null} where a symbol
+ * has no bar.
+ */
+@JsonSerialize (using = AlignedBarsSerializer.class)
+public final class AlignedBars {
+
+   // Above this many bars in total, the axis is sorted and the series are placed on it in parallel
+   private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+   private final long[] axis;
+   private final List<String> symbols;
+   private final BarColumns[] columns;
+   // positions[s][i]: index on the axis of bar i of symbol s
+   private final int[][] positions;
+
+   private AlignedBars (long[] axis, List<String> symbols, BarColumns[] columns, int[][] positions) {
+      this.axis = axis;
+      this.symbols = symbols;
+      this.columns = columns;
+      this.positions = positions;
+   }
+
+   /**
+    * Places the given series on their shared timestamp axis.
+    *
+    * @param series Symbol -> bars in timestamp order; the iteration order is the order of the symbols.
+    * @return The aligned series.
+    */
+   public static AlignedBars align (Map<String, BarColumns> series) {
+      List<String> symbols = List.copyOf(series.keySet());
+      BarColumns[] columns = symbols.stream().map(series::get).toArray(BarColumns[]::new);
+
+      int total = 0;
+      for (BarColumns bars : columns) {
+         total += bars.size();
+      }
+      boolean parallel = total >= PARALLEL_THRESHOLD;
+
+      long[] times = new long[total];
+      int offset = 0;
+      for (BarColumns bars : columns) {
+         for (int i = 0; i < bars.size(); i++) {
+            times[offset++] = bars.t(i);
+         }
+      }
+      if (parallel) {
+         Arrays.parallelSort(times);
+      } else {
+         Arrays.sort(times);
+      }
+      int unique = 0;
+      for (int i = 0; i < total; i++) {
+         if (unique == 0 || times[i] != times[unique - 1]) {
+            times[unique++] = times[i];
+         }
+      }
+      long[] axis = Arrays.copyOf(times, unique);
+
+      int[][] positions = new int[columns.length][];
+      IntStream indices = IntStream.range(0, columns.length);
+      (parallel ? indices.parallel() : indices).forEach(s -> positions[s] = positionsOf(axis, columns[s]));
+      return new AlignedBars(axis, symbols, columns, positions);
+   }
+
+   // Both the axis and the bars are sorted, so one merge-like pass places every bar
+   private static int[] positionsOf (long[] axis, BarColumns bars) {
+      int[] positions = new int[bars.size()];
+      int k = 0;
+      for (int i = 0; i < bars.size(); i++) {
+         while (axis[k] < bars.t(i)) {
+            k++;
+         }
+         positions[i] = k;
+      }
+      return positions;
+   }
+
+   /**
+    * Number of timestamps on the shared axis.
+    */
+   public int length () {
+      return axis.length;
+   }
+
+   /**
+    * Timestamp {@code k} of the axis, in epoch milliseconds.
+    */
+   public long t (int k) {
+      return axis[k];
+   }
+
+   public List<String> symbols () {
+      return symbols;
+   }
+
+   /**
+    * The bars of symbol {@code s} (index into {@link #symbols()}).
+    */
+   public BarColumns bars (int s) {
+      return columns[s];
+   }
+
+   /**
+    * Axis index of bar {@code i} of symbol {@code s}.
+    */
+   public int position (int s, int i) {
+      return positions[s][i];
+   }
+}
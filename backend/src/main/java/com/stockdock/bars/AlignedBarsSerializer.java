@@ -0,0 +1,77 @@
+package com.stockdock.bars;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Writes {@link AlignedBars} in columnar form:
+ * <pre>
+ * {"t": [t0, t1, ...],
+ *  "symbols": {"AAPL": {"o": [...], "h": [...], "l": [...], "c": [...], "v": [...], "n": [...], "vw": [...]}, ...}}
+ * </pre>
+ * Every column has one entry per timestamp of {@code t}, {@code null} where the symbol has no bar.
+ * Timestamps go through the mapper's {@link Instant} serializer, like in {@link BarSliceSerializer}.
+ */
+public class AlignedBarsSerializer extends JsonSerializer<AlignedBars> {
+
+   private interface Column {
+      void write (JsonGenerator generator, BarColumns bars, int i) throws IOException;
+   }
+
+   private static final String[] NAMES = {"o", "h", "l", "c", "v", "n", "vw"};
+   private static final Column[] COLUMNS = {
+       (generator, bars, i) -> generator.writeNumber(bars.o(i)),
+       (generator, bars, i) -> generator.writeNumber(bars.h(i)),
+       (generator, bars, i) -> generator.writeNumber(bars.l(i)),
+       (generator, bars, i) -> generator.writeNumber(bars.c(i)),
+       (generator, bars, i) -> generator.writeNumber(bars.v(i)),
+       (generator, bars, i) -> generator.writeNumber(bars.n(i)),
+       (generator, bars, i) -> generator.writeNumber(bars.vw(i))
+   };
+
+   @Override
+   public void serialize (AlignedBars aligned, JsonGenerator generator, SerializerProvider provider) throws IOException {
+      JsonSerializer<Object> instantSerializer = provider.findValueSerializer(Instant.class);
+
+      generator.writeStartObject();
+      generator.writeFieldName("t");
+      generator.writeStartArray(aligned, aligned.length());
+      for (int k = 0; k < aligned.length(); k++) {
+         instantSerializer.serialize(Instant.ofEpochMilli(aligned.t(k)), generator, provider);
+      }
+      generator.writeEndArray();
+
+      generator.writeObjectFieldStart("symbols");
+      for (int s = 0; s < aligned.symbols().size(); s++) {
+         generator.writeObjectFieldStart(aligned.symbols().get(s));
+         for (int column = 0; column < COLUMNS.length; column++) {
+            generator.writeArrayFieldStart(NAMES[column]);
+            writeColumn(generator, aligned, s, COLUMNS[column]);
+            generator.writeEndArray();
+         }
+         generator.writeEndObject();
+      }
+      generator.writeEndObject();
+      generator.writeEndObject();
+   }
+
+   private static void writeColumn (JsonGenerator generator, AlignedBars aligned, int s, Column column) throws IOException {
+      BarColumns bars = aligned.bars(s);
+      int i = 0;
+      for (int k = 0; k < aligned.length(); k++) {
+         // Skips duplicate timestamps of a series, only the first bar of a timestamp is written
+         while (i < bars.size() && aligned.position(s, i) < k) {
+            i++;
+         }
+         if (i < bars.size() && aligned.position(s, i) == k) {
+            column.write(generator, bars, i);
+         } else {
+            generator.writeNull();
+         }
+      }
+   }
+}
@@ -0,0 +1,383 @@
+package com.stockdock.bars;
+
+import com.stockdock.dto.HistoricalBar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Append-only binary file of the bars of one series (symbol + timeframe), read through a
+ * memory mapping.
+ *
+ * <pre>
+ * header (128 bytes): magic, version, record size, reserved,
+ *                     two commit slots of generation, committed bar count, covered start,
+ *                     covered end and a checksum of the four, padding
+ * records (64 bytes each, in time order): t, o, h, l, c, vw, v, n, padding
+ * </pre>
+ *
+ * A commit records how many bars are committed and which time range they cover (bars are only
+ * archived once settled, so a covered range without bars is known to have none). Appends write and
+ * force the new records, then write the next generation into the slot the current commit is not
+ * in, so a crash mid-append leaves the previous commit intact: the file opens at the valid slot
+ * with the highest generation. Bytes after the committed records are ignored and overwritten.
+ *
+ * Reads use an immutable {@link Snapshot} of the mapping and need no lock. A sparse index holding
+ * the time of every {@value #INDEX_STRIDE}th bar narrows range lookups to one block of records.
+ * Not thread-safe for writers; callers serialize appends per file.
+ */
+public final class BarArchiveFile implements Closeable {
+
+   private static final int MAGIC = 0x53444241; // "SDBA"
+   private static final int VERSION = 2;
+   private static final int HEADER_BYTES = 128;
+   private static final int COMMIT_OFFSET = 16;
+   private static final int COMMIT_BYTES = 40;
+   private static final int RECORD_BYTES = 64;
+   private static final int INDEX_STRIDE = 256;
+   // A single mapping is limited to 2 GiB
+   private static final long MAX_BARS = (Integer.MAX_VALUE - HEADER_BYTES) / RECORD_BYTES;
+
+   private final Path path;
+   private final FileChannel channel;
+   private volatile Snapshot snapshot;
+   private long generation; // Of the commit the snapshot was loaded from
+
+   /**
+    * Committed state of the file at one point in time. Stays readable after later appends.
+    */
+   public static final class Snapshot {
+      private final ByteBuffer map;
+      private final int count;
+      private final long coveredStart;
+      private final long coveredEnd;
+      private final long[] index;
+
+      private Snapshot (ByteBuffer map, int count, long coveredStart, long coveredEnd, long[] index) {
+         this.map = map;
+         this.count = count;
+         this.coveredStart = coveredStart;
+         this.coveredEnd = coveredEnd;
+         this.index = index;
+      }
+
+      public int size () {
+         return count;
+      }
+
+      /**
+       * Whether any range has been archived yet.
+       */
+      public boolean isEmpty () {
+         return coveredStart > coveredEnd;
+      }
+
+      public long coveredStart () {
+         return coveredStart;
+      }
+
+      public long coveredEnd () {
+         return coveredEnd;
+      }
+
+      public boolean covers (long start, long end) {
+         return !isEmpty() && coveredStart <= start && coveredEnd >= end;
+      }
+
+      public long t (int i) {
+         return map.getLong(HEADER_BYTES + i * RECORD_BYTES);
+      }
+
+      /**
+       * Index of the first bar at or after {@code timeMillis} ({@link #size()} if there is none).
+       */
+      public int indexAtOrAfter (long timeMillis) {
+         // The sparse index narrows the search to one block, so a cold lookup touches few pages
+         int block = Arrays.binarySearch(index, timeMillis);
+         if (block >= 0) {
+            return block * INDEX_STRIDE;
+         }
+         int insertion = -block - 1;
+         int low = Math.max(0, insertion - 1) * INDEX_STRIDE;
+         int high = Math.min(count, insertion * INDEX_STRIDE);
+         while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (t(mid) < timeMillis) {
+               low = mid + 1;
+            } else {
+               high = mid;
+            }
+         }
+         return low;
+      }
+
+      /**
+       * Copies the bars with {@code start <= t <= end} into {@code target}.
+       */
+      public void read (long start, long end, BarColumns target) {
+         for (int i = indexAtOrAfter(start); i < count; i++) {
+            int offset = HEADER_BYTES + i * RECORD_BYTES;
+            long t = map.getLong(offset);
+            if (t > end) {
+               break;
+            }
+            target.add(t,
+                map.getDouble(offset + 8),
+                map.getDouble(offset + 16),
+                map.getDouble(offset + 24),
+                map.getDouble(offset + 32),
+                map.getLong(offset + 48),
+                map.getInt(offset + 56),
+                map.getDouble(offset + 40));
+         }
+      }
+
+      /**
+       * Hands the bars with {@code start <= t <= end} to {@code sink} in time order, one record
+       * at a time, without collecting them.
+       *
+       * @return The number of bars replayed.
+       */
+      public long replay (long start, long end, Consumer<HistoricalBar> sink) {
+         long replayed = 0;
+         for (int i = indexAtOrAfter(start); i < count; i++) {
+            int offset = HEADER_BYTES + i * RECORD_BYTES;
+            long t = map.getLong(offset);
+            if (t > end) {
+               break;
+            }
+            sink.accept(new HistoricalBar(
+                map.getDouble(offset + 32),
+                map.getDouble(offset + 16),
+                map.getDouble(offset + 24),
+                map.getInt(offset + 56),
+                map.getDouble(offset + 8),
+                Instant.ofEpochMilli(t),
+                map.getLong(offset + 48),
+                map.getDouble(offset + 40)));
+            replayed++;
+         }
+         return replayed;
+      }
+   }
+
+   private BarArchiveFile (Path path, FileChannel channel) {
+      this.path = path;
+      this.channel = channel;
+   }
+
+   /**
+    * Opens (or creates) the archive at {@code path}.
+    *
+    * @param path     The archive file.
+    * @param readOnly Whether the file may only be read (it is not created if missing).
+    * @return The open archive.
+    * @throws IOException if the file cannot be opened or is not a valid archive.
+    */
+   public static BarArchiveFile open (Path path, boolean readOnly) throws IOException {
+      FileChannel channel = readOnly
+          ? FileChannel.open(path, StandardOpenOption.READ)
+          : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+      BarArchiveFile file = new BarArchiveFile(path, channel);
+      try {
+         if (channel.size() < HEADER_BYTES) {
+            if (readOnly) {
+               throw new IOException("Bar archive " + path + " has no header.");
+            }
+            file.writeHeader(0, 1, 0); // Empty coverage: start > end
+         }
+         file.load();
+      } catch (IOException | RuntimeException e) {
+         channel.close();
+         throw e;
+      }
+      return file;
+   }
+
+   public Snapshot snapshot () {
+      return snapshot;
+   }
+
+   public Path path () {
+      return path;
+   }
+
+   /**
+    * Appends bars after the last committed one and extends the covered range to {@code coveredEnd}.
+    *
+    * @param bars         Bars newer than the last committed bar, in time order.
+    * @param coveredStart Start of the covered range, used only if the archive is still empty.
+    * @param coveredEnd   End of the range the archive covers after this append.
+    * @throws IOException if writing or forcing the file fails; the previous commit is then still valid.
+    */
+   public void append (BarColumns bars, long coveredStart, long coveredEnd) throws IOException {
+      Snapshot current = snapshot;
+      if (current.count + (long) bars.size() > MAX_BARS) {
+         throw new IOException("Bar archive " + path + " is full.");
+      }
+
+      ByteBuffer records = encode(bars);
+      long position = HEADER_BYTES + (long) current.count * RECORD_BYTES;
+      while (records.hasRemaining()) {
+         position += channel.write(records, position);
+      }
+      channel.force(false); // Records are durable before the header points at them
+
+      writeCommit(generation + 1, current.count + bars.size(),
+          current.isEmpty() ? coveredStart : current.coveredStart, coveredEnd);
+      channel.force(false);
+      load();
+   }
+
+   /**
+    * Replaces the content of the archive at {@code path} with {@code bars}, crash-safely: the new
+    * content is written to a temporary file which then atomically replaces the archive.
+    *
+    * @return The archive with the new content, to be used instead of any previously opened one.
+    */
+   public static BarArchiveFile rewrite (Path path, BarColumns bars, long coveredStart, long coveredEnd) throws IOException {
+      if (bars.size() > MAX_BARS) {
+         throw new IOException("Too many bars for one archive: " + bars.size());
+      }
+      Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING)) {
+         ByteBuffer records = encode(bars);
+         long position = HEADER_BYTES;
+         while (records.hasRemaining()) {
+            position += channel.write(records, position);
+         }
+         ByteBuffer header = header(bars.size(), coveredStart, coveredEnd);
+         while (header.hasRemaining()) {
+            channel.write(header, header.position());
+         }
+         channel.force(true);
+      }
+      Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      return open(path, false);
+   }
+
+   @Override
+   public void close () throws IOException {
+      channel.close();
+   }
+
+   private void load () throws IOException {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+      while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+         // Read the whole header
+      }
+      header.flip();
+      if (header.remaining() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+         throw new IOException("Not a bar archive: " + path);
+      }
+      if (header.getInt(4) != VERSION || header.getInt(8) != RECORD_BYTES) {
+         throw new IOException("Unsupported bar archive version in " + path);
+      }
+
+      // The latest commit whose slot is intact; a torn slot is the one an interrupted append wrote
+      int slot = -1;
+      for (int candidate = 0; candidate < 2; candidate++) {
+         if (isValidCommit(header, COMMIT_OFFSET + candidate * COMMIT_BYTES)
+             && (slot < 0 || header.getLong(COMMIT_OFFSET + candidate * COMMIT_BYTES) > header.getLong(COMMIT_OFFSET + slot * COMMIT_BYTES))) {
+            slot = candidate;
+         }
+      }
+      if (slot < 0) {
+         throw new IOException("Corrupt bar archive header in " + path);
+      }
+      int offset = COMMIT_OFFSET + slot * COMMIT_BYTES;
+      long count = header.getLong(offset + 8);
+      long coveredStart = header.getLong(offset + 16);
+      long coveredEnd = header.getLong(offset + 24);
+      long committedBytes = HEADER_BYTES + count * RECORD_BYTES;
+
+      ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, committedBytes);
+      int bars = (int) count;
+      long[] index = new long[(bars + INDEX_STRIDE - 1) / INDEX_STRIDE];
+      for (int block = 0; block < index.length; block++) {
+         index[block] = map.getLong(HEADER_BYTES + block * INDEX_STRIDE * RECORD_BYTES);
+      }
+      generation = header.getLong(offset);
+      snapshot = new Snapshot(map, bars, coveredStart, coveredEnd, index);
+   }
+
+   private boolean isValidCommit (ByteBuffer header, int offset) throws IOException {
+      long count = header.getLong(offset + 8);
+      if (header.getLong(offset + 32) != checksum(header.getLong(offset), count, header.getLong(offset + 16), header.getLong(offset + 24))) {
+         return false;
+      }
+      // A commit pointing past the end of the file was never completed
+      return count >= 0 && count <= MAX_BARS && HEADER_BYTES + count * RECORD_BYTES <= channel.size();
+   }
+
+   private void writeHeader (long count, long coveredStart, long coveredEnd) throws IOException {
+      ByteBuffer header = header(count, coveredStart, coveredEnd);
+      while (header.hasRemaining()) {
+         channel.write(header, header.position());
+      }
+      channel.force(true);
+   }
+
+   // Generations alternate between the two slots, so the previous commit is never overwritten
+   private void writeCommit (long generation, long count, long coveredStart, long coveredEnd) throws IOException {
+      ByteBuffer commit = commit(ByteBuffer.allocate(COMMIT_BYTES), generation, count, coveredStart, coveredEnd).flip();
+      long offset = COMMIT_OFFSET + (generation & 1) * COMMIT_BYTES;
+      while (commit.hasRemaining()) {
+         channel.write(commit, offset + commit.position());
+      }
+   }
+
+   // Generation 0 in the first slot; the second slot stays zeroed, which fails its checksum
+   private static ByteBuffer header (long count, long coveredStart, long coveredEnd) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+          .putInt(MAGIC)
+          .putInt(VERSION)
+          .putInt(RECORD_BYTES)
+          .putInt(0);
+      return commit(header, 0, count, coveredStart, coveredEnd)
+          .position(HEADER_BYTES)
+          .flip();
+   }
+
+   private static ByteBuffer commit (ByteBuffer buffer, long generation, long count, long coveredStart, long coveredEnd) {
+      return buffer.putLong(generation)
+          .putLong(count)
+          .putLong(coveredStart)
+          .putLong(coveredEnd)
+          .putLong(checksum(generation, count, coveredStart, coveredEnd));
+   }
+
+   private static long checksum (long generation, long count, long coveredStart, long coveredEnd) {
+      long hash = 0xcbf29ce484222325L;
+      for (long value : new long[] {generation, count, coveredStart, coveredEnd}) {
+         hash = (hash ^ value) * 0x100000001b3L;
+      }
+      return hash;
+   }
+
+   private static ByteBuffer encode (BarColumns bars) {
+      ByteBuffer records = ByteBuffer.allocate(bars.size() * RECORD_BYTES);
+      for (int i = 0; i < bars.size(); i++) {
+         records.putLong(bars.t(i))
+             .putDouble(bars.o(i))
+             .putDouble(bars.h(i))
+             .putDouble(bars.l(i))
+             .putDouble(bars.c(i))
+             .putDouble(bars.vw(i))
+             .putLong(bars.v(i))
+             .putInt(bars.n(i))
+             .putInt(0);
+      }
+      return records.flip();
+   }
+}
@@ -0,0 +1,115 @@
+package com.stockdock.bars;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Writes a {@link BarSlice} in the compact binary format served as {@value #MEDIA_TYPE}.
+ *
+ * All numbers are little-endian, so a browser can map the price columns straight onto
+ * {@code Float64Array}s of the response buffer without copying:
+ * <pre>
+ * offset  size        field
+ * 0       4           magic "SDBR"
+ * 4       1           format version (1)
+ * 5       3           reserved (0)
+ * 8       4           number of bars (uint32)
+ * 12      4           reserved (0)
+ * 16      8           timestamp of the first bar, epoch milliseconds (int64)
+ * 24      8 * count   o (float64), then h, l, c and vw the same way
+ * ...     varints     t: difference to the previous timestamp in milliseconds (the first is 0)
+ * ...     varints     v: volume
+ * ...     varints     n: number of trades
+ * </pre>
+ * Varints are unsigned LEB128 (7 bits per byte, low bits first) of the zigzag-encoded value, so
+ * a one-minute step takes 3 bytes and small volumes 1 to 3. A minute bar takes about 47 bytes,
+ * against about 107 for a JSON object with its repeated keys.
+ */
+public final class BarBinaryEncoder {
+
+   public static final String MEDIA_TYPE = "application/vnd.stockdock.bars";
+
+   public static final byte VERSION = 1;
+   public static final int HEADER_BYTES = 24;
+
+   private static final byte[] MAGIC = {'S', 'D', 'B', 'R'};
+   private static final int BUFFER_BYTES = 8192;
+
+   private final OutputStream out;
+   private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+   private BarBinaryEncoder (OutputStream out) {
+      this.out = out;
+   }
+
+   /**
+    * Encodes {@code bars} to {@code out}, through a small buffer (the encoding is never held in
+    * memory as a whole). The stream is not closed.
+    */
+   public static void write (BarSlice bars, OutputStream out) throws IOException {
+      new BarBinaryEncoder(out).encode(bars);
+   }
+
+   private void encode (BarSlice bars) throws IOException {
+      int count = bars.size();
+      buffer.put(MAGIC).put(VERSION).put((byte) 0).put((byte) 0).put((byte) 0);
+      buffer.putInt(count).putInt(0);
+      buffer.putLong(count == 0 ? 0 : bars.t(0));
+
+      for (int i = 0; i < count; i++) {
+         putDouble(bars.o(i));
+      }
+      for (int i = 0; i < count; i++) {
+         putDouble(bars.h(i));
+      }
+      for (int i = 0; i < count; i++) {
+         putDouble(bars.l(i));
+      }
+      for (int i = 0; i < count; i++) {
+         putDouble(bars.c(i));
+      }
+      for (int i = 0; i < count; i++) {
+         putDouble(bars.vw(i));
+      }
+
+      long previous = count == 0 ? 0 : bars.t(0);
+      for (int i = 0; i < count; i++) {
+         long t = bars.t(i);
+         putVarint(t - previous);
+         previous = t;
+      }
+      for (int i = 0; i < count; i++) {
+         putVarint(bars.v(i));
+      }
+      for (int i = 0; i < count; i++) {
+         putVarint(bars.n(i));
+      }
+      flush();
+   }
+
+   private void putDouble (double value) throws IOException {
+      if (buffer.remaining() < Double.BYTES) {
+         flush();
+      }
+      buffer.putDouble(value);
+   }
+
+   private void putVarint (long value) throws IOException {
+      if (buffer.remaining() < 10) {
+         flush();
+      }
+      long zigzag = (value << 1) ^ (value >> 63);
+      while ((zigzag & ~0x7FL) != 0) {
+         buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+         zigzag >>>= 7;
+      }
+      buffer.put((byte) zigzag);
+   }
+
+   private void flush () throws IOException {
+      out.write(buffer.array(), 0, buffer.position());
+      buffer.clear();
+   }
+}
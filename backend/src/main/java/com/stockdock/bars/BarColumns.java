@@ -0,0 +1,144 @@
+package com.stockdock.bars;
+
+import com.stockdock.dto.HistoricalBar;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Growable, columnar series of bars backed by primitive arrays (one array per field).
+ *
+ * Used on hot paths (resampling, indicators, decoding) instead of lists of
+ * {@link HistoricalBar} records, which box every bar and its {@link Instant}.
+ * Timestamps are epoch milliseconds.
+ */
+public final class BarColumns {
+
+   private long[] t;
+   private double[] o;
+   private double[] h;
+   private double[] l;
+   private double[] c;
+   private long[] v;
+   private int[] n;
+   private double[] vw;
+   private int size;
+
+   public BarColumns () {
+      this(256);
+   }
+
+   public BarColumns (int capacity) {
+      int initial = Math.max(1, capacity);
+      t = new long[initial];
+      o = new double[initial];
+      h = new double[initial];
+      l = new double[initial];
+      c = new double[initial];
+      v = new long[initial];
+      n = new int[initial];
+      vw = new double[initial];
+   }
+
+   public static BarColumns of (List<HistoricalBar> bars) {
+      BarColumns columns = new BarColumns(bars.size());
+      bars.forEach(columns::add);
+      return columns;
+   }
+
+   public void add (long time, double open, double high, double low, double close, long volume, int trades, double vwap) {
+      if (size == t.length) {
+         grow();
+      }
+      t[size] = time;
+      o[size] = open;
+      h[size] = high;
+      l[size] = low;
+      c[size] = close;
+      v[size] = volume;
+      n[size] = trades;
+      vw[size] = vwap;
+      size++;
+   }
+
+   public void add (HistoricalBar bar) {
+      add(bar.t().toEpochMilli(), bar.o(), bar.h(), bar.l(), bar.c(), bar.v(), bar.n(), bar.vw());
+   }
+
+   /**
+    * Appends all bars of {@code other}, e.g. the next page of a series.
+    */
+   public void addAll (BarColumns other) {
+      for (int i = 0; i < other.size; i++) {
+         add(other.t[i], other.o[i], other.h[i], other.l[i], other.c[i], other.v[i], other.n[i], other.vw[i]);
+      }
+   }
+
+   public int size () {
+      return size;
+   }
+
+   public long t (int i) {
+      return t[i];
+   }
+
+   public double o (int i) {
+      return o[i];
+   }
+
+   public double h (int i) {
+      return h[i];
+   }
+
+   public double l (int i) {
+      return l[i];
+   }
+
+   public double c (int i) {
+      return c[i];
+   }
+
+   public long v (int i) {
+      return v[i];
+   }
+
+   public int n (int i) {
+      return n[i];
+   }
+
+   public double vw (int i) {
+      return vw[i];
+   }
+
+   /**
+    * Materializes one bar as a {@link HistoricalBar} record.
+    */
+   public HistoricalBar toBar (int i) {
+      return new HistoricalBar(c[i], h[i], l[i], n[i], o[i], Instant.ofEpochMilli(t[i]), v[i], vw[i]);
+   }
+
+   /**
+    * Materializes all bars as {@link HistoricalBar} records, e.g. for the JSON response.
+    */
+   public List<HistoricalBar> toBars () {
+      List<HistoricalBar> bars = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+         bars.add(toBar(i));
+      }
+      return bars;
+   }
+
+   private void grow () {
+      int capacity = t.length * 2;
+      t = Arrays.copyOf(t, capacity);
+      o = Arrays.copyOf(o, capacity);
+      h = Arrays.copyOf(h, capacity);
+      l = Arrays.copyOf(l, capacity);
+      c = Arrays.copyOf(c, capacity);
+      v = Arrays.copyOf(v, capacity);
+      n = Arrays.copyOf(n, capacity);
+      vw = Arrays.copyOf(vw, capacity);
+   }
+}
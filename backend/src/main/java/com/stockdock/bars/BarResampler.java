@@ -0,0 +1,124 @@
+package com.stockdock.bars;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Derives coarser bars from finer ones (e.g. 1Min into 5Min, 1Hour, 1Day or 1Week).
+ *
+ * <ul>
+ *    <li>open is the first open, close the last close, high/low the extremes of the bucket</li>
+ *    <li>volume ({@code v}) and trade count ({@code n}) are summed</li>
+ *    <li>{@code vw} is the volume-weighted average of the source {@code vw} values</li>
+ * </ul>
+ *
+ * Minute and hour buckets are aligned to UTC like Alpaca's intraday bars. Day, week and month
+ * buckets start at midnight America/New_York, which is how Alpaca timestamps daily bars.
+ * A derived bucket aggregates every source bar inside it, including extended-hours bars.
+ *
+ * The resampler works on {@link BarColumns} in a single pass and only does calendar math when
+ * a bar falls outside the current bucket, so no per-bar objects are allocated.
+ */
+public final class BarResampler {
+
+   public static final ZoneId MARKET_ZONE = ZoneId.of("America/New_York");
+
+   private BarResampler () {
+   }
+
+   /**
+    * Resamples bars (sorted by timestamp) into the target timeframe.
+    *
+    * @param source The source bars, e.g. 1-minute bars.
+    * @param target The coarser timeframe to derive.
+    * @return The derived bars, one per non-empty bucket.
+    */
+   public static BarColumns resample (BarColumns source, Timeframe target) {
+      BarColumns result = new BarColumns(Math.max(16, source.size() / 8));
+      if (source.size() == 0) {
+         return result;
+      }
+
+      long bucketStart = Long.MIN_VALUE;
+      long bucketEnd = Long.MIN_VALUE;
+      double open = 0, high = 0, low = 0, close = 0, priceVolume = 0, lastVwap = 0;
+      long volume = 0;
+      int trades = 0;
+
+      for (int i = 0; i < source.size(); i++) {
+         long t = source.t(i);
+
+         if (t >= bucketEnd || t < bucketStart) {
+            if (bucketStart != Long.MIN_VALUE) {
+               result.add(bucketStart, open, high, low, close, volume, trades, vwap(priceVolume, volume, lastVwap));
+            }
+            bucketStart = bucketStart(target, t);
+            bucketEnd = bucketEnd(target, bucketStart);
+            open = source.o(i);
+            high = source.h(i);
+            low = source.l(i);
+            volume = 0;
+            trades = 0;
+            priceVolume = 0;
+         } else {
+            high = Math.max(high, source.h(i));
+            low = Math.min(low, source.l(i));
+         }
+
+         close = source.c(i);
+         volume += source.v(i);
+         trades += source.n(i);
+         priceVolume += source.vw(i) * source.v(i);
+         lastVwap = source.vw(i);
+      }
+
+      result.add(bucketStart, open, high, low, close, volume, trades, vwap(priceVolume, volume, lastVwap));
+      return result;
+   }
+
+   /**
+    * Start (epoch millis) of the bucket of {@code timeframe} that contains {@code t}.
+    */
+   public static long bucketStart (Timeframe timeframe, long t) {
+      return switch (timeframe.unit()) {
+         case MINUTE, HOUR -> {
+            long width = timeframe.duration().toMillis();
+            yield Math.floorDiv(t, width) * width;
+         }
+         case DAY -> startOfDay(marketDate(t));
+         case WEEK -> startOfDay(marketDate(t).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)));
+         case MONTH -> {
+            LocalDate date = marketDate(t);
+            int month = (date.getMonthValue() - 1) / timeframe.amount() * timeframe.amount() + 1;
+            yield startOfDay(LocalDate.of(date.getYear(), month, 1));
+         }
+      };
+   }
+
+   /**
+    * End (exclusive, epoch millis) of the bucket of {@code timeframe} starting at {@code bucketStart}.
+    */
+   public static long bucketEnd (Timeframe timeframe, long bucketStart) {
+      return switch (timeframe.unit()) {
+         case MINUTE, HOUR -> bucketStart + timeframe.duration().toMillis();
+         case DAY -> startOfDay(marketDate(bucketStart).plusDays(1));
+         case WEEK -> startOfDay(marketDate(bucketStart).plusWeeks(1));
+         case MONTH -> startOfDay(marketDate(bucketStart).plusMonths(timeframe.amount()));
+      };
+   }
+
+   private static double vwap (double priceVolume, long volume, double fallback) {
+      return volume > 0 ? priceVolume / volume : fallback;
+   }
+
+   private static LocalDate marketDate (long t) {
+      return Instant.ofEpochMilli(t).atZone(MARKET_ZONE).toLocalDate();
+   }
+
+   private static long startOfDay (LocalDate date) {
+      return date.atStartOfDay(MARKET_ZONE).toInstant().toEpochMilli();
+   }
+}
@@ -0,0 +1,86 @@
+package com.stockdock.bars;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.stockdock.dto.HistoricalBar;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only view of bars {@code [from, to)} of a {@link ColumnarBarSeries}. Creating a slice
+ * copies nothing, and it stays valid after the series was evicted from a cache.
+ *
+ * Serialized by {@link BarSliceSerializer} as a JSON array of bars, straight from the columns.
+ */
+@JsonSerialize (using = BarSliceSerializer.class)
+public final class BarSlice {
+
+   private final ColumnarBarSeries series;
+   private final int from;
+   private final int to;
+
+   BarSlice (ColumnarBarSeries series, int from, int to) {
+      this.series = series;
+      this.from = from;
+      this.to = to;
+   }
+
+   public int size () {
+      return to - from;
+   }
+
+   public boolean isEmpty () {
+      return to == from;
+   }
+
+   public long t (int i) {
+      return series.t(from + i);
+   }
+
+   public double o (int i) {
+      return series.o(from + i);
+   }
+
+   public double h (int i) {
+      return series.h(from + i);
+   }
+
+   public double l (int i) {
+      return series.l(from + i);
+   }
+
+   public double c (int i) {
+      return series.c(from + i);
+   }
+
+   public double vw (int i) {
+      return series.vw(from + i);
+   }
+
+   public long v (int i) {
+      return series.v(from + i);
+   }
+
+   public int n (int i) {
+      return series.n(from + i);
+   }
+
+   /**
+    * Copies the bars of this slice into {@code target}.
+    */
+   public void copyTo (BarColumns target) {
+      series.copyTo(target, from, to);
+   }
+
+   /**
+    * Materializes the bars as {@link HistoricalBar} records, for callers that need them.
+    */
+   public List<HistoricalBar> toBars () {
+      List<HistoricalBar> bars = new ArrayList<>(size());
+      for (int i = 0; i < size(); i++) {
+         bars.add(new HistoricalBar(c(i), h(i), l(i), n(i), o(i), Instant.ofEpochMilli(t(i)), v(i), vw(i)));
+      }
+      return bars;
+   }
+}
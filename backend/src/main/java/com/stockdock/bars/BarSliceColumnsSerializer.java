@@ -0,0 +1,73 @@
+package com.stockdock.bars;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Writes a {@link BarSlice} as parallel arrays, one per field:
+ * {@code {"t": [...], "o": [...], "h": [...], "l": [...], "c": [...], "v": [...], "n": [...], "vw": [...]}}.
+ * Unlike {@link BarSliceSerializer}, the keys are written once instead of once per bar.
+ * Timestamps go through the mapper's {@link Instant} serializer, like in {@link BarSliceSerializer}.
+ */
+public class BarSliceColumnsSerializer extends JsonSerializer<BarSlice> {
+
+   @Override
+   public void serialize (BarSlice bars, JsonGenerator generator, SerializerProvider provider) throws IOException {
+      JsonSerializer<Object> instantSerializer = provider.findValueSerializer(Instant.class);
+      int size = bars.size();
+
+      generator.writeStartObject(bars);
+      generator.writeArrayFieldStart("t");
+      for (int i = 0; i < size; i++) {
+         instantSerializer.serialize(Instant.ofEpochMilli(bars.t(i)), generator, provider);
+      }
+      generator.writeEndArray();
+
+      generator.writeArrayFieldStart("o");
+      for (int i = 0; i < size; i++) {
+         generator.writeNumber(bars.o(i));
+      }
+      generator.writeEndArray();
+
+      generator.writeArrayFieldStart("h");
+      for (int i = 0; i < size; i++) {
+         generator.writeNumber(bars.h(i));
+      }
+      generator.writeEndArray();
+
+      generator.writeArrayFieldStart("l");
+      for (int i = 0; i < size; i++) {
+         generator.writeNumber(bars.l(i));
+      }
+      generator.writeEndArray();
+
+      generator.writeArrayFieldStart("c");
+      for (int i = 0; i < size; i++) {
+         generator.writeNumber(bars.c(i));
+      }
+      generator.writeEndArray();
+
+      generator.writeArrayFieldStart("v");
+      for (int i = 0; i < size; i++) {
+         generator.writeNumber(bars.v(i));
+      }
+      generator.writeEndArray();
+
+      generator.writeArrayFieldStart("n");
+      for (int i = 0; i < size; i++) {
+         generator.writeNumber(bars.n(i));
+      }
+      generator.writeEndArray();
+
+      generator.writeArrayFieldStart("vw");
+      for (int i = 0; i < size; i++) {
+         generator.writeNumber(bars.vw(i));
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+   }
+}
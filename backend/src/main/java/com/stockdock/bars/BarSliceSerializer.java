@@ -0,0 +1,38 @@
+package com.stockdock.bars;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Writes a {@link BarSlice} as the same JSON array of bars that a list of
+ * {@link com.stockdock.dto.HistoricalBar} produces, reading each field from the columns.
+ * Timestamps go through the mapper's {@link Instant} serializer, so the date format follows
+ * the application's Jackson settings.
+ */
+public class BarSliceSerializer extends JsonSerializer<BarSlice> {
+
+   @Override
+   public void serialize (BarSlice bars, JsonGenerator generator, SerializerProvider provider) throws IOException {
+      JsonSerializer<Object> instantSerializer = provider.findValueSerializer(Instant.class);
+
+      generator.writeStartArray(bars, bars.size());
+      for (int i = 0; i < bars.size(); i++) {
+         generator.writeStartObject();
+         generator.writeNumberField("c", bars.c(i));
+         generator.writeNumberField("h", bars.h(i));
+         generator.writeNumberField("l", bars.l(i));
+         generator.writeNumberField("n", bars.n(i));
+         generator.writeNumberField("o", bars.o(i));
+         generator.writeFieldName("t");
+         instantSerializer.serialize(Instant.ofEpochMilli(bars.t(i)), generator, provider);
+         generator.writeNumberField("v", bars.v(i));
+         generator.writeNumberField("vw", bars.vw(i));
+         generator.writeEndObject();
+      }
+      generator.writeEndArray();
+   }
+}
@@ -0,0 +1,177 @@
+package com.stockdock.bars;
+
+import com.stockdock.dto.HistoricalBar;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+/**
+ * Immutable bar series stored column by column in a single {@link ByteBuffer}, on or off heap.
+ *
+ * Timestamps are delta-encoded as {@code int} seconds after the first bar (enough for 68 years of
+ * second-aligned bars), so a bar takes {@value #BYTES_PER_BAR} bytes instead of the 80+ bytes of a
+ * {@link HistoricalBar} record with its boxed {@link java.time.Instant}. Columns are read with
+ * absolute gets only, so one series can be read by any number of threads, and
+ * {@link #slice(long, long)} hands out views of it without copying.
+ */
+public final class ColumnarBarSeries {
+
+   /** t (int delta) + o, h, l, c, vw (double) + v (long) + n (int). */
+   public static final int BYTES_PER_BAR = 4 + 5 * 8 + 8 + 4;
+
+   public static final ColumnarBarSeries EMPTY = of(new BarColumns(1), false);
+
+   private final ByteBuffer buffer;
+   private final int size;
+   private final long baseTime;
+   // Byte offset of each column in the buffer
+   private final int tOffset;
+   private final int oOffset;
+   private final int hOffset;
+   private final int lOffset;
+   private final int cOffset;
+   private final int vwOffset;
+   private final int vOffset;
+   private final int nOffset;
+
+   private ColumnarBarSeries (ByteBuffer buffer, int size, long baseTime) {
+      this.buffer = buffer;
+      this.size = size;
+      this.baseTime = baseTime;
+      this.tOffset = 0;
+      this.oOffset = tOffset + 4 * size;
+      this.hOffset = oOffset + 8 * size;
+      this.lOffset = hOffset + 8 * size;
+      this.cOffset = lOffset + 8 * size;
+      this.vwOffset = cOffset + 8 * size;
+      this.vOffset = vwOffset + 8 * size;
+      this.nOffset = vOffset + 8 * size;
+   }
+
+   /**
+    * Encodes bars into a new series.
+    *
+    * @param bars    Bars in strictly increasing time order.
+    * @param offHeap Whether to allocate the columns outside the Java heap (direct buffer).
+    * @return The encoded series.
+    * @throws IllegalArgumentException if the timestamps are not whole seconds, not increasing,
+    *                                  or span more than an {@code int} of seconds.
+    */
+   public static ColumnarBarSeries of (BarColumns bars, boolean offHeap) {
+      int size = bars.size();
+      ByteBuffer buffer = (offHeap ? ByteBuffer.allocateDirect(Math.max(1, size * BYTES_PER_BAR))
+          : ByteBuffer.allocate(size * BYTES_PER_BAR)).order(ByteOrder.nativeOrder());
+      long baseTime = size == 0 ? 0 : bars.t(0);
+      ColumnarBarSeries series = new ColumnarBarSeries(buffer, size, baseTime);
+
+      long previous = Long.MIN_VALUE;
+      for (int i = 0; i < size; i++) {
+         long t = bars.t(i);
+         long deltaSeconds = (t - baseTime) / 1000;
+         if (t <= previous || (t - baseTime) % 1000 != 0 || deltaSeconds > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bar timestamps must be increasing whole seconds: " + t);
+         }
+         previous = t;
+         buffer.putInt(series.tOffset + 4 * i, (int) deltaSeconds);
+         buffer.putDouble(series.oOffset + 8 * i, bars.o(i));
+         buffer.putDouble(series.hOffset + 8 * i, bars.h(i));
+         buffer.putDouble(series.lOffset + 8 * i, bars.l(i));
+         buffer.putDouble(series.cOffset + 8 * i, bars.c(i));
+         buffer.putDouble(series.vwOffset + 8 * i, bars.vw(i));
+         buffer.putLong(series.vOffset + 8 * i, bars.v(i));
+         buffer.putInt(series.nOffset + 4 * i, bars.n(i));
+      }
+      return series;
+   }
+
+   public static ColumnarBarSeries of (List<HistoricalBar> bars, boolean offHeap) {
+      return of(BarColumns.of(bars), offHeap);
+   }
+
+   public int size () {
+      return size;
+   }
+
+   /**
+    * Memory held by the columns.
+    */
+   public long sizeInBytes () {
+      return buffer.capacity();
+   }
+
+   public boolean isOffHeap () {
+      return buffer.isDirect();
+   }
+
+   public long t (int i) {
+      return baseTime + 1000L * buffer.getInt(tOffset + 4 * i);
+   }
+
+   public double o (int i) {
+      return buffer.getDouble(oOffset + 8 * i);
+   }
+
+   public double h (int i) {
+      return buffer.getDouble(hOffset + 8 * i);
+   }
+
+   public double l (int i) {
+      return buffer.getDouble(lOffset + 8 * i);
+   }
+
+   public double c (int i) {
+      return buffer.getDouble(cOffset + 8 * i);
+   }
+
+   public double vw (int i) {
+      return buffer.getDouble(vwOffset + 8 * i);
+   }
+
+   public long v (int i) {
+      return buffer.getLong(vOffset + 8 * i);
+   }
+
+   public int n (int i) {
+      return buffer.getInt(nOffset + 4 * i);
+   }
+
+   /**
+    * Index of the first bar at or after {@code timeMillis} ({@link #size()} if there is none).
+    */
+   public int indexAtOrAfter (long timeMillis) {
+      int low = 0;
+      int high = size;
+      while (low < high) {
+         int mid = (low + high) >>> 1;
+         if (t(mid) < timeMillis) {
+            low = mid + 1;
+         } else {
+            high = mid;
+         }
+      }
+      return low;
+   }
+
+   /**
+    * View of the bars with {@code fromMillis <= t <= toMillis}, sharing this series' columns.
+    */
+   public BarSlice slice (long fromMillis, long toMillis) {
+      int from = indexAtOrAfter(fromMillis);
+      int to = toMillis == Long.MAX_VALUE ? size : indexAtOrAfter(toMillis + 1);
+      return new BarSlice(this, from, Math.max(from, to));
+   }
+
+   public BarSlice all () {
+      return new BarSlice(this, 0, size);
+   }
+
+   /**
+    * Copies bars {@code [from, to)} into {@code target}, e.g. to merge series.
+    */
+   public void copyTo (BarColumns target, int from, int to) {
+      for (int i = from; i < to; i++) {
+         target.add(t(i), o(i), h(i), l(i), c(i), v(i), n(i), vw(i));
+      }
+   }
+}
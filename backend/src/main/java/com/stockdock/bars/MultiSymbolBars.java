@@ -0,0 +1,15 @@
+package com.stockdock.bars;
+
+import java.util.Map;
+
+/**
+ * Historical bars of several symbols, as read from Alpaca's multi-symbol bars endpoint.
+ */
+public record MultiSymbolBars(
+    Map<String, BarColumns> bars, // Symbol -> bars in timestamp order, only symbols with bars
+    Map<String, String> errors    // Symbol -> reason, for symbols whose bars could not be fetched
+) {
+   public MultiSymbolBars {
+      errors = errors == null ? Map.of() : errors;
+   }
+}
@@ -0,0 +1,52 @@
+package com.stockdock.bars;
+
+import com.stockdock.exceptions.InvalidDateRangeException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Inclusive time range {@code [start, end]} of a bars request.
+ */
+public record TimeRange(Instant start, Instant end) {
+
+   public TimeRange {
+      if (start.isAfter(end)) {
+         throw new InvalidDateRangeException("Start date must not be after end date.");
+      }
+   }
+
+   /**
+    * Parses the {@code start}/{@code end} parameters of a bars request.
+    *
+    * @throws InvalidDateRangeException if either value cannot be parsed or start is after end.
+    */
+   public static TimeRange parse (String start, String end) {
+      return new TimeRange(parseBoundary(start), parseBoundary(end));
+   }
+
+   /**
+    * Parses a range boundary in RFC-3339 (e.g. "2025-01-01T00:00:00Z") or YYYY-MM-DD format.
+    * Plain dates are interpreted as midnight UTC, the same way Alpaca interprets them.
+    *
+    * @param value The boundary to parse.
+    * @return The boundary as an {@link Instant}.
+    * @throws InvalidDateRangeException if the value cannot be parsed.
+    */
+   public static Instant parseBoundary (String value) {
+      try {
+         if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant();
+         }
+         return Instant.parse(value);
+      } catch (DateTimeParseException e) {
+         throw new InvalidDateRangeException("Invalid date: " + value + ". Expected RFC-3339 or YYYY-MM-DD.", e);
+      }
+   }
+
+   public boolean contains (Instant t) {
+      return !t.isBefore(start) && !t.isAfter(end);
+   }
+}
@@ -0,0 +1,87 @@
+package com.stockdock.bars;
+
+import com.stockdock.exceptions.UnsupportedTimeframeException;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bar timeframe in Alpaca notation, e.g. {@code 1Min}, {@code 15Min}, {@code 1Hour}, {@code 1Day},
+ * {@code 1Week} or {@code 3Month}.
+ *
+ * @param amount The number of units per bar.
+ * @param unit   The unit of the timeframe.
+ */
+public record Timeframe(int amount, Unit unit) {
+
+   private static final Pattern PATTERN = Pattern.compile("^(\\d{1,2})(Min|T|Hour|H|Day|D|Week|W|Month|M)$");
+
+   public enum Unit {
+      MINUTE("Min", Duration.ofMinutes(1)),
+      HOUR("Hour", Duration.ofHours(1)),
+      DAY("Day", Duration.ofDays(1)),
+      WEEK("Week", Duration.ofDays(7)),
+      MONTH("Month", Duration.ofDays(31)); // Upper bound, months vary in length
+
+      private final String suffix;
+      private final Duration duration;
+
+      Unit (String suffix, Duration duration) {
+         this.suffix = suffix;
+         this.duration = duration;
+      }
+   }
+
+   public static final Timeframe ONE_MINUTE = new Timeframe(1, Unit.MINUTE);
+
+   /**
+    * Parses a timeframe string as accepted by the Alpaca bars endpoints.
+    *
+    * @param value The timeframe (e.g., "1Day", "5Min").
+    * @return The parsed timeframe.
+    * @throws UnsupportedTimeframeException if the value is not a supported timeframe.
+    */
+   public static Timeframe parse (String value) {
+      Matcher matcher = value == null ? null : PATTERN.matcher(value.trim());
+      if (matcher == null || !matcher.matches()) {
+         throw new UnsupportedTimeframeException("Unsupported timeframe: " + value
+             + ". Supported values: [1-59]Min, [1-23]Hour, 1Day, 1Week, [1,2,3,4,6,12]Month");
+      }
+
+      int amount = Integer.parseInt(matcher.group(1));
+      Unit unit = switch (matcher.group(2)) {
+         case "Min", "T" -> Unit.MINUTE;
+         case "Hour", "H" -> Unit.HOUR;
+         case "Day", "D" -> Unit.DAY;
+         case "Week", "W" -> Unit.WEEK;
+         default -> Unit.MONTH;
+      };
+
+      boolean valid = switch (unit) {
+         case MINUTE -> amount >= 1 && amount <= 59;
+         case HOUR -> amount >= 1 && amount <= 23;
+         case DAY, WEEK -> amount == 1;
+         case MONTH -> amount == 1 || amount == 2 || amount == 3 || amount == 4 || amount == 6 || amount == 12;
+      };
+      if (!valid) {
+         throw new UnsupportedTimeframeException("Unsupported timeframe: " + value);
+      }
+      return new Timeframe(amount, unit);
+   }
+
+   /**
+    * The (maximum) length of one bar. Used to decide when a bar can no longer change.
+    */
+   public Duration duration () {
+      return unit.duration.multipliedBy(amount);
+   }
+
+   /**
+    * Canonical Alpaca notation, e.g. {@code 15Min}.
+    */
+   @Override
+   public String toString () {
+      return amount + unit.suffix;
+   }
+}
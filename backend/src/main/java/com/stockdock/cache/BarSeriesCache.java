@@ -0,0 +1,207 @@
+package com.stockdock.cache;
+
+import com.stockdock.bars.BarColumns;
+import com.stockdock.bars.BarSlice;
+import com.stockdock.bars.ColumnarBarSeries;
+import com.stockdock.bars.TimeRange;
+import com.stockdock.bars.Timeframe;
+import com.stockdock.dto.BarCacheStats;
+import com.stockdock.dto.HistoricalBar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * In-memory cache of historical bars, one {@link ColumnarBarSeries} per symbol and timeframe.
+ *
+ * Each series covers one contiguous, settled time range. A request inside that range is answered
+ * with a zero-copy {@link BarSlice}; a request that overlaps or touches it only loads the missing
+ * part and the series is rebuilt to cover both. Bars that may still change (the current bar plus
+ * {@code bars.store.settle-delay-ms}, the horizon of the bar store the bars come from) are never
+ * cached, they are loaded on every request and appended to the answer.
+ *
+ * The cache is bounded by the total size of its columns ({@code bars.cache.max-bytes}); the least
+ * recently used series are evicted first. With {@code bars.cache.off-heap} the columns are kept in
+ * direct buffers, outside the garbage-collected heap.
+ */
+@Component
+public class BarSeriesCache {
+
+   private static final Logger logger = LoggerFactory.getLogger(BarSeriesCache.class);
+
+   private final long maxBytes;
+   private final boolean offHeap;
+   private final Duration settleDelay;
+
+   private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+   private long bytes; // Guarded by entries
+   // One lock per series, so concurrent misses for the same series load it only once
+   private final ConcurrentHashMap<String, ReentrantLock> seriesLocks = new ConcurrentHashMap<>();
+
+   private final LongAdder hits = new LongAdder();
+   private final LongAdder extensions = new LongAdder();
+   private final LongAdder misses = new LongAdder();
+   private final LongAdder evictions = new LongAdder();
+
+   /**
+    * A cached series and the settled range (epoch millis, inclusive) it covers.
+    */
+   private record Entry(ColumnarBarSeries series, long start, long end) {
+   }
+
+   public BarSeriesCache (
+       @Value("${bars.cache.max-bytes:67108864}") long maxBytes,
+       @Value("${bars.cache.off-heap:true}") boolean offHeap,
+       @Value("${bars.store.settle-delay-ms:900000}") long settleDelayMillis
+                         ) {
+      this.maxBytes = maxBytes;
+      this.offHeap = offHeap;
+      this.settleDelay = Duration.ofMillis(settleDelayMillis);
+   }
+
+   /**
+    * Returns the bars of a range, loading only what the cached series does not cover yet.
+    *
+    * @param symbol    The normalized stock symbol.
+    * @param timeframe The bar timeframe.
+    * @param range     The inclusive time range.
+    * @param loader    Loads the bars of a sub-range in time order (from the bar store or Alpaca).
+    * @return The bars of the range.
+    */
+   public BarSlice getBars (String symbol, Timeframe timeframe, TimeRange range, Function<TimeRange, List<HistoricalBar>> loader) {
+      long start = range.start().toEpochMilli();
+      long end = range.end().toEpochMilli();
+      long settledUntil = Instant.now().minus(timeframe.duration()).minus(settleDelay).toEpochMilli();
+      long cacheableEnd = Math.min(end, settledUntil);
+
+      if (cacheableEnd < start) {
+         // Nothing in the range has settled yet
+         BarColumns columns = new BarColumns();
+         appendNewer(columns, loader.apply(range), end);
+         return ColumnarBarSeries.of(columns, false).all();
+      }
+
+      String key = symbol + "|" + timeframe;
+      Entry entry = lookup(key);
+      if (entry != null && entry.start() <= start && entry.end() >= cacheableEnd) {
+         hits.increment();
+      } else {
+         entry = load(key, start, cacheableEnd, loader);
+      }
+
+      BarSlice settled = entry.series().slice(start, cacheableEnd);
+      if (cacheableEnd == end) {
+         return settled;
+      }
+
+      // Append the unsettled tail, which is never cached
+      List<HistoricalBar> tail = loader.apply(new TimeRange(Instant.ofEpochMilli(cacheableEnd + 1), range.end()));
+      if (tail.isEmpty()) {
+         return settled;
+      }
+      BarColumns columns = new BarColumns(settled.size() + tail.size());
+      settled.copyTo(columns);
+      appendNewer(columns, tail, end);
+      return ColumnarBarSeries.of(columns, false).all();
+   }
+
+   public BarCacheStats stats () {
+      synchronized (entries) {
+         long bars = entries.values().stream().mapToLong(entry -> entry.series().size()).sum();
+         return new BarCacheStats(entries.size(), bars, bytes, maxBytes, offHeap,
+             hits.sum(), extensions.sum(), misses.sum(), evictions.sum());
+      }
+   }
+
+   private Entry load (String key, long start, long end, Function<TimeRange, List<HistoricalBar>> loader) {
+      ReentrantLock lock = seriesLocks.computeIfAbsent(key, k -> new ReentrantLock());
+      lock.lock();
+      try {
+         Entry entry = lookup(key);
+         if (entry != null && entry.start() <= start && entry.end() >= end) {
+            hits.increment(); // Loaded by a concurrent request while we waited
+            return entry;
+         }
+
+         Entry loaded;
+         if (entry != null && start <= entry.end() + 1 && end >= entry.start() - 1) {
+            // Overlapping or adjacent: load only the missing sides and merge
+            BarColumns columns = new BarColumns(entry.series().size() + 256);
+            if (start < entry.start()) {
+               appendNewer(columns, loader.apply(range(start, entry.start() - 1)), entry.start() - 1);
+            }
+            entry.series().copyTo(columns, 0, entry.series().size());
+            if (end > entry.end()) {
+               appendNewer(columns, loader.apply(range(entry.end() + 1, end)), end);
+            }
+            loaded = new Entry(ColumnarBarSeries.of(columns, offHeap), Math.min(start, entry.start()), Math.max(end, entry.end()));
+            extensions.increment();
+         } else {
+            BarColumns columns = new BarColumns();
+            appendNewer(columns, loader.apply(range(start, end)), end);
+            loaded = new Entry(ColumnarBarSeries.of(columns, offHeap), start, end);
+            misses.increment();
+         }
+
+         store(key, loaded);
+         return loaded;
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   private Entry lookup (String key) {
+      synchronized (entries) {
+         return entries.get(key);
+      }
+   }
+
+   private void store (String key, Entry entry) {
+      long size = entry.series().sizeInBytes();
+      synchronized (entries) {
+         Entry previous = entries.remove(key);
+         if (previous != null) {
+            bytes -= previous.series().sizeInBytes();
+         }
+         if (size > maxBytes) {
+            logger.debug("Bar series {} ({} bytes) exceeds the cache budget, not cached.", key, size);
+            return;
+         }
+
+         Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+         while (bytes + size > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().series().sizeInBytes();
+            eldest.remove();
+            evictions.increment();
+         }
+         entries.put(key, entry);
+         bytes += size;
+      }
+   }
+
+   // Loaders may return bars on or outside the range boundaries; keep the series strictly increasing
+   private static void appendNewer (BarColumns columns, List<HistoricalBar> bars, long end) {
+      for (HistoricalBar bar : bars) {
+         long t = bar.t().toEpochMilli();
+         if (t <= end && (columns.size() == 0 || t > columns.t(columns.size() - 1))) {
+            columns.add(bar);
+         }
+      }
+   }
+
+   private static TimeRange range (long start, long end) {
+      return new TimeRange(Instant.ofEpochMilli(start), Instant.ofEpochMilli(end));
+   }
+}
@@ -0,0 +1,255 @@
+package com.stockdock.cache;
+
+import com.stockdock.dto.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded in-memory cache keyed by symbol with LRU eviction, a time-to-live and a
+ * stale-while-revalidate window.
+ *
+ * <ul>
+ *    <li>Entries younger than {@code ttlMillis} are served as fresh hits.</li>
+ *    <li>Entries older than the TTL but inside the stale window are still served, and a
+ *        background refresh is started for them (at most one per key at a time).</li>
+ *    <li>Entries older than {@code ttlMillis + staleMillis} are treated as misses and are
+ *        loaded synchronously by the caller.</li>
+ * </ul>
+ *
+ * Reads only take a short lock on the backing {@link LinkedHashMap}, so cached symbols are
+ * served without touching the network, no matter how slow the upstream is.
+ *
+ * @param <V> The cached value type (e.g. {@link com.stockdock.dto.StockQuote}).
+ */
+public class RefreshingCache<V> {
+
+   private static final Logger logger = LoggerFactory.getLogger(RefreshingCache.class);
+
+   private final String name;
+   private final int maxSize;
+   private final long ttlMillis;
+   private final long staleMillis;
+   private final Executor refreshExecutor;
+
+   private final LinkedHashMap<String, Entry<V>> entries;
+   private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+   private final LongAdder hits = new LongAdder();
+   private final LongAdder staleHits = new LongAdder();
+   private final LongAdder misses = new LongAdder();
+   private final LongAdder evictions = new LongAdder();
+   private final LongAdder refreshes = new LongAdder();
+   private final LongAdder refreshFailures = new LongAdder();
+
+   /**
+    * A cached value and the time it was loaded (epoch millis).
+    */
+   public record Entry<V>(V value, long loadedAt) {
+   }
+
+   public RefreshingCache (String name, int maxSize, long ttlMillis, long staleMillis, Executor refreshExecutor) {
+      if (maxSize <= 0) {
+         throw new IllegalArgumentException("Cache size must be positive.");
+      }
+      this.name = name;
+      this.maxSize = maxSize;
+      this.ttlMillis = ttlMillis;
+      this.staleMillis = staleMillis;
+      this.refreshExecutor = refreshExecutor;
+      this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+         @Override
+         protected boolean removeEldestEntry (Map.Entry<String, Entry<V>> eldest) {
+            if (size() > RefreshingCache.this.maxSize) {
+               evictions.increment();
+               return true;
+            }
+            return false;
+         }
+      };
+   }
+
+   /**
+    * Returns the cached value for a key, loading it with {@code loader} on a miss.
+    * A stale value is returned immediately and refreshed in the background.
+    *
+    * @param key    The cache key (e.g. a stock symbol).
+    * @param loader Loads the value from the source of truth.
+    * @return The cached or freshly loaded value.
+    */
+   public V get (String key, Function<String, V> loader) {
+      long now = System.currentTimeMillis();
+      Entry<V> entry;
+      synchronized (entries) {
+         entry = entries.get(key);
+      }
+
+      if (entry != null) {
+         long age = now - entry.loadedAt();
+         if (age <= ttlMillis) {
+            hits.increment();
+            return entry.value();
+         }
+         if (age <= ttlMillis + staleMillis) {
+            staleHits.increment();
+            refreshAsync(List.of(key), keys -> {
+               Map<String, V> loaded = new HashMap<>();
+               keys.forEach(k -> loaded.put(k, loader.apply(k)));
+               return loaded;
+            });
+            return entry.value();
+         }
+      }
+
+      misses.increment();
+      V value = loader.apply(key);
+      if (value != null) {
+         put(key, value);
+      }
+      return value;
+   }
+
+   /**
+    * Returns cached values for several keys at once. Missing or expired keys are loaded
+    * together with a single call to {@code bulkLoader}; stale keys are served and refreshed
+    * in the background with one bulk call.
+    *
+    * @param keys       The keys to look up.
+    * @param bulkLoader Loads several values from the source of truth.
+    * @return A map of key to value, containing every key the cache or loader could resolve.
+    */
+   public Map<String, V> getAll (Collection<String> keys, Function<Collection<String>, Map<String, V>> bulkLoader) {
+      long now = System.currentTimeMillis();
+      Map<String, V> result = new LinkedHashMap<>();
+      List<String> missing = new ArrayList<>();
+      List<String> stale = new ArrayList<>();
+
+      synchronized (entries) {
+         for (String key : keys) {
+            Entry<V> entry = entries.get(key);
+            long age = entry == null ? Long.MAX_VALUE : now - entry.loadedAt();
+            if (age <= ttlMillis) {
+               result.put(key, entry.value());
+            } else if (age <= ttlMillis + staleMillis) {
+               result.put(key, entry.value());
+               stale.add(key);
+            } else {
+               missing.add(key);
+            }
+         }
+      }
+
+      hits.add(result.size() - stale.size());
+      staleHits.add(stale.size());
+      misses.add(missing.size());
+
+      if (!missing.isEmpty()) {
+         Map<String, V> loaded = bulkLoader.apply(missing);
+         if (loaded != null) {
+            putAll(loaded);
+            missing.forEach(key -> {
+               V value = loaded.get(key);
+               if (value != null) {
+                  result.put(key, value);
+               }
+            });
+         }
+      }
+      if (!stale.isEmpty()) {
+         refreshAsync(stale, bulkLoader);
+      }
+      return result;
+   }
+
+   /**
+    * Returns the entry for a key whatever its age, without loading or counting a hit or miss.
+    * Used to serve a last known value when the source of truth is unavailable.
+    *
+    * @param key The cache key.
+    * @return The entry, or null if the key was never loaded or has been evicted.
+    */
+   public Entry<V> peek (String key) {
+      synchronized (entries) {
+         return entries.get(key);
+      }
+   }
+
+   public void put (String key, V value) {
+      Entry<V> entry = new Entry<>(value, System.currentTimeMillis());
+      synchronized (entries) {
+         entries.put(key, entry);
+      }
+   }
+
+   public void putAll (Map<String, V> values) {
+      long now = System.currentTimeMillis();
+      synchronized (entries) {
+         values.forEach((key, value) -> {
+            if (value != null) {
+               entries.put(key, new Entry<>(value, now));
+            }
+         });
+      }
+   }
+
+   public void invalidateAll () {
+      synchronized (entries) {
+         entries.clear();
+      }
+   }
+
+   /**
+    * Snapshot of the hit/miss/eviction counters for this cache.
+    */
+   public CacheStats stats () {
+      int size;
+      synchronized (entries) {
+         size = entries.size();
+      }
+      return new CacheStats(
+          name,
+          size,
+          maxSize,
+          hits.sum(),
+          staleHits.sum(),
+          misses.sum(),
+          evictions.sum(),
+          refreshes.sum(),
+          refreshFailures.sum()
+      );
+   }
+
+   private void refreshAsync (Collection<String> keys, Function<Collection<String>, Map<String, V>> bulkLoader) {
+      // Only one background refresh per key at a time
+      List<String> claimed = keys.stream().filter(refreshing::add).toList();
+      if (claimed.isEmpty()) {
+         return;
+      }
+
+      refreshExecutor.execute(() -> {
+         try {
+            Map<String, V> loaded = bulkLoader.apply(claimed);
+            if (loaded != null) {
+               putAll(loaded);
+            }
+            refreshes.increment();
+         } catch (Exception e) {
+            refreshFailures.increment();
+            logger.warn("Background refresh of {} cache failed for {}: {}", name, claimed, e.getMessage());
+         } finally {
+            claimed.forEach(refreshing::remove);
+         }
+      });
+   }
+}
@@ -0,0 +1,40 @@
+package com.stockdock.clients;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Adds the Alpaca API key headers to every request. The header values are built once
+ * instead of being set up again for each call.
+ */
+public class AlpacaAuthInterceptor implements ClientHttpRequestInterceptor {
+
+   private static final List<MediaType> ACCEPT_JSON = List.of(MediaType.APPLICATION_JSON);
+
+   private final List<String> apiKey;
+   private final List<String> apiSecret;
+
+   public AlpacaAuthInterceptor (String apiKey, String apiSecret) {
+      this.apiKey = List.of(apiKey);
+      this.apiSecret = List.of(apiSecret);
+   }
+
+   @Override
+   public ClientHttpResponse intercept (HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+       throws IOException {
+      HttpHeaders headers = request.getHeaders();
+      headers.put("APCA-API-KEY-ID", apiKey);
+      headers.put("APCA-API-SECRET-KEY", apiSecret);
+      if (headers.getAccept().isEmpty()) {
+         headers.setAccept(ACCEPT_JSON);
+      }
+      return execution.execute(request, body);
+   }
+}
@@ -0,0 +1,113 @@
+package com.stockdock.clients;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.stockdock.bars.BarColumns;
+import com.stockdock.dto.HistoricalBar;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Streaming decoder for the bar objects of Alpaca's bars endpoints
+ * ({@code {"t": "...", "o": 1.0, "h": 1.0, "l": 1.0, "c": 1.0, "v": 100, "n": 10, "vw": 1.0}}).
+ *
+ * Fields are read token by token into primitives and appended to {@link BarColumns}, without the
+ * databinding machinery, a {@link HistoricalBar} record or an {@link Instant} per bar; timestamps
+ * are parsed by {@link Rfc3339} straight from the parser's buffer. Unknown fields are skipped and
+ * missing numbers default to 0, as with databinding into {@link HistoricalBar}.
+ *
+ * Not thread-safe: use one decoder per response.
+ */
+final class AlpacaBarDecoder {
+
+   private long t;
+   private Instant time;
+   private double o;
+   private double h;
+   private double l;
+   private double c;
+   private long v;
+   private int n;
+   private double vw;
+
+   /**
+    * Reads the bar object the parser is positioned at ({@link JsonToken#START_OBJECT}) into {@code target}.
+    */
+   void decodeInto (JsonParser parser, BarColumns target) throws IOException {
+      read(parser, false);
+      target.add(t, o, h, l, c, v, n, vw);
+   }
+
+   /**
+    * Reads the bar object the parser is positioned at ({@link JsonToken#START_OBJECT}) as a record,
+    * for callers that hand out {@link HistoricalBar}s. Unlike the columns, the timestamp keeps its
+    * sub-millisecond digits.
+    */
+   HistoricalBar decode (JsonParser parser) throws IOException {
+      read(parser, true);
+      return new HistoricalBar(c, h, l, n, o, time, v, vw);
+   }
+
+   private void read (JsonParser parser, boolean asInstant) throws IOException {
+      boolean hasTime = false;
+      o = h = l = c = vw = 0;
+      v = 0;
+      n = 0;
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+         String field = parser.currentName();
+         JsonToken value = parser.nextToken();
+         if (value == JsonToken.VALUE_NULL) {
+            continue;
+         }
+         switch (field) {
+            case "t" -> {
+               if (asInstant) {
+                  time = parseInstant(parser);
+               } else {
+                  t = parseTime(parser);
+               }
+               hasTime = true;
+            }
+            case "o" -> o = parser.getDoubleValue();
+            case "h" -> h = parser.getDoubleValue();
+            case "l" -> l = parser.getDoubleValue();
+            case "c" -> c = parser.getDoubleValue();
+            case "v" -> v = parser.getValueAsLong();
+            case "n" -> n = parser.getValueAsInt();
+            case "vw" -> vw = parser.getDoubleValue();
+            default -> parser.skipChildren();
+         }
+      }
+      if (!hasTime) {
+         throw new JsonParseException(parser, "Bar without timestamp");
+      }
+   }
+
+   private static long parseTime (JsonParser parser) throws IOException {
+      checkTimeToken(parser);
+      try {
+         return Rfc3339.parseEpochMillis(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+      } catch (DateTimeParseException | ArithmeticException e) {
+         throw new JsonParseException(parser, "Invalid bar timestamp: " + parser.getText(), e);
+      }
+   }
+
+   private static Instant parseInstant (JsonParser parser) throws IOException {
+      checkTimeToken(parser);
+      try {
+         return Rfc3339.parseInstant(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+      } catch (DateTimeParseException e) {
+         throw new JsonParseException(parser, "Invalid bar timestamp: " + parser.getText(), e);
+      }
+   }
+
+   private static void checkTimeToken (JsonParser parser) throws IOException {
+      if (parser.currentToken() != JsonToken.VALUE_STRING) {
+         throw new JsonParseException(parser, "Bar timestamp is not a string");
+      }
+   }
+}
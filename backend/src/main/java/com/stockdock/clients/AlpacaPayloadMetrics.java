@@ -0,0 +1,168 @@
+package com.stockdock.clients;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records the size of every Alpaca response body as the {@code alpaca.response.size}
+ * distribution summary, tagged with the endpoint it came from.
+ *
+ * The bytes are counted while the body is read, so chunked responses without a
+ * {@code Content-Length} (such as large bar pages) are measured as well.
+ */
+public class AlpacaPayloadMetrics implements ClientHttpRequestInterceptor {
+
+   private final MeterRegistry meterRegistry;
+
+   public AlpacaPayloadMetrics (MeterRegistry meterRegistry) {
+      this.meterRegistry = meterRegistry;
+   }
+
+   @Override
+   public ClientHttpResponse intercept (HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+       throws IOException {
+      ClientHttpResponse response = execution.execute(request, body);
+      DistributionSummary summary = DistributionSummary.builder("alpaca.response.size")
+          .description("Size of Alpaca API response bodies")
+          .baseUnit("bytes")
+          .tag("endpoint", endpointOf(request.getURI().getPath()))
+          .publishPercentileHistogram()
+          .register(meterRegistry);
+      return new CountingResponse(response, summary);
+   }
+
+   /**
+    * Maps a request path to a low-cardinality endpoint name (symbols are never used as tags).
+    *
+    * @param path The request path (e.g., /v2/stocks/AAPL/quotes/latest).
+    * @return The endpoint name (e.g., latest_quote).
+    */
+   static String endpointOf (String path) {
+      if (path == null) {
+         return "other";
+      }
+      if (path.endsWith("/stocks/quotes/latest")) {
+         return "batch_quotes";
+      }
+      if (path.endsWith("/quotes/latest")) {
+         return "latest_quote";
+      }
+      if (path.endsWith("/snapshots")) {
+         return "snapshots";
+      }
+      if (path.endsWith("/snapshot")) {
+         return "snapshot";
+      }
+      if (path.endsWith("/stocks/bars")) {
+         return "multi_bars";
+      }
+      if (path.endsWith("/bars")) {
+         return "bars";
+      }
+      return "other";
+   }
+
+   // Delegates to the real response and counts the body bytes as they are read
+   private static final class CountingResponse implements ClientHttpResponse {
+
+      private final ClientHttpResponse delegate;
+      private final DistributionSummary summary;
+      private InputStream body;
+
+      private CountingResponse (ClientHttpResponse delegate, DistributionSummary summary) {
+         this.delegate = delegate;
+         this.summary = summary;
+      }
+
+      @Override
+      public HttpStatusCode getStatusCode () throws IOException {
+         return delegate.getStatusCode();
+      }
+
+      @Override
+      public String getStatusText () throws IOException {
+         return delegate.getStatusText();
+      }
+
+      @Override
+      public HttpHeaders getHeaders () {
+         return delegate.getHeaders();
+      }
+
+      @Override
+      public InputStream getBody () throws IOException {
+         if (body == null) {
+            body = new CountingInputStream(delegate.getBody(), summary);
+         }
+         return body;
+      }
+
+      @Override
+      public void close () {
+         if (body != null) {
+            try {
+               body.close();
+            } catch (IOException ignored) {
+               // The delegate is closed below either way
+            }
+         }
+         delegate.close();
+      }
+   }
+
+   private static final class CountingInputStream extends FilterInputStream {
+
+      private final DistributionSummary summary;
+      private final AtomicBoolean recorded = new AtomicBoolean();
+      private long count;
+
+      private CountingInputStream (InputStream in, DistributionSummary summary) {
+         super(in);
+         this.summary = summary;
+      }
+
+      @Override
+      public int read () throws IOException {
+         int b = super.read();
+         if (b >= 0) {
+            count++;
+         }
+         return b;
+      }
+
+      @Override
+      public int read (byte[] b, int off, int len) throws IOException {
+         int n = super.read(b, off, len);
+         if (n > 0) {
+            count += n;
+         }
+         return n;
+      }
+
+      @Override
+      public long skip (long n) throws IOException {
+         long skipped = super.skip(n);
+         count += skipped;
+         return skipped;
+      }
+
+      @Override
+      public void close () throws IOException {
+         if (recorded.compareAndSet(false, true)) {
+            summary.record(count);
+         }
+         super.close();
+      }
+   }
+}
@@ -0,0 +1,91 @@
+package com.stockdock.clients;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Splits a symbol list into chunks and runs one upstream call per chunk concurrently on
+ * virtual threads, with at most {@code maxConcurrency} calls in flight at once.
+ *
+ * A failing chunk does not fail the others: every chunk reports either its value or its error,
+ * so callers can merge partial results.
+ */
+public final class ChunkedFanOut {
+
+   public record ChunkResult<R>(
+       List<String> symbols, // Symbols of this chunk
+       R value,              // Result of the call, null if it failed
+       Exception error       // Failure of the call, null if it succeeded
+   ) {
+      public boolean failed () {
+         return error != null;
+      }
+   }
+
+   private ChunkedFanOut () {
+   }
+
+   public static List<List<String>> partition (List<String> symbols, int chunkSize) {
+      if (chunkSize <= 0) {
+         throw new IllegalArgumentException("Chunk size must be positive.");
+      }
+      List<List<String>> chunks = new ArrayList<>();
+      for (int from = 0; from < symbols.size(); from += chunkSize) {
+         chunks.add(List.copyOf(symbols.subList(from, Math.min(symbols.size(), from + chunkSize))));
+      }
+      return chunks;
+   }
+
+   /**
+    * Runs {@code call} once per chunk and returns the results in chunk order.
+    *
+    * @param symbols        The full symbol list.
+    * @param chunkSize      The maximum number of symbols per call.
+    * @param maxConcurrency The maximum number of calls running at the same time.
+    * @param call           The upstream call for one chunk.
+    * @return One {@link ChunkResult} per chunk.
+    */
+   public static <R> List<ChunkResult<R>> run (
+       List<String> symbols,
+       int chunkSize,
+       int maxConcurrency,
+       Function<List<String>, R> call
+                                              ) {
+      List<List<String>> chunks = partition(symbols, chunkSize);
+      Semaphore permits = new Semaphore(Math.max(1, maxConcurrency));
+      List<ChunkResult<R>> results = new ArrayList<>(chunks.size());
+
+      try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+         List<Future<R>> futures = new ArrayList<>(chunks.size());
+         for (List<String> chunk : chunks) {
+            futures.add(executor.submit(() -> {
+               permits.acquire();
+               try {
+                  return call.apply(chunk);
+               } finally {
+                  permits.release();
+               }
+            }));
+         }
+
+         for (int i = 0; i < chunks.size(); i++) {
+            try {
+               results.add(new ChunkResult<>(chunks.get(i), futures.get(i).get(), null));
+            } catch (ExecutionException e) {
+               Exception cause = e.getCause() instanceof Exception ex ? ex : e;
+               results.add(new ChunkResult<>(chunks.get(i), null, cause));
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               results.add(new ChunkResult<>(chunks.get(i), null, e));
+            }
+         }
+      }
+      return results;
+   }
+}
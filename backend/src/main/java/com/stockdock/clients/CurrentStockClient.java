@@ -1,113 +1,230 @@
 
 package com.stockdock.clients;
 
-import com.stockdock.config.SymbolConfig;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockdock.bars.BarColumns;
+import com.stockdock.bars.MultiSymbolBars;
+import com.stockdock.dto.HistoricalBar;
 import com.stockdock.dto.HistoricalBarsResponse;
+import com.stockdock.dto.StockQuote;
 import com.stockdock.dto.StockQuoteResponse;
 import com.stockdock.dto.StockQuotes;
 import com.stockdock.dto.StockSnapshotResponse;
-import com.stockdock.services.CurrentStockService;
+import com.stockdock.dto.StockSnapshots;
+import com.stockdock.exceptions.AlpacaApiException;
+import com.stockdock.resilience.AlpacaCallExecutor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
-import org.springframework.web.util.UriComponentsBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.net.URI;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Service
 public class CurrentStockClient {
 
    private final RestClient restClient;
-   private final SymbolConfig symbolConfig; // Inject Symbols list
-   private static final Logger logger = LoggerFactory.getLogger(CurrentStockService.class);
+   private final SingleFlight singleFlight; // Coalesces identical concurrent calls
+   private final AlpacaCallExecutor alpacaCalls; // Rate limit, retries and circuit breakers
+   private static final Logger logger = LoggerFactory.getLogger(CurrentStockClient.class);
 
-   private final String apiKey;
-   private final String apiSecret;
-   private final String baseUrl;
-   private final String paperUrl;
+   private final int quotesChunkSize;
+   private final int quotesMaxConcurrency;
+   private final int snapshotsChunkSize;
+   private final int snapshotsMaxConcurrency;
+   private final int barsPageLimit;
+   private final int barsSymbolsChunkSize;
+   private final int barsMaxConcurrency;
+   private final ObjectMapper objectMapper;
+
+   private static final ParameterizedTypeReference<Map<String, StockSnapshotResponse>> SNAPSHOTS_TYPE =
+       new ParameterizedTypeReference<>() {
+       };
+
+   private static final String BARS_URI_TEMPLATE =
+       "/v2/stocks/{symbol}/bars?timeframe={timeframe}&start={start}&end={end}&limit={limit}";
+
+   private static final String MULTI_BARS_URI_TEMPLATE =
+       "/v2/stocks/bars?symbols={symbols}&timeframe={timeframe}&start={start}&end={end}&limit={limit}";
 
    public CurrentStockClient (
-       SymbolConfig symbolConfig, // Add symbols list to constructor
-       @Value("${alpaca.api.key}") String apiKey,
-       @Value("${alpaca.api.secret}") String apiSecret,
-       @Value("${alpaca.api.base.url}") String baseUrl,
-       @Value("${alpaca.api.paper.url}") String paperUrl
+       SingleFlight singleFlight,
+       AlpacaCallExecutor alpacaCalls,
+       ObjectMapper objectMapper,
+       RestClient alpacaRestClient, // Pooled, authenticated transport (see RestClientConfig)
+       @Value("${alpaca.quotes.chunk-size:200}") int quotesChunkSize,
+       @Value("${alpaca.quotes.max-concurrency:4}") int quotesMaxConcurrency,
+       @Value("${alpaca.snapshots.chunk-size:200}") int snapshotsChunkSize,
+       @Value("${alpaca.snapshots.max-concurrency:4}") int snapshotsMaxConcurrency,
+       @Value("${alpaca.bars.page-limit:10000}") int barsPageLimit,
+       @Value("${alpaca.bars.symbols-chunk-size:100}") int barsSymbolsChunkSize,
+       @Value("${alpaca.bars.max-concurrency:4}") int barsMaxConcurrency
                              ) {
-      this.restClient = RestClient.builder().build();
-      this.symbolConfig = symbolConfig;
-      this.apiKey = apiKey;
-      this.apiSecret = apiSecret;
-      this.baseUrl = baseUrl;
-      this.paperUrl = paperUrl;
+      // Calls go through URI templates, so http.client.requests has one series per Alpaca
+      // endpoint (not per symbol), tagged with the status code
+      this.restClient = alpacaRestClient;
+      this.singleFlight = singleFlight;
+      this.alpacaCalls = alpacaCalls;
+      this.quotesChunkSize = quotesChunkSize;
+      this.quotesMaxConcurrency = quotesMaxConcurrency;
+      this.snapshotsChunkSize = snapshotsChunkSize;
+      this.snapshotsMaxConcurrency = snapshotsMaxConcurrency;
+      this.barsPageLimit = barsPageLimit;
+      this.barsSymbolsChunkSize = barsSymbolsChunkSize;
+      this.barsMaxConcurrency = barsMaxConcurrency;
+      this.objectMapper = objectMapper;
    }
 
    // Fetch single quote by symbol
    public StockQuoteResponse getSingleQuoteBySymbol (String symbol) {
-      URI uri = UriComponentsBuilder.fromUriString(baseUrl)
-          .path("/v2/stocks/{symbol}/quotes/latest")
-          .buildAndExpand(symbol)
-          .toUri();
-      System.out.println("Constructed URI: " + uri);
-
-      // Make API Call
-      return restClient.get()
-          .uri(uri)
-          .headers(httpHeaders -> {
-             httpHeaders.set("APCA-API-KEY-ID", apiKey);
-             httpHeaders.set("APCA-API-SECRET-KEY", apiSecret);
-             httpHeaders.set("Accept", "application/json");
-          })
+      logger.debug("Fetching latest quote for symbol: {}", symbol);
+
+      // Make API Call (shared with concurrent callers for the same symbol)
+      return singleFlight.execute("quote:" + symbol, () -> alpacaCalls.execute("latest_quote", () -> restClient.get()
+          .uri("/v2/stocks/{symbol}/quotes/latest", symbol)
           .retrieve()
-          .body(StockQuoteResponse.class); // Convert response to StockQuoteResponse
+          .body(StockQuoteResponse.class))); // Convert response to StockQuoteResponse
+   }
+
+   /**
+    * Fetch latest quotes for the given symbols.
+    *
+    * Up to {@code alpaca.quotes.chunk-size} symbols are fetched with a single call. Larger lists
+    * are split into chunks that are fetched concurrently on virtual threads (at most
+    * {@code alpaca.quotes.max-concurrency} at once) and merged into one {@link StockQuotes}.
+    * If a chunk fails, its symbols are reported in {@link StockQuotes#errors()} instead of
+    * failing the whole call; only if every chunk fails is the first error rethrown.
+    *
+    * @param symbols The stock symbols to fetch (e.g., ["AAPL", "MSFT"]).
+    * @return StockQuotes with the quotes of all chunks that succeeded.
+    */
+   public StockQuotes getQuotes (List<String> symbols) {
+      if (symbols.size() <= quotesChunkSize) {
+         return getQuotesChunk(symbols);
+      }
+
+      List<ChunkedFanOut.ChunkResult<StockQuotes>> results =
+          ChunkedFanOut.run(symbols, quotesChunkSize, quotesMaxConcurrency, this::getQuotesChunk);
+
+      String currency = null;
+      Map<String, StockQuote> quotes = new LinkedHashMap<>();
+      Map<String, String> errors = new LinkedHashMap<>();
+      for (ChunkedFanOut.ChunkResult<StockQuotes> result : results) {
+         if (result.failed()) {
+            logger.warn("Quote chunk of {} symbols failed: {}", result.symbols().size(), result.error().getMessage());
+            result.symbols().forEach(symbol -> errors.put(symbol, "Quote request failed: " + result.error().getMessage()));
+            continue;
+         }
+         if (result.value() == null) {
+            continue;
+         }
+         if (currency == null) {
+            currency = result.value().currency();
+         }
+         if (result.value().quotes() != null) {
+            quotes.putAll(result.value().quotes());
+         }
+         errors.putAll(result.value().errors());
+      }
+
+      if (quotes.isEmpty() && !errors.isEmpty()) {
+         Exception first = results.stream().filter(ChunkedFanOut.ChunkResult::failed).findFirst().orElseThrow().error();
+         throw first instanceof RuntimeException runtime ? runtime : new AlpacaApiException(first.getMessage());
+      }
+
+      logger.info("Fetched {} quotes in {} chunks ({} symbols failed).", quotes.size(), results.size(), errors.size());
+      return new StockQuotes(currency, quotes, errors);
    }
 
-   // Fetch all predefined quotes
-   public StockQuotes getAllQuotes () {
-      // Use predefined list of symbols from Config
-      List<String> symbols = symbolConfig.getPredefined();
+   // Fetch latest quotes for the given symbols in a single call
+   private StockQuotes getQuotesChunk (List<String> symbols) {
       String symbolsListAsQueryParam = String.join(",", symbols);
 
-      // Build URI
-      URI uri = UriComponentsBuilder.fromUriString(baseUrl)
-          .path("/v2/stocks/quotes/latest")
-          .queryParam("symbols", symbolsListAsQueryParam) // Add symbols as query param
-          .build()
-          .toUri();
-      System.out.println("Final URI: " + uri);
-
-      // Make API Call
-      return restClient.get()
-          .uri(uri)
-          .headers(httpHeaders -> {
-             httpHeaders.set("APCA-API-KEY-ID", apiKey);
-             httpHeaders.set("APCA-API-SECRET-KEY", apiSecret);
-             httpHeaders.set("Accept", "application/json");
-          })
+      logger.debug("Fetching latest quotes for {} symbols.", symbols.size());
+
+      // Make API Call (shared with concurrent callers for the same symbol list)
+      return singleFlight.execute("quotes:" + symbolsListAsQueryParam, () -> alpacaCalls.execute("batch_quotes", () -> restClient.get()
+          .uri("/v2/stocks/quotes/latest?symbols={symbols}", symbolsListAsQueryParam) // Add symbols as query param
           .retrieve()
-          .body(StockQuotes.class); // Convert response to DTO
+          .body(StockQuotes.class))); // Convert response to DTO
    }
 
    // Fetch detailed data for a single stock
    public StockSnapshotResponse getStockSnapshot (String symbol) {
-      URI uri = UriComponentsBuilder.fromUriString(baseUrl)
-          .path("/v2/stocks/{symbol}/snapshot") // Use the snapshot endpoint
-          .buildAndExpand(symbol)
-          .toUri();
-
-      System.out.println("Fetching snapshot for symbol: " + symbol);
-
-      // Make API Call
-      return restClient.get()
-          .uri(uri)
-          .headers(httpHeaders -> {
-             httpHeaders.set("APCA-API-KEY-ID", apiKey);
-             httpHeaders.set("APCA-API-SECRET-KEY", apiSecret);
-             httpHeaders.set("Accept", "application/json");
-          })
+      logger.debug("Fetching snapshot for symbol: {}", symbol);
+
+      // Make API Call (shared with concurrent callers for the same symbol)
+      return singleFlight.execute("snapshot:" + symbol, () -> alpacaCalls.execute("snapshot", () -> restClient.get()
+          .uri("/v2/stocks/{symbol}/snapshot", symbol) // Use the snapshot endpoint
           .retrieve()
-          .body(StockSnapshotResponse.class); // Convert response to DTO
+          .body(StockSnapshotResponse.class))); // Convert response to DTO
+   }
+
+   /**
+    * Fetch snapshots for several symbols with Alpaca's multi-symbol snapshots endpoint.
+    *
+    * Like {@link #getQuotes}, lists longer than {@code alpaca.snapshots.chunk-size} are split into
+    * chunks fetched concurrently (at most {@code alpaca.snapshots.max-concurrency} at once); symbols
+    * of failed chunks are reported in {@link StockSnapshots#errors()}, and only if every chunk fails
+    * is the first error rethrown.
+    * Symbols Alpaca has no snapshot for are left out of the result.
+    *
+    * @param symbols The stock symbols to fetch (e.g., ["AAPL", "MSFT"]).
+    * @return StockSnapshots with the snapshots of all chunks that succeeded.
+    */
+   public StockSnapshots getStockSnapshots (List<String> symbols) {
+      List<ChunkedFanOut.ChunkResult<Map<String, StockSnapshotResponse>>> results =
+          ChunkedFanOut.run(symbols, snapshotsChunkSize, snapshotsMaxConcurrency, this::getSnapshotsChunk);
+
+      Map<String, StockSnapshotResponse> snapshots = new LinkedHashMap<>();
+      Map<String, String> errors = new LinkedHashMap<>();
+      for (ChunkedFanOut.ChunkResult<Map<String, StockSnapshotResponse>> result : results) {
+         if (result.failed()) {
+            logger.warn("Snapshot chunk of {} symbols failed: {}", result.symbols().size(), result.error().getMessage());
+            result.symbols().forEach(symbol -> errors.put(symbol, "Snapshot request failed: " + result.error().getMessage()));
+         } else if (result.value() != null) {
+            snapshots.putAll(result.value());
+         }
+      }
+
+      if (snapshots.isEmpty() && !errors.isEmpty()) {
+         Exception first = results.stream().filter(ChunkedFanOut.ChunkResult::failed).findFirst().orElseThrow().error();
+         throw first instanceof RuntimeException runtime ? runtime : new AlpacaApiException(first.getMessage());
+      }
+
+      logger.info("Fetched {} snapshots in {} chunks ({} symbols failed).", snapshots.size(), results.size(), errors.size());
+      return new StockSnapshots(snapshots, errors);
+   }
+
+   // Fetch snapshots for the given symbols in a single call; the response is keyed by symbol
+   private Map<String, StockSnapshotResponse> getSnapshotsChunk (List<String> symbols) {
+      String symbolsListAsQueryParam = String.join(",", symbols);
+      logger.debug("Fetching snapshots for {} symbols.", symbols.size());
+
+      Map<String, StockSnapshotResponse> response = singleFlight.execute("snapshots:" + symbolsListAsQueryParam,
+          () -> alpacaCalls.execute("snapshots", () -> restClient.get()
+              .uri("/v2/stocks/snapshots?symbols={symbols}", symbolsListAsQueryParam)
+              .retrieve()
+              .body(SNAPSHOTS_TYPE)));
+
+      Map<String, StockSnapshotResponse> snapshots = new LinkedHashMap<>();
+      if (response != null) {
+         response.forEach((symbol, snapshot) -> {
+            if (snapshot != null) {
+               snapshots.put(symbol, snapshot.withSymbol(symbol));
+            }
+         });
+      }
+      return snapshots;
    }
 
    /**
@@ -116,6 +233,8 @@ public class CurrentStockClient {
     * This method retrieves historical bar data for a specific stock symbol
     * within a given timeframe and date range. The bars include aggregated
     * data such as open, high, low, close prices, volume, and more.
+    * All pages of the range are followed, so large ranges are no longer truncated;
+    * use {@link #streamHistoricalBars} to avoid buffering them in memory.
     *
     * @param symbol    The stock symbol to fetch (e.g., "AAPL").
     * @param timeframe The aggregation timeframe for the bars (e.g., "1Day", "1Week", "1Month").
@@ -129,24 +248,242 @@ public class CurrentStockClient {
     * @throws IllegalArgumentException if any required parameter is null or empty.
     */
    public HistoricalBarsResponse getHistoricalBars(String symbol, String timeframe, String start, String end) {
-      URI uri = UriComponentsBuilder.fromUriString(baseUrl)
-          .path("/v2/stocks/{symbol}/bars")
-          .queryParam("timeframe", timeframe)
-          .queryParam("start", start)
-          .queryParam("end", end)
-          .buildAndExpand(symbol)
-          .toUri();
-
-      logger.info("Calling Alpaca API for historical bars: {}", uri);
-
-      return restClient.get()
-          .uri(uri)
-          .headers(httpHeaders -> {
-             httpHeaders.set("APCA-API-KEY-ID", apiKey);
-             httpHeaders.set("APCA-API-SECRET-KEY", apiSecret);
-             httpHeaders.set("Accept", "application/json");
-          })
-          .retrieve()
-          .body(HistoricalBarsResponse.class);
+      String key = String.join(":", "bars", symbol, timeframe, start, end);
+      return singleFlight.execute(key, () -> {
+         List<HistoricalBar> bars = new ArrayList<>();
+         streamHistoricalBars(symbol, timeframe, start, end, bars::add);
+         return new HistoricalBarsResponse(bars);
+      });
+   }
+
+   /**
+    * Stream historical stock bars from the Alpaca API, following {@code next_page_token}
+    * until the whole range has been read.
+    *
+    * Each page is parsed incrementally from the response body and every bar is handed to
+    * {@code sink} as soon as it is read. The next page is only requested once the current
+    * one has been consumed, so at most one bar is held in memory regardless of the range.
+    *
+    * @param symbol    The stock symbol to fetch (e.g., "AAPL").
+    * @param timeframe The aggregation timeframe for the bars (e.g., "1Min", "1Day").
+    * @param start     The start of the range in RFC-3339 or YYYY-MM-DD format.
+    * @param end       The end of the range in RFC-3339 or YYYY-MM-DD format.
+    * @param sink      Receives the bars in timestamp order.
+    * @return The number of bars streamed.
+    * @throws AlpacaApiException if Alpaca responds with an error status or an unreadable body.
+    */
+   public long streamHistoricalBars(String symbol, String timeframe, String start, String end, Consumer<HistoricalBar> sink) {
+      long count = 0;
+      String pageToken = null;
+      int pages = 0;
+
+      do {
+         Map<String, Object> uriVariables = new HashMap<>();
+         uriVariables.put("symbol", symbol);
+         uriVariables.put("timeframe", timeframe);
+         uriVariables.put("start", start);
+         uriVariables.put("end", end);
+         uriVariables.put("limit", barsPageLimit);
+         String uriTemplate = BARS_URI_TEMPLATE;
+         if (pageToken != null) {
+            uriVariables.put("pageToken", pageToken);
+            uriTemplate += "&page_token={pageToken}";
+         }
+
+         logger.info("Calling Alpaca API for historical bars of {} (page {}).", symbol, pages + 1);
+
+         // Only the request is retried: once bars were handed to the sink, a failure is final
+         String template = uriTemplate;
+         BarPage page = alpacaCalls.execute("bars", () -> restClient.get()
+             .uri(template, uriVariables)
+             .exchange((request, response) -> {
+                if (response.getStatusCode().isError()) {
+                   throw new AlpacaApiException("Alpaca API returned " + response.getStatusCode()
+                       + " for historical bars of " + symbol, response.getStatusCode().value());
+                }
+                try (JsonParser parser = objectMapper.createParser(response.getBody())) {
+                   return readBarPage(parser, sink);
+                } catch (IOException e) {
+                   throw new AlpacaApiException("Failed to read historical bars of " + symbol + ": " + e.getMessage());
+                }
+             }));
+
+         count += page.bars();
+         pageToken = page.nextPageToken();
+         pages++;
+      } while (pageToken != null && !pageToken.isBlank());
+
+      logger.info("Streamed {} historical bars for {} in {} page(s).", count, symbol, pages);
+      return count;
+   }
+
+   /**
+    * Fetch historical bars for several symbols with Alpaca's multi-symbol bars endpoint,
+    * following {@code next_page_token} until the whole range has been read.
+    *
+    * A page holds up to {@code alpaca.bars.page-limit} bars in total, symbol after symbol, so a
+    * handful of calls replace one call (or more) per symbol. Lists longer than
+    * {@code alpaca.bars.symbols-chunk-size} are split into chunks that are paged through
+    * concurrently (at most {@code alpaca.bars.max-concurrency} at once); like {@link #getQuotes},
+    * symbols of failed chunks are reported in {@link MultiSymbolBars#errors()}, and only if every
+    * chunk fails is the first error rethrown.
+    *
+    * @param symbols   The stock symbols to fetch (e.g., ["AAPL", "MSFT"]).
+    * @param timeframe The aggregation timeframe for the bars (e.g., "1Min", "1Day").
+    * @param start     The start of the range in RFC-3339 or YYYY-MM-DD format.
+    * @param end       The end of the range in RFC-3339 or YYYY-MM-DD format.
+    * @return MultiSymbolBars with the bars of every symbol Alpaca has bars for.
+    * @throws AlpacaApiException if Alpaca responds with an error status or an unreadable body.
+    */
+   public MultiSymbolBars getHistoricalBars(List<String> symbols, String timeframe, String start, String end) {
+      List<ChunkedFanOut.ChunkResult<Map<String, BarColumns>>> results = ChunkedFanOut.run(
+          symbols, barsSymbolsChunkSize, barsMaxConcurrency, chunk -> getBarsChunk(chunk, timeframe, start, end));
+
+      Map<String, BarColumns> bars = new LinkedHashMap<>();
+      Map<String, String> errors = new LinkedHashMap<>();
+      for (ChunkedFanOut.ChunkResult<Map<String, BarColumns>> result : results) {
+         if (result.failed()) {
+            logger.warn("Bars chunk of {} symbols failed: {}", result.symbols().size(), result.error().getMessage());
+            result.symbols().forEach(symbol -> errors.put(symbol, "Bars request failed: " + result.error().getMessage()));
+         } else {
+            bars.putAll(result.value());
+         }
+      }
+
+      if (bars.isEmpty() && !errors.isEmpty()) {
+         Exception first = results.stream().filter(ChunkedFanOut.ChunkResult::failed).findFirst().orElseThrow().error();
+         throw first instanceof RuntimeException runtime ? runtime : new AlpacaApiException(first.getMessage());
+      }
+      return new MultiSymbolBars(bars, errors);
+   }
+
+   // Page through the bars of the given symbols; the result is shared with concurrent identical calls
+   private Map<String, BarColumns> getBarsChunk(List<String> symbols, String timeframe, String start, String end) {
+      String symbolsListAsQueryParam = String.join(",", symbols);
+      String key = String.join(":", "multibars", symbolsListAsQueryParam, timeframe, start, end);
+      return singleFlight.execute(key, () -> {
+         Map<String, BarColumns> bars = new LinkedHashMap<>();
+         String pageToken = null;
+         int pages = 0;
+         long count = 0;
+
+         do {
+            Map<String, Object> uriVariables = new HashMap<>();
+            uriVariables.put("symbols", symbolsListAsQueryParam);
+            uriVariables.put("timeframe", timeframe);
+            uriVariables.put("start", start);
+            uriVariables.put("end", end);
+            uriVariables.put("limit", barsPageLimit);
+            String uriTemplate = MULTI_BARS_URI_TEMPLATE;
+            if (pageToken != null) {
+               uriVariables.put("pageToken", pageToken);
+               uriTemplate += "&page_token={pageToken}";
+            }
+
+            logger.debug("Calling Alpaca API for historical bars of {} symbols (page {}).", symbols.size(), pages + 1);
+
+            // Each page is read into its own columns, so a retried request cannot add bars twice
+            String template = uriTemplate;
+            MultiBarPage page = alpacaCalls.execute("multi_bars", () -> restClient.get()
+                .uri(template, uriVariables)
+                .exchange((request, response) -> {
+                   if (response.getStatusCode().isError()) {
+                      throw new AlpacaApiException("Alpaca API returned " + response.getStatusCode()
+                          + " for historical bars of " + symbols.size() + " symbols", response.getStatusCode().value());
+                   }
+                   try (JsonParser parser = objectMapper.createParser(response.getBody())) {
+                      return readMultiBarPage(parser);
+                   } catch (IOException e) {
+                      throw new AlpacaApiException("Failed to read historical bars: " + e.getMessage());
+                   }
+                }));
+
+            // A symbol's bars may continue on the next page
+            page.bars().forEach((symbol, columns) -> {
+               BarColumns existing = bars.putIfAbsent(symbol, columns);
+               if (existing != null) {
+                  existing.addAll(columns);
+               }
+            });
+            count += page.count();
+            pageToken = page.nextPageToken();
+            pages++;
+         } while (pageToken != null && !pageToken.isBlank());
+
+         logger.info("Fetched {} historical bars for {} symbols in {} page(s).", count, symbols.size(), pages);
+         return bars;
+      });
+   }
+
+   // Result of reading one page of the multi-symbol endpoint
+   private record MultiBarPage(Map<String, BarColumns> bars, long count, String nextPageToken) {
+   }
+
+   // Reads {"bars": {"AAPL": [...], ...}, "next_page_token": "..."} into one set of columns per symbol
+   private MultiBarPage readMultiBarPage(JsonParser parser) throws IOException {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+         throw new AlpacaApiException("Unexpected historical bars response from Alpaca API.");
+      }
+
+      AlpacaBarDecoder decoder = new AlpacaBarDecoder();
+      Map<String, BarColumns> bars = new LinkedHashMap<>();
+      long count = 0;
+      String nextPageToken = null;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+         String field = parser.currentName();
+         JsonToken value = parser.nextToken();
+
+         if ("bars".equals(field) && value == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+               String symbol = parser.currentName();
+               if (parser.nextToken() != JsonToken.START_ARRAY) {
+                  parser.skipChildren();
+                  continue;
+               }
+               BarColumns columns = new BarColumns();
+               while (parser.nextToken() == JsonToken.START_OBJECT) {
+                  decoder.decodeInto(parser, columns);
+               }
+               bars.put(symbol, columns);
+               count += columns.size();
+            }
+         } else if ("next_page_token".equals(field)) {
+            nextPageToken = value == JsonToken.VALUE_NULL ? null : parser.getText();
+         } else {
+            parser.skipChildren();
+         }
+      }
+      return new MultiBarPage(bars, count, nextPageToken);
+   }
+
+   // Result of reading one page: the number of bars emitted and the token of the next page
+   private record BarPage(long bars, String nextPageToken) {
+   }
+
+   // Reads {"bars": [...], "symbol": "...", "next_page_token": "..."} without buffering the bars array
+   private BarPage readBarPage(JsonParser parser, Consumer<HistoricalBar> sink) throws IOException {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+         throw new AlpacaApiException("Unexpected historical bars response from Alpaca API.");
+      }
+
+      AlpacaBarDecoder decoder = new AlpacaBarDecoder();
+      long bars = 0;
+      String nextPageToken = null;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+         String field = parser.currentName();
+         JsonToken value = parser.nextToken();
+
+         if ("bars".equals(field) && value == JsonToken.START_ARRAY) {
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+               sink.accept(decoder.decode(parser));
+               bars++;
+            }
+         } else if ("next_page_token".equals(field)) {
+            nextPageToken = value == JsonToken.VALUE_NULL ? null : parser.getText();
+         } else {
+            parser.skipChildren();
+         }
+      }
+      return new BarPage(bars, nextPageToken);
    }
-}
\ No newline at end of file
+}
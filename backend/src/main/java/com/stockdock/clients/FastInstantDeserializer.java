@@ -0,0 +1,37 @@
+package com.stockdock.clients;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.deser.InstantDeserializer;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * {@link Instant} deserializer that parses RFC-3339 strings with {@link Rfc3339} instead of a
+ * {@link java.time.format.DateTimeFormatter}, e.g. for the timestamp of every quote of a
+ * {@code StockQuotes} body. Numeric timestamps and strings in any other format go to the
+ * standard {@link InstantDeserializer}.
+ */
+public class FastInstantDeserializer extends StdScalarDeserializer<Instant> {
+
+   public FastInstantDeserializer () {
+      super(Instant.class);
+   }
+
+   @Override
+   public Instant deserialize (JsonParser parser, DeserializationContext context) throws IOException {
+      if (parser.currentToken() != JsonToken.VALUE_STRING) {
+         return InstantDeserializer.INSTANT.deserialize(parser, context);
+      }
+      try {
+         return Rfc3339.parseInstant(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+      } catch (DateTimeParseException e) {
+         // Reports the error (or applies leniency) exactly as before
+         return InstantDeserializer.INSTANT.deserialize(parser, context);
+      }
+   }
+}
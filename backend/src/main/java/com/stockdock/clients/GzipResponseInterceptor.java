@@ -0,0 +1,85 @@
+package com.stockdock.clients;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Requests gzip responses and inflates them transparently.
+ *
+ * Only needed for the JDK HttpClient transport: Apache HttpClient negotiates and
+ * decompresses gzip on its own.
+ */
+public class GzipResponseInterceptor implements ClientHttpRequestInterceptor {
+
+   private static final String GZIP = "gzip";
+
+   @Override
+   public ClientHttpResponse intercept (HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+       throws IOException {
+      request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, GZIP);
+      ClientHttpResponse response = execution.execute(request, body);
+      String encoding = response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+      return GZIP.equalsIgnoreCase(encoding) ? new InflatingResponse(response) : response;
+   }
+
+   private static final class InflatingResponse implements ClientHttpResponse {
+
+      private final ClientHttpResponse delegate;
+      private final HttpHeaders headers;
+      private InputStream body;
+
+      private InflatingResponse (ClientHttpResponse delegate) {
+         this.delegate = delegate;
+         // The body handed out is no longer encoded, and its length is unknown
+         this.headers = new HttpHeaders();
+         this.headers.putAll(delegate.getHeaders());
+         this.headers.remove(HttpHeaders.CONTENT_ENCODING);
+         this.headers.remove(HttpHeaders.CONTENT_LENGTH);
+      }
+
+      @Override
+      public HttpStatusCode getStatusCode () throws IOException {
+         return delegate.getStatusCode();
+      }
+
+      @Override
+      public String getStatusText () throws IOException {
+         return delegate.getStatusText();
+      }
+
+      @Override
+      public HttpHeaders getHeaders () {
+         return headers;
+      }
+
+      @Override
+      public InputStream getBody () throws IOException {
+         if (body == null) {
+            // An error response may come back without a body despite the header
+            PushbackInputStream raw = new PushbackInputStream(delegate.getBody());
+            int first = raw.read();
+            if (first == -1) {
+               body = InputStream.nullInputStream();
+            } else {
+               raw.unread(first);
+               body = new GZIPInputStream(raw);
+            }
+         }
+         return body;
+      }
+
+      @Override
+      public void close () {
+         delegate.close();
+      }
+   }
+}
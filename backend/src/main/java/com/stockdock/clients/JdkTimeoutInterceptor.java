@@ -0,0 +1,32 @@
+package com.stockdock.clients;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Reports read timeouts of the JDK HttpClient transport as I/O errors.
+ *
+ * The JDK request factory enforces its read timeout by cancelling the pending response. Depending
+ * on timing the cancellation escapes as a plain {@link CancellationException} instead of an
+ * {@link HttpTimeoutException}, which would bypass the retries and the 503 mapping for I/O errors.
+ */
+public class JdkTimeoutInterceptor implements ClientHttpRequestInterceptor {
+
+   @Override
+   public ClientHttpResponse intercept (HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+       throws IOException {
+      try {
+         return execution.execute(request, body);
+      } catch (CancellationException e) {
+         HttpTimeoutException timeout = new HttpTimeoutException("Request timed out: " + request.getURI());
+         timeout.initCause(e);
+         throw timeout;
+      }
+   }
+}
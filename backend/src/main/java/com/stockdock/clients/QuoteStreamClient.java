@@ -0,0 +1,323 @@
+package com.stockdock.clients;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.stockdock.cluster.ShardCoordinator;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.events.QuoteUpdatedEvent;
+import com.stockdock.events.ShardAssignmentChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Subscribes to Alpaca's real-time market-data WebSocket for the tracked symbols this instance
+ * owns (see {@link ShardCoordinator}) and publishes a {@link QuoteUpdatedEvent} for every quote message.
+ *
+ * Protocol: after connecting, the client sends an {@code auth} action; once Alpaca answers
+ * {@code authenticated} it subscribes to the quotes of the owned symbols. When the owned
+ * symbols change, the difference is subscribed and unsubscribed on the open connection. Messages arrive
+ * as JSON arrays, quote messages have {@code "T": "q"}. The connection is re-established with a
+ * fixed delay whenever it closes or fails. The URL is configurable, so the client can be
+ * pointed at a local stub server.
+ *
+ * The client pings the server at a fixed interval. A connection that has not delivered any frame
+ * for two intervals is aborted and re-established: a connection that is lost without a close
+ * frame is not always reported to the {@link WebSocket.Listener}, and would otherwise stay
+ * silent for good.
+ */
+@Component
+public class QuoteStreamClient {
+
+   private static final Logger logger = LoggerFactory.getLogger(QuoteStreamClient.class);
+
+   private final ShardCoordinator shardCoordinator;
+   private final ObjectMapper objectMapper;
+   private final ObjectReader quoteReader; // Created once, used for every quote message
+   private final ApplicationEventPublisher eventPublisher;
+
+   private final boolean enabled;
+   private final URI streamUrl;
+   private final String apiKey;
+   private final String apiSecret;
+   private final long reconnectDelayMillis;
+   private final long pingIntervalMillis;
+
+   private final HttpClient httpClient = HttpClient.newHttpClient();
+   private final ScheduledExecutorService reconnectExecutor = Executors.newSingleThreadScheduledExecutor();
+
+   private volatile WebSocket webSocket;
+   private volatile StreamListener listener; // Of the current connection attempt
+   private volatile boolean stopped;
+
+   // Symbols subscribed on the current connection, guarded by this
+   private final Set<String> subscribed = new HashSet<>();
+   private boolean authenticated;
+
+   public QuoteStreamClient (
+       ShardCoordinator shardCoordinator,
+       ObjectMapper objectMapper,
+       ApplicationEventPublisher eventPublisher,
+       @Value("${alpaca.stream.enabled:true}") boolean enabled,
+       @Value("${alpaca.stream.url:wss://stream.data.alpaca.markets/v2/iex}") String streamUrl,
+       @Value("${alpaca.api.key}") String apiKey,
+       @Value("${alpaca.api.secret}") String apiSecret,
+       @Value("${alpaca.stream.reconnect-delay-ms:5000}") long reconnectDelayMillis,
+       @Value("${alpaca.stream.ping-interval-ms:30000}") long pingIntervalMillis
+                            ) {
+      this.shardCoordinator = shardCoordinator;
+      this.objectMapper = objectMapper;
+      this.quoteReader = objectMapper.readerFor(StockQuote.class);
+      this.eventPublisher = eventPublisher;
+      this.enabled = enabled;
+      this.streamUrl = URI.create(streamUrl);
+      this.apiKey = apiKey;
+      this.apiSecret = apiSecret;
+      this.reconnectDelayMillis = reconnectDelayMillis;
+      this.pingIntervalMillis = pingIntervalMillis;
+   }
+
+   @EventListener (ApplicationReadyEvent.class)
+   public void start () {
+      if (!enabled) {
+         logger.info("Alpaca quote stream is disabled.");
+         return;
+      }
+      connect();
+      reconnectExecutor.scheduleWithFixedDelay(this::checkLiveness, pingIntervalMillis, pingIntervalMillis, TimeUnit.MILLISECONDS);
+   }
+
+   @PreDestroy
+   public void stop () {
+      stopped = true;
+      reconnectExecutor.shutdownNow();
+      WebSocket current = webSocket;
+      if (current != null) {
+         current.sendClose(WebSocket.NORMAL_CLOSURE, "shutdown");
+      }
+   }
+
+   public boolean isConnected () {
+      WebSocket current = webSocket;
+      return current != null && !current.isInputClosed();
+   }
+
+   /**
+    * Follows the symbols this instance owns on the open connection.
+    */
+   @EventListener
+   public void onShardAssignmentChanged (ShardAssignmentChangedEvent event) {
+      WebSocket current = webSocket;
+      if (current != null) {
+         resubscribe(current, event.owned());
+      }
+   }
+
+   private void connect () {
+      if (stopped) {
+         return;
+      }
+      logger.info("Connecting to Alpaca quote stream at {}", streamUrl);
+      StreamListener attempt = new StreamListener();
+      listener = attempt;
+      httpClient.newWebSocketBuilder()
+          .buildAsync(streamUrl, attempt)
+          .whenComplete((socket, error) -> {
+             if (error != null) {
+                logger.warn("Could not connect to Alpaca quote stream: {}", error.getMessage());
+                scheduleReconnect();
+             } else if (!attempt.isLost()) {
+                webSocket = socket;
+             }
+          });
+   }
+
+   // Aborts the connection if it has been silent for two ping intervals, pings it otherwise
+   private void checkLiveness () {
+      StreamListener current = listener;
+      WebSocket socket = webSocket;
+      if (current == null || socket == null || current.isLost()) {
+         return;
+      }
+      long silentMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - current.lastReceived);
+      if (silentMillis > 2 * pingIntervalMillis) {
+         logger.warn("Alpaca quote stream silent for {} ms, reconnecting.", silentMillis);
+         socket.abort();
+         current.connectionLost();
+         return;
+      }
+      socket.sendPing(ByteBuffer.allocate(0)).whenComplete((ignored, error) -> {
+         if (error != null) {
+            logger.warn("Could not ping Alpaca quote stream: {}", error.getMessage());
+            socket.abort();
+            current.connectionLost();
+         }
+      });
+   }
+
+   private void scheduleReconnect () {
+      if (!stopped) {
+         reconnectExecutor.schedule(this::connect, reconnectDelayMillis, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   private synchronized void disconnected () {
+      webSocket = null;
+      authenticated = false;
+      subscribed.clear();
+   }
+
+   private synchronized void resubscribe (WebSocket socket, Set<String> owned) {
+      if (!authenticated) {
+         return; // Subscribed once authenticated
+      }
+      List<String> added = owned.stream().filter(symbol -> !subscribed.contains(symbol)).toList();
+      List<String> removed = subscribed.stream().filter(symbol -> !owned.contains(symbol)).toList();
+      if (!removed.isEmpty()) {
+         send(socket, Map.of("action", "unsubscribe", "quotes", removed));
+         removed.forEach(subscribed::remove);
+      }
+      if (!added.isEmpty()) {
+         send(socket, Map.of("action", "subscribe", "quotes", added));
+         subscribed.addAll(added);
+      }
+      if (!added.isEmpty() || !removed.isEmpty()) {
+         logger.info("Alpaca quote stream: subscribed {}, unsubscribed {}, {} symbols in total.", added.size(), removed.size(), subscribed.size());
+      }
+   }
+
+   private void send (WebSocket socket, Map<String, Object> message) {
+      try {
+         socket.sendText(objectMapper.writeValueAsString(message), true);
+      } catch (Exception e) {
+         logger.error("Could not send message to Alpaca quote stream: {}", e.getMessage());
+      }
+   }
+
+   // Handles one JSON array of stream messages
+   private void handleMessages (WebSocket socket, String payload) throws Exception {
+      JsonNode messages = objectMapper.readTree(payload);
+      if (!messages.isArray()) {
+         return;
+      }
+
+      for (JsonNode message : messages) {
+         String type = message.path("T").asText();
+         switch (type) {
+            case "q" -> {
+               String symbol = message.path("S").asText();
+               StockQuote quote = quoteReader.readValue(message);
+               eventPublisher.publishEvent(new QuoteUpdatedEvent(symbol, null, quote, QuoteUpdatedEvent.Source.STREAM));
+            }
+            case "success" -> {
+               String status = message.path("msg").asText();
+               if ("connected".equals(status)) {
+                  send(socket, Map.of("action", "auth", "key", apiKey, "secret", apiSecret));
+               } else if ("authenticated".equals(status)) {
+                  synchronized (this) {
+                     authenticated = true;
+                     subscribed.clear();
+                  }
+                  resubscribe(socket, shardCoordinator.getOwnedSymbols());
+               }
+            }
+            case "error" -> logger.error("Alpaca quote stream error {}: {}", message.path("code").asInt(), message.path("msg").asText());
+            case "subscription" -> logger.debug("Alpaca quote stream subscriptions: {}", message);
+            default -> logger.trace("Ignoring Alpaca stream message of type {}", type);
+         }
+      }
+   }
+
+   private final class StreamListener implements WebSocket.Listener {
+
+      private final StringBuilder buffer = new StringBuilder();
+      private final AtomicBoolean lost = new AtomicBoolean();
+      private volatile long lastReceived = System.nanoTime();
+
+      boolean isLost () {
+         return lost.get();
+      }
+
+      // Reconnects once per connection, however many ways its loss is noticed
+      void connectionLost () {
+         if (lost.compareAndSet(false, true)) {
+            disconnected();
+            scheduleReconnect();
+         }
+      }
+
+      @Override
+      public void onOpen (WebSocket socket) {
+         logger.info("Connected to Alpaca quote stream.");
+         lastReceived = System.nanoTime();
+         socket.request(1);
+      }
+
+      @Override
+      public CompletionStage<?> onText (WebSocket socket, CharSequence data, boolean last) {
+         lastReceived = System.nanoTime();
+         buffer.append(data);
+         if (last) {
+            String payload = buffer.toString();
+            buffer.setLength(0);
+            try {
+               handleMessages(socket, payload);
+            } catch (Exception e) {
+               logger.warn("Could not handle Alpaca stream message: {}", e.getMessage());
+            }
+         }
+         // Ask for the next frame only once this one is handled
+         socket.request(1);
+         return CompletableFuture.completedFuture(null);
+      }
+
+      @Override
+      public CompletionStage<?> onPing (WebSocket socket, ByteBuffer message) {
+         // The pong is sent by the WebSocket implementation
+         lastReceived = System.nanoTime();
+         socket.request(1);
+         return null;
+      }
+
+      @Override
+      public CompletionStage<?> onPong (WebSocket socket, ByteBuffer message) {
+         lastReceived = System.nanoTime();
+         socket.request(1);
+         return null;
+      }
+
+      @Override
+      public CompletionStage<?> onClose (WebSocket socket, int statusCode, String reason) {
+         logger.warn("Alpaca quote stream closed ({}): {}", statusCode, reason);
+         connectionLost();
+         return null;
+      }
+
+      @Override
+      public void onError (WebSocket socket, Throwable error) {
+         logger.error("Alpaca quote stream failed: {}", error.getMessage());
+         connectionLost();
+      }
+   }
+}
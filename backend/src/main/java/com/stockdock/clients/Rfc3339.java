@@ -0,0 +1,151 @@
+package com.stockdock.clients;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Allocation-free parser for the RFC-3339 timestamps of Alpaca payloads, e.g.
+ * {@code 2025-01-02T14:30:00Z} or {@code 2025-01-02T14:30:00.123456789-05:00}.
+ *
+ * Parsing through {@link java.time.format.DateTimeFormatter} builds a map of fields per value and
+ * dominates the cost of decoding large bar ranges; this parser reads the fixed layout digit by digit
+ * straight from the parser's character buffer. Anything outside that layout (other separators,
+ * leap seconds, years before 1 or after 9999) falls back to {@link Instant#parse}, so accepted input
+ * and results are the same as before.
+ */
+public final class Rfc3339 {
+
+   private static final int DATE_TIME_LENGTH = 19; // yyyy-MM-ddTHH:mm:ss
+   private static final long NOT_FAST_PATH = Long.MIN_VALUE;
+
+   private Rfc3339 () {
+   }
+
+   /**
+    * Parses a timestamp into epoch milliseconds, truncating sub-millisecond digits.
+    *
+    * @throws DateTimeParseException if the text is not a valid RFC-3339 timestamp.
+    */
+   public static long parseEpochMillis (char[] text, int offset, int length) {
+      long seconds = epochSecond(text, offset, length);
+      if (seconds == NOT_FAST_PATH) {
+         return Instant.parse(new String(text, offset, length)).toEpochMilli();
+      }
+      return Math.addExact(Math.multiplyExact(seconds, 1000), nanos(text, offset) / 1_000_000);
+   }
+
+   public static long parseEpochMillis (String text) {
+      return parseEpochMillis(text.toCharArray(), 0, text.length());
+   }
+
+   /**
+    * Parses a timestamp into an {@link Instant}, keeping all fractional digits.
+    *
+    * @throws DateTimeParseException if the text is not a valid RFC-3339 timestamp.
+    */
+   public static Instant parseInstant (char[] text, int offset, int length) {
+      long seconds = epochSecond(text, offset, length);
+      if (seconds == NOT_FAST_PATH) {
+         return Instant.parse(new String(text, offset, length));
+      }
+      return Instant.ofEpochSecond(seconds, nanos(text, offset));
+   }
+
+   public static Instant parseInstant (String text) {
+      return parseInstant(text.toCharArray(), 0, text.length());
+   }
+
+   // Epoch second of the timestamp, or NOT_FAST_PATH if it does not follow the common layout
+   private static long epochSecond (char[] b, int off, int len) {
+      if (len < DATE_TIME_LENGTH + 1 || b[off + 4] != '-' || b[off + 7] != '-' || b[off + 10] != 'T'
+          || b[off + 13] != ':' || b[off + 16] != ':') {
+         return NOT_FAST_PATH;
+      }
+      int year = digits(b, off, 4);
+      int month = digits(b, off + 5, 2);
+      int day = digits(b, off + 8, 2);
+      int hour = digits(b, off + 11, 2);
+      int minute = digits(b, off + 14, 2);
+      int second = digits(b, off + 17, 2);
+      if (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+          || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+         return NOT_FAST_PATH;
+      }
+
+      // Optional fraction of 1 to 9 digits
+      int i = off + DATE_TIME_LENGTH;
+      int end = off + len;
+      if (b[i] == '.') {
+         int fractionStart = ++i;
+         while (i < end && b[i] >= '0' && b[i] <= '9') {
+            i++;
+         }
+         if (i == fractionStart || i - fractionStart > 9) {
+            return NOT_FAST_PATH;
+         }
+      }
+
+      // Zone: Z or +HH:MM / -HH:MM, nothing after it
+      int offsetSeconds;
+      if (i == end - 1 && (b[i] == 'Z' || b[i] == 'z')) {
+         offsetSeconds = 0;
+      } else if (i == end - 6 && (b[i] == '+' || b[i] == '-') && b[i + 3] == ':') {
+         int offsetHours = digits(b, i + 1, 2);
+         int offsetMinutes = digits(b, i + 4, 2);
+         if (offsetHours < 0 || offsetHours > 18 || offsetMinutes < 0 || offsetMinutes > 59) {
+            return NOT_FAST_PATH;
+         }
+         offsetSeconds = (offsetHours * 3600 + offsetMinutes * 60) * (b[i] == '-' ? -1 : 1);
+      } else {
+         return NOT_FAST_PATH;
+      }
+
+      return epochDay(year, month, day) * 86_400L + hour * 3600L + minute * 60L + second - offsetSeconds;
+   }
+
+   // Nanoseconds of a timestamp epochSecond accepted: the fraction padded to 9 digits
+   private static int nanos (char[] b, int off) {
+      int i = off + DATE_TIME_LENGTH;
+      if (b[i] != '.') {
+         return 0;
+      }
+      int nanos = 0;
+      int scale = 100_000_000;
+      for (i++; b[i] >= '0' && b[i] <= '9'; i++) {
+         nanos += (b[i] - '0') * scale;
+         scale /= 10;
+      }
+      return nanos;
+   }
+
+   // Decimal value of count digits, negative if any of them is not a digit
+   private static int digits (char[] b, int off, int count) {
+      int value = 0;
+      for (int i = off; i < off + count; i++) {
+         int digit = b[i] - '0';
+         if (digit < 0 || digit > 9) {
+            return Integer.MIN_VALUE;
+         }
+         value = value * 10 + digit;
+      }
+      return value;
+   }
+
+   private static int lengthOfMonth (int year, int month) {
+      return switch (month) {
+         case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+         case 4, 6, 9, 11 -> 30;
+         default -> 31;
+      };
+   }
+
+   // Days since 1970-01-01 of a proleptic Gregorian date (year >= 1)
+   private static long epochDay (int year, int month, int day) {
+      int y = month <= 2 ? year - 1 : year;
+      int era = y / 400;
+      int yearOfEra = y - era * 400;
+      int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+      int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+      return era * 146_097L + dayOfEra - 719_468;
+   }
+}
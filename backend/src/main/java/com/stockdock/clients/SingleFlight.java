@@ -0,0 +1,90 @@
+package com.stockdock.clients;
+
+import com.stockdock.dto.SingleFlightStats;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical calls ("single flight").
+ *
+ * The first caller for a key executes the call; every caller that arrives with the same key
+ * while that call is still running waits for it and receives the same result or exception.
+ * Once the call completes the key is released, so the next caller triggers a new call.
+ */
+@Component
+public class SingleFlight {
+
+   private final ConcurrentHashMap<String, InFlightCall> inFlight = new ConcurrentHashMap<>();
+   private final LongAdder executions = new LongAdder();
+   private final LongAdder coalesced = new LongAdder();
+
+   private static final class InFlightCall {
+      private final CompletableFuture<Object> result = new CompletableFuture<>();
+      private final AtomicInteger waiters = new AtomicInteger();
+   }
+
+   /**
+    * Executes {@code call} unless an identical call (same key) is already in flight,
+    * in which case the result of the running call is shared.
+    *
+    * @param key  Identifies the call, e.g. endpoint plus parameters.
+    * @param call The upstream call.
+    * @return The result of the (possibly shared) call.
+    */
+   @SuppressWarnings ("unchecked")
+   public <T> T execute (String key, Supplier<T> call) {
+      InFlightCall created = new InFlightCall();
+      InFlightCall existing = inFlight.putIfAbsent(key, created);
+
+      if (existing != null) {
+         existing.waiters.incrementAndGet();
+         coalesced.increment();
+         return (T) await(existing.result);
+      }
+
+      executions.increment();
+      try {
+         T value = call.get();
+         created.result.complete(value);
+         return value;
+      } catch (RuntimeException | Error e) {
+         created.result.completeExceptionally(e);
+         throw e;
+      } finally {
+         inFlight.remove(key, created);
+      }
+   }
+
+   /**
+    * Snapshot of the coalescing counters and of the calls currently in flight,
+    * with the number of callers waiting on each key.
+    */
+   public SingleFlightStats stats () {
+      Map<String, Integer> waiting = new TreeMap<>();
+      inFlight.forEach((key, call) -> waiting.put(key, call.waiters.get()));
+      return new SingleFlightStats(executions.sum(), coalesced.sum(), waiting);
+   }
+
+   private static Object await (CompletableFuture<Object> result) {
+      try {
+         return result.join();
+      } catch (CompletionException e) {
+         // Rethrow the original exception so shared callers see the same error as the leader
+         if (e.getCause() instanceof RuntimeException cause) {
+            throw cause;
+         }
+         if (e.getCause() instanceof Error error) {
+            throw error;
+         }
+         throw e;
+      }
+   }
+}
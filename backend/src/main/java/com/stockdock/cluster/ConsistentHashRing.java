@@ -0,0 +1,59 @@
+package com.stockdock.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent-hash ring assigning keys (symbols) to nodes (instances).
+ *
+ * Every node is placed on the ring {@code virtualNodes} times; a key belongs to the first node
+ * at or after its hash, wrapping around. When a node joins or leaves, only the keys between it
+ * and its neighbours move (about 1/n of them), so the other instances keep their symbols.
+ * Every instance building a ring from the same members gets the same assignment.
+ */
+public final class ConsistentHashRing {
+
+   private final TreeMap<Long, String> ring = new TreeMap<>();
+   private final List<String> nodes;
+
+   public ConsistentHashRing (Collection<String> nodes, int virtualNodes) {
+      this.nodes = nodes.stream().sorted().distinct().toList();
+      for (String node : this.nodes) {
+         for (int i = 0; i < virtualNodes; i++) {
+            ring.put(hash(node + "#" + i), node);
+         }
+      }
+   }
+
+   /**
+    * The node responsible for {@code key}, or {@code null} if the ring is empty.
+    */
+   public String nodeFor (String key) {
+      if (ring.isEmpty()) {
+         return null;
+      }
+      Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+      return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+   }
+
+   public List<String> nodes () {
+      return nodes;
+   }
+
+   // 64-bit FNV-1a followed by a finalizer, so similar keys (AAPL/AAPM) land far apart
+   static long hash (String value) {
+      long hash = 0xcbf29ce484222325L;
+      for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+         hash = (hash ^ b) * 0x100000001b3L;
+      }
+      hash ^= hash >>> 33;
+      hash *= 0xff51afd7ed558ccdL;
+      hash ^= hash >>> 33;
+      hash *= 0xc4ceb9fe1a85ec53L;
+      hash ^= hash >>> 33;
+      return hash;
+   }
+}
@@ -0,0 +1,150 @@
+package com.stockdock.cluster;
+
+import com.stockdock.models.SeriesLease;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Exclusive, expiring leases on bar series in the {@code series_leases} collection, so that only
+ * one instance at a time fetches missing bars of a series from Alpaca and records their coverage.
+ *
+ * A lease is taken with a single conditional upsert: it matches the series' document only if the
+ * lease expired or is already held by this instance, and otherwise tries to insert a new document
+ * with the same id, which fails on the unique {@code _id}. A holder that crashes blocks the series
+ * for at most {@code bars.store.lease-ttl-ms}; long fetches keep their lease with {@link #renew}.
+ *
+ * Leases are per instance, not per thread: callers serialize their own threads first.
+ */
+@Component
+public class SeriesLeases {
+
+   private static final Logger logger = LoggerFactory.getLogger(SeriesLeases.class);
+   private static final Duration POLL_INTERVAL = Duration.ofMillis(250);
+
+   private final MongoTemplate mongoTemplate;
+   private final Duration leaseTtl;
+
+   private final String owner = UUID.randomUUID().toString();
+   private final String host = hostName();
+
+   public SeriesLeases (
+       MongoTemplate mongoTemplate,
+       @Value("${bars.store.lease-ttl-ms:120000}") long leaseTtlMillis
+                       ) {
+      this.mongoTemplate = mongoTemplate;
+      this.leaseTtl = Duration.ofMillis(leaseTtlMillis);
+   }
+
+   /**
+    * Creates the TTL index that removes the leases of crashed instances.
+    */
+   @EventListener (ApplicationReadyEvent.class)
+   public void initCollection () {
+      try {
+         mongoTemplate.indexOps(SeriesLease.class).ensureIndex(new Index()
+             .on("expiresAt", Sort.Direction.ASC)
+             .expire(Duration.ZERO));
+      } catch (Exception e) {
+         logger.error("Could not create TTL index on series_leases: {}", e.getMessage());
+      }
+   }
+
+   /**
+    * Takes the lease of a series, waiting up to {@code maxWait} for another holder to release it
+    * or to let it expire.
+    *
+    * @param seriesId The id of the series.
+    * @param maxWait  How long to wait for a lease held by another instance.
+    * @return Whether this instance now holds the lease.
+    */
+   public boolean acquire (String seriesId, Duration maxWait) {
+      Instant deadline = Instant.now().plus(maxWait);
+      while (!tryAcquire(seriesId)) {
+         if (!Instant.now().isBefore(deadline)) {
+            logger.info("Series {} is still leased by another instance after {} ms.", seriesId, maxWait.toMillis());
+            return false;
+         }
+         try {
+            Thread.sleep(POLL_INTERVAL);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Takes the lease of a series if it is free, expired or already held by this instance.
+    */
+   public boolean tryAcquire (String seriesId) {
+      Instant now = Instant.now();
+      Query free = Query.query(Criteria.where("_id").is(seriesId)
+          .orOperator(Criteria.where("expiresAt").lt(now), Criteria.where("owner").is(owner)));
+      try {
+         mongoTemplate.upsert(free, lease(now), SeriesLease.class);
+         return true;
+      } catch (DuplicateKeyException e) {
+         // The document exists and is held by another instance
+         return false;
+      }
+   }
+
+   /**
+    * Extends a lease this instance holds.
+    *
+    * @return Whether the lease was still held; {@code false} if it expired and was taken over.
+    */
+   public boolean renew (String seriesId) {
+      Instant now = Instant.now();
+      return mongoTemplate.updateFirst(held(seriesId), lease(now), SeriesLease.class).getMatchedCount() > 0;
+   }
+
+   /**
+    * Releases a lease this instance holds, so other instances don't wait for it to expire.
+    */
+   public void release (String seriesId) {
+      try {
+         mongoTemplate.remove(held(seriesId), SeriesLease.class);
+      } catch (Exception e) {
+         logger.warn("Could not release the lease of series {}, it expires in {} ms: {}",
+             seriesId, leaseTtl.toMillis(), e.getMessage());
+      }
+   }
+
+   private Query held (String seriesId) {
+      return Query.query(Criteria.where("_id").is(seriesId).and("owner").is(owner));
+   }
+
+   private Update lease (Instant now) {
+      return new Update()
+          .set("owner", owner)
+          .set("host", host)
+          .set("renewedAt", now)
+          .set("expiresAt", now.plus(leaseTtl));
+   }
+
+   private static String hostName () {
+      try {
+         return InetAddress.getLocalHost().getHostName();
+      } catch (Exception e) {
+         return "unknown";
+      }
+   }
+}
@@ -0,0 +1,212 @@
+package com.stockdock.cluster;
+
+import com.stockdock.dto.ShardStats;
+import com.stockdock.events.ShardAssignmentChangedEvent;
+import com.stockdock.events.SymbolsChangedEvent;
+import com.stockdock.models.ClusterLease;
+import com.stockdock.repos.ClusterLeaseRepo;
+import com.stockdock.services.SymbolRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Splits the polling of the tracked symbols across all running instances.
+ *
+ * Every instance holds a lease in the {@code cluster_leases} collection and renews it every
+ * {@code cluster.lease.heartbeat-ms}; an instance whose lease is not renewed within
+ * {@code cluster.lease.ttl-ms} counts as gone. The live leases form a {@link ConsistentHashRing},
+ * and each symbol is polled and streamed only by the instance the ring assigns it to, so upstream
+ * calls and MongoDB writes stay constant as instances are added. Instances agree on the
+ * assignment as soon as they have seen the same leases (within one heartbeat).
+ *
+ * Without MongoDB the last known membership is kept; an instance that never managed to join
+ * owns every symbol, which is the single-instance behaviour.
+ */
+@Component
+public class ShardCoordinator {
+
+   private static final Logger logger = LoggerFactory.getLogger(ShardCoordinator.class);
+
+   private final ClusterLeaseRepo clusterLeaseRepo;
+   private final MongoTemplate mongoTemplate;
+   private final SymbolRegistry symbolRegistry;
+   private final ApplicationEventPublisher eventPublisher;
+   private final boolean enabled;
+   private final Duration leaseTtl;
+   private final int virtualNodes;
+
+   private final String instanceId = UUID.randomUUID().toString();
+   private final String host = hostName();
+
+   private volatile ConsistentHashRing ring;
+   private volatile Set<String> owned = Set.of();
+   private volatile Instant lastHeartbeat;
+
+   public ShardCoordinator (
+       ClusterLeaseRepo clusterLeaseRepo,
+       MongoTemplate mongoTemplate,
+       SymbolRegistry symbolRegistry,
+       ApplicationEventPublisher eventPublisher,
+       @Value("${cluster.sharding.enabled:true}") boolean enabled,
+       @Value("${cluster.lease.ttl-ms:30000}") long leaseTtlMillis,
+       @Value("${cluster.ring.virtual-nodes:128}") int virtualNodes
+                           ) {
+      this.clusterLeaseRepo = clusterLeaseRepo;
+      this.mongoTemplate = mongoTemplate;
+      this.symbolRegistry = symbolRegistry;
+      this.eventPublisher = eventPublisher;
+      this.enabled = enabled;
+      this.leaseTtl = Duration.ofMillis(leaseTtlMillis);
+      this.virtualNodes = virtualNodes;
+      this.ring = new ConsistentHashRing(List.of(instanceId), virtualNodes);
+   }
+
+   /**
+    * Creates the TTL index that removes leases of crashed instances, then joins the cluster.
+    */
+   @EventListener (ApplicationReadyEvent.class)
+   public void join () {
+      if (!enabled) {
+         reassign();
+         return;
+      }
+      try {
+         mongoTemplate.indexOps(ClusterLease.class).ensureIndex(new Index()
+             .on("expiresAt", Sort.Direction.ASC)
+             .expire(Duration.ZERO));
+      } catch (Exception e) {
+         logger.error("Could not create TTL index on cluster_leases: {}", e.getMessage());
+      }
+      heartbeat();
+      logger.info("Instance {} joined the cluster with {} member(s).", instanceId, ring.nodes().size());
+   }
+
+   /**
+    * Renews this instance's lease, reads the live members and recomputes the owned symbols.
+    */
+   @Scheduled (fixedDelayString = "${cluster.lease.heartbeat-ms:10000}", initialDelayString = "${cluster.lease.heartbeat-ms:10000}")
+   public void heartbeat () {
+      if (!enabled) {
+         return;
+      }
+      Instant now = Instant.now();
+      try {
+         clusterLeaseRepo.save(new ClusterLease(instanceId, host, now, now.plus(leaseTtl)));
+         // This instance is a member even if its own lease is not visible yet (e.g. read from a lagging secondary)
+         List<String> members = Stream.concat(
+                 clusterLeaseRepo.findByExpiresAtAfter(now).stream().map(ClusterLease::instanceId),
+                 Stream.of(instanceId))
+             .distinct()
+             .sorted()
+             .toList();
+         if (!members.equals(ring.nodes())) {
+            logger.info("Cluster membership changed: {} -> {} member(s).", ring.nodes().size(), members.size());
+            ring = new ConsistentHashRing(members, virtualNodes);
+         }
+         lastHeartbeat = now;
+      } catch (DataAccessException e) {
+         logger.warn("Cluster heartbeat failed, keeping {} known member(s): {}", ring.nodes().size(), e.getMessage());
+      }
+      reassign();
+   }
+
+   @EventListener
+   public void onSymbolsChanged (SymbolsChangedEvent event) {
+      reassign();
+   }
+
+   /**
+    * Whether this instance is responsible for polling {@code symbol}.
+    */
+   public boolean owns (String symbol) {
+      return !enabled || instanceId.equals(ring.nodeFor(symbol));
+   }
+
+   /**
+    * Whether this instance is the leader, the live member with the smallest id, for work that one
+    * instance does for the whole cluster. Instances agree on it as they agree on the ring; while
+    * membership changes, two instances may briefly both consider themselves leader.
+    */
+   public boolean isLeader () {
+      return !enabled || instanceId.equals(ring.nodes().getFirst());
+   }
+
+   public String getInstanceId () {
+      return instanceId;
+   }
+
+   /**
+    * The symbols of {@code symbols} this instance is responsible for, in their original order.
+    */
+   public List<String> ownedOf (Collection<String> symbols) {
+      return symbols.stream().filter(this::owns).toList();
+   }
+
+   /**
+    * The tracked symbols this instance is responsible for.
+    */
+   public Set<String> getOwnedSymbols () {
+      return owned;
+   }
+
+   public ShardStats stats () {
+      ConsistentHashRing current = ring;
+      return new ShardStats(instanceId, host, enabled, current.nodes(), symbolRegistry.getSymbols().size(),
+          owned.size(), lastHeartbeat);
+   }
+
+   /**
+    * Gives up the lease on shutdown, so the other instances take over its symbols right away
+    * instead of after the lease expired.
+    */
+   @PreDestroy
+   public void leave () {
+      if (!enabled) {
+         return;
+      }
+      try {
+         clusterLeaseRepo.deleteById(instanceId);
+      } catch (Exception e) {
+         logger.warn("Could not release cluster lease: {}", e.getMessage());
+      }
+   }
+
+   private void reassign () {
+      Set<String> assigned = new LinkedHashSet<>(ownedOf(symbolRegistry.getSymbols()));
+      if (!assigned.equals(owned)) {
+         logger.info("Instance {} now owns {} of {} symbols.", instanceId, assigned.size(), symbolRegistry.getSymbols().size());
+         owned = Collections.unmodifiableSet(assigned);
+         eventPublisher.publishEvent(new ShardAssignmentChangedEvent(owned));
+      }
+   }
+
+   private static String hostName () {
+      try {
+         return InetAddress.getLocalHost().getHostName();
+      } catch (Exception e) {
+         return "unknown";
+      }
+   }
+}
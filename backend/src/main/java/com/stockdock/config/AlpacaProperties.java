@@ -1,6 +1,101 @@
 package com.stockdock.config;
 
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * HTTP transport settings for calls to the Alpaca REST API ({@code alpaca.http.*}).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "alpaca.http")
 public class AlpacaProperties {
 
+   public enum Transport {
+      APACHE, // Pooled Apache HttpClient 5 (HTTP/1.1 keep-alive)
+      JDK     // JDK HttpClient (HTTP/2, multiplexed over one connection per host)
+   }
+
+   private Transport transport = Transport.APACHE;
+   private int maxConnections = 50;             // Pool size across all routes
+   private int maxConnectionsPerRoute = 20;     // Pool size per host (data API, paper API)
+   private Duration connectTimeout = Duration.ofSeconds(2);
+   private Duration connectionRequestTimeout = Duration.ofSeconds(2); // Wait for a free pooled connection
+   private Duration readTimeout = Duration.ofSeconds(10);
+   private Duration connectionTimeToLive = Duration.ofMinutes(5);     // Recycle connections after this
+   private Duration idleTimeout = Duration.ofSeconds(30);             // Evict connections idle this long
+   private boolean compression = true;          // Ask for gzip responses
+
+   public Transport getTransport() {
+      return transport;
+   }
+
+   public void setTransport(Transport transport) {
+      this.transport = transport;
+   }
+
+   public int getMaxConnections() {
+      return maxConnections;
+   }
+
+   public void setMaxConnections(int maxConnections) {
+      this.maxConnections = maxConnections;
+   }
+
+   public int getMaxConnectionsPerRoute() {
+      return maxConnectionsPerRoute;
+   }
+
+   public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+      this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+   }
+
+   public Duration getConnectTimeout() {
+      return connectTimeout;
+   }
+
+   public void setConnectTimeout(Duration connectTimeout) {
+      this.connectTimeout = connectTimeout;
+   }
+
+   public Duration getConnectionRequestTimeout() {
+      return connectionRequestTimeout;
+   }
+
+   public void setConnectionRequestTimeout(Duration connectionRequestTimeout) {
+      this.connectionRequestTimeout = connectionRequestTimeout;
+   }
+
+   public Duration getReadTimeout() {
+      return readTimeout;
+   }
+
+   public void setReadTimeout(Duration readTimeout) {
+      this.readTimeout = readTimeout;
+   }
+
+   public Duration getConnectionTimeToLive() {
+      return connectionTimeToLive;
+   }
+
+   public void setConnectionTimeToLive(Duration connectionTimeToLive) {
+      this.connectionTimeToLive = connectionTimeToLive;
+   }
+
+   public Duration getIdleTimeout() {
+      return idleTimeout;
+   }
+
+   public void setIdleTimeout(Duration idleTimeout) {
+      this.idleTimeout = idleTimeout;
+   }
+
+   public boolean isCompression() {
+      return compression;
+   }
 
+   public void setCompression(boolean compression) {
+      this.compression = compression;
+   }
 }
@@ -0,0 +1,57 @@
+package com.stockdock.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-endpoint concurrency limits ({@code api.bulkhead.*}), see {@link com.stockdock.resilience.Bulkhead}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "api.bulkhead")
+public class BulkheadProperties {
+
+   private boolean enabled = true;
+   private int defaultLimit = 100;               // Concurrent requests for bulkheads without their own limit
+   private Duration maxWait = Duration.ZERO;     // How long a request may wait for a free slot
+   private Map<String, Integer> limits = new HashMap<>(); // Bulkhead name -> concurrent requests
+
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+   }
+
+   public int getDefaultLimit() {
+      return defaultLimit;
+   }
+
+   public void setDefaultLimit(int defaultLimit) {
+      this.defaultLimit = defaultLimit;
+   }
+
+   public Duration getMaxWait() {
+      return maxWait;
+   }
+
+   public void setMaxWait(Duration maxWait) {
+      this.maxWait = maxWait;
+   }
+
+   public Map<String, Integer> getLimits() {
+      return limits;
+   }
+
+   public void setLimits(Map<String, Integer> limits) {
+      this.limits = limits;
+   }
+
+   public int limitOf(String name) {
+      return limits.getOrDefault(name, defaultLimit);
+   }
+}
@@ -0,0 +1,51 @@
+package com.stockdock.config;
+
+import com.stockdock.cache.RefreshingCache;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.dto.StockSnapshotResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class CacheConfig {
+
+   /**
+    * Executor for background (stale-while-revalidate) refreshes.
+    * Refreshes are I/O bound, so each one runs on its own virtual thread.
+    */
+   @Bean (destroyMethod = "shutdown")
+   public ExecutorService cacheRefreshExecutor () {
+      return Executors.newVirtualThreadPerTaskExecutor();
+   }
+
+   /**
+    * Per-symbol cache of the latest quotes served by {@code api/quotes}.
+    */
+   @Bean
+   public RefreshingCache<StockQuote> quoteCache (
+       ExecutorService cacheRefreshExecutor,
+       @Value("${quotes.cache.max-size:1000}") int maxSize,
+       @Value("${quotes.cache.ttl-ms:30000}") long ttlMillis,
+       @Value("${quotes.cache.stale-ms:120000}") long staleMillis
+                                                ) {
+      return new RefreshingCache<>("quotes", maxSize, ttlMillis, staleMillis, cacheRefreshExecutor);
+   }
+
+   /**
+    * Per-symbol cache of snapshots served by {@code api/quotes/snapshots} and {@code api/quotes/{symbol}/snapshot}.
+    * Snapshots carry the latest trade and minute bar, so they are only kept for a few seconds.
+    */
+   @Bean
+   public RefreshingCache<StockSnapshotResponse> snapshotCache (
+       ExecutorService cacheRefreshExecutor,
+       @Value("${snapshots.cache.max-size:2000}") int maxSize,
+       @Value("${snapshots.cache.ttl-ms:5000}") long ttlMillis,
+       @Value("${snapshots.cache.stale-ms:10000}") long staleMillis
+                                                ) {
+      return new RefreshingCache<>("snapshots", maxSize, ttlMillis, staleMillis, cacheRefreshExecutor);
+   }
+}
@@ -0,0 +1,53 @@
+package com.stockdock.config;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.stockdock.clients.FastInstantDeserializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Instant;
+
+/**
+ * Tunes the auto-configured {@code ObjectMapper}, which also (de)serializes the Alpaca payloads of
+ * the {@code RestClient} and the responses of the controllers. Spring Boot registers every
+ * {@link Module} bean after the standard modules, so these take precedence over them.
+ */
+@Configuration
+public class JacksonConfig {
+
+   /**
+    * Parses RFC-3339 {@link Instant}s without {@link java.time.format.DateTimeFormatter}
+    * (see {@link FastInstantDeserializer}).
+    */
+   @Bean
+   @ConditionalOnProperty (name = "json.fast-timestamps.enabled", havingValue = "true", matchIfMissing = true)
+   public Module fastTimestampsModule () {
+      return new SimpleModule("stockdock-fast-timestamps").addDeserializer(Instant.class, new FastInstantDeserializer());
+   }
+
+   /**
+    * Replaces reflective property access and creator calls with generated lambdas
+    * (the successor of Afterburner for Java 11+).
+    */
+   @Bean
+   @ConditionalOnProperty (name = "json.blackbird.enabled", havingValue = "true", matchIfMissing = true)
+   public Module blackbirdModule () {
+      return new BlackbirdModule();
+   }
+
+   /**
+    * Parses floating-point numbers (the prices of every bar and quote) with the FastDoubleParser
+    * bundled in jackson-core instead of {@link Double#parseDouble}, which allocates per value;
+    * results are identical.
+    */
+   @Bean
+   @ConditionalOnProperty (name = "json.fast-doubles.enabled", havingValue = "true", matchIfMissing = true)
+   public Jackson2ObjectMapperBuilderCustomizer fastDoublesCustomizer () {
+      return builder -> builder.featuresToEnable(JsonParser.Feature.USE_FAST_DOUBLE_PARSER);
+   }
+}
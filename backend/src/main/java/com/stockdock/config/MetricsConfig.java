@@ -0,0 +1,166 @@
+package com.stockdock.config;
+
+import com.stockdock.cache.BarSeriesCache;
+import com.stockdock.cache.RefreshingCache;
+import com.stockdock.clients.SingleFlight;
+import com.stockdock.cluster.ShardCoordinator;
+import com.stockdock.services.IndicatorService;
+import com.stockdock.services.QuoteBroadcaster;
+import com.stockdock.services.QuoteTickStore;
+import com.stockdock.services.QuoteWriteBehind;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Metrics exposed through Actuator ({@code /actuator/metrics}, {@code /actuator/prometheus}).
+ *
+ * Alpaca calls are timed by the auto-configured {@code RestClient.Builder} (http.client.requests),
+ * service methods by {@code @Timed}; the beans below publish the counters the in-memory
+ * components already keep, read on every scrape.
+ */
+@Configuration
+public class MetricsConfig {
+
+   /**
+    * Enables {@link io.micrometer.core.annotation.Timed} on Spring beans.
+    */
+   @Bean
+   public TimedAspect timedAspect (MeterRegistry meterRegistry) {
+      return new TimedAspect(meterRegistry);
+   }
+
+   @Bean
+   public MeterBinder cacheMetrics (List<RefreshingCache<?>> caches) {
+      return registry -> caches.forEach(refreshingCache -> {
+         String name = refreshingCache.stats().name();
+         Gauge.builder("stockdock.cache.size", refreshingCache, cache -> cache.stats().size())
+             .tag("cache", name)
+             .register(registry);
+         FunctionCounter.builder("stockdock.cache.hits", refreshingCache, cache -> cache.stats().hits())
+             .tag("cache", name)
+             .register(registry);
+         FunctionCounter.builder("stockdock.cache.stale.hits", refreshingCache, cache -> cache.stats().staleHits())
+             .tag("cache", name)
+             .register(registry);
+         FunctionCounter.builder("stockdock.cache.misses", refreshingCache, cache -> cache.stats().misses())
+             .tag("cache", name)
+             .register(registry);
+         FunctionCounter.builder("stockdock.cache.evictions", refreshingCache, cache -> cache.stats().evictions())
+             .tag("cache", name)
+             .register(registry);
+         FunctionCounter.builder("stockdock.cache.refresh.failures", refreshingCache, cache -> cache.stats().refreshFailures())
+             .tag("cache", name)
+             .register(registry);
+      });
+   }
+
+   @Bean
+   public MeterBinder singleFlightMetrics (SingleFlight singleFlight) {
+      return registry -> {
+         FunctionCounter.builder("alpaca.calls.executed", singleFlight, flight -> flight.stats().executions())
+             .description("Alpaca calls actually sent")
+             .register(registry);
+         FunctionCounter.builder("alpaca.calls.coalesced", singleFlight, flight -> flight.stats().coalesced())
+             .description("Callers that shared an Alpaca call already in flight")
+             .register(registry);
+         Gauge.builder("alpaca.calls.in.flight", singleFlight, flight -> flight.stats().inFlight().size())
+             .register(registry);
+      };
+   }
+
+   @Bean
+   public MeterBinder writeBehindMetrics (QuoteWriteBehind quoteWriteBehind) {
+      return registry -> {
+         Gauge.builder("stockdock.write.behind.pending", quoteWriteBehind, writer -> writer.stats().pending())
+             .description("Symbols waiting to be written to current_stocks")
+             .register(registry);
+         FunctionCounter.builder("stockdock.write.behind.submitted", quoteWriteBehind, writer -> writer.stats().submitted())
+             .register(registry);
+         FunctionCounter.builder("stockdock.write.behind.conflated", quoteWriteBehind, writer -> writer.stats().conflated())
+             .register(registry);
+         FunctionCounter.builder("stockdock.write.behind.dropped", quoteWriteBehind, writer -> writer.stats().dropped())
+             .description("Quote updates dropped because the write-behind queue was full")
+             .register(registry);
+         FunctionCounter.builder("stockdock.write.behind.flushed", quoteWriteBehind, writer -> writer.stats().flushedDocuments())
+             .register(registry);
+         FunctionCounter.builder("stockdock.write.behind.flush.failures", quoteWriteBehind, writer -> writer.stats().flushFailures())
+             .register(registry);
+         Gauge.builder("stockdock.write.behind.conflation.ratio", quoteWriteBehind, writer -> writer.stats().conflationRatio())
+             .description("Quote updates submitted per document written")
+             .register(registry);
+      };
+   }
+
+   @Bean
+   public MeterBinder quoteBroadcasterMetrics (QuoteBroadcaster quoteBroadcaster) {
+      return registry -> {
+         Gauge.builder("stockdock.sse.subscribers", quoteBroadcaster, QuoteBroadcaster::getSubscriberCount)
+             .register(registry);
+         FunctionCounter.builder("stockdock.sse.delivered", quoteBroadcaster, QuoteBroadcaster::getDeliveredCount)
+             .register(registry);
+         FunctionCounter.builder("stockdock.sse.dropped", quoteBroadcaster, QuoteBroadcaster::getDroppedCount)
+             .description("Quotes replaced by a newer one before a slow client received them")
+             .register(registry);
+      };
+   }
+
+   @Bean
+   public MeterBinder indicatorMetrics (IndicatorService indicatorService) {
+      return registry -> {
+         Gauge.builder("stockdock.indicators.series", indicatorService, service -> service.stats().size())
+             .description("Indicator series kept in memory")
+             .register(registry);
+         FunctionCounter.builder("stockdock.indicators.bars.computed", indicatorService, service -> service.stats().barsComputed())
+             .description("Bars fed through indicators")
+             .register(registry);
+      };
+   }
+
+   @Bean
+   public MeterBinder barCacheMetrics (BarSeriesCache barSeriesCache) {
+      return registry -> {
+         Gauge.builder("stockdock.bar.cache.bytes", barSeriesCache, cache -> cache.stats().bytes())
+             .description("Memory held by cached bar columns")
+             .baseUnit("bytes")
+             .register(registry);
+         Gauge.builder("stockdock.bar.cache.bars", barSeriesCache, cache -> cache.stats().bars())
+             .register(registry);
+         FunctionCounter.builder("stockdock.bar.cache.evictions", barSeriesCache, cache -> cache.stats().evictions())
+             .register(registry);
+      };
+   }
+
+   @Bean
+   public MeterBinder shardMetrics (ShardCoordinator shardCoordinator) {
+      return registry -> {
+         Gauge.builder("stockdock.cluster.members", shardCoordinator, coordinator -> coordinator.stats().members().size())
+             .description("Live instances sharing the symbol polling")
+             .register(registry);
+         Gauge.builder("stockdock.cluster.owned.symbols", shardCoordinator, coordinator -> coordinator.getOwnedSymbols().size())
+             .description("Tracked symbols polled by this instance")
+             .register(registry);
+      };
+   }
+
+   @Bean
+   public MeterBinder quoteTickMetrics (QuoteTickStore quoteTickStore) {
+      return registry -> {
+         Gauge.builder("stockdock.quote.ticks.pending", quoteTickStore, store -> store.stats().pending())
+             .description("Quote ticks waiting to be written")
+             .register(registry);
+         FunctionCounter.builder("stockdock.quote.ticks.written", quoteTickStore, store -> store.stats().written())
+             .description("Quote ticks written to the quote_ticks collection")
+             .register(registry);
+         FunctionCounter.builder("stockdock.quote.ticks.dropped", quoteTickStore, store -> store.stats().dropped())
+             .description("Quote ticks lost to a full queue or a failed write")
+             .register(registry);
+      };
+   }
+}
@@ -1,15 +1,121 @@
 package com.stockdock.config;
 
+import com.stockdock.clients.AlpacaAuthInterceptor;
+import com.stockdock.clients.AlpacaPayloadMetrics;
+import com.stockdock.clients.GzipResponseInterceptor;
+import com.stockdock.clients.JdkTimeoutInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.net.http.HttpClient;
+
 @Configuration
 public class RestClientConfig {
 
+   private static final Logger logger = LoggerFactory.getLogger(RestClientConfig.class);
+
+   /**
+    * HTTP transport for the Alpaca REST API, selected with {@code alpaca.http.transport}.
+    *
+    * <ul>
+    *    <li>{@code apache}: pooled Apache HttpClient 5 with per-route limits, keep-alive reuse,
+    *        idle/expired connection eviction and transparent gzip.</li>
+    *    <li>{@code jdk}: JDK HttpClient negotiating HTTP/2, so concurrent calls to the same host
+    *        are multiplexed over one connection (pool sizes do not apply).</li>
+    * </ul>
+    */
+   @Bean
+   public ClientHttpRequestFactory alpacaRequestFactory(AlpacaProperties properties) {
+      logger.info("Alpaca HTTP transport: {} (compression {}).", properties.getTransport(),
+          properties.isCompression() ? "on" : "off");
+
+      if (properties.getTransport() == AlpacaProperties.Transport.JDK) {
+         HttpClient httpClient = HttpClient.newBuilder()
+             .version(HttpClient.Version.HTTP_2)
+             .connectTimeout(properties.getConnectTimeout())
+             .followRedirects(HttpClient.Redirect.NORMAL)
+             .build();
+         JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+         requestFactory.setReadTimeout(properties.getReadTimeout());
+         return requestFactory;
+      }
+
+      PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+          .setMaxConnTotal(properties.getMaxConnections())
+          .setMaxConnPerRoute(properties.getMaxConnectionsPerRoute())
+          .setDefaultConnectionConfig(ConnectionConfig.custom()
+              .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+              .setSocketTimeout(Timeout.of(properties.getReadTimeout()))
+              .setTimeToLive(TimeValue.of(properties.getConnectionTimeToLive()))
+              .setValidateAfterInactivity(TimeValue.ofSeconds(5))
+              .build())
+          .build();
+
+      HttpClientBuilder httpClientBuilder = HttpClients.custom()
+          .setConnectionManager(connectionManager)
+          .setDefaultRequestConfig(RequestConfig.custom()
+              .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+              .setResponseTimeout(Timeout.of(properties.getReadTimeout()))
+              .build())
+          .evictExpiredConnections()
+          .evictIdleConnections(TimeValue.of(properties.getIdleTimeout()));
+      if (!properties.isCompression()) {
+         httpClientBuilder.disableContentCompression();
+      }
+      CloseableHttpClient httpClient = httpClientBuilder.build();
+
+      // Closes the pool when the context shuts down (DisposableBean)
+      return new HttpComponentsClientHttpRequestFactory(httpClient);
+   }
+
+   /**
+    * RestClient for the Alpaca REST API.
+    *
+    * Built from the auto-configured builder, so every call is recorded as an
+    * http.client.requests timer tagged with its URI template and status code.
+    * Interceptors run in registration order: authentication, then timeout translation and gzip
+    * (JDK transport only), then the payload size metric, which therefore sees the bytes as the
+    * transport returns them.
+    */
    @Bean
-   public RestClient restClient() {
-      // Create and configure RestClient here
-      return RestClient.create();
+   public RestClient alpacaRestClient(
+       RestClient.Builder restClientBuilder,
+       ClientHttpRequestFactory alpacaRequestFactory,
+       AlpacaProperties properties,
+       MeterRegistry meterRegistry,
+       @Value("${alpaca.api.key}") String apiKey,
+       @Value("${alpaca.api.secret}") String apiSecret,
+       @Value("${alpaca.api.base.url}") String baseUrl
+                                     ) {
+      RestClient.Builder builder = restClientBuilder
+          .baseUrl(baseUrl)
+          .requestFactory(alpacaRequestFactory)
+          .requestInterceptor(new AlpacaAuthInterceptor(apiKey, apiSecret));
+      if (properties.getTransport() == AlpacaProperties.Transport.JDK) {
+         builder.requestInterceptor(new JdkTimeoutInterceptor());
+         if (properties.isCompression()) {
+            builder.requestInterceptor(new GzipResponseInterceptor());
+         }
+      }
+      return builder
+          .requestInterceptor(new AlpacaPayloadMetrics(meterRegistry))
+          .build();
    }
 }
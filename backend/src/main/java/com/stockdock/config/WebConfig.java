@@ -0,0 +1,21 @@
+package com.stockdock.config;
+
+import com.stockdock.resilience.BulkheadInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+   private final BulkheadInterceptor bulkheadInterceptor;
+
+   public WebConfig(BulkheadInterceptor bulkheadInterceptor) {
+      this.bulkheadInterceptor = bulkheadInterceptor;
+   }
+
+   @Override
+   public void addInterceptors(InterceptorRegistry registry) {
+      registry.addInterceptor(bulkheadInterceptor).addPathPatterns("/api/**");
+   }
+}
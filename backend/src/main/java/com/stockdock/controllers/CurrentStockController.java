@@ -1,24 +1,95 @@
 package com.stockdock.controllers;
 
-import com.stockdock.dto.HistoricalBarsResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.stockdock.dto.AlignedBarsResponse;
+import com.stockdock.dto.HistoricalBar;
+import com.stockdock.dto.BarSeriesResponse;
+import com.stockdock.dto.ColumnarBarsResponse;
+import com.stockdock.dto.IndicatorsResponse;
+import com.stockdock.dto.MoversResponse;
+import com.stockdock.dto.QuoteRollup;
+import com.stockdock.dto.QuoteTick;
+import com.stockdock.dto.StaleableResult;
 import com.stockdock.dto.StockQuote;
 import com.stockdock.dto.StockQuotes;
 import com.stockdock.dto.StockSnapshotResponse;
+import com.stockdock.dto.StockSnapshots;
+import com.stockdock.bars.AlignedBars;
+import com.stockdock.bars.BarBinaryEncoder;
+import com.stockdock.bars.BarColumns;
+import com.stockdock.bars.BarSlice;
+import com.stockdock.bars.TimeRange;
+import com.stockdock.resilience.Bulkhead;
 import com.stockdock.services.CurrentStockService;
+import com.stockdock.services.IndicatorService;
+import com.stockdock.services.MarketMovers;
+import com.stockdock.services.QuoteTickStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import com.stockdock.exceptions.InvalidSymbolException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
 @RestController
 @RequestMapping("api/quotes")
 public class CurrentStockController {
 
+   private static final String NDJSON_VALUE = "application/x-ndjson";
+   private static final String COLUMNAR_JSON_VALUE = "application/vnd.stockdock.bars.columns+json";
+   private static final String STALE_HEADER = "X-Data-Stale";
+   private static final String AS_OF_HEADER = "X-Data-As-Of";
+
    private final CurrentStockService currentStockService;
+   private final IndicatorService indicatorService;
+   private final QuoteTickStore quoteTickStore;
+   private final MarketMovers marketMovers;
    private static final Logger logger = LoggerFactory.getLogger(CurrentStockService.class);
 
-   public CurrentStockController (CurrentStockService currentStockService) {
+   // Writers of the NDJSON streams, created once instead of per request
+   private final ObjectWriter barWriter;
+   private final ObjectWriter tickWriter;
+   private final ObjectWriter rollupWriter;
+
+   // Cache-Control of quotes and snapshots, of bar ranges that may still change, and of settled bar ranges
+   private final CacheControl quotesCacheControl;
+   private final CacheControl barsCacheControl;
+   private final CacheControl settledBarsCacheControl;
+
+   public CurrentStockController (
+       CurrentStockService currentStockService,
+       IndicatorService indicatorService,
+       QuoteTickStore quoteTickStore,
+       MarketMovers marketMovers,
+       ObjectMapper objectMapper,
+       @Value("${http.cache.quotes.max-age-seconds:5}") long quotesMaxAgeSeconds,
+       @Value("${http.cache.bars.max-age-seconds:15}") long barsMaxAgeSeconds,
+       @Value("${http.cache.bars.settled-max-age-seconds:86400}") long settledBarsMaxAgeSeconds
+                                 ) {
       this.currentStockService = currentStockService;
+      this.indicatorService = indicatorService;
+      this.quoteTickStore = quoteTickStore;
+      this.marketMovers = marketMovers;
+      this.barWriter = objectMapper.writerFor(HistoricalBar.class);
+      this.tickWriter = objectMapper.writerFor(QuoteTick.class);
+      this.rollupWriter = objectMapper.writerFor(QuoteRollup.class);
+      this.quotesCacheControl = CacheControl.maxAge(Duration.ofSeconds(quotesMaxAgeSeconds));
+      this.barsCacheControl = CacheControl.maxAge(Duration.ofSeconds(barsMaxAgeSeconds));
+      this.settledBarsCacheControl = CacheControl.maxAge(Duration.ofSeconds(settledBarsMaxAgeSeconds));
    }
 
    /**
@@ -29,19 +100,22 @@ public class CurrentStockController {
     * @return StockQuote containing the latest quote for the given symbol.
     */
    @GetMapping ("/{symbol}")
-   public StockQuote getSingleQuote (@PathVariable String symbol) {
-      return currentStockService.fetchQuoteBySymbol(symbol);
+   @Bulkhead ("quotes")
+   public ResponseEntity<StockQuote> getSingleQuote (@PathVariable String symbol) {
+      StaleableResult<StockQuote> result = currentStockService.fetchQuoteBySymbol(symbol);
+      return withStaleness(result, new ETagBuilder().add(symbol).add(result.value()).build(), quotesCacheControl);
    }
 
    /**
-    * Endpoint to fetch all predefined stock quotes.
+    * Endpoint to fetch quotes for all tracked symbols (see {@code api/symbols}).
     *
-    * @return StockQuotes containing the latest quotes for all predefined symbols.
+    * @return StockQuotes containing the latest quotes for all tracked symbols.
     */
    @GetMapping ("/all")
-   public StockQuotes getAllQuotes () {
-
-      return currentStockService.fetchAllQuotes();
+   @Bulkhead ("quotes")
+   public ResponseEntity<StockQuotes> getAllQuotes () {
+      StaleableResult<StockQuotes> result = currentStockService.fetchAllQuotes();
+      return withStaleness(result, quotesETag(result.value()), quotesCacheControl);
    }
 
    /**
@@ -52,8 +126,53 @@ public class CurrentStockController {
     * @return StockSnapshotResponse containing detailed stock data.
     */
    @GetMapping ("/{symbol}/snapshot")
-   public StockSnapshotResponse getStockSnapshot (@PathVariable String symbol) {
-      return currentStockService.fetchStockSnapshot(symbol);
+   @Bulkhead ("snapshot")
+   public ResponseEntity<StockSnapshotResponse> getStockSnapshot (@PathVariable String symbol) {
+      StaleableResult<StockSnapshotResponse> result = currentStockService.fetchStockSnapshot(symbol);
+      return withStaleness(result, new ETagBuilder().add(symbol).add(result.value()).build(), quotesCacheControl);
+   }
+
+   /**
+    * Endpoint to fetch snapshots for several stocks with one request.
+    *
+    * @param symbols Comma-separated stock symbols (e.g., AAPL,MSFT,NVDA).
+    *
+    * @return StockSnapshots keyed by symbol, with per-symbol errors for symbols that could not be fetched.
+    */
+   @GetMapping ("/snapshots")
+   @Bulkhead ("snapshot")
+   public ResponseEntity<StockSnapshots> getStockSnapshots (@RequestParam List<String> symbols) {
+      StaleableResult<StockSnapshots> result = currentStockService.fetchStockSnapshots(symbols);
+      return withStaleness(result, snapshotsETag(result.value()), quotesCacheControl);
+   }
+
+   /**
+    * Endpoint to fetch snapshots for all tracked stocks.
+    *
+    * @return StockSnapshots keyed by symbol for all tracked symbols.
+    */
+   @GetMapping ("/snapshots/all")
+   @Bulkhead ("snapshot")
+   public ResponseEntity<StockSnapshots> getAllStockSnapshots () {
+      StaleableResult<StockSnapshots> result = currentStockService.fetchAllStockSnapshots();
+      return withStaleness(result, snapshotsETag(result.value()), quotesCacheControl);
+   }
+
+   /**
+    * Endpoint to fetch the top gainers, top losers, most active symbols and widest spreads among
+    * the tracked symbols. The rankings are maintained in memory as snapshots arrive, so this
+    * does not call Alpaca.
+    *
+    * @param limit Number of symbols per ranking (default 10, at most {@code movers.top-k}).
+    *
+    * @return MoversResponse with the rankings and when they last changed.
+    */
+   @GetMapping ("/movers")
+   @Bulkhead ("quotes")
+   public ResponseEntity<MoversResponse> getMovers (@RequestParam(defaultValue = "10") int limit) {
+      MoversResponse movers = marketMovers.getMovers(limit);
+      String eTag = new ETagBuilder().add("movers").add(limit).add(movers.asOf()).build();
+      return ResponseEntity.ok().eTag(eTag).cacheControl(quotesCacheControl).body(movers);
    }
 
    /**
@@ -62,6 +181,7 @@ public class CurrentStockController {
     * @return A confirmation message after saving.
     */
    @PostMapping ("/save")
+   @Bulkhead ("save")
    public String saveQuotes () {
       currentStockService.saveAllQuotesToDb();
       return "All quotes saved to MongoDB.";
@@ -80,23 +200,333 @@ public class CurrentStockController {
     *                  Example: "2025-01-01T00:00:00Z".
     * @param end       The end date for the historical data in RFC-3339 or YYYY-MM-DD format.
     *                  Example: "2025-01-08T00:00:00Z".
-    * @return A {@link HistoricalBarsResponse} containing the historical bar data for the given symbol and timeframe.
+    * @param webRequest The current request, to answer {@code If-None-Match} before any bar is loaded.
+    * @return A {@link BarSeriesResponse} containing the historical bar data for the given symbol and timeframe,
+    *         or 304 if the client's copy is still current. Settled ranges are cacheable for
+    *         {@code http.cache.bars.settled-max-age-seconds}, ranges that may still change for
+    *         {@code http.cache.bars.max-age-seconds}.
     * @throws IllegalArgumentException if any parameter (symbol, timeframe, start, end) is null, blank, or invalid.
     * @throws InvalidSymbolException if the symbol is invalid or no historical data is found.
     */
    @GetMapping("/{symbol}/bars")
-   public HistoricalBarsResponse getHistoricalBars(
+   @Bulkhead ("bars")
+   public ResponseEntity<BarSeriesResponse> getHistoricalBars(
        @PathVariable String symbol,
        @RequestParam(required = true) String timeframe,
        @RequestParam(required = true) String start,
-       @RequestParam(required = true) String end) {
+       @RequestParam(required = true) String end,
+       WebRequest webRequest) {
+      return barsResponse(MediaType.APPLICATION_JSON_VALUE, symbol, timeframe, start, end, webRequest, BarSeriesResponse::new);
+   }
+
+   /**
+    * Endpoint to fetch historical stock bars as columnar JSON: one array per field
+    * ({@code {"bars": {"t": [...], "o": [...], ...}}}) instead of one object per bar, so the keys
+    * are not repeated for every bar.
+    *
+    * Selected with {@code Accept: application/vnd.stockdock.bars.columns+json} on the same path as
+    * {@link #getHistoricalBars}; parameters, validation and caching are the same.
+    *
+    * @return A {@link ColumnarBarsResponse}, or 304 if the client's copy is still current.
+    */
+   @GetMapping(value = "/{symbol}/bars", produces = COLUMNAR_JSON_VALUE)
+   @Bulkhead ("bars")
+   public ResponseEntity<ColumnarBarsResponse> getHistoricalBarColumns(
+       @PathVariable String symbol,
+       @RequestParam(required = true) String timeframe,
+       @RequestParam(required = true) String start,
+       @RequestParam(required = true) String end,
+       WebRequest webRequest) {
+      return barsResponse(COLUMNAR_JSON_VALUE, symbol, timeframe, start, end, webRequest, ColumnarBarsResponse::new);
+   }
+
+   /**
+    * Endpoint to fetch historical stock bars in the compact binary format of {@link BarBinaryEncoder}
+    * (little-endian price columns followed by delta-encoded timestamps and varint volumes).
+    *
+    * Selected with {@code Accept: application/vnd.stockdock.bars} on the same path as
+    * {@link #getHistoricalBars}; parameters, validation and caching are the same.
+    *
+    * @return A binary body, or 304 if the client's copy is still current.
+    */
+   @GetMapping(value = "/{symbol}/bars", produces = BarBinaryEncoder.MEDIA_TYPE)
+   @Bulkhead ("bars")
+   public ResponseEntity<StreamingResponseBody> getHistoricalBarsBinary(
+       @PathVariable String symbol,
+       @RequestParam(required = true) String timeframe,
+       @RequestParam(required = true) String start,
+       @RequestParam(required = true) String end,
+       WebRequest webRequest) {
+      return barsResponse(BarBinaryEncoder.MEDIA_TYPE, symbol, timeframe, start, end, webRequest,
+          bars -> outputStream -> BarBinaryEncoder.write(bars, outputStream));
+   }
+
+   /**
+    * Endpoint to fetch historical bars for several stocks with one request, e.g. for comparison charts.
+    *
+    * The bars are fetched with Alpaca's multi-symbol bars endpoint (a few paged calls instead of one
+    * call per symbol) and time-aligned on a shared timestamp axis. The response is columnar: one
+    * array of timestamps, and per symbol one array per field with {@code null} where the symbol
+    * has no bar at that timestamp.
+    *
+    * @param symbols    Comma-separated stock symbols (e.g., AAPL,MSFT,NVDA), at most {@code bars.multi.max-symbols}.
+    * @param timeframe  The timeframe for data aggregation (e.g., "1Day", "1Hour").
+    * @param start      The start date for the historical data in RFC-3339 or YYYY-MM-DD format.
+    * @param end        The end date for the historical data in RFC-3339 or YYYY-MM-DD format.
+    * @param webRequest The current request, to answer {@code If-None-Match} before any bar is loaded.
+    * @return An {@link AlignedBarsResponse}, with per-symbol errors for symbols without bars,
+    *         or 304 if the client's copy is still current.
+    */
+   @GetMapping("/bars")
+   @Bulkhead ("bars")
+   public ResponseEntity<AlignedBarsResponse> getAlignedBars(
+       @RequestParam List<String> symbols,
+       @RequestParam(required = true) String timeframe,
+       @RequestParam(required = true) String start,
+       @RequestParam(required = true) String end,
+       WebRequest webRequest) {
+      List<String> normalized = currentStockService.normalizeBarSymbols(symbols);
+      String joined = String.join(",", normalized);
+
+      boolean settled = currentStockService.isSettledRange(normalized.getFirst(), timeframe, start, end);
+      String settledETag = barsETag(MediaType.APPLICATION_JSON_VALUE, joined, timeframe, start, end).build();
+      if (settled && webRequest.checkNotModified(settledETag)) {
+         return null;
+      }
+
+      logger.info("Fetching aligned historical bars for {} symbols, timeframe: {}, start: {}, end: {}", normalized.size(), timeframe, start, end);
+
+      // A response missing symbols (e.g. a failed chunk) must not be cached as settled
+      AlignedBarsResponse response = currentStockService.fetchAlignedBars(normalized, timeframe, start, end);
+      if (settled && response.errors().isEmpty()) {
+         return ResponseEntity.ok().eTag(settledETag).cacheControl(settledBarsCacheControl).varyBy(HttpHeaders.ACCEPT).body(response);
+      }
+
+      // The last bar of every symbol may still be forming, so its values are part of the tag
+      AlignedBars aligned = response.bars();
+      ETagBuilder eTag = barsETag(MediaType.APPLICATION_JSON_VALUE, joined, timeframe, start, end)
+          .add(aligned.length()).add(String.join(",", response.errors().keySet()));
+      for (int s = 0; s < aligned.symbols().size(); s++) {
+         BarColumns bars = aligned.bars(s);
+         int last = bars.size() - 1;
+         eTag.add(aligned.symbols().get(s)).add(bars.size())
+             .add(bars.t(last)).add(bars.o(last)).add(bars.h(last)).add(bars.l(last)).add(bars.c(last))
+             .add(bars.v(last)).add(bars.n(last)).add(bars.vw(last));
+      }
+      return ResponseEntity.ok().eTag(eTag.build()).cacheControl(barsCacheControl).varyBy(HttpHeaders.ACCEPT).body(response);
+   }
+
+   /**
+    * Endpoint to stream historical stock bars as NDJSON (one JSON bar per line).
+    *
+    * Selected with {@code Accept: application/x-ndjson} on the same path as {@link #getHistoricalBars}.
+    * Alpaca's pages are followed lazily and each bar is written to the response as soon as it is
+    * read, so arbitrarily large ranges (e.g. years of minute bars) are served with flat memory use.
+    *
+    * @param symbol    The stock symbol to fetch historical data for (e.g., "AAPL").
+    * @param timeframe The timeframe for data aggregation (e.g., "1Min", "1Day").
+    * @param start     The start date for the historical data in RFC-3339 or YYYY-MM-DD format.
+    * @param end       The end date for the historical data in RFC-3339 or YYYY-MM-DD format.
+    * @return A streaming NDJSON body of {@link HistoricalBar} objects.
+    */
+   @GetMapping(value = "/{symbol}/bars", produces = NDJSON_VALUE)
+   @Bulkhead ("streams")
+   public ResponseEntity<StreamingResponseBody> streamHistoricalBars(
+       @PathVariable String symbol,
+       @RequestParam(required = true) String timeframe,
+       @RequestParam(required = true) String start,
+       @RequestParam(required = true) String end,
+       WebRequest webRequest) {
+      // Validate before the response is committed, so bad requests still get a proper error status
+      boolean settled = currentStockService.isSettledRange(symbol, timeframe, start, end);
+      String settledETag = barsETag(NDJSON_VALUE, symbol, timeframe, start, end).build();
+      if (settled && webRequest.checkNotModified(settledETag)) {
+         return null;
+      }
+
+      logger.info("Streaming historical bars for symbol: {}, timeframe: {}, start: {}, end: {}", symbol, timeframe, start, end);
+
+      StreamingResponseBody body = outputStream -> {
+         try {
+            currentStockService.streamHistoricalBars(symbol, timeframe, start, end, bar -> writeLine(outputStream, barWriter, bar));
+         } catch (UncheckedIOException e) {
+            throw e.getCause();
+         }
+      };
+
+      // Only settled ranges get a validator: the tag of a live range would need the bars before streaming them
+      ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+          .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+          .varyBy(HttpHeaders.ACCEPT);
+      if (settled) {
+         response.eTag(settledETag).cacheControl(settledBarsCacheControl);
+      }
+      return response.body(body);
+   }
+
+   /**
+    * Endpoint to stream the recorded quote history of a symbol as NDJSON (one JSON object per line).
+    *
+    * Ticks are recorded for the tracked symbols and kept for {@code quotes.ticks.retention-ms};
+    * 1-minute mid/spread/latency rollups are kept longer. The range is read with an index scan and
+    * written while the cursor advances, so large ranges are served with flat memory use.
+    *
+    * @param symbol     The stock symbol (e.g., "AAPL").
+    * @param start      The start of the range in RFC-3339 or YYYY-MM-DD format.
+    * @param end        The end of the range in RFC-3339 or YYYY-MM-DD format.
+    * @param resolution "tick" (default) for every recorded {@link QuoteTick}, "1Min" for {@link QuoteRollup}s.
+    * @return A streaming NDJSON body of ticks or rollups in time order.
+    */
+   @GetMapping(value = "/{symbol}/ticks", produces = NDJSON_VALUE)
+   @Bulkhead ("streams")
+   public ResponseEntity<StreamingResponseBody> streamQuoteTicks(
+       @PathVariable String symbol,
+       @RequestParam(required = true) String start,
+       @RequestParam(required = true) String end,
+       @RequestParam(required = false) String resolution) {
+      // Validate before the response is committed, so bad requests still get a proper error status
+      if (symbol.isBlank()) {
+         throw new InvalidSymbolException("Symbol cannot be null or blank.");
+      }
+      TimeRange range = TimeRange.parse(start, end);
+      QuoteTickStore.Resolution parsedResolution = QuoteTickStore.Resolution.parse(resolution);
+
+      logger.info("Streaming quote history for symbol: {}, resolution: {}, start: {}, end: {}", symbol, parsedResolution, start, end);
+
+      StreamingResponseBody body = outputStream -> {
+         try {
+            if (parsedResolution == QuoteTickStore.Resolution.MINUTE) {
+               quoteTickStore.streamRollups(symbol, range, rollup -> writeLine(outputStream, rollupWriter, rollup));
+            } else {
+               quoteTickStore.streamTicks(symbol, range, tick -> writeLine(outputStream, tickWriter, tick));
+            }
+         } catch (UncheckedIOException e) {
+            throw e.getCause();
+         }
+      };
+
+      return ResponseEntity.ok()
+          .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+          .body(body);
+   }
+
+   /**
+    * Endpoint to compute technical indicators over historical bars.
+    *
+    * Indicators are computed incrementally and cached per symbol, timeframe, start and indicator
+    * list, so repeated requests with a moving {@code end} only process the bars added since.
+    * Only settled bars are included; the bar still forming is left out.
+    *
+    * @param symbol    The stock symbol (e.g., "AAPL").
+    * @param names     Comma-separated indicators, e.g. "sma:20,ema:50,rsi:14,macd:12:26:9,bollinger:20:2,vwap".
+    * @param timeframe The bar timeframe (e.g., "1Min", "1Day").
+    * @param start     The start date in RFC-3339 or YYYY-MM-DD format.
+    * @param end       The end date in RFC-3339 or YYYY-MM-DD format; defaults to now.
+    * @return An {@link IndicatorsResponse} with the bar timestamps and one aligned line per indicator output.
+    */
+   @GetMapping("/{symbol}/indicators")
+   @Bulkhead ("bars")
+   public IndicatorsResponse getIndicators(
+       @PathVariable String symbol,
+       @RequestParam String names,
+       @RequestParam String timeframe,
+       @RequestParam String start,
+       @RequestParam(required = false) String end) {
+      logger.info("Computing indicators {} for symbol: {}, timeframe: {}, start: {}, end: {}", names, symbol, timeframe, start, end);
+
+      return indicatorService.fetchIndicators(symbol, names, timeframe, start, end);
+   }
+
+   /**
+    * Wraps a service result in a 200 response with an {@code ETag}, so a client revalidating an
+    * unchanged result gets a 304 without a body. A last known value served while Alpaca is
+    * unavailable is flagged with {@code X-Data-Stale: true}, {@code X-Data-As-Of} and the
+    * standard {@code Warning: 110} header, so clients can tell it from a live answer, and must
+    * not be reused without revalidation.
+    */
+   private static <T> ResponseEntity<T> withStaleness (StaleableResult<T> result, String eTag, CacheControl cacheControl) {
+      ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(eTag);
+      if (!result.stale()) {
+         response.cacheControl(cacheControl);
+      } else {
+         response.cacheControl(CacheControl.noCache());
+         response.header(STALE_HEADER, "true");
+         response.header(HttpHeaders.WARNING, "110 - \"Response is Stale\"");
+         if (result.asOf() != null) {
+            response.header(AS_OF_HEADER, result.asOf().toString());
+         }
+      }
+      return response.body(result.value());
+   }
+
+   private static String quotesETag (StockQuotes quotes) {
+      ETagBuilder eTag = new ETagBuilder().add(quotes.currency());
+      quotes.quotes().forEach((symbol, quote) -> eTag.add(symbol).add(quote));
+      quotes.errors().forEach((symbol, error) -> eTag.add(symbol).add(error));
+      return eTag.build();
+   }
+
+   private static String snapshotsETag (StockSnapshots snapshots) {
+      ETagBuilder eTag = new ETagBuilder();
+      snapshots.snapshots().forEach((symbol, snapshot) -> eTag.add(symbol).add(snapshot));
+      snapshots.errors().forEach((symbol, error) -> eTag.add(symbol).add(error));
+      return eTag.build();
+   }
+
+   /**
+    * Loads the bars of a single-symbol request and wraps them in the body of the negotiated media type.
+    * All representations share validation and caching; their tags differ by media type.
+    */
+   private <T> ResponseEntity<T> barsResponse (
+       String mediaType,
+       String symbol,
+       String timeframe,
+       String start,
+       String end,
+       WebRequest webRequest,
+       Function<BarSlice, T> body
+                                              ) {
       if (symbol.isBlank() || timeframe.isBlank() || start.isBlank() || end.isBlank()) {
          throw new IllegalArgumentException("All parameters (symbol, timeframe, start, end) must be provided.");
       }
 
-      logger.info("Fetching historical bars for symbol: {}, timeframe: {}, start: {}, end: {}", symbol, timeframe, start, end);
+      // A settled range never changes, so its tag does not depend on the bars and a revalidation loads nothing
+      boolean settled = currentStockService.isSettledRange(symbol, timeframe, start, end);
+      String settledETag = barsETag(mediaType, symbol, timeframe, start, end).build();
+      if (settled && webRequest.checkNotModified(settledETag)) {
+         return null;
+      }
+
+      logger.info("Fetching historical bars for symbol: {}, timeframe: {}, start: {}, end: {}, as {}", symbol, timeframe, start, end, mediaType);
+
+      BarSlice bars = currentStockService.fetchHistoricalBars(symbol, timeframe, start, end).bars();
+      ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+          .contentType(MediaType.parseMediaType(mediaType))
+          .varyBy(HttpHeaders.ACCEPT);
+      if (settled) {
+         return response.eTag(settledETag).cacheControl(settledBarsCacheControl).body(body.apply(bars));
+      }
 
-      return currentStockService.fetchHistoricalBars(symbol, timeframe, start, end);
+      // The last bar may still be forming, so its values are part of the tag
+      int last = bars.size() - 1;
+      String eTag = barsETag(mediaType, symbol, timeframe, start, end)
+          .add(bars.size())
+          .add(bars.t(last)).add(bars.o(last)).add(bars.h(last)).add(bars.l(last)).add(bars.c(last))
+          .add(bars.v(last)).add(bars.n(last)).add(bars.vw(last))
+          .build();
+      return response.eTag(eTag).cacheControl(barsCacheControl).body(body.apply(bars));
    }
 
-}
\ No newline at end of file
+   private static ETagBuilder barsETag (String mediaType, String symbol, String timeframe, String start, String end) {
+      return new ETagBuilder().add(mediaType).add(symbol.toUpperCase(Locale.ROOT)).add(timeframe).add(start).add(end);
+   }
+
+   private static void writeLine(OutputStream outputStream, ObjectWriter writer, Object value) {
+      try {
+         outputStream.write(writer.writeValueAsBytes(value));
+         outputStream.write('\n');
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+}
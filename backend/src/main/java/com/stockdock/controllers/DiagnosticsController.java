@@ -0,0 +1,175 @@
+package com.stockdock.controllers;
+
+import com.stockdock.cache.BarSeriesCache;
+import com.stockdock.clients.SingleFlight;
+import com.stockdock.cluster.ShardCoordinator;
+import com.stockdock.dto.BarArchiveStats;
+import com.stockdock.dto.BarCacheStats;
+import com.stockdock.dto.CacheStats;
+import com.stockdock.dto.IndicatorCacheStats;
+import com.stockdock.dto.QuoteTickStats;
+import com.stockdock.dto.SchedulerStats;
+import com.stockdock.dto.ShardStats;
+import com.stockdock.dto.SingleFlightStats;
+import com.stockdock.dto.UpstreamStats;
+import com.stockdock.dto.WriteBehindStats;
+import com.stockdock.resilience.AlpacaCallExecutor;
+import com.stockdock.schedulers.CurrentStockScheduler;
+import com.stockdock.services.BarArchive;
+import com.stockdock.services.CurrentStockService;
+import com.stockdock.services.IndicatorService;
+import com.stockdock.services.QuoteTickStore;
+import com.stockdock.services.QuoteWriteBehind;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("api/diagnostics")
+public class DiagnosticsController {
+
+   private final CurrentStockService currentStockService;
+   private final SingleFlight singleFlight;
+   private final QuoteWriteBehind quoteWriteBehind;
+   private final AlpacaCallExecutor alpacaCallExecutor;
+   private final IndicatorService indicatorService;
+   private final BarSeriesCache barSeriesCache;
+   private final BarArchive barArchive;
+   private final ShardCoordinator shardCoordinator;
+   private final CurrentStockScheduler currentStockScheduler;
+   private final QuoteTickStore quoteTickStore;
+
+   public DiagnosticsController (
+       CurrentStockService currentStockService,
+       SingleFlight singleFlight,
+       QuoteWriteBehind quoteWriteBehind,
+       AlpacaCallExecutor alpacaCallExecutor,
+       IndicatorService indicatorService,
+       BarSeriesCache barSeriesCache,
+       BarArchive barArchive,
+       ShardCoordinator shardCoordinator,
+       CurrentStockScheduler currentStockScheduler,
+       QuoteTickStore quoteTickStore
+                                ) {
+      this.currentStockService = currentStockService;
+      this.singleFlight = singleFlight;
+      this.quoteWriteBehind = quoteWriteBehind;
+      this.alpacaCallExecutor = alpacaCallExecutor;
+      this.indicatorService = indicatorService;
+      this.barSeriesCache = barSeriesCache;
+      this.barArchive = barArchive;
+      this.shardCoordinator = shardCoordinator;
+      this.currentStockScheduler = currentStockScheduler;
+      this.quoteTickStore = quoteTickStore;
+   }
+
+   /**
+    * Endpoint to inspect the quote cache.
+    *
+    * @return CacheStats with the size and hit/miss/eviction counters of the quote cache.
+    */
+   @GetMapping ("/quote-cache")
+   public CacheStats getQuoteCacheStats () {
+      return currentStockService.getQuoteCacheStats();
+   }
+
+   /**
+    * Endpoint to inspect the snapshot cache.
+    *
+    * @return CacheStats with the size and hit/miss/eviction counters of the snapshot cache.
+    */
+   @GetMapping ("/snapshot-cache")
+   public CacheStats getSnapshotCacheStats () {
+      return currentStockService.getSnapshotCacheStats();
+   }
+
+   /**
+    * Endpoint to inspect request coalescing of Alpaca calls.
+    *
+    * @return SingleFlightStats with executed/coalesced counters and the calls currently in flight.
+    */
+   @GetMapping ("/in-flight")
+   public SingleFlightStats getInFlightStats () {
+      return singleFlight.stats();
+   }
+
+   /**
+    * Endpoint to inspect the write-behind pipeline to MongoDB.
+    *
+    * @return WriteBehindStats with the queue size, flush latency and conflation ratio.
+    */
+   @GetMapping ("/write-behind")
+   public WriteBehindStats getWriteBehindStats () {
+      return quoteWriteBehind.stats();
+   }
+
+   /**
+    * Endpoint to inspect the resilience layer in front of Alpaca.
+    *
+    * @return UpstreamStats with the rate limiter tokens, retry/rejection counters and breaker states.
+    */
+   @GetMapping ("/upstream")
+   public UpstreamStats getUpstreamStats () {
+      return alpacaCallExecutor.stats();
+   }
+
+   /**
+    * Endpoint to inspect the indicator series cache.
+    *
+    * @return IndicatorCacheStats with the cached series and hit/extension/miss counters.
+    */
+   @GetMapping ("/indicators")
+   public IndicatorCacheStats getIndicatorCacheStats () {
+      return indicatorService.stats();
+   }
+
+   /**
+    * Endpoint to inspect the columnar bar series cache.
+    *
+    * @return BarCacheStats with the cached series, their memory use and hit/extension/miss counters.
+    */
+   @GetMapping ("/bar-cache")
+   public BarCacheStats getBarCacheStats () {
+      return barSeriesCache.stats();
+   }
+
+   /**
+    * Endpoint to inspect the on-disk bar archive.
+    *
+    * @return BarArchiveStats with the archive location, mode, open files and read/append counters.
+    */
+   @GetMapping ("/bar-archive")
+   public BarArchiveStats getBarArchiveStats () {
+      return barArchive.stats();
+   }
+
+   /**
+    * Endpoint to inspect how polling is sharded across instances.
+    *
+    * @return ShardStats with this instance's id, the live members and the number of owned symbols.
+    */
+   @GetMapping ("/shards")
+   public ShardStats getShardStats () {
+      return shardCoordinator.stats();
+   }
+
+   /**
+    * Endpoint to inspect the market-hours-aware polling scheduler.
+    *
+    * @return SchedulerStats with the current session phase, the task intervals and the poll/skip counters.
+    */
+   @GetMapping ("/scheduler")
+   public SchedulerStats getSchedulerStats () {
+      return currentStockScheduler.stats();
+   }
+
+   /**
+    * Endpoint to inspect the quote tick history recorder.
+    *
+    * @return QuoteTickStats with the retention, the queue size and the recorded/written/dropped counters.
+    */
+   @GetMapping ("/quote-ticks")
+   public QuoteTickStats getQuoteTickStats () {
+      return quoteTickStore.stats();
+   }
+}
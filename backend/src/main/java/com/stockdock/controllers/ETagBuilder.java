@@ -0,0 +1,93 @@
+package com.stockdock.controllers;
+
+import com.stockdock.dto.StockBar;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.dto.StockSnapshotResponse;
+import com.stockdock.dto.StockTrade;
+
+import java.time.Instant;
+
+/**
+ * Builds a strong entity tag from the values a response is made of, so a conditional request can
+ * be answered without serializing the response first.
+ *
+ * Values are hashed with 64-bit FNV-1a; every value is followed by a separator so that, e.g.,
+ * ("AB", "C") and ("A", "BC") produce different tags.
+ */
+final class ETagBuilder {
+
+   private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+   private static final long FNV_PRIME = 0x100000001b3L;
+   private static final long NULL_MARKER = 0x9e3779b97f4a7c15L;
+
+   private long hash = FNV_OFFSET;
+
+   ETagBuilder add (String value) {
+      if (value == null) {
+         return add(NULL_MARKER);
+      }
+      for (int i = 0; i < value.length(); i++) {
+         mix(value.charAt(i));
+      }
+      mix(0xff);
+      return this;
+   }
+
+   ETagBuilder add (long value) {
+      for (int shift = 0; shift < 64; shift += 8) {
+         mix((int) (value >>> shift) & 0xff);
+      }
+      return this;
+   }
+
+   ETagBuilder add (double value) {
+      return add(Double.doubleToLongBits(value));
+   }
+
+   ETagBuilder add (Instant value) {
+      return value == null ? add(NULL_MARKER) : add(value.getEpochSecond()).add(value.getNano());
+   }
+
+   ETagBuilder add (StockQuote quote) {
+      if (quote == null) {
+         return add(NULL_MARKER);
+      }
+      return add(quote.t()).add(quote.ap()).add(quote.as()).add(quote.ax())
+          .add(quote.bp()).add(quote.bs()).add(quote.bx()).add(String.valueOf(quote.c())).add(quote.z());
+   }
+
+   ETagBuilder add (StockBar bar) {
+      if (bar == null) {
+         return add(NULL_MARKER);
+      }
+      return add(bar.t()).add(bar.o()).add(bar.h()).add(bar.l()).add(bar.c()).add(bar.v()).add(bar.n()).add(bar.vw());
+   }
+
+   ETagBuilder add (StockTrade trade) {
+      if (trade == null) {
+         return add(NULL_MARKER);
+      }
+      return add(trade.t()).add(trade.i()).add(trade.p()).add(trade.s()).add(trade.x())
+          .add(String.valueOf(trade.c())).add(trade.z());
+   }
+
+   ETagBuilder add (StockSnapshotResponse snapshot) {
+      if (snapshot == null) {
+         return add(NULL_MARKER);
+      }
+      return add(snapshot.symbol()).add(snapshot.dailyBar()).add(snapshot.prevDailyBar()).add(snapshot.latestQuote())
+          .add(snapshot.latestTrade()).add(snapshot.minuteBar());
+   }
+
+   /**
+    * The tag, quoted as required in the {@code ETag} header.
+    */
+   String build () {
+      return "\"" + String.format("%016x", hash) + "\"";
+   }
+
+   private void mix (int octet) {
+      hash ^= octet;
+      hash *= FNV_PRIME;
+   }
+}
@@ -0,0 +1,36 @@
+package com.stockdock.controllers;
+
+import com.stockdock.services.QuoteBroadcaster;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("api/quotes")
+public class QuoteStreamController {
+
+   private final QuoteBroadcaster quoteBroadcaster;
+
+   public QuoteStreamController (QuoteBroadcaster quoteBroadcaster) {
+      this.quoteBroadcaster = quoteBroadcaster;
+   }
+
+   /**
+    * Endpoint to receive live quote updates as Server-Sent Events.
+    *
+    * Every event is named {@code quote} and carries a {@link com.stockdock.dto.QuoteUpdate}.
+    * Slow clients only receive the latest quote per symbol instead of every intermediate one.
+    *
+    * @param symbols Optional comma-separated symbols to receive (e.g., AAPL,MSFT); all symbols if omitted.
+    * @return An SSE stream of quote updates.
+    */
+   @GetMapping (value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+   public SseEmitter streamQuotes (@RequestParam (required = false) List<String> symbols) {
+      return quoteBroadcaster.subscribe(symbols == null ? List.of() : symbols);
+   }
+}
@@ -0,0 +1,61 @@
+package com.stockdock.controllers;
+
+import com.stockdock.services.SymbolRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("api/symbols")
+public class SymbolController {
+
+   private static final Logger logger = LoggerFactory.getLogger(SymbolController.class);
+
+   private final SymbolRegistry symbolRegistry;
+
+   public SymbolController (SymbolRegistry symbolRegistry) {
+      this.symbolRegistry = symbolRegistry;
+   }
+
+   /**
+    * Endpoint to list the tracked symbols.
+    *
+    * @return The symbols polled, streamed and served by {@code api/quotes/all}, in the order they were added.
+    */
+   @GetMapping
+   public List<String> getSymbols () {
+      return symbolRegistry.getSymbols();
+   }
+
+   /**
+    * Endpoint to start tracking a symbol. Takes effect on all instances within one reload interval.
+    *
+    * @param symbol The stock symbol to add (e.g., AAPL).
+    *
+    * @return 201 with the normalized symbol.
+    */
+   @PostMapping ("/{symbol}")
+   public ResponseEntity<String> addSymbol (@PathVariable String symbol) {
+      String added = symbolRegistry.add(symbol);
+      logger.info("Symbol {} added to the tracked symbols.", added);
+      return ResponseEntity.status(HttpStatus.CREATED).body(added);
+   }
+
+   /**
+    * Endpoint to stop tracking a symbol. Takes effect on all instances within one reload interval.
+    *
+    * @param symbol The stock symbol to remove (e.g., AAPL).
+    *
+    * @return 204 once the symbol is removed.
+    */
+   @DeleteMapping ("/{symbol}")
+   public ResponseEntity<Void> removeSymbol (@PathVariable String symbol) {
+      symbolRegistry.remove(symbol);
+      logger.info("Symbol {} removed from the tracked symbols.", symbol);
+      return ResponseEntity.noContent().build();
+   }
+}
@@ -0,0 +1,21 @@
+package com.stockdock.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.stockdock.bars.AlignedBars;
+
+import java.util.Map;
+
+/**
+ * Historical bars of several symbols, time-aligned on one timestamp axis in columnar form
+ * (see {@link com.stockdock.bars.AlignedBarsSerializer}).
+ */
+public record AlignedBarsResponse(
+    String timeframe,             // Bar timeframe, e.g. "1Day"
+    AlignedBars bars,             // Shared timestamp axis and one set of columns per symbol
+    @JsonInclude (JsonInclude.Include.NON_EMPTY)
+    Map<String, String> errors    // Symbol -> reason, for symbols without bars in the range
+) {
+   public AlignedBarsResponse {
+      errors = errors == null ? Map.of() : errors;
+   }
+}
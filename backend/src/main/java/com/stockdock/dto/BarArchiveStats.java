@@ -0,0 +1,13 @@
+package com.stockdock.dto;
+
+public record BarArchiveStats(
+    String directory,     // Where the archive files live
+    boolean offline,      // Whether bars are served from the archive only
+    int openFiles,        // Archive files (symbol + timeframe) opened so far
+    long archivedBars,    // Bars committed in the open files
+    long barsServed,      // Bars read from the archive
+    long barsAppended,    // Bars appended to archives
+    long rewrites,        // Archives rewritten to cover an earlier or a disjoint range
+    long failures         // Archive reads or writes that failed and fell back to the bar store/Alpaca
+) {
+}
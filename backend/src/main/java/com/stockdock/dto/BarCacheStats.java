@@ -0,0 +1,14 @@
+package com.stockdock.dto;
+
+public record BarCacheStats(
+    int series,          // Cached series (symbol + timeframe)
+    long bars,           // Bars held by all series
+    long bytes,          // Memory held by the columns
+    long maxBytes,       // Memory budget before least recently used series are evicted
+    boolean offHeap,     // Whether columns live outside the Java heap
+    long hits,           // Requests served entirely from a cached series
+    long extensions,     // Requests that fetched only the range missing from a cached series
+    long misses,         // Requests that had to fetch their whole settled range
+    long evictions       // Series dropped to stay within the memory budget
+) {
+}
@@ -0,0 +1,11 @@
+package com.stockdock.dto;
+
+import com.stockdock.bars.BarSlice;
+
+/**
+ * Historical bars response backed by columnar storage. Serializes to the same JSON as
+ * {@link HistoricalBarsResponse}, without a {@link HistoricalBar} record per bar.
+ */
+public record BarSeriesResponse(
+    BarSlice bars
+) {}
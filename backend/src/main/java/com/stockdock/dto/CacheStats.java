@@ -0,0 +1,14 @@
+package com.stockdock.dto;
+
+public record CacheStats(
+    String name,           // Cache name (e.g., quotes)
+    int size,              // Current number of entries
+    int maxSize,           // Maximum number of entries before LRU eviction
+    long hits,             // Fresh hits
+    long staleHits,        // Stale entries served while a refresh ran in the background
+    long misses,           // Lookups that had to load synchronously
+    long evictions,        // Entries evicted because the cache was full
+    long refreshes,        // Successful background refreshes
+    long refreshFailures   // Failed background refreshes
+) {
+}
@@ -0,0 +1,14 @@
+package com.stockdock.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.stockdock.bars.BarSlice;
+import com.stockdock.bars.BarSliceColumnsSerializer;
+
+/**
+ * Historical bars response in columnar JSON: the same bars as {@link BarSeriesResponse}, written as
+ * one array per field (see {@link BarSliceColumnsSerializer}).
+ */
+public record ColumnarBarsResponse(
+    @JsonSerialize (using = BarSliceColumnsSerializer.class)
+    BarSlice bars
+) {}
@@ -0,0 +1,11 @@
+package com.stockdock.dto;
+
+public record IndicatorCacheStats(
+    int size,            // Cached series (symbol + timeframe + start + indicators)
+    int maxSize,         // Series kept before the least recently used one is dropped
+    long hits,           // Requests served entirely from a cached series
+    long extensions,     // Requests that appended newer bars to a cached series
+    long misses,         // Requests that had to compute a series from scratch
+    long barsComputed    // Bars fed through indicators so far
+) {
+}
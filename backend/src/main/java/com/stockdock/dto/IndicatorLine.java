@@ -0,0 +1,17 @@
+package com.stockdock.dto;
+
+/**
+ * One output series of an indicator, aligned with the bar timestamps of an {@link IndicatorsResponse}.
+ *
+ * @param name   The indicator (e.g., "macd:12:26:9").
+ * @param output The output of the indicator (e.g., "signal"); "value" for single-output indicators.
+ * @param offset Index of the bar the first value belongs to. Bars before it are the indicator's warm-up.
+ * @param values The values for bars {@code offset} to the last bar.
+ */
+public record IndicatorLine(
+    String name,
+    String output,
+    int offset,
+    double[] values
+) {
+}
@@ -0,0 +1,21 @@
+package com.stockdock.dto;
+
+import java.util.List;
+
+/**
+ * Technical indicators over a bar series, in columnar form.
+ *
+ * @param symbol     The stock symbol.
+ * @param timeframe  The bar timeframe (e.g., "1Day").
+ * @param t          Bar timestamps in epoch milliseconds.
+ * @param close      Bar closes.
+ * @param indicators One line per indicator output.
+ */
+public record IndicatorsResponse(
+    String symbol,
+    String timeframe,
+    long[] t,
+    double[] close,
+    List<IndicatorLine> indicators
+) {
+}
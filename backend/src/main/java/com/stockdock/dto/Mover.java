@@ -0,0 +1,11 @@
+package com.stockdock.dto;
+
+public record Mover(
+    String symbol,          // Stock symbol (e.g., AAPL)
+    double price,           // Latest trade price (today's close if there was no trade)
+    double prevClose,       // Close of the previous daily bar
+    double changePercent,   // Change of price versus prevClose, in percent
+    long volume,            // Volume of today's daily bar
+    Double spreadBps        // Bid/ask spread of the latest quote, in basis points of the mid price (null if one-sided)
+) {
+}
@@ -0,0 +1,14 @@
+package com.stockdock.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record MoversResponse(
+    Instant asOf,                // When the rankings last changed
+    int symbols,                 // Tracked symbols with a snapshot
+    List<Mover> gainers,         // Highest percent change first
+    List<Mover> losers,          // Lowest percent change first
+    List<Mover> mostActive,      // Highest volume first
+    List<Mover> widestSpreads    // Widest relative bid/ask spread first
+) {
+}
@@ -0,0 +1,17 @@
+package com.stockdock.dto;
+
+import java.time.Instant;
+
+public record QuoteRollup(
+    Instant t,             // Start of the minute
+    int n,                 // Number of two-sided ticks in the minute
+    double open,           // First mid price
+    double high,           // Highest mid price
+    double low,            // Lowest mid price
+    double close,          // Last mid price
+    double avgMid,         // Average mid price
+    double avgSpread,      // Average bid/ask spread
+    double maxSpread,      // Widest bid/ask spread
+    double avgLatencyMs    // Average delay between quote timestamp and receipt
+) {
+}
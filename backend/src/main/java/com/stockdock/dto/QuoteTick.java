@@ -0,0 +1,16 @@
+package com.stockdock.dto;
+
+import java.time.Instant;
+
+public record QuoteTick(
+    Instant t,          // Quote timestamp reported by the exchange
+    double bp,          // Bid Price
+    int bs,             // Bid Size
+    String bx,          // Bid Exchange
+    double ap,          // Ask Price
+    int as,             // Ask Size
+    String ax,          // Ask Exchange
+    Instant r,          // When the quote was received
+    String src          // Where the quote came from (POLL or STREAM)
+) {
+}
@@ -0,0 +1,17 @@
+package com.stockdock.dto;
+
+import java.time.Instant;
+
+public record QuoteTickStats(
+    boolean enabled,          // Whether quote ticks are recorded
+    long retentionSeconds,    // How long ticks are kept before MongoDB expires them
+    int pending,              // Ticks waiting to be written
+    long recorded,            // Ticks accepted for writing
+    long duplicates,          // Quote updates skipped because they were not newer than the last tick
+    long dropped,             // Ticks lost because the queue was full or a write failed
+    long written,             // Ticks written to MongoDB
+    long flushFailures,       // Failed batch inserts
+    long rollupRuns,          // Completed 1-minute rollup runs
+    Instant lastRollup        // End of the last rolled-up range, null if none yet
+) {
+}
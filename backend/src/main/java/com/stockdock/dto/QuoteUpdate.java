@@ -0,0 +1,7 @@
+package com.stockdock.dto;
+
+public record QuoteUpdate(
+    String symbol,      // Stock symbol
+    StockQuote quote    // Latest quote for the symbol
+) {
+}
@@ -0,0 +1,15 @@
+package com.stockdock.dto;
+
+import java.time.Instant;
+
+public record SchedulerStats(
+    String phase,                 // Current market session phase (PRE_MARKET, REGULAR, AFTER_HOURS, CLOSED)
+    Instant nextPhaseChange,      // When the session phase changes next
+    long pollIntervalMs,          // Current interval of the quote cache refresh
+    long saveIntervalMs,          // Current interval of the quote save sweep
+    int trackedPolledSymbols,     // Owned symbols polled at least once
+    int hotSymbols,               // Owned symbols refreshed on every poll, as of the last poll
+    long symbolsPolled,           // Symbols polled since startup, over all runs
+    long skippedRuns              // Runs skipped because the previous run was still in progress
+) {
+}
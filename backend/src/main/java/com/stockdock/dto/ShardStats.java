@@ -0,0 +1,15 @@
+package com.stockdock.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record ShardStats(
+    String instanceId,      // This instance's lease id
+    String host,            // This instance's host name
+    boolean enabled,        // Whether polling is sharded (otherwise every instance polls everything)
+    List<String> members,   // Live instances, as last seen
+    int trackedSymbols,     // Symbols tracked by the cluster
+    int ownedSymbols,       // Symbols this instance polls and streams
+    Instant lastHeartbeat   // Last successful lease renewal, null if never joined
+) {
+}
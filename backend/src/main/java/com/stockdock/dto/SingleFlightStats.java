@@ -0,0 +1,10 @@
+package com.stockdock.dto;
+
+import java.util.Map;
+
+public record SingleFlightStats(
+    long executions,              // Upstream calls actually executed
+    long coalesced,               // Callers that shared an already running call
+    Map<String, Integer> inFlight // Keys currently in flight -> number of callers waiting on them
+) {
+}
@@ -0,0 +1,24 @@
+package com.stockdock.dto;
+
+import java.time.Instant;
+
+/**
+ * A value served to a client, possibly a last known good one served while Alpaca is unavailable.
+ *
+ * @param value The value.
+ * @param stale Whether the value is a fallback rather than a current upstream answer.
+ * @param asOf  When the value was last known to be current (null for fresh values).
+ */
+public record StaleableResult<T>(
+    T value,
+    boolean stale,
+    Instant asOf
+) {
+   public static <T> StaleableResult<T> fresh(T value) {
+      return new StaleableResult<>(value, false, null);
+   }
+
+   public static <T> StaleableResult<T> stale(T value, Instant asOf) {
+      return new StaleableResult<>(value, true, asOf);
+   }
+}
@@ -1,9 +1,20 @@
 package com.stockdock.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.Map;
 
 public record StockQuotes(
     String currency,
-    Map<String, StockQuote> quotes
+    Map<String, StockQuote> quotes,
+    @JsonInclude (JsonInclude.Include.NON_EMPTY)
+    Map<String, String> errors     // Symbol -> reason, for symbols whose quote could not be fetched
 ) {
+   public StockQuotes {
+      errors = errors == null ? Map.of() : errors;
+   }
+
+   public StockQuotes(String currency, Map<String, StockQuote> quotes) {
+      this(currency, quotes, Map.of());
+   }
 }
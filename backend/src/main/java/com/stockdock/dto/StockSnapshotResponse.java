@@ -8,4 +8,10 @@ public record StockSnapshotResponse(
     StockTrade latestTrade,
     StockBar minuteBar
 ) {
+   /**
+    * The multi-symbol snapshots endpoint keys snapshots by symbol instead of repeating it in each one.
+    */
+   public StockSnapshotResponse withSymbol(String symbol) {
+      return new StockSnapshotResponse(symbol, dailyBar, prevDailyBar, latestQuote, latestTrade, minuteBar);
+   }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.stockdock.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
+public record StockSnapshots(
+    Map<String, StockSnapshotResponse> snapshots, // Symbol -> snapshot
+    @JsonInclude (JsonInclude.Include.NON_EMPTY)
+    Map<String, String> errors                    // Symbol -> reason, for symbols whose snapshot could not be fetched
+) {
+   public StockSnapshots {
+      errors = errors == null ? Map.of() : errors;
+   }
+}
@@ -0,0 +1,18 @@
+package com.stockdock.dto;
+
+import java.util.List;
+
+public record UpstreamStats(
+    double availableTokens,          // Rate limiter tokens left (negative while callers wait for one)
+    long retries,                    // Retried Alpaca calls
+    long rejected,                   // Calls refused by an open breaker or the rate limit
+    List<CircuitBreakerStats> breakers
+) {
+   public record CircuitBreakerStats(
+       String endpoint,              // Alpaca endpoint (e.g., latest_quote)
+       String state,                 // CLOSED, OPEN or HALF_OPEN
+       double failureRate,           // Failure rate over the breaker's window
+       long remainingOpenMillis      // Time until an open breaker allows a trial call
+   ) {
+   }
+}
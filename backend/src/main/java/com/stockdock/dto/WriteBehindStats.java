@@ -0,0 +1,17 @@
+package com.stockdock.dto;
+
+public record WriteBehindStats(
+    int pending,             // Symbols waiting to be written
+    int maxPending,          // Pending symbols before quotes for new symbols are dropped
+    long submitted,          // Quote updates handed to the pipeline
+    long conflated,          // Updates merged with a still pending quote for the same symbol
+    long dropped,            // Updates dropped because the queue was full
+    long flushes,            // Completed flushes
+    long flushFailures,      // Failed flushes (their quotes are re-queued while there is room)
+    long flushedDocuments,   // Documents written to MongoDB
+    long lastFlushMillis,    // Duration of the last flush
+    long maxFlushMillis,     // Slowest flush so far
+    double avgFlushMillis,   // Average flush duration
+    double conflationRatio   // Updates submitted per document written (1.0 = nothing conflated)
+) {
+}
@@ -0,0 +1,19 @@
+package com.stockdock.events;
+
+import com.stockdock.dto.StockQuote;
+
+/**
+ * Published whenever a newer quote for a symbol arrives from Alpaca,
+ * either from polling or from the real-time market-data stream.
+ */
+public record QuoteUpdatedEvent(
+    String symbol,      // Stock symbol (e.g., AAPL)
+    String currency,    // Currency of the prices (e.g., USD), null if the source doesn't report it
+    StockQuote quote,   // The new quote
+    Source source       // Where the quote came from
+) {
+   public enum Source {
+      POLL,     // REST polling (scheduler or cache loader)
+      STREAM    // Alpaca market-data WebSocket
+   }
+}
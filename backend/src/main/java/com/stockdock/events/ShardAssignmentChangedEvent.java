@@ -0,0 +1,12 @@
+package com.stockdock.events;
+
+import java.util.Set;
+
+/**
+ * Published when the symbols this instance is responsible for changed, because symbols were
+ * added or removed or because instances joined or left the cluster.
+ */
+public record ShardAssignmentChangedEvent(
+    Set<String> owned   // Symbols this instance polls and streams from now on
+) {
+}
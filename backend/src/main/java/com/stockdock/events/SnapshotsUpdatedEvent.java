@@ -0,0 +1,13 @@
+package com.stockdock.events;
+
+import com.stockdock.dto.StockSnapshotResponse;
+
+import java.util.Map;
+
+/**
+ * Published whenever snapshots were fetched from Alpaca, for one symbol or a batch of them.
+ */
+public record SnapshotsUpdatedEvent(
+    Map<String, StockSnapshotResponse> snapshots   // Symbol -> the new snapshot
+) {
+}
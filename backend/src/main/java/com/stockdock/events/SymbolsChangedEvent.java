@@ -0,0 +1,12 @@
+package com.stockdock.events;
+
+import java.util.List;
+
+/**
+ * Published when the set of tracked symbols changed, through the symbols API on this instance
+ * or on another one (picked up by the periodic reload).
+ */
+public record SymbolsChangedEvent(
+    List<String> symbols   // All tracked symbols after the change
+) {
+}
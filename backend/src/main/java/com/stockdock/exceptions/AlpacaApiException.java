@@ -1,7 +1,19 @@
 package com.stockdock.exceptions;
 
 public class AlpacaApiException extends RuntimeException {
+
+   private final int statusCode; // HTTP status returned by Alpaca, 0 if there was none
+
    public AlpacaApiException(String message) {
+      this(message, 0);
+   }
+
+   public AlpacaApiException(String message, int statusCode) {
       super(message);
+      this.statusCode = statusCode;
+   }
+
+   public int getStatusCode() {
+      return statusCode;
    }
-}
\ No newline at end of file
+}
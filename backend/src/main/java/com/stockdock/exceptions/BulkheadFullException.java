@@ -0,0 +1,11 @@
+package com.stockdock.exceptions;
+
+/**
+ * Thrown when an endpoint already handles as many concurrent requests as its bulkhead allows.
+ * Mapped to {@code 503 Service Unavailable}.
+ */
+public class BulkheadFullException extends RuntimeException {
+   public BulkheadFullException(String message) {
+      super(message);
+   }
+}
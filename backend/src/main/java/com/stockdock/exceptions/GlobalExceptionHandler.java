@@ -2,6 +2,7 @@ package com.stockdock.exceptions;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -36,6 +37,35 @@ public class GlobalExceptionHandler {
 		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid date range: " + e.getMessage());
 	}
 
+	@ExceptionHandler(UnsupportedIndicatorException.class)
+	public ResponseEntity<String> handleUnsupportedIndicatorException(UnsupportedIndicatorException e) {
+		logger.error("Unsupported indicator: {}", e.getMessage());
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Unsupported indicator: " + e.getMessage());
+	}
+
+	@ExceptionHandler(UnsupportedTimeframeException.class)
+	public ResponseEntity<String> handleUnsupportedTimeframeException(UnsupportedTimeframeException e) {
+		logger.error("Unsupported timeframe: {}", e.getMessage());
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Unsupported timeframe: " + e.getMessage());
+	}
+
+	@ExceptionHandler(UpstreamUnavailableException.class)
+	public ResponseEntity<String> handleUpstreamUnavailableException(UpstreamUnavailableException e) {
+		logger.warn("Upstream unavailable: {}", e.getMessage());
+		long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+				.body("Market data is temporarily unavailable: " + e.getMessage());
+	}
+
+	@ExceptionHandler(BulkheadFullException.class)
+	public ResponseEntity<String> handleBulkheadFullException(BulkheadFullException e) {
+		logger.warn("Request rejected: {}", e.getMessage());
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.body(e.getMessage());
+	}
+
 	@ExceptionHandler(DataNotFoundException.class)
 	public ResponseEntity<String> handleDataNotFoundException(DataNotFoundException e) {
 		logger.error("Data not found: {}", e.getMessage());
@@ -0,0 +1,7 @@
+package com.stockdock.exceptions;
+
+public class UnsupportedIndicatorException extends RuntimeException {
+   public UnsupportedIndicatorException(String message) {
+      super(message);
+   }
+}
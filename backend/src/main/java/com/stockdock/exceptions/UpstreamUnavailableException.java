@@ -0,0 +1,27 @@
+package com.stockdock.exceptions;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the Alpaca API cannot be called right now: its circuit breaker is open, the
+ * client-side rate limit is exhausted, or it kept failing with 429/5xx after all retries.
+ * Mapped to {@code 503 Service Unavailable} with a {@code Retry-After} header.
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+   private final Duration retryAfter;
+
+   public UpstreamUnavailableException(String message, Duration retryAfter) {
+      super(message);
+      this.retryAfter = retryAfter;
+   }
+
+   public UpstreamUnavailableException(String message, Duration retryAfter, Throwable cause) {
+      super(message, cause);
+      this.retryAfter = retryAfter;
+   }
+
+   public Duration getRetryAfter() {
+      return retryAfter;
+   }
+}
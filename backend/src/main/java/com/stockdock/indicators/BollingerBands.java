@@ -0,0 +1,61 @@
+package com.stockdock.indicators;
+
+import com.stockdock.bars.BarColumns;
+
+/**
+ * Bollinger bands: simple moving average of the close over {@code period} bars, and bands
+ * {@code k} population standard deviations above and below it. The window's sum and sum of
+ * squares are maintained incrementally.
+ */
+public final class BollingerBands implements Indicator {
+
+   private static final String[] OUTPUTS = {"middle", "upper", "lower"};
+
+   private final int period;
+   private final double k;
+   private final DoubleRingBuffer window;
+   private double sum;
+   private double sumOfSquares;
+
+   public BollingerBands (int period, double k) {
+      this.period = period;
+      this.k = k;
+      this.window = new DoubleRingBuffer(period);
+   }
+
+   @Override
+   public String name () {
+      return "bollinger:" + period + ":" + IndicatorSpec.formatNumber(k);
+   }
+
+   @Override
+   public String[] outputs () {
+      return OUTPUTS;
+   }
+
+   @Override
+   public void update (BarColumns bars, int i, double[] out) {
+      double close = bars.c(i);
+      double evicted = window.add(close);
+      sum += close;
+      sumOfSquares += close * close;
+      if (!Double.isNaN(evicted)) {
+         sum -= evicted;
+         sumOfSquares -= evicted * evicted;
+      }
+
+      if (!window.isFull()) {
+         out[0] = Double.NaN;
+         out[1] = Double.NaN;
+         out[2] = Double.NaN;
+         return;
+      }
+
+      double mean = sum / period;
+      // Rounding in the running sums can leave a tiny negative variance for flat windows
+      double deviation = Math.sqrt(Math.max(0, sumOfSquares / period - mean * mean));
+      out[0] = mean;
+      out[1] = mean + k * deviation;
+      out[2] = mean - k * deviation;
+   }
+}
@@ -0,0 +1,59 @@
+package com.stockdock.indicators;
+
+/**
+ * Fixed-capacity ring buffer of primitive doubles, holding the last {@code capacity} values
+ * of a rolling window without boxing or shifting.
+ */
+public final class DoubleRingBuffer {
+
+   private final double[] values;
+   private int head; // Index of the oldest value
+   private int size;
+
+   public DoubleRingBuffer (int capacity) {
+      if (capacity <= 0) {
+         throw new IllegalArgumentException("Capacity must be positive.");
+      }
+      values = new double[capacity];
+   }
+
+   /**
+    * Appends a value, evicting the oldest one once the buffer is full.
+    *
+    * @param value The value to append.
+    * @return The evicted value, or {@link Double#NaN} if nothing was evicted.
+    */
+   public double add (double value) {
+      if (size < values.length) {
+         values[(head + size) % values.length] = value;
+         size++;
+         return Double.NaN;
+      }
+      double evicted = values[head];
+      values[head] = value;
+      head = (head + 1) % values.length;
+      return evicted;
+   }
+
+   /**
+    * Value at {@code i}, where 0 is the oldest value in the buffer.
+    */
+   public double get (int i) {
+      if (i < 0 || i >= size) {
+         throw new IndexOutOfBoundsException(i);
+      }
+      return values[(head + i) % values.length];
+   }
+
+   public int size () {
+      return size;
+   }
+
+   public int capacity () {
+      return values.length;
+   }
+
+   public boolean isFull () {
+      return size == values.length;
+   }
+}
@@ -0,0 +1,51 @@
+package com.stockdock.indicators;
+
+import com.stockdock.bars.BarColumns;
+
+/**
+ * Exponential moving average of the close, seeded with the simple average of the first
+ * {@code period} values and smoothed with {@code 2 / (period + 1)} afterwards.
+ */
+public final class Ema implements Indicator {
+
+   private static final String[] OUTPUTS = {"value"};
+
+   private final int period;
+   private final double alpha;
+   private double value = Double.NaN;
+   private double seedSum;
+   private int count;
+
+   public Ema (int period) {
+      this.period = period;
+      this.alpha = 2.0 / (period + 1);
+   }
+
+   @Override
+   public String name () {
+      return "ema:" + period;
+   }
+
+   @Override
+   public String[] outputs () {
+      return OUTPUTS;
+   }
+
+   @Override
+   public void update (BarColumns bars, int i, double[] out) {
+      out[0] = next(bars.c(i));
+   }
+
+   double next (double input) {
+      if (count < period) {
+         seedSum += input;
+         count++;
+         if (count == period) {
+            value = seedSum / period;
+         }
+         return value;
+      }
+      value += alpha * (input - value);
+      return value;
+   }
+}
@@ -0,0 +1,32 @@
+package com.stockdock.indicators;
+
+import com.stockdock.bars.BarColumns;
+
+/**
+ * Technical indicator computed incrementally, one bar at a time.
+ *
+ * Implementations keep only O(1) state per bar (running sums, smoothed values, ring buffers
+ * of the window), so extending a series by new bars costs the same per bar as the first pass.
+ */
+public interface Indicator {
+
+   /**
+    * Canonical name including the parameters (e.g., {@code sma:20}).
+    */
+   String name ();
+
+   /**
+    * Names of the values produced per bar (e.g., {@code [value]}, {@code [macd, signal, histogram]}).
+    */
+   String[] outputs ();
+
+   /**
+    * Feeds the bar at index {@code i} and writes one value per output into {@code out}.
+    * Bars must be fed in order and exactly once.
+    *
+    * @param bars The bar series.
+    * @param i    Index of the new bar.
+    * @param out  Receives the values, {@link Double#NaN} while the indicator is still warming up.
+    */
+   void update (BarColumns bars, int i, double[] out);
+}
@@ -0,0 +1,141 @@
+package com.stockdock.indicators;
+
+import com.stockdock.bars.BarColumns;
+import com.stockdock.dto.HistoricalBar;
+import com.stockdock.dto.IndicatorLine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A bar series together with the state and output columns of its indicators.
+ *
+ * Bars can only be appended, in time order. Each appended bar is fed once through every
+ * indicator, so extending a cached series by a few new bars costs O(new bars) rather than
+ * recomputing the whole history. Not thread-safe; callers serialize access.
+ */
+public final class IndicatorSeries {
+
+   private final List<Indicator> indicators;
+   private final BarColumns bars = new BarColumns();
+   private final double[][] columns; // One column per indicator output, aligned with bars
+   private final String[] names;
+   private final String[] outputs;
+   private final double[] scratch;
+
+   public IndicatorSeries (List<Indicator> indicators) {
+      this.indicators = List.copyOf(indicators);
+
+      int count = indicators.stream().mapToInt(indicator -> indicator.outputs().length).sum();
+      columns = new double[count][256];
+      names = new String[count];
+      outputs = new String[count];
+      int column = 0;
+      int maxOutputs = 0;
+      for (Indicator indicator : indicators) {
+         for (String output : indicator.outputs()) {
+            names[column] = indicator.name();
+            outputs[column] = output;
+            column++;
+         }
+         maxOutputs = Math.max(maxOutputs, indicator.outputs().length);
+      }
+      scratch = new double[maxOutputs];
+   }
+
+   /**
+    * Appends bars newer than the last one and feeds them through the indicators.
+    * Bars at or before the last timestamp are ignored.
+    *
+    * @param newBars Bars in time order.
+    * @return The number of bars appended.
+    */
+   public int append (List<HistoricalBar> newBars) {
+      int appended = 0;
+      for (HistoricalBar bar : newBars) {
+         long t = bar.t().toEpochMilli();
+         if (bars.size() > 0 && t <= bars.t(bars.size() - 1)) {
+            continue;
+         }
+         bars.add(bar);
+         int i = bars.size() - 1;
+         if (i == columns[0].length) {
+            for (int column = 0; column < columns.length; column++) {
+               columns[column] = Arrays.copyOf(columns[column], i * 2);
+            }
+         }
+
+         int column = 0;
+         for (Indicator indicator : indicators) {
+            indicator.update(bars, i, scratch);
+            int width = indicator.outputs().length;
+            for (int k = 0; k < width; k++) {
+               columns[column++][i] = scratch[k];
+            }
+         }
+         appended++;
+      }
+      return appended;
+   }
+
+   public int size () {
+      return bars.size();
+   }
+
+   /**
+    * Timestamp of the last bar in epoch milliseconds, or {@link Long#MIN_VALUE} if empty.
+    */
+   public long lastTime () {
+      return bars.size() == 0 ? Long.MIN_VALUE : bars.t(bars.size() - 1);
+   }
+
+   /**
+    * Number of bars with a timestamp at or before {@code endMillis}.
+    */
+   public int countUntil (long endMillis) {
+      int low = 0;
+      int high = bars.size();
+      while (low < high) {
+         int mid = (low + high) >>> 1;
+         if (bars.t(mid) <= endMillis) {
+            low = mid + 1;
+         } else {
+            high = mid;
+         }
+      }
+      return low;
+   }
+
+   public long[] times (int count) {
+      long[] t = new long[count];
+      for (int i = 0; i < count; i++) {
+         t[i] = bars.t(i);
+      }
+      return t;
+   }
+
+   public double[] closes (int count) {
+      double[] c = new double[count];
+      for (int i = 0; i < count; i++) {
+         c[i] = bars.c(i);
+      }
+      return c;
+   }
+
+   /**
+    * The indicator outputs for the first {@code count} bars, without the warm-up values.
+    */
+   public List<IndicatorLine> lines (int count) {
+      List<IndicatorLine> lines = new ArrayList<>(columns.length);
+      for (int column = 0; column < columns.length; column++) {
+         double[] values = columns[column];
+         int offset = 0;
+         while (offset < count && Double.isNaN(values[offset])) {
+            offset++;
+         }
+         lines.add(new IndicatorLine(names[column], outputs[column], offset, Arrays.copyOfRange(values, offset, count)));
+      }
+      return lines;
+   }
+}
@@ -0,0 +1,119 @@
+package com.stockdock.indicators;
+
+import com.stockdock.exceptions.UnsupportedIndicatorException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parses the {@code names} parameter of the indicators endpoint, a comma-separated list of
+ * indicators with colon-separated parameters:
+ *
+ * <ul>
+ *    <li>{@code sma:20}, {@code ema:20}, {@code rsi:14} (period, default 20/20/14)</li>
+ *    <li>{@code macd:12:26:9} (fast, slow, signal periods)</li>
+ *    <li>{@code bollinger:20:2} (period, standard deviations)</li>
+ *    <li>{@code vwap}</li>
+ * </ul>
+ */
+public final class IndicatorSpec {
+
+   public static final int MAX_INDICATORS = 16;
+   public static final int MAX_PERIOD = 1000;
+
+   private IndicatorSpec () {
+   }
+
+   /**
+    * Creates fresh (empty-state) indicators for a {@code names} parameter. Duplicates are dropped.
+    *
+    * @param names The comma-separated indicator list (e.g., "sma:20,rsi:14,macd").
+    * @return The indicators in request order.
+    * @throws UnsupportedIndicatorException if the list is empty, too long, or contains an unknown or malformed entry.
+    */
+   public static List<Indicator> parse (String names) {
+      if (names == null || names.isBlank()) {
+         throw new UnsupportedIndicatorException("At least one indicator is required (e.g., sma:20,rsi:14).");
+      }
+
+      Map<String, Indicator> indicators = new LinkedHashMap<>();
+      for (String name : names.split(",")) {
+         if (!name.isBlank()) {
+            Indicator indicator = create(name.trim().toLowerCase(Locale.ROOT));
+            indicators.putIfAbsent(indicator.name(), indicator);
+         }
+      }
+
+      if (indicators.isEmpty() || indicators.size() > MAX_INDICATORS) {
+         throw new UnsupportedIndicatorException("Between 1 and " + MAX_INDICATORS + " indicators may be requested.");
+      }
+      return new ArrayList<>(indicators.values());
+   }
+
+   /**
+    * Canonical, order-preserving form of a parsed list (e.g. {@code sma:20,macd:12:26:9}).
+    */
+   public static String canonical (List<Indicator> indicators) {
+      return String.join(",", indicators.stream().map(Indicator::name).toList());
+   }
+
+   static String formatNumber (double value) {
+      return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+   }
+
+   private static Indicator create (String name) {
+      String[] parts = name.split(":");
+      String kind = parts[0];
+      return switch (kind) {
+         case "sma" -> new Sma(period(parts, 1, 20, name));
+         case "ema" -> new Ema(period(parts, 1, 20, name));
+         case "rsi" -> new Rsi(period(parts, 1, 14, name));
+         case "macd" -> {
+            int fast = period(parts, 1, 12, name);
+            int slow = period(parts, 2, 26, name);
+            if (fast >= slow) {
+               throw new UnsupportedIndicatorException("MACD fast period must be shorter than the slow period: " + name);
+            }
+            yield new Macd(fast, slow, period(parts, 3, 9, name));
+         }
+         case "bollinger", "bb" -> {
+            int period = period(parts, 1, 20, name);
+            double k = parts.length > 2 ? number(parts[2], name) : 2.0;
+            if (k <= 0 || k > 10) {
+               throw new UnsupportedIndicatorException("Bollinger band width must be in (0, 10]: " + name);
+            }
+            yield new BollingerBands(period, k);
+         }
+         case "vwap" -> {
+            if (parts.length > 1) {
+               throw new UnsupportedIndicatorException("VWAP takes no parameters: " + name);
+            }
+            yield new Vwap();
+         }
+         default -> throw new UnsupportedIndicatorException("Unsupported indicator: " + name
+             + ". Supported: sma:N, ema:N, rsi:N, macd:F:S:G, bollinger:N:K, vwap");
+      };
+   }
+
+   private static int period (String[] parts, int index, int defaultValue, String name) {
+      if (parts.length <= index) {
+         return defaultValue;
+      }
+      double value = number(parts[index], name);
+      if (value != Math.rint(value) || value < 1 || value > MAX_PERIOD) {
+         throw new UnsupportedIndicatorException("Periods must be whole numbers between 1 and " + MAX_PERIOD + ": " + name);
+      }
+      return (int) value;
+   }
+
+   private static double number (String value, String name) {
+      try {
+         return Double.parseDouble(value);
+      } catch (NumberFormatException e) {
+         throw new UnsupportedIndicatorException("Invalid indicator parameter '" + value + "' in " + name);
+      }
+   }
+}
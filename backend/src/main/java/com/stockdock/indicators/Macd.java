@@ -0,0 +1,60 @@
+package com.stockdock.indicators;
+
+import com.stockdock.bars.BarColumns;
+
+/**
+ * Moving average convergence/divergence: the difference of a fast and a slow EMA of the close,
+ * its EMA as the signal line, and the difference of both as the histogram.
+ */
+public final class Macd implements Indicator {
+
+   private static final String[] OUTPUTS = {"macd", "signal", "histogram"};
+
+   private final int fastPeriod;
+   private final int slowPeriod;
+   private final int signalPeriod;
+   private final Ema fast;
+   private final Ema slow;
+   private final Ema signal;
+
+   public Macd (int fastPeriod, int slowPeriod, int signalPeriod) {
+      if (fastPeriod >= slowPeriod) {
+         throw new IllegalArgumentException("The fast period must be shorter than the slow period.");
+      }
+      this.fastPeriod = fastPeriod;
+      this.slowPeriod = slowPeriod;
+      this.signalPeriod = signalPeriod;
+      this.fast = new Ema(fastPeriod);
+      this.slow = new Ema(slowPeriod);
+      this.signal = new Ema(signalPeriod);
+   }
+
+   @Override
+   public String name () {
+      return "macd:" + fastPeriod + ":" + slowPeriod + ":" + signalPeriod;
+   }
+
+   @Override
+   public String[] outputs () {
+      return OUTPUTS;
+   }
+
+   @Override
+   public void update (BarColumns bars, int i, double[] out) {
+      double close = bars.c(i);
+      double fastValue = fast.next(close);
+      double slowValue = slow.next(close);
+      if (Double.isNaN(slowValue)) {
+         out[0] = Double.NaN;
+         out[1] = Double.NaN;
+         out[2] = Double.NaN;
+         return;
+      }
+
+      double macd = fastValue - slowValue;
+      double signalValue = signal.next(macd);
+      out[0] = macd;
+      out[1] = signalValue;
+      out[2] = Double.isNaN(signalValue) ? Double.NaN : macd - signalValue;
+   }
+}
@@ -0,0 +1,62 @@
+package com.stockdock.indicators;
+
+import com.stockdock.bars.BarColumns;
+
+/**
+ * Relative strength index of the close with Wilder's smoothing of average gains and losses.
+ */
+public final class Rsi implements Indicator {
+
+   private static final String[] OUTPUTS = {"value"};
+
+   private final int period;
+   private double previousClose = Double.NaN;
+   private double avgGain;
+   private double avgLoss;
+   private int changes;
+
+   public Rsi (int period) {
+      this.period = period;
+   }
+
+   @Override
+   public String name () {
+      return "rsi:" + period;
+   }
+
+   @Override
+   public String[] outputs () {
+      return OUTPUTS;
+   }
+
+   @Override
+   public void update (BarColumns bars, int i, double[] out) {
+      double close = bars.c(i);
+      if (Double.isNaN(previousClose)) {
+         previousClose = close;
+         out[0] = Double.NaN;
+         return;
+      }
+
+      double change = close - previousClose;
+      previousClose = close;
+      double gain = Math.max(change, 0);
+      double loss = Math.max(-change, 0);
+
+      if (changes < period) {
+         // Seed with the plain average of the first period changes
+         avgGain += gain / period;
+         avgLoss += loss / period;
+         changes++;
+         if (changes < period) {
+            out[0] = Double.NaN;
+            return;
+         }
+      } else {
+         avgGain = (avgGain * (period - 1) + gain) / period;
+         avgLoss = (avgLoss * (period - 1) + loss) / period;
+      }
+
+      out[0] = avgLoss == 0 ? 100.0 : 100.0 - 100.0 / (1 + avgGain / avgLoss);
+   }
+}
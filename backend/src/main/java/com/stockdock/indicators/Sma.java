@@ -0,0 +1,44 @@
+package com.stockdock.indicators;
+
+import com.stockdock.bars.BarColumns;
+
+/**
+ * Simple moving average of the close over {@code period} bars, kept as a running sum.
+ */
+public final class Sma implements Indicator {
+
+   private static final String[] OUTPUTS = {"value"};
+
+   private final int period;
+   private final DoubleRingBuffer window;
+   private double sum;
+
+   public Sma (int period) {
+      this.period = period;
+      this.window = new DoubleRingBuffer(period);
+   }
+
+   @Override
+   public String name () {
+      return "sma:" + period;
+   }
+
+   @Override
+   public String[] outputs () {
+      return OUTPUTS;
+   }
+
+   @Override
+   public void update (BarColumns bars, int i, double[] out) {
+      out[0] = next(bars.c(i));
+   }
+
+   double next (double value) {
+      double evicted = window.add(value);
+      sum += value;
+      if (!Double.isNaN(evicted)) {
+         sum -= evicted;
+      }
+      return window.isFull() ? sum / period : Double.NaN;
+   }
+}
@@ -0,0 +1,47 @@
+package com.stockdock.indicators;
+
+import com.stockdock.bars.BarColumns;
+import com.stockdock.bars.BarResampler;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Session volume-weighted average price, reset at the start of every trading day
+ * (America/New_York). Each bar contributes its own VWAP (or its typical price when the
+ * bar has none) weighted by its volume.
+ */
+public final class Vwap implements Indicator {
+
+   private static final String[] OUTPUTS = {"value"};
+
+   private long sessionEnd = Long.MIN_VALUE; // Epoch millis of the next session start
+   private double priceVolume;
+   private double volume;
+
+   @Override
+   public String name () {
+      return "vwap";
+   }
+
+   @Override
+   public String[] outputs () {
+      return OUTPUTS;
+   }
+
+   @Override
+   public void update (BarColumns bars, int i, double[] out) {
+      long t = bars.t(i);
+      if (t >= sessionEnd) {
+         LocalDate day = Instant.ofEpochMilli(t).atZone(BarResampler.MARKET_ZONE).toLocalDate();
+         sessionEnd = day.plusDays(1).atStartOfDay(BarResampler.MARKET_ZONE).toInstant().toEpochMilli();
+         priceVolume = 0;
+         volume = 0;
+      }
+
+      double price = bars.vw(i) > 0 ? bars.vw(i) : (bars.h(i) + bars.l(i) + bars.c(i)) / 3;
+      priceVolume += price * bars.v(i);
+      volume += bars.v(i);
+      out[0] = volume == 0 ? price : priceVolume / volume;
+   }
+}
@@ -0,0 +1,25 @@
+package com.stockdock.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+@Document(collection = "bar_coverage") // Which time ranges of a bar series are stored locally
+public record BarCoverage(
+    @Id String id,               // "<symbol>|<timeframe>"
+    String symbol,               // Stock symbol (e.g., AAPL)
+    String timeframe,            // Timeframe in Alpaca notation (e.g., 1Min)
+    List<CoveredRange> ranges    // Sorted, non-overlapping ranges fetched from Alpaca
+) {
+   public record CoveredRange(
+       Instant from,   // Inclusive
+       Instant to      // Inclusive
+   ) {
+   }
+
+   public static String idOf(String symbol, String timeframe) {
+      return symbol + "|" + timeframe;
+   }
+}
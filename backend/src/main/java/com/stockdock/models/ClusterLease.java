@@ -0,0 +1,15 @@
+package com.stockdock.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "cluster_leases") // One lease per running instance, renewed by heartbeats
+public record ClusterLease(
+    @Id String instanceId,   // Random id of the instance, new on every start
+    String host,             // Host name, for diagnostics
+    Instant renewedAt,       // Last heartbeat
+    Instant expiresAt        // The instance counts as gone after this (TTL index removes the document)
+) {
+}
@@ -1,12 +1,29 @@
 package com.stockdock.models;
 
-import java.time.LocalDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
 
+import java.time.Instant;
+
+@Document(collection = "historical_bars") // Time-series collection, created on startup
+@TimeSeries(timeField = "t", metaField = "meta", granularity = Granularity.MINUTES)
 public record HistoricalBar(
-    LocalDate date,    // Date of the data point
-    double open,       // Open price
-    double close,      // Close price
-    double high,       // High price
-    double low,        // Low price
-    long volume        // Volume traded
-) {}
+    @Id String id,     // Generated by MongoDB
+    SeriesKey meta,    // Series the bar belongs to (symbol + timeframe)
+    Instant t,         // Timestamp (start of the bar)
+    double o,          // Open price
+    double h,          // High price
+    double l,          // Low price
+    double c,          // Close price
+    long v,            // Volume traded
+    int n,             // Number of trades
+    double vw          // Volume-weighted average price
+) {
+   public record SeriesKey(
+       String symbol,     // Stock symbol (e.g., AAPL)
+       String timeframe   // Timeframe in Alpaca notation (e.g., 1Min, 1Day)
+   ) {
+   }
+}
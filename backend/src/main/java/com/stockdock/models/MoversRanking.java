@@ -0,0 +1,22 @@
+package com.stockdock.models;
+
+import com.stockdock.dto.Mover;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+@Document(collection = "market_movers") // Rankings published by the instance that refreshes the movers
+public record MoversRanking(
+    @Id String id,               // Always "latest"
+    String publishedBy,          // Instance id of the publishing instance
+    Instant asOf,                // When the rankings last changed
+    int symbols,                 // Tracked symbols with a snapshot
+    List<Mover> gainers,         // Top movers.top-k of each ranking, best first
+    List<Mover> losers,
+    List<Mover> mostActive,
+    List<Mover> widestSpreads
+) {
+   public static final String LATEST = "latest";
+}
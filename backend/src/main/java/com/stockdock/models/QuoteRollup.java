@@ -0,0 +1,23 @@
+package com.stockdock.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "quote_rollups_1m") // 1-minute aggregates of quote_ticks, written with $merge
+public record QuoteRollup(
+    @Id String id,         // "<symbol>|<minute>"
+    String symbol,         // Stock symbol (e.g., AAPL)
+    Instant t,             // Start of the minute
+    int n,                 // Number of two-sided ticks in the minute
+    double open,           // First mid price
+    double high,           // Highest mid price
+    double low,            // Lowest mid price
+    double close,          // Last mid price
+    double avgMid,         // Average mid price
+    double avgSpread,      // Average bid/ask spread
+    double maxSpread,      // Widest bid/ask spread
+    double avgLatencyMs    // Average delay between quote timestamp and receipt
+) {
+}
@@ -0,0 +1,25 @@
+package com.stockdock.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.time.Instant;
+
+@Document(collection = "quote_ticks") // Time-series collection with TTL retention, created on startup
+@TimeSeries(timeField = "t", metaField = "symbol", granularity = Granularity.SECONDS)
+public record QuoteTick(
+    @Id String id,     // Generated by MongoDB
+    String symbol,     // Stock symbol (e.g., AAPL)
+    Instant t,         // Quote timestamp reported by the exchange
+    double bp,         // Bid Price
+    int bs,            // Bid Size
+    String bx,         // Bid Exchange
+    double ap,         // Ask Price
+    int as,            // Ask Size
+    String ax,         // Ask Exchange
+    Instant r,         // When the quote was received, for feed latency analytics
+    String src         // Where the quote came from (POLL or STREAM)
+) {
+}
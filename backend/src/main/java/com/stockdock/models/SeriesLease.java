@@ -0,0 +1,16 @@
+package com.stockdock.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "series_leases") // Which instance is currently storing a bar series
+public record SeriesLease(
+    @Id String seriesId,     // Same id as the BarCoverage of the series
+    String owner,            // Random id of the holding instance
+    String host,             // Host name of the holder, for diagnostics
+    Instant renewedAt,       // Last acquisition or renewal
+    Instant expiresAt        // Other instances may take the lease over after this (TTL index removes the document)
+) {
+}
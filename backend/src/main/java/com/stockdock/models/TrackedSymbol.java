@@ -0,0 +1,13 @@
+package com.stockdock.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "tracked_symbols") // Symbols polled, streamed and served by api/quotes/all
+public record TrackedSymbol(
+    @Id String symbol,   // Stock symbol (e.g., AAPL)
+    Instant addedAt      // When the symbol was added
+) {
+}
@@ -0,0 +1,17 @@
+package com.stockdock.repos;
+
+import com.stockdock.models.ClusterLease;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ClusterLeaseRepo extends MongoRepository<ClusterLease, String> {
+
+   /**
+    * Leases of the instances that are still alive at {@code now}.
+    */
+   List<ClusterLease> findByExpiresAtAfter(Instant now);
+}
@@ -5,5 +5,5 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CurrentStockRepo extends MongoRepository<CurrentStock, String> {
+public interface CurrentStockRepo extends MongoRepository<CurrentStock, String>, CurrentStockRepoCustom {
 }
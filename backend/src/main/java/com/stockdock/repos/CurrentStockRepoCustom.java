@@ -0,0 +1,17 @@
+package com.stockdock.repos;
+
+import com.stockdock.models.CurrentStock;
+
+import java.util.Collection;
+
+public interface CurrentStockRepoCustom {
+
+   /**
+    * Upserts the given documents with unordered bulk writes, one bulk request per chunk.
+    *
+    * @param stocks    The documents to write (keyed by symbol).
+    * @param batchSize The maximum number of documents per bulk request.
+    * @return The number of documents written (inserted or matched).
+    */
+   int upsertAll (Collection<CurrentStock> stocks, int batchSize);
+}
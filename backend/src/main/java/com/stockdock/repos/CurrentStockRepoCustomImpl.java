@@ -0,0 +1,97 @@
+package com.stockdock.repos;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.stockdock.models.CurrentStock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk write path for {@link CurrentStockRepo}, picked up by Spring Data through the
+ * {@code Impl} suffix. Replaces one {@code save()} round trip per symbol with one
+ * unordered {@code bulkWrite} per chunk. Every batch is recorded in the
+ * {@code stockdock.mongo.bulk.upsert} timer and the {@code stockdock.mongo.bulk.upsert.documents}
+ * counter (tagged upserted or modified).
+ */
+public class CurrentStockRepoCustomImpl implements CurrentStockRepoCustom {
+
+   private static final Logger logger = LoggerFactory.getLogger(CurrentStockRepoCustomImpl.class);
+
+   private final MongoTemplate mongoTemplate;
+   private final Timer batchTimer;
+   private final Counter upsertedDocuments;
+   private final Counter modifiedDocuments;
+
+   public CurrentStockRepoCustomImpl (MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+      this.mongoTemplate = mongoTemplate;
+      this.batchTimer = Timer.builder("stockdock.mongo.bulk.upsert")
+          .description("Latency of one bulk upsert batch")
+          .tag("collection", "current_stocks")
+          .publishPercentileHistogram()
+          .register(meterRegistry);
+      this.upsertedDocuments = documentsCounter(meterRegistry, "upserted");
+      this.modifiedDocuments = documentsCounter(meterRegistry, "modified");
+   }
+
+   @Override
+   public int upsertAll (Collection<CurrentStock> stocks, int batchSize) {
+      if (batchSize <= 0) {
+         throw new IllegalArgumentException("Batch size must be positive.");
+      }
+      if (stocks.isEmpty()) {
+         return 0;
+      }
+
+      List<CurrentStock> all = new ArrayList<>(stocks);
+      int written = 0;
+      int batches = (all.size() + batchSize - 1) / batchSize;
+
+      for (int batch = 0; batch < batches; batch++) {
+         List<CurrentStock> chunk = all.subList(batch * batchSize, Math.min(all.size(), (batch + 1) * batchSize));
+
+         // Unordered: the server may apply the writes in parallel and does not stop at the first error
+         BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CurrentStock.class);
+         chunk.forEach(stock -> bulkOps.replaceOne(
+             Query.query(Criteria.where("_id").is(stock.symbol())),
+             stock,
+             FindAndReplaceOptions.options().upsert()
+                                                  ));
+
+         long startNanos = System.nanoTime();
+         BulkWriteResult result = bulkOps.execute();
+         long elapsedNanos = System.nanoTime() - startNanos;
+         batchTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+         int upserted = result.getUpserts().size();
+         int batchWritten = result.getMatchedCount() + upserted;
+         written += batchWritten;
+         upsertedDocuments.increment(upserted);
+         modifiedDocuments.increment(result.getModifiedCount());
+
+         logger.debug("Bulk upsert batch {}/{}: {} documents written ({} upserted, {} modified) in {} ms.",
+             batch + 1, batches, batchWritten, upserted, result.getModifiedCount(), elapsedNanos / 1_000_000);
+      }
+
+      return written;
+   }
+
+   private static Counter documentsCounter (MeterRegistry meterRegistry, String result) {
+      return Counter.builder("stockdock.mongo.bulk.upsert.documents")
+          .description("Documents written by bulk upserts")
+          .tag("collection", "current_stocks")
+          .tag("result", result)
+          .register(meterRegistry);
+   }
+}
@@ -0,0 +1,21 @@
+package com.stockdock.repos;
+
+import com.stockdock.models.HistoricalBar;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface HistoricalBarRepo extends MongoRepository<HistoricalBar, String> {
+
+   /**
+    * Stored bars of one series with {@code from <= t <= to}, served by the
+    * {@code (meta.symbol, meta.timeframe, t)} index.
+    */
+   @Query("{ 'meta.symbol': ?0, 'meta.timeframe': ?1, 't': { $gte: ?2, $lte: ?3 } }")
+   List<HistoricalBar> findRange(String symbol, String timeframe, Instant from, Instant to, Sort sort);
+}
@@ -0,0 +1,9 @@
+package com.stockdock.repos;
+
+import com.stockdock.models.MoversRanking;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MoversRankingRepo extends MongoRepository<MoversRanking, String> {
+}
@@ -0,0 +1,223 @@
+package com.stockdock.resilience;
+
+import com.stockdock.dto.UpstreamStats;
+import com.stockdock.exceptions.AlpacaApiException;
+import com.stockdock.exceptions.UpstreamUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Runs Alpaca REST calls through the resilience layer:
+ *
+ * <ol>
+ *    <li>a circuit breaker per endpoint refuses calls right away while the endpoint is failing,</li>
+ *    <li>a token bucket shared by all endpoints keeps us under the request rate of our Alpaca plan,</li>
+ *    <li>429, 5xx and I/O failures are retried with exponential backoff and full jitter.</li>
+ * </ol>
+ *
+ * Calls that cannot be made, or that still fail after the last retry, end in an
+ * {@link UpstreamUnavailableException} (503), which callers may answer with a stale value.
+ * Waiting is bounded everywhere, so request threads do not pile up during upstream incidents.
+ */
+@Component
+public class AlpacaCallExecutor {
+
+   private static final Logger logger = LoggerFactory.getLogger(AlpacaCallExecutor.class);
+
+   private final TokenBucketRateLimiter rateLimiter;
+   private final RetryPolicy retryPolicy;
+   private final Duration maxRateLimitWait;
+   private final int breakerWindowSize;
+   private final int breakerMinimumCalls;
+   private final double breakerFailureRate;
+   private final Duration breakerOpenDuration;
+   private final MeterRegistry meterRegistry;
+
+   private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+   private final LongAdder retries = new LongAdder();
+   private final LongAdder rejected = new LongAdder();
+
+   public AlpacaCallExecutor (
+       MeterRegistry meterRegistry,
+       @Value("${alpaca.resilience.rate-limit.requests-per-minute:200}") int requestsPerMinute,
+       @Value("${alpaca.resilience.rate-limit.burst:20}") int burst,
+       @Value("${alpaca.resilience.rate-limit.max-wait-ms:2000}") long maxRateLimitWaitMillis,
+       @Value("${alpaca.resilience.retry.max-attempts:3}") int maxAttempts,
+       @Value("${alpaca.resilience.retry.base-delay-ms:200}") long baseDelayMillis,
+       @Value("${alpaca.resilience.retry.max-delay-ms:2000}") long maxDelayMillis,
+       @Value("${alpaca.resilience.breaker.window-size:20}") int breakerWindowSize,
+       @Value("${alpaca.resilience.breaker.minimum-calls:10}") int breakerMinimumCalls,
+       @Value("${alpaca.resilience.breaker.failure-rate:0.5}") double breakerFailureRate,
+       @Value("${alpaca.resilience.breaker.open-ms:30000}") long breakerOpenMillis
+                             ) {
+      this.meterRegistry = meterRegistry;
+      this.rateLimiter = new TokenBucketRateLimiter(requestsPerMinute / 60.0, burst);
+      this.maxRateLimitWait = Duration.ofMillis(maxRateLimitWaitMillis);
+      this.retryPolicy = new RetryPolicy(maxAttempts, Duration.ofMillis(baseDelayMillis), Duration.ofMillis(maxDelayMillis));
+      this.breakerWindowSize = breakerWindowSize;
+      this.breakerMinimumCalls = breakerMinimumCalls;
+      this.breakerFailureRate = breakerFailureRate;
+      this.breakerOpenDuration = Duration.ofMillis(breakerOpenMillis);
+   }
+
+   /**
+    * Executes an Alpaca call with breaker, rate limit and retries.
+    *
+    * @param endpoint Low-cardinality endpoint name (e.g., latest_quote, bars); one breaker per name.
+    * @param call     The HTTP call. It must be idempotent, since it may run more than once.
+    * @return The result of the first successful attempt.
+    * @throws UpstreamUnavailableException if the call was refused or kept failing with 429/5xx/I/O errors.
+    */
+   public <T> T execute (String endpoint, Supplier<T> call) {
+      CircuitBreaker breaker = breaker(endpoint);
+
+      for (int attempt = 1; ; attempt++) {
+         if (!breaker.tryAcquirePermission()) {
+            reject(endpoint, "circuit_open");
+            throw new UpstreamUnavailableException(
+                "Alpaca " + endpoint + " is unavailable (circuit open).", breaker.getRemainingOpenTime());
+         }
+         if (!rateLimiter.tryAcquire(maxRateLimitWait)) {
+            breaker.onIgnored();
+            reject(endpoint, "rate_limited");
+            throw new UpstreamUnavailableException(
+                "Alpaca request rate limit reached for " + endpoint + ".", Duration.ofSeconds(1));
+         }
+
+         // Set once the outcome reached the breaker; otherwise the permission is released in finally
+         boolean recorded = false;
+         try {
+            T result = call.get();
+            breaker.onSuccess();
+            recorded = true;
+            return result;
+         } catch (RuntimeException e) {
+            if (!isTransient(e)) {
+               // Client errors (bad symbol, bad range...) say nothing about the health of Alpaca
+               throw e;
+            }
+            breaker.onFailure();
+            recorded = true;
+
+            Duration delay = retryPolicy.backoff(attempt, retryAfter(e));
+            if (delay == null) {
+               logger.warn("Alpaca {} failed after {} attempt(s): {}", endpoint, attempt, e.getMessage());
+               throw new UpstreamUnavailableException(
+                   "Alpaca " + endpoint + " failed: " + e.getMessage(), retryAfterOrDefault(e), e);
+            }
+
+            logger.debug("Alpaca {} attempt {} failed ({}), retrying in {} ms.", endpoint, attempt, e.getMessage(), delay.toMillis());
+            retries.increment();
+            Counter.builder("alpaca.resilience.retries")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .increment();
+            LockSupport.parkNanos(delay.toNanos());
+            if (Thread.currentThread().isInterrupted()) {
+               // Keep the interrupt for the caller; a request that is being cancelled stops retrying
+               throw new UpstreamUnavailableException(
+                   "Interrupted while waiting to retry Alpaca " + endpoint + ".", retryAfterOrDefault(e), e);
+            }
+         } finally {
+            // Errors and client errors must not leave a half-open breaker waiting for a trial forever
+            if (!recorded) {
+               breaker.onIgnored();
+            }
+         }
+      }
+   }
+
+   /**
+    * State of the rate limiter and of every endpoint's breaker.
+    */
+   public UpstreamStats stats () {
+      List<UpstreamStats.CircuitBreakerStats> breakerStats = breakers.values().stream()
+          .sorted(Comparator.comparing(CircuitBreaker::getName))
+          .map(breaker -> new UpstreamStats.CircuitBreakerStats(
+              breaker.getName(),
+              breaker.getState().name(),
+              breaker.getFailureRate(),
+              breaker.getRemainingOpenTime().toMillis()))
+          .toList();
+      return new UpstreamStats(rateLimiter.availableTokens(), retries.sum(), rejected.sum(), breakerStats);
+   }
+
+   private CircuitBreaker breaker (String endpoint) {
+      return breakers.computeIfAbsent(endpoint, name -> {
+         CircuitBreaker breaker = new CircuitBreaker(
+             name, breakerWindowSize, breakerMinimumCalls, breakerFailureRate, breakerOpenDuration);
+         // 0 = closed, 1 = half-open, 2 = open
+         Gauge.builder("alpaca.resilience.breaker.state", breaker, b -> switch (b.getState()) {
+                case CLOSED -> 0;
+                case HALF_OPEN -> 1;
+                case OPEN -> 2;
+             })
+             .tag("endpoint", name)
+             .register(meterRegistry);
+         return breaker;
+      });
+   }
+
+   private void reject (String endpoint, String reason) {
+      rejected.increment();
+      Counter.builder("alpaca.resilience.rejected")
+          .tag("endpoint", endpoint)
+          .tag("reason", reason)
+          .register(meterRegistry)
+          .increment();
+   }
+
+   // 429, 5xx and I/O errors (timeouts, resets) are worth retrying; anything else is the caller's problem
+   private static boolean isTransient (RuntimeException e) {
+      int status = statusOf(e);
+      return status == 429 || status >= 500 || e instanceof ResourceAccessException;
+   }
+
+   private static int statusOf (RuntimeException e) {
+      if (e instanceof RestClientResponseException response) {
+         return response.getStatusCode().value();
+      }
+      if (e instanceof AlpacaApiException alpaca) {
+         return alpaca.getStatusCode();
+      }
+      return 0;
+   }
+
+   // Retry-After in seconds, as sent by Alpaca with 429 responses
+   private static Duration retryAfter (RuntimeException e) {
+      if (!(e instanceof RestClientResponseException response) || response.getResponseHeaders() == null) {
+         return null;
+      }
+      String value = response.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+      if (value == null) {
+         return null;
+      }
+      try {
+         return Duration.ofSeconds(Long.parseLong(value.trim()));
+      } catch (NumberFormatException ignored) {
+         return null; // HTTP-date form, fall back to our own backoff
+      }
+   }
+
+   private Duration retryAfterOrDefault (RuntimeException e) {
+      Duration retryAfter = retryAfter(e);
+      return retryAfter != null ? retryAfter : retryPolicy.maxDelay();
+   }
+}
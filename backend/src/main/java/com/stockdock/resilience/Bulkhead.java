@@ -0,0 +1,25 @@
+package com.stockdock.resilience;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits how many requests a controller endpoint handles concurrently.
+ *
+ * Endpoints sharing a name share one limit, configured with {@code api.bulkhead.limits.<name>}
+ * (falling back to {@code api.bulkhead.default-limit}). Requests over the limit are answered with
+ * {@code 503} instead of piling up on a slow upstream. Enforced by {@link BulkheadInterceptor}.
+ */
+@Documented
+@Target (ElementType.METHOD)
+@Retention (RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+
+   /**
+    * Name of the bulkhead (e.g., quotes, bars).
+    */
+   String value();
+}
@@ -0,0 +1,137 @@
+package com.stockdock.resilience;
+
+import com.stockdock.config.BulkheadProperties;
+import com.stockdock.exceptions.BulkheadFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Enforces {@link Bulkhead} limits on controller methods with one semaphore per bulkhead name.
+ *
+ * A slot is taken before the handler runs and given back when the request completes. Requests that
+ * go async (e.g. a {@link org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody})
+ * keep their slot until the async part completed too, whether it was dispatched back, failed or
+ * timed out, so a streaming endpoint cannot have more responses in progress than its limit.
+ * Requests that find no free slot within {@code api.bulkhead.max-wait} fail with {@link BulkheadFullException}.
+ */
+@Component
+public class BulkheadInterceptor implements AsyncHandlerInterceptor {
+
+   private static final String PERMIT_ATTRIBUTE = BulkheadInterceptor.class.getName() + ".permit";
+
+   private final BulkheadProperties properties;
+   private final MeterRegistry meterRegistry;
+   private final Map<String, Semaphore> semaphores = new ConcurrentHashMap<>();
+
+   public BulkheadInterceptor (BulkheadProperties properties, MeterRegistry meterRegistry) {
+      this.properties = properties;
+      this.meterRegistry = meterRegistry;
+   }
+
+   @Override
+   public boolean preHandle (HttpServletRequest request, HttpServletResponse response, Object handler)
+       throws InterruptedException {
+      // Async re-dispatches belong to a request that was already admitted
+      if (!properties.isEnabled() || request.getDispatcherType() != DispatcherType.REQUEST
+          || !(handler instanceof HandlerMethod method)) {
+         return true;
+      }
+      Bulkhead bulkhead = method.getMethodAnnotation(Bulkhead.class);
+      if (bulkhead == null) {
+         return true;
+      }
+
+      Semaphore semaphore = semaphore(bulkhead.value());
+      if (!semaphore.tryAcquire(properties.getMaxWait().toNanos(), TimeUnit.NANOSECONDS)) {
+         Counter.builder("stockdock.bulkhead.rejected")
+             .tag("bulkhead", bulkhead.value())
+             .register(meterRegistry)
+             .increment();
+         throw new BulkheadFullException("Too many concurrent requests for " + bulkhead.value() + ".");
+      }
+      request.setAttribute(PERMIT_ATTRIBUTE, new Permit(semaphore));
+      return true;
+   }
+
+   /**
+    * Keeps the slot while the response is produced asynchronously. The async dispatch releases it in
+    * {@link #afterCompletion}; the listener covers async requests that end without a dispatch
+    * (e.g. the client went away).
+    */
+   @Override
+   public void afterConcurrentHandlingStarted (HttpServletRequest request, HttpServletResponse response, Object handler) {
+      if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof Permit permit && request.isAsyncStarted()) {
+         request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete (AsyncEvent event) {
+               permit.release();
+            }
+
+            @Override
+            public void onTimeout (AsyncEvent event) {
+            }
+
+            @Override
+            public void onError (AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync (AsyncEvent event) {
+            }
+         });
+      }
+   }
+
+   @Override
+   public void afterCompletion (HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+      // Also called for the async dispatch, which is not admitted again but finishes the admitted request
+      if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof Permit permit) {
+         permit.release();
+      }
+   }
+
+   private Semaphore semaphore (String name) {
+      return semaphores.computeIfAbsent(name, key -> {
+         int limit = properties.limitOf(key);
+         Semaphore semaphore = new Semaphore(limit);
+         Gauge.builder("stockdock.bulkhead.active", semaphore, s -> limit - s.availablePermits())
+             .tag("bulkhead", key)
+             .register(meterRegistry);
+         return semaphore;
+      });
+   }
+
+   /**
+    * A taken slot, given back at most once although several callbacks may end the request.
+    */
+   private static final class Permit {
+
+      private final Semaphore semaphore;
+      private final AtomicBoolean released = new AtomicBoolean();
+
+      Permit (Semaphore semaphore) {
+         this.semaphore = semaphore;
+      }
+
+      void release () {
+         if (released.compareAndSet(false, true)) {
+            semaphore.release();
+         }
+      }
+   }
+}
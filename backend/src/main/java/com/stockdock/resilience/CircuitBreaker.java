@@ -0,0 +1,159 @@
+package com.stockdock.resilience;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Count-based circuit breaker for one upstream endpoint.
+ *
+ * <ul>
+ *    <li>{@code CLOSED}: calls go through; the outcome of the last {@code windowSize} calls is kept.
+ *        Once at least {@code minimumCalls} are recorded and the failure rate reaches
+ *        {@code failureRateThreshold}, the breaker opens.</li>
+ *    <li>{@code OPEN}: calls are refused without touching the network for {@code openDuration}.</li>
+ *    <li>{@code HALF_OPEN}: a single trial call is let through; success closes the breaker,
+ *        failure opens it again.</li>
+ * </ul>
+ */
+public class CircuitBreaker {
+
+   public enum State {
+      CLOSED, OPEN, HALF_OPEN
+   }
+
+   private final String name;
+   private final int windowSize;
+   private final int minimumCalls;
+   private final double failureRateThreshold;
+   private final long openNanos;
+
+   private final boolean[] failures; // Ring buffer of call outcomes, true = failed
+   private int recorded;
+   private int next;
+   private int failureCount;
+
+   private State state = State.CLOSED;
+   private long openedAt;
+   private boolean trialInFlight;
+
+   public CircuitBreaker (String name, int windowSize, int minimumCalls, double failureRateThreshold, Duration openDuration) {
+      if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize) {
+         throw new IllegalArgumentException("Invalid circuit breaker window for " + name);
+      }
+      this.name = name;
+      this.windowSize = windowSize;
+      this.minimumCalls = minimumCalls;
+      this.failureRateThreshold = failureRateThreshold;
+      this.openNanos = openDuration.toNanos();
+      this.failures = new boolean[windowSize];
+   }
+
+   /**
+    * Asks whether a call may go through. In {@code HALF_OPEN} only one caller gets permission
+    * until its outcome is recorded.
+    *
+    * @return {@code true} if the call may be made.
+    */
+   public synchronized boolean tryAcquirePermission () {
+      switch (state) {
+         case CLOSED:
+            return true;
+         case OPEN:
+            if (System.nanoTime() - openedAt < openNanos) {
+               return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = true;
+            return true;
+         default:
+            if (trialInFlight) {
+               return false;
+            }
+            trialInFlight = true;
+            return true;
+      }
+   }
+
+   public synchronized void onSuccess () {
+      if (state == State.HALF_OPEN) {
+         reset();
+         return;
+      }
+      record(false);
+   }
+
+   public synchronized void onFailure () {
+      if (state == State.HALF_OPEN) {
+         open();
+         return;
+      }
+      record(true);
+      if (state == State.CLOSED && recorded >= minimumCalls
+          && (double) failureCount / recorded >= failureRateThreshold) {
+         open();
+      }
+   }
+
+   /**
+    * Releases a permission whose call ended without a verdict on the upstream (e.g. a client error,
+    * or an {@link Error} thrown by the call). Callers must call exactly one of {@link #onSuccess()},
+    * {@link #onFailure()} and this method per permission, or a half-open breaker stays shut.
+    */
+   public synchronized void onIgnored () {
+      if (state == State.HALF_OPEN) {
+         trialInFlight = false;
+      }
+   }
+
+   public synchronized State getState () {
+      return state;
+   }
+
+   /**
+    * Time left until an open breaker lets a trial call through (zero when not open).
+    */
+   public synchronized Duration getRemainingOpenTime () {
+      if (state != State.OPEN) {
+         return Duration.ZERO;
+      }
+      return Duration.ofNanos(Math.max(0, openNanos - (System.nanoTime() - openedAt)));
+   }
+
+   public synchronized double getFailureRate () {
+      return recorded == 0 ? 0.0 : (double) failureCount / recorded;
+   }
+
+   public String getName () {
+      return name;
+   }
+
+   private void record (boolean failed) {
+      if (recorded == windowSize) {
+         if (failures[next]) {
+            failureCount--;
+         }
+      } else {
+         recorded++;
+      }
+      failures[next] = failed;
+      if (failed) {
+         failureCount++;
+      }
+      next = (next + 1) % windowSize;
+   }
+
+   private void open () {
+      state = State.OPEN;
+      openedAt = System.nanoTime();
+      trialInFlight = false;
+   }
+
+   private void reset () {
+      state = State.CLOSED;
+      trialInFlight = false;
+      recorded = 0;
+      next = 0;
+      failureCount = 0;
+      Arrays.fill(failures, false);
+   }
+}
@@ -0,0 +1,43 @@
+package com.stockdock.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bounded retries with exponential backoff and full jitter.
+ *
+ * The delay before retry {@code n} is drawn uniformly from {@code [0, min(maxDelay, baseDelay * 2^(n-1))]},
+ * which spreads the retries of many callers hit by the same upstream hiccup instead of having them
+ * retry in lockstep. A {@code Retry-After} sent by the server is honoured when it fits within
+ * {@code maxDelay}; a longer one means retrying now is pointless.
+ *
+ * @param maxAttempts Total attempts including the first call.
+ * @param baseDelay   Backoff before the first retry (upper bound of the jitter).
+ * @param maxDelay    Cap on a single backoff.
+ */
+public record RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+
+   public RetryPolicy {
+      if (maxAttempts < 1) {
+         throw new IllegalArgumentException("At least one attempt is required.");
+      }
+   }
+
+   /**
+    * Delay before the next attempt.
+    *
+    * @param attempt    The attempt that just failed (1 for the first call).
+    * @param retryAfter Delay requested by the server, or null.
+    * @return The delay, or null if no further attempt should be made.
+    */
+   public Duration backoff (int attempt, Duration retryAfter) {
+      if (attempt >= maxAttempts) {
+         return null;
+      }
+      if (retryAfter != null) {
+         return retryAfter.compareTo(maxDelay) <= 0 ? retryAfter : null;
+      }
+      long ceiling = Math.min(maxDelay.toMillis(), baseDelay.toMillis() << Math.min(attempt - 1, 20));
+      return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+   }
+}
@@ -0,0 +1,72 @@
+package com.stockdock.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Token bucket limiting how fast requests are sent upstream.
+ *
+ * The bucket holds up to {@code capacity} tokens (the allowed burst) and refills continuously at
+ * {@code permitsPerSecond}. A caller that finds the bucket empty reserves the next token and
+ * sleeps until it is due, but only if that is within its maximum wait; otherwise it is refused
+ * right away, so callers never queue up indefinitely behind the limit.
+ */
+public class TokenBucketRateLimiter {
+
+   private final double capacity;
+   private final double permitsPerNano;
+
+   private double tokens;
+   private long lastRefillNanos;
+
+   public TokenBucketRateLimiter (double permitsPerSecond, int capacity) {
+      if (permitsPerSecond <= 0 || capacity <= 0) {
+         throw new IllegalArgumentException("Rate and capacity must be positive.");
+      }
+      this.capacity = capacity;
+      this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+      this.tokens = capacity;
+      this.lastRefillNanos = System.nanoTime();
+   }
+
+   /**
+    * Takes one token, waiting for it if it becomes available within {@code maxWait}.
+    *
+    * @param maxWait The longest the caller is willing to wait.
+    * @return {@code true} if a token was taken, {@code false} if the caller would have to wait longer.
+    */
+   public boolean tryAcquire (Duration maxWait) {
+      long waitNanos;
+      synchronized (this) {
+         refill();
+         if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+         }
+         waitNanos = (long) Math.ceil((1 - tokens) / permitsPerNano);
+         if (waitNanos > maxWait.toNanos()) {
+            return false;
+         }
+         // Reserve the token now (the balance goes negative), so later callers queue behind us
+         tokens -= 1;
+      }
+
+      LockSupport.parkNanos(waitNanos);
+      return true;
+   }
+
+   /**
+    * Tokens currently available (negative while callers wait on reserved tokens).
+    */
+   public synchronized double availableTokens () {
+      refill();
+      return tokens;
+   }
+
+   private void refill () {
+      long now = System.nanoTime();
+      tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * permitsPerNano);
+      lastRefillNanos = now;
+   }
+}
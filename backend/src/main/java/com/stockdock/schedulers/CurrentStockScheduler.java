@@ -1,43 +1,319 @@
 package com.stockdock.schedulers;
 
+import com.stockdock.cluster.ShardCoordinator;
+import com.stockdock.dto.SchedulerStats;
 import com.stockdock.services.CurrentStockService;
+import com.stockdock.services.SymbolActivity;
+import com.stockdock.services.SymbolRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
 
 
+
+/**
+ * Polls Alpaca for the tracked symbols owned by this instance, at a pace that follows the
+ * exchange session (see {@link MarketCalendar}).
+ *
+ * Each task's next run is scheduled after the previous one by the interval of the current
+ * session phase ({@code quotes.poll.*-interval-ms}, {@code quotes.save.*interval-ms}), and
+ * never later than the next phase change, so polling speeds up right at the open and slows down
+ * right after the close. Symbols that are requested often or moving fast (see {@link SymbolActivity})
+ * are refreshed on every run, the others every {@code quotes.poll.cold-interval-multiplier} intervals.
+ */
 @Component
-public class CurrentStockScheduler {
+public class CurrentStockScheduler implements SchedulingConfigurer {
 
    private final static Logger logger = LoggerFactory.getLogger(CurrentStockScheduler.class);
+   private static final String SAVE_TASK = "save-quotes";
+   private static final String WARM_TASK = "warm-quote-cache";
+
    private final CurrentStockService currentStockService;
+   private final SymbolRegistry symbolRegistry;
+   private final ShardCoordinator shardCoordinator;
+   private final SymbolActivity symbolActivity;
+   private final MarketCalendar marketCalendar;
+   private final MeterRegistry meterRegistry;
+   private final Map<MarketCalendar.Phase, Long> pollIntervals = new EnumMap<>(MarketCalendar.Phase.class);
+   private final long saveIntervalMillis;
+   private final long closedSaveIntervalMillis;
+   private final int coldIntervalMultiplier;
+
+   // Tasks currently running, to detect runs that overlap with another one
+   private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+   // Guards against a task starting while its previous run is still in progress
+   private final AtomicBoolean saveInProgress = new AtomicBoolean();
+   private final AtomicBoolean warmInProgress = new AtomicBoolean();
 
-   public CurrentStockScheduler(CurrentStockService currentStockService) {
+   // When each owned symbol was last polled (epoch millis)
+   private final Map<String, Long> lastPolled = new ConcurrentHashMap<>();
+
+   private final LongAdder symbolsPolled = new LongAdder();
+   private final LongAdder skippedRuns = new LongAdder();
+   private volatile int hotSymbols;
+   private volatile MarketCalendar.Phase phase;
+
+   public CurrentStockScheduler(
+       CurrentStockService currentStockService,
+       SymbolRegistry symbolRegistry,
+       ShardCoordinator shardCoordinator,
+       SymbolActivity symbolActivity,
+       MarketCalendar marketCalendar,
+       MeterRegistry meterRegistry,
+       @Value("${quotes.poll.pre-market-interval-ms:60000}") long preMarketIntervalMillis,
+       @Value("${quotes.poll.regular-interval-ms:10000}") long regularIntervalMillis,
+       @Value("${quotes.poll.after-hours-interval-ms:60000}") long afterHoursIntervalMillis,
+       @Value("${quotes.poll.closed-interval-ms:1800000}") long closedIntervalMillis,
+       @Value("${quotes.poll.cold-interval-multiplier:6}") int coldIntervalMultiplier,
+       @Value("${quotes.save.interval-ms:300000}") long saveIntervalMillis,
+       @Value("${quotes.save.closed-interval-ms:3600000}") long closedSaveIntervalMillis
+                               ) {
       this.currentStockService = currentStockService;
+      this.symbolRegistry = symbolRegistry;
+      this.shardCoordinator = shardCoordinator;
+      this.symbolActivity = symbolActivity;
+      this.marketCalendar = marketCalendar;
+      this.meterRegistry = meterRegistry;
+      this.pollIntervals.put(MarketCalendar.Phase.PRE_MARKET, preMarketIntervalMillis);
+      this.pollIntervals.put(MarketCalendar.Phase.REGULAR, regularIntervalMillis);
+      this.pollIntervals.put(MarketCalendar.Phase.AFTER_HOURS, afterHoursIntervalMillis);
+      this.pollIntervals.put(MarketCalendar.Phase.CLOSED, closedIntervalMillis);
+      this.coldIntervalMultiplier = Math.max(1, coldIntervalMultiplier);
+      this.saveIntervalMillis = saveIntervalMillis;
+      this.closedSaveIntervalMillis = closedSaveIntervalMillis;
+
+      Gauge.builder("stockdock.scheduler.interval", this, scheduler -> scheduler.pollInterval(scheduler.marketCalendar.phaseAt(Instant.now())))
+          .description("Current interval of the scheduled task in milliseconds")
+          .tag("task", WARM_TASK)
+          .register(meterRegistry);
+      Gauge.builder("stockdock.scheduler.interval", this, scheduler -> scheduler.saveInterval(scheduler.marketCalendar.phaseAt(Instant.now())))
+          .description("Current interval of the scheduled task in milliseconds")
+          .tag("task", SAVE_TASK)
+          .register(meterRegistry);
+      Gauge.builder("stockdock.scheduler.hot.symbols", this, scheduler -> scheduler.hotSymbols)
+          .description("Owned symbols refreshed on every poll")
+          .register(meterRegistry);
+      for (MarketCalendar.Phase marketPhase : MarketCalendar.Phase.values()) {
+         Gauge.builder("stockdock.market.phase", this, scheduler -> scheduler.marketCalendar.phaseAt(Instant.now()) == marketPhase ? 1 : 0)
+             .description("1 for the current market session phase")
+             .tag("phase", marketPhase.name())
+             .register(meterRegistry);
+      }
    }
 
    /**
-    * Scheduled task to fetch and save current stock data for all predefined symbols.
+    * Registers both polling tasks with triggers that follow the market session.
+    */
+   @Override
+   public void configureTasks(ScheduledTaskRegistrar registrar) {
+      registrar.addTriggerTask(this::scheduleCurrentStock, sessionTrigger(this::saveInterval));
+      registrar.addTriggerTask(this::warmQuoteCache, sessionTrigger(this::pollInterval));
+   }
+
+   /**
+    * Scheduled task to fetch and save current stock data for the tracked symbols owned by this instance.
     *
-    * This task runs every 5 minutes and fetches the latest stock prices for all predefined
-    * symbols from the Alpaca API. The fetched data is then saved to the MongoDB database.
+    * This task runs every {@code quotes.save.interval-ms} (5 minutes) while the market is in a session and every
+    * {@code quotes.save.closed-interval-ms} while it is closed, and fetches the latest stock prices for this
+    * instance's share of the tracked symbols (see {@link ShardCoordinator}) from the Alpaca API, regardless
+    * of how active they are. The fetched data is then queued on the write-behind pipeline,
+    * which saves it to the MongoDB database with bulk upserts.
     *
     * If an error occurs during the process, it logs the error and continues to the next scheduled run.
     *
-    * The predefined list of stock symbols is configured in the application's symbol configuration.
+    * The tracked symbols are managed through {@code api/symbols} (see {@link SymbolRegistry}).
     */
-   @Scheduled (fixedRate = 300000) // Runs every 5 minutes (300,000 ms)
    public void scheduleCurrentStock() {
       logger.info("Scheduled task started: Fetching current stock data...");
 
       try {
          // Fetch and save current stock data
-         currentStockService.saveAllQuotesToDb();
+         exclusive(SAVE_TASK, saveInProgress, saveInterval(currentPhase()), () -> {
+            List<String> symbols = ownedSymbols();
+            currentStockService.saveQuotesToDb(symbols);
+            markPolled(symbols, System.currentTimeMillis());
+            countPolled(SAVE_TASK, "all", symbols.size());
+         });
          logger.info("Scheduled task completed: Fetched current stock data");
       } catch (Exception e) {
          logger.error("Scheduled task failed: {}", e.getMessage(), e);
       }
    }
+
+   /**
+    * Scheduled task to keep the in-memory quote cache warm for the tracked symbols owned by this instance.
+    *
+    * Refreshing the symbol list with one batch call means requests to
+    * {@code api/quotes/{symbol}} and {@code api/quotes/all} are served from memory
+    * instead of each triggering its own Alpaca round trip. With several instances each one
+    * refreshes only its own share, so the upstream load does not grow with the instance count.
+    * Hot symbols are refreshed on every run, cold ones only once their longer interval has passed.
+    */
+   public void warmQuoteCache() {
+      try {
+         MarketCalendar.Phase current = currentPhase();
+         long interval = pollInterval(current);
+         exclusive(WARM_TASK, warmInProgress, interval, () -> {
+            long now = System.currentTimeMillis();
+            List<String> owned = ownedSymbols();
+            Set<String> hot = symbolActivity.hotOf(owned);
+            List<String> due = owned.stream()
+                .filter(symbol -> hot.contains(symbol)
+                    || now - lastPolled.getOrDefault(symbol, 0L) >= interval * coldIntervalMultiplier)
+                .toList();
+            hotSymbols = hot.size();
+
+            currentStockService.refreshQuotes(due);
+            markPolled(due, now);
+            lastPolled.keySet().retainAll(new HashSet<>(owned));
+            countPolled(WARM_TASK, "hot", hot.size());
+            countPolled(WARM_TASK, "cold", due.size() - hot.size());
+         });
+      } catch (Exception e) {
+         logger.error("Quote cache refresh failed: {}", e.getMessage(), e);
+      }
+   }
+
+   public SchedulerStats stats() {
+      MarketCalendar.Phase current = currentPhase();
+      return new SchedulerStats(current.name(), marketCalendar.nextPhaseChange(Instant.now()), pollInterval(current),
+          saveInterval(current), lastPolled.size(), hotSymbols, symbolsPolled.sum(), skippedRuns.sum());
+   }
+
+   /**
+    * Runs a task unless its previous run is still in progress. With scheduling on virtual threads
+    * the next run can be triggered before the previous one finished; such runs are skipped and
+    * counted in {@code stockdock.scheduler.skipped} instead of piling up on Alpaca.
+    */
+   private void exclusive(String task, AtomicBoolean inProgress, long intervalMillis, Runnable job) {
+      if (!inProgress.compareAndSet(false, true)) {
+         logger.warn("Skipping scheduled task {}: previous run still in progress.", task);
+         skippedRuns.increment();
+         Counter.builder("stockdock.scheduler.skipped")
+             .description("Scheduled runs skipped because the previous run was still in progress")
+             .tag("task", task)
+             .register(meterRegistry)
+             .increment();
+         return;
+      }
+      try {
+         timed(task, intervalMillis, job);
+      } finally {
+         inProgress.set(false);
+      }
+   }
+
+   /**
+    * Runs a task and records its duration as {@code stockdock.scheduler.run}. A run that starts
+    * while another scheduled task is still running, or that takes longer than its own interval,
+    * is counted in {@code stockdock.scheduler.overlaps} since it delays or competes with other runs.
+    *
+    * @param task           Task name, used as the {@code task} tag.
+    * @param intervalMillis The interval the task is scheduled at.
+    * @param job            The work to run.
+    */
+   private void timed(String task, long intervalMillis, Runnable job) {
+      if (!running.isEmpty()) {
+         logger.warn("Scheduled task {} started while {} still running.", task, running);
+         overlaps(task).increment();
+      }
+      running.add(task);
+
+      long startNanos = System.nanoTime();
+      try {
+         job.run();
+      } finally {
+         long elapsedNanos = System.nanoTime() - startNanos;
+         running.remove(task);
+         Timer.builder("stockdock.scheduler.run")
+             .description("Duration of scheduled task runs")
+             .tag("task", task)
+             .publishPercentileHistogram()
+             .register(meterRegistry)
+             .record(elapsedNanos, TimeUnit.NANOSECONDS);
+         if (TimeUnit.NANOSECONDS.toMillis(elapsedNanos) > intervalMillis) {
+            logger.warn("Scheduled task {} took longer than its {} ms interval.", task, intervalMillis);
+            overlaps(task).increment();
+         }
+      }
+   }
+
+   /**
+    * A trigger that runs a task right away, then one phase interval after each completion, but no
+    * later than the next session phase change.
+    */
+   private Trigger sessionTrigger(ToLongFunction<MarketCalendar.Phase> interval) {
+      return context -> {
+         Instant lastCompletion = context.lastCompletion();
+         if (lastCompletion == null) {
+            return context.getClock().instant();
+         }
+         Instant next = lastCompletion.plusMillis(interval.applyAsLong(marketCalendar.phaseAt(lastCompletion)));
+         Instant phaseChange = marketCalendar.nextPhaseChange(lastCompletion);
+         return next.isAfter(phaseChange) ? phaseChange : next;
+      };
+   }
+
+   private MarketCalendar.Phase currentPhase() {
+      MarketCalendar.Phase current = marketCalendar.phaseAt(Instant.now());
+      if (current != phase) {
+         logger.info("Market session phase is now {}.", current);
+         phase = current;
+      }
+      return current;
+   }
+
+   private long pollInterval(MarketCalendar.Phase marketPhase) {
+      return pollIntervals.get(marketPhase);
+   }
+
+   private long saveInterval(MarketCalendar.Phase marketPhase) {
+      return marketPhase == MarketCalendar.Phase.CLOSED ? closedSaveIntervalMillis : saveIntervalMillis;
+   }
+
+   private void markPolled(List<String> symbols, long now) {
+      symbols.forEach(symbol -> lastPolled.put(symbol, now));
+   }
+
+   private List<String> ownedSymbols() {
+      return shardCoordinator.ownedOf(symbolRegistry.getSymbols());
+   }
+
+   private void countPolled(String task, String tier, int symbols) {
+      symbolsPolled.add(symbols);
+      Counter.builder("stockdock.scheduler.symbols.polled")
+          .description("Symbols polled by scheduled tasks; its rate is the effective poll rate")
+          .tag("task", task)
+          .tag("tier", tier)
+          .register(meterRegistry)
+          .increment(symbols);
+   }
+
+   private Counter overlaps(String task) {
+      return Counter.builder("stockdock.scheduler.overlaps")
+          .description("Scheduled runs that overlapped another run or overran their interval")
+          .tag("task", task)
+          .register(meterRegistry);
+   }
 }
@@ -0,0 +1,118 @@
+package com.stockdock.schedulers;
+
+import com.stockdock.bars.BarResampler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * US equity trading sessions in exchange time (America/New_York): pre-market 04:00-09:30,
+ * regular 09:30-16:00 (13:00 on early-close days) and after-hours until 20:00. Weekends and the
+ * dates in {@code market.holidays} are closed all day; {@code market.early-closes} end the regular
+ * session at 13:00 and have no after-hours session.
+ */
+@Component
+public class MarketCalendar {
+
+   private static final LocalTime PRE_MARKET_OPEN = LocalTime.of(4, 0);
+   private static final LocalTime REGULAR_OPEN = LocalTime.of(9, 30);
+   private static final LocalTime REGULAR_CLOSE = LocalTime.of(16, 0);
+   private static final LocalTime EARLY_CLOSE = LocalTime.of(13, 0);
+   private static final LocalTime AFTER_HOURS_CLOSE = LocalTime.of(20, 0);
+
+   // Longest run of closed days to look past when searching the next session (e.g. a holiday weekend)
+   private static final int MAX_CLOSED_DAYS = 10;
+
+   public enum Phase {
+      PRE_MARKET,
+      REGULAR,
+      AFTER_HOURS,
+      CLOSED
+   }
+
+   private final Set<LocalDate> holidays;
+   private final Set<LocalDate> earlyCloses;
+
+   public MarketCalendar (
+       @Value("${market.holidays:}") List<String> holidays,
+       @Value("${market.early-closes:}") List<String> earlyCloses
+                         ) {
+      this.holidays = parseDates(holidays);
+      this.earlyCloses = parseDates(earlyCloses);
+   }
+
+   /**
+    * The session phase at {@code instant}.
+    */
+   public Phase phaseAt (Instant instant) {
+      ZonedDateTime time = instant.atZone(BarResampler.MARKET_ZONE);
+      LocalDate date = time.toLocalDate();
+      if (!isTradingDay(date)) {
+         return Phase.CLOSED;
+      }
+      LocalTime clock = time.toLocalTime();
+      LocalTime close = regularClose(date);
+      if (clock.isBefore(PRE_MARKET_OPEN)) {
+         return Phase.CLOSED;
+      }
+      if (clock.isBefore(REGULAR_OPEN)) {
+         return Phase.PRE_MARKET;
+      }
+      if (clock.isBefore(close)) {
+         return Phase.REGULAR;
+      }
+      if (clock.isBefore(afterHoursClose(date))) {
+         return Phase.AFTER_HOURS;
+      }
+      return Phase.CLOSED;
+   }
+
+   /**
+    * The first instant after {@code instant} at which the session phase changes.
+    */
+   public Instant nextPhaseChange (Instant instant) {
+      LocalDate date = instant.atZone(BarResampler.MARKET_ZONE).toLocalDate();
+      for (int day = 0; day <= MAX_CLOSED_DAYS; day++, date = date.plusDays(1)) {
+         if (!isTradingDay(date)) {
+            continue;
+         }
+         for (LocalTime boundary : List.of(PRE_MARKET_OPEN, REGULAR_OPEN, regularClose(date), afterHoursClose(date))) {
+            Instant change = date.atTime(boundary).atZone(BarResampler.MARKET_ZONE).toInstant();
+            if (change.isAfter(instant)) {
+               return change;
+            }
+         }
+      }
+      return date.atStartOfDay(BarResampler.MARKET_ZONE).toInstant();
+   }
+
+   public boolean isTradingDay (LocalDate date) {
+      DayOfWeek day = date.getDayOfWeek();
+      return day != DayOfWeek.SATURDAY && day != DayOfWeek.SUNDAY && !holidays.contains(date);
+   }
+
+   private LocalTime regularClose (LocalDate date) {
+      return earlyCloses.contains(date) ? EARLY_CLOSE : REGULAR_CLOSE;
+   }
+
+   // Early-close days have no after-hours session
+   private LocalTime afterHoursClose (LocalDate date) {
+      return earlyCloses.contains(date) ? EARLY_CLOSE : AFTER_HOURS_CLOSE;
+   }
+
+   private static Set<LocalDate> parseDates (List<String> dates) {
+      return dates.stream()
+          .map(String::trim)
+          .filter(date -> !date.isEmpty())
+          .map(LocalDate::parse)
+          .collect(Collectors.toUnmodifiableSet());
+   }
+}
@@ -0,0 +1,292 @@
+package com.stockdock.services;
+
+import com.stockdock.bars.BarArchiveFile;
+import com.stockdock.bars.BarColumns;
+import com.stockdock.bars.TimeRange;
+import com.stockdock.bars.Timeframe;
+import com.stockdock.dto.BarArchiveStats;
+import com.stockdock.dto.HistoricalBar;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Local on-disk archive of settled historical bars, one memory-mapped {@link BarArchiveFile}
+ * per symbol and timeframe under {@code bars.archive.dir}.
+ *
+ * Bar requests read the archive first, so charts survive restarts without going back to MongoDB
+ * or Alpaca. Each archive covers one contiguous range: later ranges are appended, earlier ones
+ * rewrite the file, and a request far away from the archived range replaces it. Bars that may still
+ * change (the current bar plus {@code bars.store.settle-delay-ms}) are never archived, they are
+ * loaded on every request.
+ *
+ * With {@code bars.archive.offline} the archive is the only source: nothing is fetched over the
+ * network, and replays of the same range always produce the same bars, e.g. for backtests.
+ */
+@Service
+public class BarArchive {
+
+   private static final Logger logger = LoggerFactory.getLogger(BarArchive.class);
+   private static final Pattern SAFE_SYMBOL = Pattern.compile("^[A-Z0-9.\\-]{1,16}$");
+
+   private final boolean enabled;
+   private final boolean offline;
+   private final Path directory;
+   private final Duration settleDelay;
+
+   private final Map<String, BarArchiveFile> files = new ConcurrentHashMap<>();
+   // One lock per series, so concurrent requests don't fetch and append the same range twice
+   private final Map<String, ReentrantLock> seriesLocks = new ConcurrentHashMap<>();
+   private final ReentrantLock openLock = new ReentrantLock();
+
+   private final LongAdder barsServed = new LongAdder();
+   private final LongAdder barsAppended = new LongAdder();
+   private final LongAdder rewrites = new LongAdder();
+   private final LongAdder failures = new LongAdder();
+
+   public BarArchive (
+       @Value("${bars.archive.enabled:true}") boolean enabled,
+       @Value("${bars.archive.offline:false}") boolean offline,
+       @Value("${bars.archive.dir:data/bar-archive}") String directory,
+       @Value("${bars.store.settle-delay-ms:900000}") long settleDelayMillis
+                     ) {
+      this.enabled = enabled || offline;
+      this.offline = offline;
+      this.directory = Path.of(directory);
+      this.settleDelay = Duration.ofMillis(settleDelayMillis);
+      if (offline) {
+         logger.info("Bar archive in offline mode: historical bars are served from {} only.", this.directory.toAbsolutePath());
+      }
+   }
+
+   public boolean isEnabled () {
+      return enabled;
+   }
+
+   public boolean isOffline () {
+      return offline;
+   }
+
+   /**
+    * Returns the bars of a range from the archive, loading and archiving the settled part that is
+    * not archived yet. In offline mode only archived bars are returned and {@code loader} is not used.
+    *
+    * @param symbol    The stock symbol (e.g., "AAPL").
+    * @param timeframe The bar timeframe.
+    * @param range     The inclusive time range.
+    * @param loader    Loads the bars of a sub-range from the bar store or Alpaca.
+    * @return The bars in timestamp order, possibly empty.
+    */
+   public List<HistoricalBar> getBars (String symbol, Timeframe timeframe, TimeRange range, Function<TimeRange, List<HistoricalBar>> loader) {
+      String normalizedSymbol = symbol.toUpperCase(Locale.ROOT);
+      if (!SAFE_SYMBOL.matcher(normalizedSymbol).matches()) {
+         return offline ? List.of() : loader.apply(range);
+      }
+      if (offline) {
+         BarColumns bars = new BarColumns();
+         BarArchiveFile.Snapshot snapshot = snapshot(normalizedSymbol, timeframe);
+         if (snapshot != null) {
+            snapshot.read(range.start().toEpochMilli(), range.end().toEpochMilli(), bars);
+         }
+         barsServed.add(bars.size());
+         return bars.toBars();
+      }
+
+      long start = range.start().toEpochMilli();
+      long end = range.end().toEpochMilli();
+      long archivableEnd = Math.min(end, Instant.now().minus(timeframe.duration()).minus(settleDelay).toEpochMilli());
+
+      BarColumns bars = new BarColumns();
+      if (archivableEnd >= start) {
+         String key = key(normalizedSymbol, timeframe);
+         ReentrantLock lock = seriesLocks.computeIfAbsent(key, k -> new ReentrantLock());
+         lock.lock();
+         try {
+            BarArchiveFile file = file(key, path(normalizedSymbol, timeframe));
+            BarArchiveFile.Snapshot snapshot = file.snapshot();
+            if (!snapshot.covers(start, archivableEnd)) {
+               snapshot = extend(key, file, start, archivableEnd, loader);
+            }
+            snapshot.read(start, archivableEnd, bars);
+            barsServed.add(bars.size());
+         } catch (IOException e) {
+            failures.increment();
+            logger.warn("Bar archive unavailable for {} {}: {}", normalizedSymbol, timeframe, e.getMessage());
+            return loader.apply(range);
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      if (end > archivableEnd) {
+         long liveStart = Math.max(start, archivableEnd + 1);
+         appendNewer(bars, loader.apply(range(liveStart, end)), liveStart, end);
+      }
+      return bars.toBars();
+   }
+
+   /**
+    * Hands the archived bars of a range to {@code sink} in time order, without collecting them
+    * and without any network access.
+    *
+    * @return The number of bars replayed.
+    */
+   public long replay (String symbol, Timeframe timeframe, TimeRange range, Consumer<HistoricalBar> sink) {
+      String normalizedSymbol = symbol.toUpperCase(Locale.ROOT);
+      if (!SAFE_SYMBOL.matcher(normalizedSymbol).matches()) {
+         return 0;
+      }
+      BarArchiveFile.Snapshot snapshot = snapshot(normalizedSymbol, timeframe);
+      if (snapshot == null) {
+         return 0;
+      }
+      long replayed = snapshot.replay(range.start().toEpochMilli(), range.end().toEpochMilli(), sink);
+      barsServed.add(replayed);
+      return replayed;
+   }
+
+   public BarArchiveStats stats () {
+      long bars = files.values().stream().mapToLong(file -> file.snapshot().size()).sum();
+      return new BarArchiveStats(directory.toAbsolutePath().toString(), offline, files.size(), bars,
+          barsServed.sum(), barsAppended.sum(), rewrites.sum(), failures.sum());
+   }
+
+   @PreDestroy
+   public void close () {
+      files.values().forEach(file -> {
+         try {
+            file.close();
+         } catch (IOException e) {
+            logger.warn("Could not close bar archive {}: {}", file.path(), e.getMessage());
+         }
+      });
+      files.clear();
+   }
+
+   /**
+    * Makes the archive cover {@code [start, end]}: appends when the range continues the archived
+    * one, rewrites the file when it reaches further back, and replaces the archive when both are
+    * disjoint.
+    */
+   private BarArchiveFile.Snapshot extend (String key, BarArchiveFile file, long start, long end,
+                                           Function<TimeRange, List<HistoricalBar>> loader) throws IOException {
+      BarArchiveFile.Snapshot snapshot = file.snapshot();
+
+      if (snapshot.isEmpty() || (start >= snapshot.coveredStart() && start <= snapshot.coveredEnd() + 1)) {
+         long from = snapshot.isEmpty() ? start : snapshot.coveredEnd() + 1;
+         BarColumns bars = new BarColumns();
+         long after = snapshot.size() == 0 ? Long.MIN_VALUE : snapshot.t(snapshot.size() - 1);
+         appendNewer(bars, loader.apply(range(from, end)), Math.max(from, after + 1), end);
+         file.append(bars, start, end);
+         barsAppended.add(bars.size());
+         return file.snapshot();
+      }
+
+      BarColumns bars = new BarColumns(snapshot.size() + 256);
+      long coveredStart = start;
+      long coveredEnd = end;
+      if (start < snapshot.coveredStart() && end >= snapshot.coveredStart() - 1) {
+         // Reaches back before the archived range and overlaps or touches it: prepend the missing part
+         appendNewer(bars, loader.apply(range(start, snapshot.coveredStart() - 1)), start, snapshot.coveredStart() - 1);
+         snapshot.read(snapshot.coveredStart(), snapshot.coveredEnd(), bars);
+         if (end > snapshot.coveredEnd()) {
+            appendNewer(bars, loader.apply(range(snapshot.coveredEnd() + 1, end)), snapshot.coveredEnd() + 1, end);
+         }
+         coveredEnd = Math.max(end, snapshot.coveredEnd());
+      } else {
+         appendNewer(bars, loader.apply(range(start, end)), start, end);
+      }
+
+      BarArchiveFile rewritten = BarArchiveFile.rewrite(file.path(), bars, coveredStart, coveredEnd);
+      files.put(key, rewritten);
+      file.close(); // Existing snapshots keep their mapping
+      rewrites.increment();
+      return rewritten.snapshot();
+   }
+
+   private BarArchiveFile.Snapshot snapshot (String symbol, Timeframe timeframe) {
+      String key = key(symbol, timeframe);
+      try {
+         return file(key, path(symbol, timeframe)).snapshot();
+      } catch (NoSuchFileException e) {
+         return null;
+      } catch (IOException e) {
+         failures.increment();
+         logger.warn("Bar archive unavailable for {} {}: {}", symbol, timeframe, e.getMessage());
+         return null;
+      }
+   }
+
+   private BarArchiveFile file (String key, Path path) throws IOException {
+      BarArchiveFile file = files.get(key);
+      if (file != null) {
+         return file;
+      }
+      openLock.lock();
+      try {
+         file = files.get(key);
+         if (file == null) {
+            if (!offline) {
+               Files.createDirectories(path.getParent());
+            }
+            try {
+               file = BarArchiveFile.open(path, offline);
+            } catch (NoSuchFileException e) {
+               throw e;
+            } catch (IOException e) {
+               if (offline) {
+                  throw e;
+               }
+               // A damaged archive is only a cache of upstream data: start it over
+               logger.warn("Discarding unreadable bar archive {}: {}", path, e.getMessage());
+               Files.deleteIfExists(path);
+               file = BarArchiveFile.open(path, false);
+            }
+            files.put(key, file);
+         }
+         return file;
+      } finally {
+         openLock.unlock();
+      }
+   }
+
+   private Path path (String symbol, Timeframe timeframe) {
+      return directory.resolve(symbol).resolve(timeframe + ".bars");
+   }
+
+   private static String key (String symbol, Timeframe timeframe) {
+      return symbol + "|" + timeframe;
+   }
+
+   // Loaders may return bars on or outside the range boundaries; keep the archive strictly increasing
+   private static void appendNewer (BarColumns columns, List<HistoricalBar> bars, long start, long end) {
+      for (HistoricalBar bar : bars) {
+         long t = bar.t().toEpochMilli();
+         if (t >= start && t <= end && (columns.size() == 0 || t > columns.t(columns.size() - 1))) {
+            columns.add(bar);
+         }
+      }
+   }
+
+   private static TimeRange range (long start, long end) {
+      return new TimeRange(Instant.ofEpochMilli(start), Instant.ofEpochMilli(end));
+   }
+}
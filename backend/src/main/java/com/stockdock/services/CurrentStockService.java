@@ -1,141 +1,359 @@
 package com.stockdock.services;
 
+import com.stockdock.bars.AlignedBars;
+import com.stockdock.bars.BarColumns;
+import com.stockdock.bars.BarSlice;
+import com.stockdock.bars.ColumnarBarSeries;
+import com.stockdock.bars.MultiSymbolBars;
+import com.stockdock.bars.TimeRange;
+import com.stockdock.bars.Timeframe;
+import com.stockdock.cache.BarSeriesCache;
+import com.stockdock.cache.RefreshingCache;
+import com.stockdock.clients.ChunkedFanOut;
 import com.stockdock.clients.CurrentStockClient;
+import com.stockdock.dto.AlignedBarsResponse;
+import com.stockdock.dto.BarSeriesResponse;
+import com.stockdock.dto.CacheStats;
+import com.stockdock.dto.HistoricalBar;
 import com.stockdock.dto.StockQuote;
 import com.stockdock.dto.StockQuoteResponse;
 import com.stockdock.dto.StockQuotes;
 import com.stockdock.dto.StockSnapshotResponse;
+import com.stockdock.dto.StockSnapshots;
 import com.stockdock.dto.HistoricalBarsResponse;
+import com.stockdock.dto.StaleableResult;
+import com.stockdock.events.QuoteUpdatedEvent;
+import com.stockdock.events.SnapshotsUpdatedEvent;
 import com.stockdock.exceptions.*;
 import com.stockdock.models.CurrentStock;
 import com.stockdock.repos.CurrentStockRepo;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 @Service
 public class CurrentStockService {
 
    private static final Logger logger = LoggerFactory.getLogger(CurrentStockService.class);
+   private static final String DEFAULT_CURRENCY = "USD";
+
+   // Timer of the public service methods, tagged with class and method by the TimedAspect
+   static final String SERVICE_TIMER = "stockdock.service";
 
    private final CurrentStockClient currentStockClient;
+   private final SymbolRegistry symbolRegistry;
+   private final RefreshingCache<StockQuote> quoteCache;
+   private final RefreshingCache<StockSnapshotResponse> snapshotCache;
+   private final QuoteWriteBehind quoteWriteBehind;
    private final CurrentStockRepo currentStockRepo;
-
-   public CurrentStockService (CurrentStockClient currentStockClient, CurrentStockRepo currentStockRepo) {
+   private final HistoricalBarStore historicalBarStore;
+   private final boolean barStoreEnabled;
+   private final BarSeriesCache barSeriesCache;
+   private final boolean barCacheEnabled;
+   private final BarArchive barArchive;
+   private final SymbolActivity symbolActivity;
+   // Bars that started longer ago than their timeframe plus this delay no longer change
+   private final Duration barSettleDelay;
+   private final ApplicationEventPublisher eventPublisher;
+
+   // Currency reported by the last upstream batch call; cached quotes are served with it
+   private volatile String currency = DEFAULT_CURRENCY;
+
+   // Last upstream error per symbol, reported for symbols that could not be served
+   private final Map<String, String> quoteErrors = new ConcurrentHashMap<>();
+
+   // Last upstream error per symbol for snapshots
+   private final Map<String, String> snapshotErrors = new ConcurrentHashMap<>();
+
+   // Maximum number of symbols accepted by one batch snapshot request
+   private final int maxSnapshotSymbols;
+
+   // Maximum number of symbols of a multi-symbol bars request
+   private final int maxBarSymbols;
+
+   public CurrentStockService (
+       CurrentStockClient currentStockClient,
+       SymbolRegistry symbolRegistry,
+       RefreshingCache<StockQuote> quoteCache,
+       RefreshingCache<StockSnapshotResponse> snapshotCache,
+       @Value("${snapshots.max-symbols:1000}") int maxSnapshotSymbols,
+       QuoteWriteBehind quoteWriteBehind,
+       CurrentStockRepo currentStockRepo,
+       HistoricalBarStore historicalBarStore,
+       @Value("${bars.store.enabled:true}") boolean barStoreEnabled,
+       BarSeriesCache barSeriesCache,
+       @Value("${bars.cache.enabled:true}") boolean barCacheEnabled,
+       BarArchive barArchive,
+       SymbolActivity symbolActivity,
+       @Value("${bars.store.settle-delay-ms:900000}") long barSettleDelayMillis,
+       @Value("${bars.multi.max-symbols:100}") int maxBarSymbols,
+       ApplicationEventPublisher eventPublisher
+                              ) {
       this.currentStockClient = currentStockClient;
+      this.symbolRegistry = symbolRegistry;
+      this.quoteCache = quoteCache;
+      this.snapshotCache = snapshotCache;
+      this.maxSnapshotSymbols = maxSnapshotSymbols;
+      this.quoteWriteBehind = quoteWriteBehind;
       this.currentStockRepo = currentStockRepo;
+      this.historicalBarStore = historicalBarStore;
+      this.barStoreEnabled = barStoreEnabled;
+      this.barSeriesCache = barSeriesCache;
+      this.barCacheEnabled = barCacheEnabled;
+      this.barArchive = barArchive;
+      this.symbolActivity = symbolActivity;
+      this.barSettleDelay = Duration.ofMillis(barSettleDelayMillis);
+      this.maxBarSymbols = maxBarSymbols;
+      this.eventPublisher = eventPublisher;
+   }
+
+   /**
+    * Fetch all quotes for the tracked symbols (see {@link SymbolRegistry}).
+    * Quotes are served from the in-memory quote cache; only symbols that are missing or expired
+    * are fetched from the Alpaca API, and stale ones are refreshed in the background.
+    * If Alpaca is unavailable, symbols that could not be loaded are served with their last known
+    * quote (from the cache or the 'current_stocks' collection) and the result is marked stale.
+    *
+    * @return StockQuotes containing the latest quotes for all tracked symbols, marked stale if
+    *         any of them is a fallback.
+    * @throws InvalidSymbolException if no quotes are found for the tracked symbols.
+    * @throws UpstreamUnavailableException if Alpaca is unavailable and no quote is known.
+    */
+   @Timed (value = SERVICE_TIMER, histogram = true)
+   public StaleableResult<StockQuotes> fetchAllQuotes() {
+      List<String> symbols = symbolRegistry.getSymbols();
+      logger.debug("Fetching all stock quotes for {} symbols.", symbols.size());
+
+      Map<String, StockQuote> quotes = new LinkedHashMap<>();
+      UpstreamUnavailableException upstreamError = null;
+      try {
+         quotes.putAll(quoteCache.getAll(symbols, this::loadQuotes));
+      } catch (UpstreamUnavailableException e) {
+         upstreamError = e;
+      }
+
+      // Symbols whose request failed get their last known quote; the oldest one dates the response
+      Instant asOf = null;
+      boolean servedStale = false;
+      boolean upstreamDown = upstreamError != null;
+      List<String> failed = symbols.stream()
+          .filter(symbol -> !quotes.containsKey(symbol) && (upstreamDown || quoteErrors.containsKey(symbol)))
+          .toList();
+      if (!failed.isEmpty()) {
+         for (Map.Entry<String, StaleableResult<StockQuote>> known : lastKnownQuotes(failed).entrySet()) {
+            quotes.put(known.getKey(), known.getValue().value());
+            servedStale = true;
+            Instant knownAsOf = known.getValue().asOf();
+            if (asOf == null || (knownAsOf != null && knownAsOf.isBefore(asOf))) {
+               asOf = knownAsOf;
+            }
+         }
+      }
+
+      if (quotes.isEmpty()) {
+         if (upstreamError != null) {
+            throw upstreamError;
+         }
+         throw new InvalidSymbolException("No quotes found for the tracked symbols.");
+      }
+
+      // Symbols that could not be served degrade to per-symbol error markers
+      Map<String, String> errors = new LinkedHashMap<>();
+      for (String symbol : symbols) {
+         if (!quotes.containsKey(symbol)) {
+            errors.put(symbol, quoteErrors.getOrDefault(symbol, "No quote available."));
+         }
+      }
+
+      StockQuotes stockQuotes = new StockQuotes(currency, quotes, errors);
+      return servedStale
+          ? StaleableResult.stale(stockQuotes, asOf)
+          : StaleableResult.fresh(stockQuotes);
+   }
+
+   /**
+    * Fetch all quotes for the tracked symbols directly from the Alpaca API,
+    * bypassing the cache, and store the result in the quote cache.
+    *
+    * @return StockQuotes containing the latest quotes for all tracked symbols.
+    * @throws InvalidSymbolException if no quotes are found for the tracked symbols.
+    */
+   @Timed (value = SERVICE_TIMER, histogram = true)
+   public StockQuotes refreshAllQuotes() {
+      return refreshQuotes(symbolRegistry.getSymbols());
    }
 
    /**
-    * Fetch all quotes for the predefined list of symbols from the Alpaca API.
+    * Fetch quotes for the given symbols directly from the Alpaca API, bypassing the cache,
+    * and store the result in the quote cache.
     * If the currency in the response is null or blank, it defaults to USD.
     *
-    * @return StockQuotes containing the latest quotes for all predefined symbols.
-    * @throws InvalidSymbolException if no quotes are found for the predefined symbols.
+    * @param symbols The symbols to refresh (e.g., the share of the tracked symbols this instance polls).
+    * @return StockQuotes containing the latest quotes for the given symbols, empty if no symbols were given.
+    * @throws InvalidSymbolException if no quotes are found for the given symbols.
     */
-   public StockQuotes fetchAllQuotes() {
-      logger.info("Fetching all stock quotes from Alpaca API.");
+   @Timed (value = SERVICE_TIMER, histogram = true)
+   public StockQuotes refreshQuotes(List<String> symbols) {
+      if (symbols.isEmpty()) {
+         return new StockQuotes(currency, Map.of(), Map.of());
+      }
+      logger.info("Fetching {} stock quotes from Alpaca API.", symbols.size());
 
       // Fetch quotes from Alpaca API
-      StockQuotes stockQuotes = currentStockClient.getAllQuotes();
+      StockQuotes stockQuotes = currentStockClient.getQuotes(symbols);
 
       // Defensive validation
       Objects.requireNonNull(stockQuotes, "Response from API cannot be null.");
 
-      // Default to USD if the currency is null or blank
-      String currency = stockQuotes.currency();
-      if (currency == null || currency.isBlank()) {
-         currency = "USD";
-         logger.warn("Currency in the response was null or blank. Defaulting to USD.");
+      if (stockQuotes.quotes() == null || stockQuotes.quotes().isEmpty()) {
+         throw new InvalidSymbolException("No quotes found for the tracked symbols.");
       }
 
-      if (stockQuotes.quotes().isEmpty()) {
-         throw new InvalidSymbolException("No quotes found for the predefined symbols.");
-      }
+      String validatedCurrency = updateCurrency(stockQuotes.currency());
+      recordErrors(stockQuotes);
+      quoteCache.putAll(stockQuotes.quotes());
+      publishQuotes(stockQuotes.quotes());
 
-      logger.info("Successfully fetched {} quotes with currency {}.", stockQuotes.quotes().size(), currency);
+      logger.info("Successfully fetched {} quotes with currency {}.", stockQuotes.quotes().size(), validatedCurrency);
 
       // Return a new StockQuotes object with the validated currency
-      return new StockQuotes(currency, stockQuotes.quotes());
+      return new StockQuotes(validatedCurrency, stockQuotes.quotes(), stockQuotes.errors());
    }
 
-
    /**
-    * Fetch a single quote by symbol from the Alpaca API.
+    * Fetch a single quote by symbol, served from the quote cache when possible.
+    * If Alpaca is unavailable, the last known quote is served and marked stale.
     *
     * @param symbol The stock symbol to fetch (e.g., AAPL).
     * @return StockQuote containing the latest quote for the given symbol.
+    * @throws UpstreamUnavailableException if Alpaca is unavailable and no quote is known for the symbol.
     */
-   public StockQuote fetchQuoteBySymbol(String symbol) {
+   @Timed (value = SERVICE_TIMER, histogram = true)
+   public StaleableResult<StockQuote> fetchQuoteBySymbol(String symbol) {
       if (symbol == null || symbol.isBlank()) {
          throw new InvalidSymbolException("Symbol cannot be null or blank.");
       }
+      // Same key as the entries the scheduler and the quote stream keep current
+      symbol = symbol.trim().toUpperCase(Locale.ROOT);
+      symbolActivity.recordRequest(symbol);
+
+      try {
+         return StaleableResult.fresh(quoteCache.get(symbol, this::loadQuote));
+      } catch (UpstreamUnavailableException e) {
+         StaleableResult<StockQuote> known = lastKnownQuotes(List.of(symbol)).get(symbol);
+         if (known == null) {
+            throw e;
+         }
+         logger.warn("Serving last known quote for {} as of {}: {}", symbol, known.asOf(), e.getMessage());
+         return known;
+      }
+   }
 
-      logger.info("Fetching stock quote for symbol {}", symbol);
-
-      // Fetch StockQuoteResponse
-      StockQuoteResponse response = currentStockClient.getSingleQuoteBySymbol(symbol);
-
-      if (response == null || response.quote() == null) {
-         throw new InvalidSymbolException("No stock quote found for symbol " + symbol);
+   /**
+    * Keeps the quote cache current with quotes pushed by the real-time market-data stream.
+    * Polled quotes are already put into the cache where they are fetched.
+    */
+   @EventListener
+   public void onQuoteUpdated(QuoteUpdatedEvent event) {
+      if (event.source() == QuoteUpdatedEvent.Source.STREAM) {
+         quoteCache.put(event.symbol(), event.quote());
       }
+   }
 
-      logger.info("Successfully fetched stock quote for symbol {}", symbol);
+   /**
+    * Hit/miss/eviction counters of the quote cache.
+    */
+   public CacheStats getQuoteCacheStats() {
+      return quoteCache.stats();
+   }
 
-      // Return the StockQuote
-      return response.quote();
+   /**
+    * Hit/miss/eviction counters of the snapshot cache.
+    */
+   public CacheStats getSnapshotCacheStats() {
+      return snapshotCache.stats();
    }
 
    /**
-    * Fetch all quotes for predefined symbols from the Alpaca API and save them to MongoDB.
+    * Fetch all quotes for the tracked symbols from the Alpaca API and save them to MongoDB.
     * Replaces existing data in the 'current_stocks' collection for each symbol.
     */
+   @Timed (value = SERVICE_TIMER, histogram = true)
    public void saveAllQuotesToDb() {
-      logger.info("Fetching all stock quotes from Alpaca API to save to MongoDB.");
-      // Get all quotes from the API
-      StockQuotes response = fetchAllQuotes();
-
-      logger.info("Fetched {} quotes. Saving them to MongoDB.", response.quotes().size());
-
-      // Map the quotes to CurrentStock objects and save to the database
-      response.quotes().forEach((symbol, stockQuote) -> {
-         // Defensive validation
-         Objects.requireNonNull(stockQuote, "Stock quote for symbol " + symbol + " cannot be null.");
-
-         CurrentStock currentStock = new CurrentStock(
-             symbol,
-             response.currency(), // Use the currency from the response (e.g., USD)
-             stockQuote           // Latest quote data for the stock
-         );
+      saveQuotesToDb(symbolRegistry.getSymbols());
+   }
 
-         logger.info("Saving data for symbol: {}", symbol);
-         currentStockRepo.save(currentStock); // Save or update the document in MongoDB
-      });
-      logger.info("All quotes have been successfully saved to MongoDB.");
+   /**
+    * Fetch quotes for the given symbols from the Alpaca API and save them to MongoDB.
+    *
+    * The quotes are not written synchronously: they are handed to the {@link QuoteWriteBehind}
+    * pipeline (through the published {@link QuoteUpdatedEvent}s), which conflates them per symbol,
+    * and an immediate flush of that pipeline is requested.
+    *
+    * @param symbols The symbols to save (e.g., the share of the tracked symbols this instance polls).
+    */
+   @Timed (value = SERVICE_TIMER, histogram = true)
+   public void saveQuotesToDb(List<String> symbols) {
+      logger.info("Fetching {} stock quotes from Alpaca API to save to MongoDB.", symbols.size());
+      // Get the quotes from the API (this also warms the quote cache and feeds the write-behind pipeline)
+      StockQuotes response = refreshQuotes(symbols);
+
+      logger.info("Fetched {} quotes. Queued them for saving to MongoDB.", response.quotes().size());
+      quoteWriteBehind.requestFlush();
    }
 
    /**
-    * Fetches detailed snapshot data for a single stock symbol from the Alpaca API.
+    * Fetches detailed snapshot data for a single stock symbol from the Alpaca API, served from
+    * the short-lived snapshot cache when possible.
+    *
+    * If Alpaca is unavailable, the last snapshot fetched for the symbol is served and marked stale.
     *
     * @param symbol The stock symbol to fetch (e.g., "AAPL").
     * @return A {@link StockSnapshotResponse} object containing detailed data for the given symbol,
     *         including daily bar, latest trade, and latest quote information.
     * @throws InvalidSymbolException if the symbol is invalid or no snapshot data is found for the symbol.
+    * @throws UpstreamUnavailableException if Alpaca is unavailable and no snapshot was fetched before.
     */
-   public StockSnapshotResponse fetchStockSnapshot(String symbol) {
+   @Timed (value = SERVICE_TIMER, histogram = true)
+   public StaleableResult<StockSnapshotResponse> fetchStockSnapshot(String symbol) {
       if (symbol == null || symbol.isBlank()) {
          throw new InvalidSymbolException("Symbol cannot be null or blank.");
       }
+      // Same key as fetchStockSnapshots and the movers refresh use
+      symbol = symbol.trim().toUpperCase(Locale.ROOT);
 
       logger.info("Fetching snapshot for stock: {}", symbol);
+      symbolActivity.recordRequest(symbol);
 
       // Fetch snapshot data from Alpaca API
-      StockSnapshotResponse snapshot = currentStockClient.getStockSnapshot(symbol);
+      StockSnapshotResponse snapshot;
+      try {
+         snapshot = snapshotCache.get(symbol, this::loadSnapshot);
+      } catch (UpstreamUnavailableException e) {
+         RefreshingCache.Entry<StockSnapshotResponse> lastGood = snapshotCache.peek(symbol);
+         if (lastGood == null) {
+            throw e;
+         }
+         logger.warn("Serving last good snapshot for {}: {}", symbol, e.getMessage());
+         return StaleableResult.stale(lastGood.value(), Instant.ofEpochMilli(lastGood.loadedAt()));
+      }
 
       // Defensive validation
       if (snapshot == null) {
@@ -143,14 +361,120 @@ public class CurrentStockService {
       }
 
       logger.info("Successfully fetched snapshot for stock: {}", symbol);
-      return snapshot;
+      return StaleableResult.fresh(snapshot);
+   }
+
+   /**
+    * Fetches snapshots for several symbols at once.
+    *
+    * Snapshots are served from the short-lived snapshot cache; the symbols that are missing or
+    * expired are fetched together through Alpaca's multi-symbol snapshots endpoint (in chunks for
+    * long lists), so one request replaces one upstream call per symbol. If Alpaca is unavailable,
+    * the last snapshot fetched for each symbol is served and the result is marked stale.
+    *
+    * @param symbols The stock symbols to fetch (e.g., ["AAPL", "MSFT"]); case and duplicates are ignored.
+    * @return StockSnapshots keyed by symbol, with per-symbol errors for symbols that could not be served.
+    * @throws InvalidSymbolException if no symbol is given, too many are given, or no snapshot is found.
+    * @throws UpstreamUnavailableException if Alpaca is unavailable and no snapshot is known.
+    */
+   @Timed (value = SERVICE_TIMER, histogram = true)
+   public StaleableResult<StockSnapshots> fetchStockSnapshots(Collection<String> symbols) {
+      return fetchStockSnapshots(symbols, true);
+   }
+
+   // Only explicitly requested symbols count towards their polling priority (see SymbolActivity)
+   private StaleableResult<StockSnapshots> fetchStockSnapshots(Collection<String> symbols, boolean recordRequests) {
+      List<String> normalized = symbols == null ? List.of() : symbols.stream()
+          .filter(Objects::nonNull)
+          .map(symbol -> symbol.trim().toUpperCase(Locale.ROOT))
+          .filter(symbol -> !symbol.isEmpty())
+          .distinct()
+          .toList();
+      if (normalized.isEmpty()) {
+         throw new InvalidSymbolException("At least one symbol is required.");
+      }
+      if (normalized.size() > maxSnapshotSymbols) {
+         throw new InvalidSymbolException("At most " + maxSnapshotSymbols + " symbols can be requested at once.");
+      }
+      if (recordRequests) {
+         normalized.forEach(symbolActivity::recordRequest);
+      }
+
+      Map<String, StockSnapshotResponse> snapshots = new LinkedHashMap<>();
+      UpstreamUnavailableException upstreamError = null;
+      try {
+         snapshots.putAll(snapshotCache.getAll(normalized, this::loadSnapshots));
+      } catch (UpstreamUnavailableException e) {
+         upstreamError = e;
+      }
+
+      // Symbols whose request failed get their last good snapshot; the oldest one dates the response
+      Instant asOf = null;
+      boolean servedStale = false;
+      for (String symbol : normalized) {
+         if (snapshots.containsKey(symbol) || (upstreamError == null && !snapshotErrors.containsKey(symbol))) {
+            continue;
+         }
+         RefreshingCache.Entry<StockSnapshotResponse> lastGood = snapshotCache.peek(symbol);
+         if (lastGood != null) {
+            snapshots.put(symbol, lastGood.value());
+            servedStale = true;
+            Instant loadedAt = Instant.ofEpochMilli(lastGood.loadedAt());
+            if (asOf == null || loadedAt.isBefore(asOf)) {
+               asOf = loadedAt;
+            }
+         }
+      }
+
+      if (snapshots.isEmpty()) {
+         if (upstreamError != null) {
+            throw upstreamError;
+         }
+         throw new InvalidSymbolException("No snapshot data found for symbols " + normalized);
+      }
+
+      Map<String, String> errors = new LinkedHashMap<>();
+      for (String symbol : normalized) {
+         if (!snapshots.containsKey(symbol)) {
+            errors.put(symbol, snapshotErrors.getOrDefault(symbol, "No snapshot available."));
+         }
+      }
+
+      StockSnapshots result = new StockSnapshots(snapshots, errors);
+      return servedStale ? StaleableResult.stale(result, asOf) : StaleableResult.fresh(result);
    }
 
    /**
-    * Fetches historical stock bars for a given symbol and timeframe from the Alpaca API.
+    * Makes sure the snapshot cache holds a current snapshot of each given symbol, fetching the
+    * missing and expired ones in multi-symbol calls. Unlike {@link #fetchStockSnapshots} there is
+    * no limit on the number of symbols, and nothing is returned: the fetched snapshots are
+    * published as a {@link SnapshotsUpdatedEvent}.
+    *
+    * @param symbols The symbols to refresh (e.g., all tracked symbols).
+    * @throws UpstreamUnavailableException if Alpaca is unavailable.
+    */
+   public void refreshSnapshots(List<String> symbols) {
+      if (!symbols.isEmpty()) {
+         snapshotCache.getAll(symbols, this::loadSnapshots);
+      }
+   }
+
+   /**
+    * Fetches snapshots for all tracked symbols, see {@link #fetchStockSnapshots}.
+    */
+   public StaleableResult<StockSnapshots> fetchAllStockSnapshots() {
+      return fetchStockSnapshots(symbolRegistry.getSymbols(), false);
+   }
+
+   /**
+    * Fetches historical stock bars for a given symbol and timeframe.
     *
     * This method retrieves aggregated historical bar data for a specific stock symbol, including
     * open, high, low, close prices, and volume for the specified timeframe and date range.
+    * When the local bar store is enabled ({@code bars.store.enabled}), bars are served from MongoDB
+    * and only the sub-ranges that were never fetched before are requested from the Alpaca API.
+    * Settled bars are also kept in the in-memory columnar {@link BarSeriesCache} ({@code bars.cache.enabled}),
+    * so repeated requests are answered without materializing a record per bar.
     *
     * <p>
     * The {@code timeframe} parameter specifies the aggregation period for each bar (e.g., 1Day, 1Week),
@@ -162,14 +486,186 @@ public class CurrentStockService {
     *                  Supported values align with the Alpaca API documentation.
     * @param start     The start date for the data in RFC-3339 or YYYY-MM-DD format.
     * @param end       The end date for the data in RFC-3339 or YYYY-MM-DD format.
-    * @return A {@link HistoricalBarsResponse} containing the historical bars data.
+    * @return A {@link BarSeriesResponse} containing the historical bars data.
     *
     * @throws InvalidSymbolException If the {@code symbol} is null, blank, or no data is found for the given symbol.
     * @throws UnsupportedTimeframeException If the {@code timeframe} is null, blank, or not supported.
     * @throws MissingRequiredParameterException If the {@code start} or {@code end} date is null or blank.
     * @throws EmptyResponseException If no historical bars are returned by the Alpaca API for the given inputs.
     */
-   public HistoricalBarsResponse fetchHistoricalBars(String symbol, String timeframe, String start, String end) {
+   @Timed (value = SERVICE_TIMER, histogram = true)
+   public BarSeriesResponse fetchHistoricalBars(String symbol, String timeframe, String start, String end) {
+      validateBarsRequest(symbol, timeframe, start, end);
+      // One series per symbol in the cache, the bar store and the archive, whatever the case of the request
+      String normalizedSymbol = symbol.trim().toUpperCase(Locale.ROOT);
+      Timeframe parsedTimeframe = Timeframe.parse(timeframe);
+      TimeRange range = TimeRange.parse(start, end);
+
+      BarSlice bars = barCacheEnabled
+          ? barSeriesCache.getBars(normalizedSymbol, parsedTimeframe, range,
+                subRange -> fetchBars(normalizedSymbol, parsedTimeframe, subRange))
+          : ColumnarBarSeries.of(fetchBars(normalizedSymbol, parsedTimeframe, range), false).all();
+
+      if (bars.isEmpty()) {
+         throw new EmptyResponseException("No historical bars found for symbol " + normalizedSymbol);
+      }
+
+      return new BarSeriesResponse(bars);
+   }
+
+   /**
+    * Fetches the historical bars of several symbols and aligns them on a shared timestamp axis,
+    * e.g. for comparison charts.
+    *
+    * The bars come from Alpaca's multi-symbol bars endpoint, so a few paged calls replace one call
+    * per symbol; chunks of symbols are paged through concurrently. In offline mode
+    * ({@code bars.archive.offline}) every symbol is read from the on-disk {@link BarArchive} instead.
+    * Symbols without bars in the range are reported in {@link AlignedBarsResponse#errors()}.
+    *
+    * @param symbols   The stock symbols to fetch (e.g., ["AAPL", "MSFT"]); case and duplicates are ignored.
+    * @param timeframe The timeframe for historical data aggregation (e.g., "1Day", "1Hour").
+    * @param start     The start date for the data in RFC-3339 or YYYY-MM-DD format.
+    * @param end       The end date for the data in RFC-3339 or YYYY-MM-DD format.
+    * @return An {@link AlignedBarsResponse} with the bars of every symbol in columnar form.
+    *
+    * @throws InvalidSymbolException If no symbol is given or more than {@code bars.multi.max-symbols} are given.
+    * @throws UnsupportedTimeframeException If the {@code timeframe} is null, blank, or not supported.
+    * @throws MissingRequiredParameterException If the {@code start} or {@code end} date is null or blank.
+    * @throws InvalidDateRangeException If the {@code start} or {@code end} date cannot be parsed.
+    * @throws EmptyResponseException If none of the symbols has bars in the range.
+    */
+   @Timed (value = SERVICE_TIMER, histogram = true)
+   public AlignedBarsResponse fetchAlignedBars(Collection<String> symbols, String timeframe, String start, String end) {
+      List<String> normalized = normalizeBarSymbols(symbols);
+      validateBarsRequest(normalized.getFirst(), timeframe, start, end);
+      Timeframe parsedTimeframe = Timeframe.parse(timeframe);
+      TimeRange range = TimeRange.parse(start, end);
+
+      Map<String, BarColumns> loaded = new LinkedHashMap<>();
+      Map<String, String> errors = new LinkedHashMap<>();
+      if (barArchive.isOffline()) {
+         // One symbol per chunk: the archive is read per symbol, and concurrently
+         ChunkedFanOut.run(normalized, 1, normalized.size(), chunk -> fetchBars(chunk.getFirst(), parsedTimeframe, range))
+             .forEach(result -> {
+                String symbol = result.symbols().getFirst();
+                if (result.failed()) {
+                   errors.put(symbol, "Bars request failed: " + result.error().getMessage());
+                } else {
+                   loaded.put(symbol, BarColumns.of(result.value()));
+                }
+             });
+      } else {
+         MultiSymbolBars fetched = currentStockClient.getHistoricalBars(
+             normalized, parsedTimeframe.toString(), range.start().toString(), range.end().toString());
+         loaded.putAll(fetched.bars());
+         errors.putAll(fetched.errors());
+      }
+
+      // Keep the requested order; symbols without bars are reported instead of sent as empty columns
+      Map<String, BarColumns> series = new LinkedHashMap<>();
+      for (String symbol : normalized) {
+         BarColumns bars = loaded.get(symbol);
+         if (bars != null && bars.size() > 0) {
+            series.put(symbol, bars);
+         } else {
+            errors.putIfAbsent(symbol, "No bars in the requested range.");
+         }
+      }
+      if (series.isEmpty()) {
+         throw new EmptyResponseException("No historical bars found for symbols " + normalized);
+      }
+
+      AlignedBars aligned = AlignedBars.align(series);
+      logger.info("Aligned bars of {} symbols on {} timestamps ({} symbols without bars).",
+          series.size(), aligned.length(), errors.size());
+      return new AlignedBarsResponse(parsedTimeframe.toString(), aligned, errors);
+   }
+
+   /**
+    * Normalizes the symbols of a multi-symbol bars request (trimmed, upper case, without duplicates).
+    *
+    * @throws InvalidSymbolException If no symbol is given or more than {@code bars.multi.max-symbols} are given.
+    */
+   public List<String> normalizeBarSymbols(Collection<String> symbols) {
+      List<String> normalized = symbols == null ? List.of() : symbols.stream()
+          .filter(Objects::nonNull)
+          .map(symbol -> symbol.trim().toUpperCase(Locale.ROOT))
+          .filter(symbol -> !symbol.isEmpty())
+          .distinct()
+          .toList();
+      if (normalized.isEmpty()) {
+         throw new InvalidSymbolException("At least one symbol is required.");
+      }
+      if (normalized.size() > maxBarSymbols) {
+         throw new InvalidSymbolException("At most " + maxBarSymbols + " symbols can be requested at once.");
+      }
+      return normalized;
+   }
+
+   /**
+    * Fetches the historical bars of an already validated range. The on-disk {@link BarArchive} is
+    * read first ({@code bars.archive.enabled}); what it does not hold comes from the local bar store
+    * when it is enabled and from the Alpaca API otherwise. Unlike {@link #fetchHistoricalBars}, an
+    * empty range is not an error.
+    *
+    * @param symbol    The stock symbol to fetch (e.g., "AAPL").
+    * @param timeframe The bar timeframe.
+    * @param range     The inclusive time range.
+    * @return The bars in timestamp order, possibly empty.
+    */
+   public List<HistoricalBar> fetchBars(String symbol, Timeframe timeframe, TimeRange range) {
+      if (barArchive.isEnabled()) {
+         return barArchive.getBars(symbol, timeframe, range, subRange -> fetchUpstreamBars(symbol, timeframe, subRange));
+      }
+      return fetchUpstreamBars(symbol, timeframe, range);
+   }
+
+   private List<HistoricalBar> fetchUpstreamBars(String symbol, Timeframe timeframe, TimeRange range) {
+      if (barStoreEnabled) {
+         return historicalBarStore.getBars(symbol, timeframe, range);
+      }
+      HistoricalBarsResponse response = currentStockClient.getHistoricalBars(
+          symbol, timeframe.toString(), range.start().toString(), range.end().toString());
+      return response == null || response.bars() == null ? List.of() : response.bars();
+   }
+
+   /**
+    * Streams historical stock bars for a given symbol and timeframe from the Alpaca API.
+    *
+    * Unlike {@link #fetchHistoricalBars}, the bars are not collected into a response: every page
+    * returned by Alpaca is followed lazily and each bar is handed to {@code sink} as it is read,
+    * so memory use does not grow with the size of the date range. In offline mode
+    * ({@code bars.archive.offline}) the bars are replayed from the on-disk {@link BarArchive} instead.
+    *
+    * @param symbol    The stock symbol to fetch (e.g., "AAPL").
+    * @param timeframe The timeframe for historical data aggregation (e.g., "1Min", "1Day").
+    * @param start     The start date for the data in RFC-3339 or YYYY-MM-DD format.
+    * @param end       The end date for the data in RFC-3339 or YYYY-MM-DD format.
+    * @param sink      Receives the bars in timestamp order.
+    * @return The number of bars streamed.
+    *
+    * @throws InvalidSymbolException If the {@code symbol} is null or blank.
+    * @throws UnsupportedTimeframeException If the {@code timeframe} is null or blank.
+    * @throws MissingRequiredParameterException If the {@code start} or {@code end} date is null or blank.
+    */
+   @Timed (value = SERVICE_TIMER, histogram = true)
+   public long streamHistoricalBars(String symbol, String timeframe, String start, String end, Consumer<HistoricalBar> sink) {
+      validateBarsRequest(symbol, timeframe, start, end);
+      String normalizedSymbol = symbol.trim().toUpperCase(Locale.ROOT);
+      if (barArchive.isOffline()) {
+         return barArchive.replay(normalizedSymbol, Timeframe.parse(timeframe), TimeRange.parse(start, end), sink);
+      }
+      return currentStockClient.streamHistoricalBars(normalizedSymbol, timeframe, start, end, sink);
+   }
+
+   /**
+    * Validates the parameters of a historical bars request.
+    *
+    * @throws InvalidSymbolException If the {@code symbol} is null or blank.
+    * @throws UnsupportedTimeframeException If the {@code timeframe} is null or blank.
+    * @throws MissingRequiredParameterException If the {@code start} or {@code end} date is null or blank.
+    */
+   public void validateBarsRequest(String symbol, String timeframe, String start, String end) {
       if (symbol == null || symbol.isBlank()) {
          throw new InvalidSymbolException("Symbol cannot be null or blank.");
       }
@@ -179,14 +675,133 @@ public class CurrentStockService {
       if (start == null || start.isBlank() || end == null || end.isBlank()) {
          throw new MissingRequiredParameterException("Start and end dates cannot be null or blank.");
       }
+   }
 
-      HistoricalBarsResponse response = currentStockClient.getHistoricalBars(symbol, timeframe, start, end);
+   /**
+    * Whether all bars of a historical bars request are settled, so the response to it will not change
+    * any more and can be cached by clients for long.
+    *
+    * @throws InvalidSymbolException If the {@code symbol} is null or blank.
+    * @throws UnsupportedTimeframeException If the {@code timeframe} is null, blank or not supported.
+    * @throws MissingRequiredParameterException If the {@code start} or {@code end} date is null or blank.
+    * @throws InvalidDateRangeException If the {@code start} or {@code end} date cannot be parsed.
+    */
+   public boolean isSettledRange(String symbol, String timeframe, String start, String end) {
+      validateBarsRequest(symbol, timeframe, start, end);
+      Instant settledUntil = Instant.now().minus(Timeframe.parse(timeframe).duration()).minus(barSettleDelay);
+      return TimeRange.parse(start, end).end().isBefore(settledUntil);
+   }
+
+   /**
+    * Last known quotes for symbols Alpaca could not serve: cached entries of any age first,
+    * then the documents the write-behind pipeline stored in 'current_stocks'.
+    *
+    * @param symbols The symbols to look up.
+    * @return Stale results per symbol, for the symbols a quote is known for.
+    */
+   private Map<String, StaleableResult<StockQuote>> lastKnownQuotes(Collection<String> symbols) {
+      Map<String, StaleableResult<StockQuote>> known = new LinkedHashMap<>();
+      List<String> notCached = new ArrayList<>();
+      for (String symbol : symbols) {
+         RefreshingCache.Entry<StockQuote> entry = quoteCache.peek(symbol);
+         if (entry != null) {
+            known.put(symbol, StaleableResult.stale(entry.value(), Instant.ofEpochMilli(entry.loadedAt())));
+         } else {
+            notCached.add(symbol);
+         }
+      }
 
-      if (response == null || response.bars().isEmpty()) {
-         throw new EmptyResponseException("No historical bars found for symbol " + symbol);
+      if (!notCached.isEmpty()) {
+         try {
+            for (CurrentStock stock : currentStockRepo.findAllById(notCached)) {
+               if (stock.latestQuote() != null) {
+                  known.put(stock.symbol(), StaleableResult.stale(stock.latestQuote(), stock.latestQuote().t()));
+               }
+            }
+         } catch (DataAccessException e) {
+            logger.warn("Could not read last known quotes from MongoDB: {}", e.getMessage());
+         }
       }
+      return known;
+   }
 
-      return response;
+   // Loads several snapshots from the Alpaca API with the multi-symbol endpoint (snapshot cache bulk loader)
+   private Map<String, StockSnapshotResponse> loadSnapshots(Collection<String> symbols) {
+      logger.info("Fetching {} stock snapshots from Alpaca API.", symbols.size());
+
+      StockSnapshots stockSnapshots = currentStockClient.getStockSnapshots(List.copyOf(symbols));
+      stockSnapshots.snapshots().keySet().forEach(snapshotErrors::remove);
+      snapshotErrors.putAll(stockSnapshots.errors());
+      if (!stockSnapshots.snapshots().isEmpty()) {
+         eventPublisher.publishEvent(new SnapshotsUpdatedEvent(stockSnapshots.snapshots()));
+      }
+      return stockSnapshots.snapshots();
    }
-}
 
+   // Loads a single snapshot from the Alpaca API (snapshot cache loader)
+   private StockSnapshotResponse loadSnapshot(String symbol) {
+      StockSnapshotResponse snapshot = currentStockClient.getStockSnapshot(symbol);
+      if (snapshot != null) {
+         eventPublisher.publishEvent(new SnapshotsUpdatedEvent(Map.of(symbol, snapshot)));
+      }
+      return snapshot;
+   }
+
+   // Loads a single quote from the Alpaca API (quote cache loader)
+   private StockQuote loadQuote(String symbol) {
+      logger.info("Fetching stock quote for symbol {}", symbol);
+
+      // Fetch StockQuoteResponse
+      StockQuoteResponse response = currentStockClient.getSingleQuoteBySymbol(symbol);
+
+      if (response == null || response.quote() == null) {
+         throw new InvalidSymbolException("No stock quote found for symbol " + symbol);
+      }
+
+      logger.info("Successfully fetched stock quote for symbol {}", symbol);
+      eventPublisher.publishEvent(new QuoteUpdatedEvent(symbol, currency, response.quote(), QuoteUpdatedEvent.Source.POLL));
+      return response.quote();
+   }
+
+   // Loads several quotes from the Alpaca API with one batch call (quote cache bulk loader)
+   private Map<String, StockQuote> loadQuotes(Collection<String> symbols) {
+      logger.info("Fetching {} stock quotes from Alpaca API.", symbols.size());
+
+      StockQuotes stockQuotes = currentStockClient.getQuotes(List.copyOf(symbols));
+
+      // Defensive validation
+      Objects.requireNonNull(stockQuotes, "Response from API cannot be null.");
+
+      updateCurrency(stockQuotes.currency());
+      recordErrors(stockQuotes);
+      if (stockQuotes.quotes() == null) {
+         return Map.of();
+      }
+      publishQuotes(stockQuotes.quotes());
+      return stockQuotes.quotes();
+   }
+
+   // Announces freshly polled quotes to listeners (e.g. SSE clients, the write-behind pipeline)
+   private void publishQuotes(Map<String, StockQuote> quotes) {
+      quotes.forEach((symbol, quote) ->
+          eventPublisher.publishEvent(new QuoteUpdatedEvent(symbol, currency, quote, QuoteUpdatedEvent.Source.POLL)));
+   }
+
+   // Remembers why symbols failed, and forgets errors of symbols that were fetched again
+   private void recordErrors(StockQuotes stockQuotes) {
+      if (stockQuotes.quotes() != null) {
+         stockQuotes.quotes().keySet().forEach(quoteErrors::remove);
+      }
+      quoteErrors.putAll(stockQuotes.errors());
+   }
+
+   // Default to USD if the currency is null or blank
+   private String updateCurrency(String reportedCurrency) {
+      if (reportedCurrency == null || reportedCurrency.isBlank()) {
+         logger.debug("Currency in the response was null or blank. Defaulting to {}.", DEFAULT_CURRENCY);
+         reportedCurrency = DEFAULT_CURRENCY;
+      }
+      currency = reportedCurrency;
+      return reportedCurrency;
+   }
+}
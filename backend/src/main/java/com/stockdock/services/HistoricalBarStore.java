@@ -0,0 +1,390 @@
+package com.stockdock.services;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import com.stockdock.bars.BarColumns;
+import com.stockdock.bars.BarResampler;
+import com.stockdock.bars.TimeRange;
+import com.stockdock.bars.Timeframe;
+import com.stockdock.clients.CurrentStockClient;
+import com.stockdock.cluster.SeriesLeases;
+import com.stockdock.models.BarCoverage;
+import com.stockdock.models.HistoricalBar;
+import com.stockdock.repos.BarCoverageRepo;
+import com.stockdock.repos.HistoricalBarRepo;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local store of historical bars in the {@code historical_bars} time-series collection.
+ *
+ * For every series (symbol + timeframe) the {@code bar_coverage} collection records which time
+ * ranges have already been fetched from Alpaca. A request only fetches the sub-ranges that are
+ * not covered yet, stores them, and then serves the whole range with one indexed range scan.
+ * Bars that may still change (the current, unfinished bar) are fetched live and never stored.
+ *
+ * Once 1-minute bars of a range are stored, coarser timeframes for that range are derived
+ * locally with {@link BarResampler} instead of being requested from Alpaca.
+ *
+ * Gaps of a series are filled by one instance at a time: threads of this instance queue on a
+ * local lock, and the instance then holds the series' lease in {@link SeriesLeases} while it fetches,
+ * inserts and records coverage. An instance that cannot get the lease within
+ * {@code bars.store.lease-wait-ms} serves the range live instead of storing it a second time.
+ */
+@Service
+public class HistoricalBarStore {
+
+   private static final Logger logger = LoggerFactory.getLogger(HistoricalBarStore.class);
+   private static final Sort BY_TIME = Sort.by(Sort.Direction.ASC, "t");
+
+   private final CurrentStockClient currentStockClient;
+   private final HistoricalBarRepo historicalBarRepo;
+   private final BarCoverageRepo barCoverageRepo;
+   private final MongoTemplate mongoTemplate;
+   private final SeriesLeases seriesLeases;
+   private final Duration settleDelay;
+   private final Duration leaseWait;
+   private final int insertBatchSize;
+   private final boolean resampleEnabled;
+
+   // One lock per series, so requests of this instance queue here instead of polling the lease
+   private final ConcurrentHashMap<String, ReentrantLock> seriesLocks = new ConcurrentHashMap<>();
+
+   public HistoricalBarStore (
+       CurrentStockClient currentStockClient,
+       HistoricalBarRepo historicalBarRepo,
+       BarCoverageRepo barCoverageRepo,
+       MongoTemplate mongoTemplate,
+       SeriesLeases seriesLeases,
+       @Value("${bars.store.settle-delay-ms:900000}") long settleDelayMillis,
+       @Value("${bars.store.lease-wait-ms:30000}") long leaseWaitMillis,
+       @Value("${bars.store.insert-batch-size:5000}") int insertBatchSize,
+       @Value("${bars.resample.enabled:true}") boolean resampleEnabled
+                             ) {
+      this.currentStockClient = currentStockClient;
+      this.historicalBarRepo = historicalBarRepo;
+      this.barCoverageRepo = barCoverageRepo;
+      this.mongoTemplate = mongoTemplate;
+      this.seriesLeases = seriesLeases;
+      this.settleDelay = Duration.ofMillis(settleDelayMillis);
+      this.leaseWait = Duration.ofMillis(leaseWaitMillis);
+      this.insertBatchSize = insertBatchSize;
+      this.resampleEnabled = resampleEnabled;
+   }
+
+   /**
+    * Creates the time-series collection and its range index if they don't exist yet.
+    * Inserting into a missing collection would silently create a regular collection instead.
+    */
+   @EventListener (ApplicationReadyEvent.class)
+   public void initCollection () {
+      try {
+         if (!mongoTemplate.collectionExists(HistoricalBar.class)) {
+            mongoTemplate.createCollection(HistoricalBar.class);
+            logger.info("Created time-series collection historical_bars.");
+         }
+         mongoTemplate.indexOps(HistoricalBar.class).ensureIndex(new Index()
+             .on("meta.symbol", Sort.Direction.ASC)
+             .on("meta.timeframe", Sort.Direction.ASC)
+             .on("t", Sort.Direction.ASC));
+      } catch (Exception e) {
+         logger.error("Could not initialise historical_bars collection: {}", e.getMessage(), e);
+      }
+   }
+
+   /**
+    * Returns the bars of a series within {@code [start, end]}.
+    *
+    * Missing sub-ranges of closed bars are fetched from Alpaca and stored first; the range is
+    * then read from MongoDB. Bars newer than the settle horizon are fetched live and appended.
+    *
+    * @param symbol    The stock symbol (e.g., "AAPL").
+    * @param timeframe The timeframe of the bars (e.g., "1Day").
+    * @param range     The inclusive time range.
+    * @return The bars in timestamp order.
+    */
+   public List<com.stockdock.dto.HistoricalBar> getBars (String symbol, Timeframe timeframe, TimeRange range) {
+      // Coverage and bars are keyed by the upper-case symbol; "aapl" must not start a second series
+      symbol = symbol.trim().toUpperCase(Locale.ROOT);
+      if (resampleEnabled && !Timeframe.ONE_MINUTE.equals(timeframe)) {
+         List<com.stockdock.dto.HistoricalBar> derived = deriveFromMinuteBars(symbol, timeframe, range);
+         if (derived != null) {
+            return derived;
+         }
+      }
+
+      String tf = timeframe.toString();
+
+      // Bars that started before the horizon are closed and will not change any more
+      Instant horizon = Instant.now().minus(timeframe.duration()).minus(settleDelay);
+      Instant storedEnd = range.end().isBefore(horizon) ? range.end() : horizon;
+
+      List<com.stockdock.dto.HistoricalBar> bars = new ArrayList<>();
+      if (!range.start().isAfter(storedEnd)) {
+         if (fillGaps(symbol, tf, range.start(), storedEnd)) {
+            for (HistoricalBar bar : historicalBarRepo.findRange(symbol, tf, range.start(), storedEnd, BY_TIME)) {
+               // Skips duplicates stored by instances that filled the same gap before series were leased
+               if (bars.isEmpty() || bars.getLast().t().isBefore(bar.t())) {
+                  bars.add(toDto(bar));
+               }
+            }
+         } else {
+            // Another instance is still storing the series; don't make the request wait for it
+            currentStockClient.streamHistoricalBars(symbol, tf, range.start().toString(), storedEnd.toString(), bars::add);
+         }
+      }
+
+      if (range.end().isAfter(storedEnd)) {
+         // Still-forming bars are always fetched live and never stored
+         Instant liveStart = range.start().isAfter(storedEnd) ? range.start() : storedEnd;
+         currentStockClient.streamHistoricalBars(symbol, tf, liveStart.toString(), range.end().toString(), bar -> {
+            if (bar.t().isAfter(storedEnd) || range.start().isAfter(storedEnd)) {
+               bars.add(bar);
+            }
+         });
+      }
+
+      logger.debug("Served {} bars for {} {} from the local store.", bars.size(), symbol, tf);
+      return bars;
+   }
+
+   /**
+    * Derives bars of a coarser timeframe from stored 1-minute bars, without calling Alpaca for
+    * the closed part of the range.
+    *
+    * Only whole buckets whose minute bars are all closed are derived; the still-forming bucket at
+    * the end of the range (if any) is fetched live in the requested timeframe.
+    *
+    * @return The bars, or {@code null} if the minute bars of the range are not stored locally.
+    */
+   private List<com.stockdock.dto.HistoricalBar> deriveFromMinuteBars (String symbol, Timeframe timeframe, TimeRange range) {
+      // Alpaca returns bars with start <= t <= end, so the first bucket is the first one starting at or after start
+      long firstBucket = BarResampler.bucketStart(timeframe, range.start().toEpochMilli());
+      if (firstBucket < range.start().toEpochMilli()) {
+         firstBucket = BarResampler.bucketEnd(timeframe, firstBucket);
+      }
+      long lastBucketEnd = BarResampler.bucketEnd(timeframe, BarResampler.bucketStart(timeframe, range.end().toEpochMilli()));
+
+      Instant minutesClosedUntil = Instant.now().minus(Timeframe.ONE_MINUTE.duration()).minus(settleDelay);
+      long derivedEnd = Math.min(lastBucketEnd, BarResampler.bucketStart(timeframe, minutesClosedUntil.toEpochMilli()));
+      if (derivedEnd <= firstBucket) {
+         return null;
+      }
+
+      TimeRange source = new TimeRange(Instant.ofEpochMilli(firstBucket), Instant.ofEpochMilli(derivedEnd - 1));
+      if (!isCovered(symbol, Timeframe.ONE_MINUTE, source)) {
+         return null;
+      }
+
+      BarColumns minutes = loadColumns(symbol, Timeframe.ONE_MINUTE.toString(), source);
+      List<com.stockdock.dto.HistoricalBar> bars = new ArrayList<>(BarResampler.resample(minutes, timeframe).toBars());
+
+      Instant liveStart = Instant.ofEpochMilli(derivedEnd);
+      if (!liveStart.isAfter(range.end())) {
+         currentStockClient.streamHistoricalBars(symbol, timeframe.toString(), liveStart.toString(), range.end().toString(), bars::add);
+      }
+
+      logger.debug("Derived {} {} bars for {} from {} stored 1Min bars.", bars.size(), timeframe, symbol, minutes.size());
+      return bars;
+   }
+
+   /**
+    * Reads stored bars straight into primitive columns, without mapping each document to a record.
+    */
+   private BarColumns loadColumns (String symbol, String timeframe, TimeRange range) {
+      Bson filter = Filters.and(
+          Filters.eq("meta.symbol", symbol),
+          Filters.eq("meta.timeframe", timeframe),
+          Filters.gte("t", Date.from(range.start())),
+          Filters.lte("t", Date.from(range.end())));
+
+      BarColumns columns = new BarColumns(1024);
+      for (Document doc : mongoTemplate.getCollection(mongoTemplate.getCollectionName(HistoricalBar.class))
+          .find(filter)
+          .sort(Sorts.ascending("t"))) {
+         long t = doc.getDate("t").getTime();
+         if (columns.size() > 0 && columns.t(columns.size() - 1) >= t) {
+            continue; // Duplicate of the previous bar, see getBars
+         }
+         columns.add(
+             t,
+             doc.get("o", Number.class).doubleValue(),
+             doc.get("h", Number.class).doubleValue(),
+             doc.get("l", Number.class).doubleValue(),
+             doc.get("c", Number.class).doubleValue(),
+             doc.get("v", Number.class).longValue(),
+             doc.get("n", Number.class).intValue(),
+             doc.get("vw", Number.class).doubleValue());
+      }
+      return columns;
+   }
+
+   /**
+    * Whether the whole range of a series is already stored locally.
+    */
+   public boolean isCovered (String symbol, Timeframe timeframe, TimeRange range) {
+      return findGaps(loadRanges(symbol, timeframe.toString()), range.start(), range.end()).isEmpty();
+   }
+
+   // Fetches and stores every part of [from, to] that is not covered yet; false if the series' lease was not available
+   private boolean fillGaps (String symbol, String timeframe, Instant from, Instant to) {
+      if (findGaps(loadRanges(symbol, timeframe), from, to).isEmpty()) {
+         return true;
+      }
+
+      String seriesId = BarCoverage.idOf(symbol, timeframe);
+      ReentrantLock lock = seriesLocks.computeIfAbsent(seriesId, id -> new ReentrantLock());
+      lock.lock();
+      try {
+         if (!seriesLeases.acquire(seriesId, leaseWait)) {
+            return false;
+         }
+         try {
+            // Read under the lease: the previous holder may have filled the range meanwhile
+            List<BarCoverage.CoveredRange> covered = loadRanges(symbol, timeframe);
+            for (BarCoverage.CoveredRange gap : findGaps(covered, from, to)) {
+               logger.info("Fetching missing bars for {} {} from {} to {}.", symbol, timeframe, gap.from(), gap.to());
+               Instant fetchedUntil = fetchGap(seriesId, symbol, timeframe, gap, covered);
+               covered = merge(covered, new BarCoverage.CoveredRange(gap.from(), fetchedUntil));
+               barCoverageRepo.save(new BarCoverage(seriesId, symbol, timeframe, covered));
+            }
+            return true;
+         } finally {
+            seriesLeases.release(seriesId);
+         }
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   // Streams one gap from Alpaca into MongoDB in batches; returns the end of the stored range
+   private Instant fetchGap (
+       String seriesId,
+       String symbol,
+       String timeframe,
+       BarCoverage.CoveredRange gap,
+       List<BarCoverage.CoveredRange> covered
+                            ) {
+      HistoricalBar.SeriesKey key = new HistoricalBar.SeriesKey(symbol, timeframe);
+      List<HistoricalBar> batch = new ArrayList<>(insertBatchSize);
+      Instant[] lastStored = { null };
+
+      try {
+         currentStockClient.streamHistoricalBars(symbol, timeframe, gap.from().toString(), gap.to().toString(), bar -> {
+            // Gap boundaries touch covered ranges; don't store a boundary bar twice
+            if (isCovered(covered, bar.t())) {
+               return;
+            }
+            batch.add(new HistoricalBar(null, key, bar.t(), bar.o(), bar.h(), bar.l(), bar.c(), bar.v(), bar.n(), bar.vw()));
+            if (batch.size() >= insertBatchSize) {
+               historicalBarRepo.insert(batch);
+               lastStored[0] = batch.getLast().t();
+               batch.clear();
+               if (!seriesLeases.renew(seriesId)) {
+                  // The lease expired and another instance took over the series; it records the coverage
+                  throw new IllegalStateException("Lost the lease of series " + seriesId + " while storing bars.");
+               }
+            }
+         });
+         if (!batch.isEmpty()) {
+            historicalBarRepo.insert(batch);
+         }
+         return gap.to();
+      } catch (RuntimeException e) {
+         // Bars arrive in order, so everything up to the last stored bar is complete
+         if (lastStored[0] != null && seriesLeases.renew(seriesId)) {
+            List<BarCoverage.CoveredRange> partial = merge(covered, new BarCoverage.CoveredRange(gap.from(), lastStored[0]));
+            barCoverageRepo.save(new BarCoverage(seriesId, symbol, timeframe, partial));
+         }
+         throw e;
+      }
+   }
+
+   private List<BarCoverage.CoveredRange> loadRanges (String symbol, String timeframe) {
+      return barCoverageRepo.findById(BarCoverage.idOf(symbol, timeframe))
+          .map(BarCoverage::ranges)
+          .orElse(List.of());
+   }
+
+   /**
+    * Sub-ranges of {@code [from, to]} that are not covered. The covered ranges must be sorted
+    * and non-overlapping.
+    */
+   static List<BarCoverage.CoveredRange> findGaps (List<BarCoverage.CoveredRange> covered, Instant from, Instant to) {
+      List<BarCoverage.CoveredRange> gaps = new ArrayList<>();
+      Instant cursor = from;
+      boolean cursorCovered = false;
+
+      for (BarCoverage.CoveredRange range : covered) {
+         if (range.to().isBefore(cursor)) {
+            continue;
+         }
+         if (range.from().isAfter(to)) {
+            break;
+         }
+         if (range.from().isAfter(cursor)) {
+            gaps.add(new BarCoverage.CoveredRange(cursor, range.from()));
+         }
+         cursor = range.to();
+         cursorCovered = true;
+      }
+
+      if (cursor.isBefore(to) || !cursorCovered) {
+         gaps.add(new BarCoverage.CoveredRange(cursor, to));
+      }
+      return gaps;
+   }
+
+   /**
+    * Adds a range to a sorted list of covered ranges, merging overlapping or touching ranges.
+    */
+   static List<BarCoverage.CoveredRange> merge (List<BarCoverage.CoveredRange> covered, BarCoverage.CoveredRange added) {
+      List<BarCoverage.CoveredRange> all = new ArrayList<>(covered);
+      all.add(added);
+      all.sort(Comparator.comparing(BarCoverage.CoveredRange::from));
+
+      List<BarCoverage.CoveredRange> merged = new ArrayList<>();
+      for (BarCoverage.CoveredRange range : all) {
+         if (!merged.isEmpty() && !range.from().isAfter(merged.getLast().to())) {
+            BarCoverage.CoveredRange last = merged.removeLast();
+            Instant to = range.to().isAfter(last.to()) ? range.to() : last.to();
+            merged.add(new BarCoverage.CoveredRange(last.from(), to));
+         } else {
+            merged.add(range);
+         }
+      }
+      return merged;
+   }
+
+   private static boolean isCovered (List<BarCoverage.CoveredRange> covered, Instant t) {
+      for (BarCoverage.CoveredRange range : covered) {
+         if (!t.isBefore(range.from()) && !t.isAfter(range.to())) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private static com.stockdock.dto.HistoricalBar toDto (HistoricalBar bar) {
+      return new com.stockdock.dto.HistoricalBar(bar.c(), bar.h(), bar.l(), bar.n(), bar.o(), bar.t(), bar.v(), bar.vw());
+   }
+}
@@ -0,0 +1,166 @@
+package com.stockdock.services;
+
+import com.stockdock.bars.TimeRange;
+import com.stockdock.bars.Timeframe;
+import com.stockdock.dto.HistoricalBar;
+import com.stockdock.dto.IndicatorCacheStats;
+import com.stockdock.dto.IndicatorsResponse;
+import com.stockdock.exceptions.EmptyResponseException;
+import com.stockdock.exceptions.InvalidSymbolException;
+import com.stockdock.indicators.Indicator;
+import com.stockdock.indicators.IndicatorSeries;
+import com.stockdock.indicators.IndicatorSpec;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Computes technical indicators (SMA, EMA, RSI, MACD, Bollinger bands, VWAP) over historical bars.
+ *
+ * Every requested combination of symbol, timeframe, start and indicators is kept as an
+ * {@link IndicatorSeries} in a small LRU cache. A later request for the same series only fetches
+ * the bars after the last cached one and feeds those through the indicators, so polling a chart
+ * with a moving end costs O(new bars) instead of a full recomputation. Requests ending before the
+ * cached end are answered from a prefix of the cached series.
+ *
+ * Only settled bars enter a series, since an appended bar can never be revised: bars within one bar
+ * plus {@code bars.store.settle-delay-ms} of now, the horizon after which the bar store and caches
+ * treat bars as final, are not part of the response.
+ */
+@Service
+public class IndicatorService {
+
+   private static final Logger logger = LoggerFactory.getLogger(IndicatorService.class);
+
+   private final CurrentStockService currentStockService;
+   private final int maxEntries;
+   private final Duration settleDelay;
+   private final Clock clock = Clock.systemUTC();
+
+   private final Map<String, CachedSeries> series;
+   private final LongAdder hits = new LongAdder();
+   private final LongAdder extensions = new LongAdder();
+   private final LongAdder misses = new LongAdder();
+   private final LongAdder barsComputed = new LongAdder();
+
+   public IndicatorService (
+       CurrentStockService currentStockService,
+       @Value("${indicators.cache.max-entries:256}") int maxEntries,
+       @Value("${bars.store.settle-delay-ms:900000}") long settleDelayMillis
+                           ) {
+      this.currentStockService = currentStockService;
+      this.maxEntries = maxEntries;
+      this.settleDelay = Duration.ofMillis(settleDelayMillis);
+      this.series = new LinkedHashMap<>(16, 0.75f, true) {
+         @Override
+         protected boolean removeEldestEntry (Map.Entry<String, CachedSeries> eldest) {
+            return size() > IndicatorService.this.maxEntries;
+         }
+      };
+   }
+
+   /**
+    * Computes indicators over the bars of a symbol.
+    *
+    * @param symbol    The stock symbol (e.g., "AAPL").
+    * @param names     Comma-separated indicators (e.g., "sma:20,rsi:14,macd:12:26:9").
+    * @param timeframe The bar timeframe (e.g., "1Day").
+    * @param start     The start of the range in RFC-3339 or YYYY-MM-DD format.
+    * @param end       The end of the range in RFC-3339 or YYYY-MM-DD format, or null for now.
+    * @return The bar timestamps and closes with one aligned line per indicator output.
+    *
+    * @throws InvalidSymbolException If the {@code symbol} is null or blank.
+    * @throws com.stockdock.exceptions.UnsupportedIndicatorException If {@code names} is invalid.
+    * @throws com.stockdock.exceptions.UnsupportedTimeframeException If the {@code timeframe} is not supported.
+    * @throws com.stockdock.exceptions.InvalidDateRangeException If the range cannot be parsed.
+    * @throws EmptyResponseException If there are no settled bars in the range.
+    */
+   @Timed (value = CurrentStockService.SERVICE_TIMER, histogram = true)
+   public IndicatorsResponse fetchIndicators (String symbol, String names, String timeframe, String start, String end) {
+      if (symbol == null || symbol.isBlank()) {
+         throw new InvalidSymbolException("Symbol cannot be null or blank.");
+      }
+      String normalizedSymbol = symbol.trim().toUpperCase(Locale.ROOT);
+      List<Indicator> indicators = IndicatorSpec.parse(names);
+      Timeframe parsedTimeframe = Timeframe.parse(timeframe);
+      Instant now = clock.instant();
+      TimeRange range = TimeRange.parse(start, end == null || end.isBlank() ? now.toString() : end);
+
+      // Bars starting after this instant may still change and are left out
+      long settledUntil = now.minus(parsedTimeframe.duration()).minus(settleDelay).toEpochMilli();
+      long endMillis = Math.min(range.end().toEpochMilli(), settledUntil);
+
+      String key = String.join("|", normalizedSymbol, parsedTimeframe.toString(),
+          String.valueOf(range.start().toEpochMilli()), IndicatorSpec.canonical(indicators));
+      CachedSeries cached = cachedSeries(key, indicators);
+
+      cached.lock.lock();
+      try {
+         IndicatorSeries indicatorSeries = cached.series;
+         if (cached.fetchedUntil < endMillis) {
+            boolean extending = cached.fetchedUntil != Long.MIN_VALUE;
+            Instant from = extending && cached.fetchedUntil >= range.start().toEpochMilli()
+                ? Instant.ofEpochMilli(cached.fetchedUntil + 1)
+                : range.start();
+            Instant to = Instant.ofEpochMilli(endMillis);
+            if (!from.isAfter(to)) {
+               List<HistoricalBar> bars = currentStockService.fetchBars(normalizedSymbol, parsedTimeframe, new TimeRange(from, to))
+                   .stream()
+                   .filter(bar -> bar.t().toEpochMilli() <= endMillis)
+                   .toList();
+               barsComputed.add(indicatorSeries.append(bars));
+            }
+            cached.fetchedUntil = endMillis;
+            (extending ? extensions : misses).increment();
+         } else {
+            hits.increment();
+         }
+
+         int count = indicatorSeries.countUntil(endMillis);
+         if (count == 0) {
+            throw new EmptyResponseException("No historical bars found for symbol " + normalizedSymbol);
+         }
+         logger.debug("Serving {} bars of indicators {} for {}", count, key, normalizedSymbol);
+         return new IndicatorsResponse(normalizedSymbol, parsedTimeframe.toString(),
+             indicatorSeries.times(count), indicatorSeries.closes(count), indicatorSeries.lines(count));
+      } finally {
+         cached.lock.unlock();
+      }
+   }
+
+   public IndicatorCacheStats stats () {
+      int size;
+      synchronized (series) {
+         size = series.size();
+      }
+      return new IndicatorCacheStats(size, maxEntries, hits.sum(), extensions.sum(), misses.sum(), barsComputed.sum());
+   }
+
+   private CachedSeries cachedSeries (String key, List<Indicator> indicators) {
+      synchronized (series) {
+         return series.computeIfAbsent(key, k -> new CachedSeries(new IndicatorSeries(indicators)));
+      }
+   }
+
+   private static final class CachedSeries {
+      private final IndicatorSeries series;
+      private final ReentrantLock lock = new ReentrantLock();
+      private long fetchedUntil = Long.MIN_VALUE; // Bars up to this instant (epoch millis) are in the series
+
+      private CachedSeries (IndicatorSeries series) {
+         this.series = series;
+      }
+   }
+}
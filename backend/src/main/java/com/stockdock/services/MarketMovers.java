@@ -0,0 +1,328 @@
+package com.stockdock.services;
+
+import com.stockdock.cluster.ShardCoordinator;
+import com.stockdock.dto.Mover;
+import com.stockdock.dto.MoversResponse;
+import com.stockdock.dto.StockSnapshotResponse;
+import com.stockdock.events.SnapshotsUpdatedEvent;
+import com.stockdock.events.SymbolsChangedEvent;
+import com.stockdock.models.MoversRanking;
+import com.stockdock.repos.MoversRankingRepo;
+import com.stockdock.schedulers.MarketCalendar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Ranked views of the tracked symbols (top gainers, top losers, most active, widest spreads),
+ * kept up to date from every snapshot fetched from Alpaca and served from memory.
+ *
+ * Each ranking holds its top {@code movers.top-k} symbols. An update only touches a ranking if the
+ * symbol is in it or now beats its last entry; such a ranking is rebuilt with a bounded heap over
+ * all symbols in O(n log k) instead of sorting them. Reads return the precomputed lists, so
+ * {@code api/quotes/movers} costs O(k) however many symbols are tracked.
+ *
+ * Every {@code movers.refresh-interval-ms} the snapshots of all tracked symbols are refreshed
+ * (through the snapshot cache, in multi-symbol calls) while the market is in a session. With
+ * {@code movers.refresh-scope=leader} only the cluster leader ({@link ShardCoordinator#isLeader()})
+ * does so and publishes its rankings to the {@code market_movers} collection; the other instances
+ * serve the published rankings, so upstream calls don't grow with the number of instances. With
+ * {@code movers.refresh-scope=all} every instance refreshes the whole universe on its own, which
+ * multiplies the snapshot calls by the number of instances.
+ */
+@Service
+public class MarketMovers {
+
+   private static final Logger logger = LoggerFactory.getLogger(MarketMovers.class);
+
+   private final CurrentStockService currentStockService;
+   private final SymbolRegistry symbolRegistry;
+   private final MarketCalendar marketCalendar;
+   private final ShardCoordinator shardCoordinator;
+   private final MoversRankingRepo moversRankingRepo;
+   private final int topK;
+   private final boolean leaderOnly;
+
+   // Latest figures per tracked symbol
+   private final Map<String, Mover> movers = new ConcurrentHashMap<>();
+   private final ReentrantLock updateLock = new ReentrantLock();
+
+   private final Ranking gainers;
+   private final Ranking losers;
+   private final Ranking mostActive;
+   private final Ranking widestSpreads;
+   private final List<Ranking> rankings;
+
+   private volatile Instant asOf;
+
+   // Rankings of the leader, served instead of the local ones while this instance follows it
+   private volatile MoversRanking followed;
+
+   public MarketMovers (
+       CurrentStockService currentStockService,
+       SymbolRegistry symbolRegistry,
+       MarketCalendar marketCalendar,
+       ShardCoordinator shardCoordinator,
+       MoversRankingRepo moversRankingRepo,
+       @Value("${movers.top-k:50}") int topK,
+       @Value("${movers.refresh-scope:leader}") String refreshScope
+                       ) {
+      if (topK <= 0) {
+         throw new IllegalArgumentException("movers.top-k must be positive.");
+      }
+      if (!refreshScope.equals("leader") && !refreshScope.equals("all")) {
+         throw new IllegalArgumentException("movers.refresh-scope must be 'leader' or 'all'.");
+      }
+      this.currentStockService = currentStockService;
+      this.symbolRegistry = symbolRegistry;
+      this.marketCalendar = marketCalendar;
+      this.shardCoordinator = shardCoordinator;
+      this.moversRankingRepo = moversRankingRepo;
+      this.topK = topK;
+      this.leaderOnly = refreshScope.equals("leader");
+
+      Comparator<Mover> bySymbol = Comparator.comparing(Mover::symbol);
+      this.gainers = new Ranking(topK, mover -> Double.isFinite(mover.changePercent()),
+          Comparator.comparingDouble(Mover::changePercent).reversed().thenComparing(bySymbol));
+      this.losers = new Ranking(topK, mover -> Double.isFinite(mover.changePercent()),
+          Comparator.comparingDouble(Mover::changePercent).thenComparing(bySymbol));
+      this.mostActive = new Ranking(topK, mover -> mover.volume() > 0,
+          Comparator.comparingLong(Mover::volume).reversed().thenComparing(bySymbol));
+      this.widestSpreads = new Ranking(topK, mover -> mover.spreadBps() != null,
+          Comparator.comparingDouble(Mover::spreadBps).reversed().thenComparing(bySymbol));
+      this.rankings = List.of(gainers, losers, mostActive, widestSpreads);
+   }
+
+   /**
+    * The top {@code limit} symbols of each ranking.
+    *
+    * @param limit Number of symbols per ranking, capped at {@code movers.top-k}.
+    */
+   public MoversResponse getMovers (int limit) {
+      limit = Math.clamp(limit, 1, topK);
+      MoversRanking leader = followed;
+      if (leader != null) {
+         return new MoversResponse(leader.asOf(), leader.symbols(), head(leader.gainers(), limit),
+             head(leader.losers(), limit), head(leader.mostActive(), limit), head(leader.widestSpreads(), limit));
+      }
+      return new MoversResponse(asOf, movers.size(), gainers.top(limit), losers.top(limit),
+          mostActive.top(limit), widestSpreads.top(limit));
+   }
+
+   /**
+    * Refreshes the snapshots of all tracked symbols; the fetched ones come back as a
+    * {@link SnapshotsUpdatedEvent}. Skipped while the market is closed once the rankings are built.
+    * With {@code movers.refresh-scope=leader}, only the leader refreshes and then publishes the
+    * rankings; the other instances load the published ones instead.
+    */
+   @Scheduled (fixedDelayString = "${movers.refresh-interval-ms:30000}", initialDelayString = "${movers.initial-delay-ms:5000}")
+   public void refresh () {
+      if (leaderOnly && !shardCoordinator.isLeader()) {
+         follow();
+         return;
+      }
+
+      // A former follower only has the rankings of the snapshots it happened to fetch itself
+      boolean tookOver = followed != null;
+      followed = null;
+      if (!tookOver && asOf != null && marketCalendar.phaseAt(Instant.now()) == MarketCalendar.Phase.CLOSED) {
+         return;
+      }
+      try {
+         currentStockService.refreshSnapshots(symbolRegistry.getSymbols());
+      } catch (Exception e) {
+         logger.warn("Could not refresh snapshots for the movers: {}", e.getMessage());
+      }
+      if (leaderOnly) {
+         publish();
+      }
+   }
+
+   private void publish () {
+      if (asOf == null) {
+         return;
+      }
+      try {
+         moversRankingRepo.save(new MoversRanking(MoversRanking.LATEST, shardCoordinator.getInstanceId(), asOf,
+             movers.size(), gainers.top(topK), losers.top(topK), mostActive.top(topK), widestSpreads.top(topK)));
+      } catch (Exception e) {
+         logger.warn("Could not publish the movers rankings: {}", e.getMessage());
+      }
+   }
+
+   private void follow () {
+      try {
+         moversRankingRepo.findById(MoversRanking.LATEST).ifPresent(ranking -> followed = ranking);
+      } catch (Exception e) {
+         logger.warn("Could not load the movers rankings of the leader, keeping the last ones: {}", e.getMessage());
+      }
+   }
+
+   private static List<Mover> head (List<Mover> ranked, int limit) {
+      return ranked.size() <= limit ? ranked : ranked.subList(0, limit);
+   }
+
+   /**
+    * Folds new snapshots into the rankings. Snapshots of symbols that are not tracked are ignored.
+    */
+   @EventListener
+   public void onSnapshotsUpdated (SnapshotsUpdatedEvent event) {
+      Set<String> tracked = new HashSet<>(symbolRegistry.getSymbols());
+      List<Mover> updates = new ArrayList<>(event.snapshots().size());
+      event.snapshots().forEach((symbol, snapshot) -> {
+         String normalized = symbol.toUpperCase(Locale.ROOT);
+         if (tracked.contains(normalized)) {
+            Mover mover = toMover(normalized, snapshot);
+            if (mover != null) {
+               updates.add(mover);
+            }
+         }
+      });
+      if (updates.isEmpty()) {
+         return;
+      }
+
+      updateLock.lock();
+      try {
+         List<Ranking> affected = new ArrayList<>(rankings.size());
+         for (Mover mover : updates) {
+            movers.put(mover.symbol(), mover);
+            for (Ranking ranking : rankings) {
+               if (!affected.contains(ranking) && ranking.affectedBy(mover)) {
+                  affected.add(ranking);
+               }
+            }
+         }
+         rebuild(affected);
+      } finally {
+         updateLock.unlock();
+      }
+   }
+
+   /**
+    * Drops symbols that are no longer tracked from the rankings.
+    */
+   @EventListener
+   public void onSymbolsChanged (SymbolsChangedEvent event) {
+      updateLock.lock();
+      try {
+         if (movers.keySet().retainAll(new HashSet<>(event.symbols()))) {
+            rebuild(rankings);
+         }
+      } finally {
+         updateLock.unlock();
+      }
+   }
+
+   private void rebuild (Collection<Ranking> affected) {
+      if (affected.isEmpty()) {
+         return;
+      }
+      Collection<Mover> all = movers.values();
+      affected.forEach(ranking -> ranking.rebuild(all));
+      asOf = Instant.now();
+   }
+
+   private static Mover toMover (String symbol, StockSnapshotResponse snapshot) {
+      if (snapshot == null || snapshot.prevDailyBar() == null || snapshot.prevDailyBar().c() <= 0) {
+         return null;
+      }
+      double prevClose = snapshot.prevDailyBar().c();
+      double price = snapshot.latestTrade() != null && snapshot.latestTrade().p() > 0
+          ? snapshot.latestTrade().p()
+          : snapshot.dailyBar() != null ? snapshot.dailyBar().c() : Double.NaN;
+      if (!(price > 0)) {
+         return null;
+      }
+      long volume = snapshot.dailyBar() != null ? snapshot.dailyBar().v() : 0;
+
+      Double spreadBps = null;
+      if (snapshot.latestQuote() != null && snapshot.latestQuote().ap() > 0 && snapshot.latestQuote().bp() > 0) {
+         double ask = snapshot.latestQuote().ap();
+         double bid = snapshot.latestQuote().bp();
+         spreadBps = (ask - bid) / ((ask + bid) / 2) * 10_000;
+      }
+      return new Mover(symbol, price, prevClose, (price - prevClose) / prevClose * 100, volume, spreadBps);
+   }
+
+   /**
+    * The best {@code k} movers by one ordering. Written under the update lock, read without locks.
+    */
+   private static final class Ranking {
+
+      private final int k;
+      private final Predicate<Mover> eligible;
+      private final Comparator<Mover> order;
+
+      // Best first; replaced as a whole so readers always see a consistent list
+      private volatile List<Mover> top = List.of();
+      private volatile Set<String> members = Set.of();
+
+      Ranking (int k, Predicate<Mover> eligible, Comparator<Mover> order) {
+         this.k = k;
+         this.eligible = eligible;
+         this.order = order;
+      }
+
+      List<Mover> top (int limit) {
+         List<Mover> current = top;
+         return current.size() <= limit ? current : current.subList(0, limit);
+      }
+
+      /**
+       * Whether the ranking can change because of this update: the symbol is ranked (and may
+       * have moved or dropped out), the ranking is not full, or it now beats the last entry.
+       */
+      boolean affectedBy (Mover mover) {
+         if (members.contains(mover.symbol())) {
+            return true;
+         }
+         if (!eligible.test(mover)) {
+            return false;
+         }
+         List<Mover> current = top;
+         return current.size() < k || order.compare(mover, current.get(current.size() - 1)) < 0;
+      }
+
+      /**
+       * Selects the best {@code k} movers with a bounded heap whose head is the worst kept one.
+       */
+      void rebuild (Collection<Mover> all) {
+         PriorityQueue<Mover> heap = new PriorityQueue<>(k + 1, order.reversed());
+         for (Mover mover : all) {
+            if (!eligible.test(mover)) {
+               continue;
+            }
+            if (heap.size() < k) {
+               heap.offer(mover);
+            } else if (order.compare(mover, heap.peek()) < 0) {
+               heap.poll();
+               heap.offer(mover);
+            }
+         }
+         List<Mover> ranked = new ArrayList<>(heap);
+         ranked.sort(order);
+         Set<String> symbols = new HashSet<>(ranked.size() * 2);
+         ranked.forEach(mover -> symbols.add(mover.symbol()));
+         members = symbols;
+         top = List.copyOf(ranked);
+      }
+   }
+}
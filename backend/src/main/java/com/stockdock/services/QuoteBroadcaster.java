@@ -0,0 +1,140 @@
+package com.stockdock.services;
+
+import com.stockdock.dto.QuoteUpdate;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.events.QuoteUpdatedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fans quote updates out to browser clients over Server-Sent Events.
+ *
+ * Each client has its own pending map holding only the latest undelivered quote per symbol and
+ * at most one sender task. When a client reads slower than quotes arrive, older undelivered
+ * quotes for a symbol are replaced by newer ones (drop-to-latest), so a slow client never builds
+ * up a queue and never delays the other clients.
+ */
+@Service
+public class QuoteBroadcaster {
+
+   private static final Logger logger = LoggerFactory.getLogger(QuoteBroadcaster.class);
+
+   private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+   private final ExecutorService senderExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+   private final LongAdder delivered = new LongAdder();
+   private final LongAdder dropped = new LongAdder();
+
+   private final class Subscriber {
+      private final SseEmitter emitter;
+      private final Set<String> symbols; // Empty means all symbols
+      private final ConcurrentHashMap<String, StockQuote> pending = new ConcurrentHashMap<>();
+      private final AtomicBoolean sending = new AtomicBoolean();
+
+      private Subscriber (SseEmitter emitter, Set<String> symbols) {
+         this.emitter = emitter;
+         this.symbols = symbols;
+      }
+
+      private void offer (String symbol, StockQuote quote) {
+         if (!symbols.isEmpty() && !symbols.contains(symbol)) {
+            return;
+         }
+         if (pending.put(symbol, quote) != null) {
+            // The client has not received the previous quote yet; only the latest one is kept
+            dropped.increment();
+         }
+         if (sending.compareAndSet(false, true)) {
+            senderExecutor.execute(this::drain);
+         }
+      }
+
+      private void drain () {
+         try {
+            do {
+               Iterator<Map.Entry<String, StockQuote>> entries = pending.entrySet().iterator();
+               while (entries.hasNext()) {
+                  Map.Entry<String, StockQuote> entry = entries.next();
+                  StockQuote quote = entry.getValue();
+                  if (!pending.remove(entry.getKey(), quote)) {
+                     continue; // Replaced by a newer quote in the meantime; that one will be sent instead
+                  }
+                  emitter.send(SseEmitter.event().name("quote").data(new QuoteUpdate(entry.getKey(), quote)));
+                  delivered.increment();
+               }
+               sending.set(false);
+               // A quote may have arrived after the last iteration but before the flag was cleared
+            } while (!pending.isEmpty() && sending.compareAndSet(false, true));
+         } catch (Exception e) {
+            logger.debug("Dropping SSE client after failed send: {}", e.getMessage());
+            remove(this);
+            emitter.completeWithError(e);
+         }
+      }
+   }
+
+   /**
+    * Registers a new SSE client.
+    *
+    * @param symbols The symbols the client is interested in; empty for all symbols.
+    * @return The emitter to return from the controller.
+    */
+   public SseEmitter subscribe (Collection<String> symbols) {
+      SseEmitter emitter = new SseEmitter(0L); // No timeout, the client closes the stream
+      Subscriber subscriber = new Subscriber(emitter, Set.copyOf(symbols));
+
+      emitter.onCompletion(() -> remove(subscriber));
+      emitter.onTimeout(() -> remove(subscriber));
+      emitter.onError(error -> remove(subscriber));
+
+      subscribers.add(subscriber);
+      logger.info("SSE quote client connected ({} clients).", subscribers.size());
+      return emitter;
+   }
+
+   @EventListener
+   public void onQuoteUpdated (QuoteUpdatedEvent event) {
+      for (Subscriber subscriber : subscribers) {
+         subscriber.offer(event.symbol(), event.quote());
+      }
+   }
+
+   public int getSubscriberCount () {
+      return subscribers.size();
+   }
+
+   public long getDeliveredCount () {
+      return delivered.sum();
+   }
+
+   public long getDroppedCount () {
+      return dropped.sum();
+   }
+
+   @PreDestroy
+   public void shutdown () {
+      subscribers.forEach(subscriber -> subscriber.emitter.complete());
+      subscribers.clear();
+      senderExecutor.shutdownNow();
+   }
+
+   private void remove (Subscriber subscriber) {
+      if (subscribers.remove(subscriber)) {
+         logger.info("SSE quote client disconnected ({} clients).", subscribers.size());
+      }
+   }
+}
@@ -0,0 +1,406 @@
+package com.stockdock.services;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import com.stockdock.bars.TimeRange;
+import com.stockdock.cluster.ShardCoordinator;
+import com.stockdock.dto.QuoteTickStats;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.events.QuoteUpdatedEvent;
+import com.stockdock.events.ShardAssignmentChangedEvent;
+import com.stockdock.exceptions.UnsupportedTimeframeException;
+import com.stockdock.models.QuoteRollup;
+import com.stockdock.models.QuoteTick;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Intraday quote history in the {@code quote_ticks} time-series collection, unlike
+ * {@code current_stocks} which only keeps the latest quote of each symbol.
+ *
+ * Every new quote of a symbol this instance owns (see {@link ShardCoordinator}) is queued and
+ * inserted in batches every {@code quotes.ticks.flush-interval-ms}; quotes that are not newer than
+ * the symbol's last tick (e.g. a poll returning the quote the stream already delivered) are skipped.
+ * MongoDB expires ticks after {@code quotes.ticks.retention-ms}.
+ *
+ * Every {@code quotes.ticks.rollup-interval-ms} the last few minutes of ticks are aggregated into
+ * 1-minute mid/spread/latency rollups in {@code quote_rollups_1m} with {@code $merge}, so re-running
+ * a minute replaces its rollup instead of duplicating it. Rollups are kept for
+ * {@code quotes.rollups.retention-ms}.
+ */
+@Service
+public class QuoteTickStore {
+
+   private static final Logger logger = LoggerFactory.getLogger(QuoteTickStore.class);
+
+   /**
+    * Granularity of a quote history request.
+    */
+   public enum Resolution {
+      TICK,      // Every recorded tick
+      MINUTE;    // 1-minute rollups
+
+      /**
+       * Parses the {@code resolution} parameter ("tick" or "1Min").
+       *
+       * @throws UnsupportedTimeframeException if the value is neither.
+       */
+      public static Resolution parse (String value) {
+         if (value == null || value.isBlank() || value.equalsIgnoreCase("tick")) {
+            return TICK;
+         }
+         if (value.equalsIgnoreCase("1Min")) {
+            return MINUTE;
+         }
+         throw new UnsupportedTimeframeException("Unsupported resolution: " + value + ". Expected tick or 1Min.");
+      }
+   }
+
+   private final MongoTemplate mongoTemplate;
+   private final ShardCoordinator shardCoordinator;
+   private final boolean enabled;
+   private final Duration retention;
+   private final Duration rollupRetention;
+   private final Duration rollupLookback;
+   private final int batchSize;
+   private final int cursorBatchSize;
+   private final Timer mongoWriteTimer;
+
+   private final LinkedBlockingQueue<QuoteTick> pending;
+   private final ReentrantLock flushLock = new ReentrantLock();
+   // Timestamp of the last tick recorded per symbol
+   private final Map<String, Instant> lastTicks = new ConcurrentHashMap<>();
+
+   private final LongAdder recorded = new LongAdder();
+   private final LongAdder duplicates = new LongAdder();
+   private final LongAdder dropped = new LongAdder();
+   private final LongAdder written = new LongAdder();
+   private final LongAdder flushFailures = new LongAdder();
+   private final LongAdder rollupRuns = new LongAdder();
+   private volatile Instant lastRollup;
+
+   public QuoteTickStore (
+       MongoTemplate mongoTemplate,
+       ShardCoordinator shardCoordinator,
+       @Value("${quotes.ticks.enabled:true}") boolean enabled,
+       @Value("${quotes.ticks.retention-ms:604800000}") long retentionMillis,
+       @Value("${quotes.rollups.retention-ms:7776000000}") long rollupRetentionMillis,
+       @Value("${quotes.ticks.rollup-lookback-ms:300000}") long rollupLookbackMillis,
+       @Value("${quotes.ticks.batch-size:1000}") int batchSize,
+       @Value("${quotes.ticks.max-pending:50000}") int maxPending,
+       @Value("${quotes.ticks.cursor-batch-size:2000}") int cursorBatchSize,
+       MeterRegistry meterRegistry
+                         ) {
+      if (batchSize <= 0 || maxPending <= 0) {
+         throw new IllegalArgumentException("Quote tick batch size and max pending must be positive.");
+      }
+      this.mongoTemplate = mongoTemplate;
+      this.shardCoordinator = shardCoordinator;
+      this.enabled = enabled;
+      this.retention = Duration.ofMillis(retentionMillis);
+      this.rollupRetention = Duration.ofMillis(rollupRetentionMillis);
+      this.rollupLookback = Duration.ofMillis(rollupLookbackMillis);
+      this.batchSize = batchSize;
+      this.cursorBatchSize = cursorBatchSize;
+      this.pending = new LinkedBlockingQueue<>(maxPending);
+      this.mongoWriteTimer = Timer.builder("stockdock.mongo.write")
+          .description("Latency of bulk writes to MongoDB")
+          .tag("collection", "quote_ticks")
+          .publishPercentileHistogram()
+          .register(meterRegistry);
+   }
+
+   /**
+    * Creates the time-series collection with its retention, and the indexes range queries and
+    * rollups are served by. The retention of an existing collection is updated to the configured one.
+    */
+   @EventListener (ApplicationReadyEvent.class)
+   public void initCollections () {
+      if (!enabled) {
+         return;
+      }
+      try {
+         String ticks = mongoTemplate.getCollectionName(QuoteTick.class);
+         if (!mongoTemplate.collectionExists(QuoteTick.class)) {
+            mongoTemplate.createCollection(QuoteTick.class, CollectionOptions.timeSeries("t", options -> options
+                .metaField("symbol")
+                .granularity(Granularity.SECONDS)
+                .expireAfter(retention)));
+            logger.info("Created time-series collection {} with a retention of {}.", ticks, retention);
+         } else {
+            mongoTemplate.executeCommand(new Document("collMod", ticks).append("expireAfterSeconds", retention.toSeconds()));
+         }
+         mongoTemplate.indexOps(QuoteTick.class).ensureIndex(new Index()
+             .on("symbol", Sort.Direction.ASC)
+             .on("t", Sort.Direction.ASC));
+
+         mongoTemplate.indexOps(QuoteRollup.class).ensureIndex(new Index()
+             .on("symbol", Sort.Direction.ASC)
+             .on("t", Sort.Direction.ASC));
+         mongoTemplate.indexOps(QuoteRollup.class).ensureIndex(new Index()
+             .on("t", Sort.Direction.ASC)
+             .expire(rollupRetention));
+      } catch (Exception e) {
+         logger.error("Could not initialise quote tick collections: {}", e.getMessage(), e);
+      }
+   }
+
+   /**
+    * Records every new quote of an owned symbol, polled or streamed.
+    */
+   @EventListener
+   public void onQuoteUpdated (QuoteUpdatedEvent event) {
+      if (enabled && event.quote() != null && shardCoordinator.getOwnedSymbols().contains(event.symbol())) {
+         record(event.symbol(), event.quote(), event.source());
+      }
+   }
+
+   /**
+    * Forgets the last tick of symbols this instance no longer owns.
+    */
+   @EventListener
+   public void onShardAssignmentChanged (ShardAssignmentChangedEvent event) {
+      lastTicks.keySet().retainAll(event.owned());
+   }
+
+   private void record (String symbol, StockQuote quote, QuoteUpdatedEvent.Source source) {
+      Instant t = quote.t();
+      if (t == null) {
+         return;
+      }
+      boolean[] newer = { false };
+      lastTicks.compute(symbol, (key, last) -> {
+         if (last == null || t.isAfter(last)) {
+            newer[0] = true;
+            return t;
+         }
+         return last;
+      });
+      if (!newer[0]) {
+         duplicates.increment();
+         return;
+      }
+
+      QuoteTick tick = new QuoteTick(null, symbol, t, quote.bp(), quote.bs(), quote.bx(), quote.ap(), quote.as(), quote.ax(),
+          Instant.now(), source.name());
+      // Backpressure: a full queue is written on the submitting thread before the tick is accepted
+      if (!pending.offer(tick)) {
+         logger.warn("Quote tick queue full ({} ticks), flushing on the submitting thread.", pending.size());
+         flush();
+         if (!pending.offer(tick)) {
+            dropped.increment();
+            return;
+         }
+      }
+      recorded.increment();
+   }
+
+   /**
+    * Periodic flush of whatever is pending.
+    */
+   @Scheduled (fixedDelayString = "${quotes.ticks.flush-interval-ms:2000}")
+   public void scheduledFlush () {
+      flush();
+   }
+
+   /**
+    * Inserts the pending ticks in batches of {@code quotes.ticks.batch-size}. Only one flush runs at
+    * a time. Ticks of a failed batch are dropped: the latest quote of every symbol is still kept in
+    * {@code current_stocks}, and re-queueing them would let an outage fill the heap.
+    *
+    * @return The number of ticks written.
+    */
+   public int flush () {
+      flushLock.lock();
+      try {
+         int total = 0;
+         List<QuoteTick> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+         while (pending.drainTo(batch, batchSize) > 0) {
+            long startNanos = System.nanoTime();
+            try {
+               mongoTemplate.insert(batch, QuoteTick.class);
+               mongoWriteTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+               written.add(batch.size());
+               total += batch.size();
+            } catch (DataAccessException e) {
+               flushFailures.increment();
+               dropped.add(batch.size());
+               logger.error("Insert of {} quote ticks failed, dropped them: {}", batch.size(), e.getMessage());
+               return total;
+            } finally {
+               batch.clear();
+            }
+         }
+         return total;
+      } finally {
+         flushLock.unlock();
+      }
+   }
+
+   /**
+    * Aggregates the ticks of the owned symbols from the last {@code quotes.ticks.rollup-lookback-ms}
+    * into 1-minute rollups, up to the start of the current minute. Minutes that were rolled up before
+    * are recomputed, which picks up ticks that were written late.
+    */
+   @Scheduled (fixedDelayString = "${quotes.ticks.rollup-interval-ms:60000}", initialDelayString = "${quotes.ticks.rollup-interval-ms:60000}")
+   public void rollup () {
+      List<String> symbols = List.copyOf(shardCoordinator.getOwnedSymbols());
+      if (!enabled || symbols.isEmpty()) {
+         return;
+      }
+      Instant to = Instant.now().truncatedTo(ChronoUnit.MINUTES);
+      Instant from = to.minus(rollupLookback);
+
+      List<Bson> pipeline = List.of(
+          new Document("$match", new Document("symbol", new Document("$in", symbols))
+              .append("t", new Document("$gte", Date.from(from)).append("$lt", Date.from(to)))
+              .append("bp", new Document("$gt", 0))
+              .append("ap", new Document("$gt", 0))),
+          new Document("$sort", new Document("symbol", 1).append("t", 1)),
+          new Document("$addFields", new Document("mid", new Document("$avg", List.of("$bp", "$ap")))
+              .append("spread", new Document("$subtract", List.of("$ap", "$bp")))
+              .append("latency", new Document("$subtract", List.of("$r", "$t")))),
+          new Document("$group", new Document("_id", new Document("symbol", "$symbol")
+              .append("t", new Document("$dateTrunc", new Document("date", "$t").append("unit", "minute"))))
+              .append("n", new Document("$sum", 1))
+              .append("open", new Document("$first", "$mid"))
+              .append("high", new Document("$max", "$mid"))
+              .append("low", new Document("$min", "$mid"))
+              .append("close", new Document("$last", "$mid"))
+              .append("avgMid", new Document("$avg", "$mid"))
+              .append("avgSpread", new Document("$avg", "$spread"))
+              .append("maxSpread", new Document("$max", "$spread"))
+              .append("avgLatencyMs", new Document("$avg", "$latency"))),
+          new Document("$project", new Document("_id", new Document("$concat", List.of("$_id.symbol", "|",
+              new Document("$dateToString", new Document("date", "$_id.t").append("format", "%Y-%m-%dT%H:%MZ")))))
+              .append("symbol", "$_id.symbol")
+              .append("t", "$_id.t")
+              .append("n", 1).append("open", 1).append("high", 1).append("low", 1).append("close", 1)
+              .append("avgMid", 1).append("avgSpread", 1).append("maxSpread", 1).append("avgLatencyMs", 1)),
+          new Document("$merge", new Document("into", mongoTemplate.getCollectionName(QuoteRollup.class))
+              .append("on", "_id")
+              .append("whenMatched", "replace")
+              .append("whenNotMatched", "insert")));
+
+      try {
+         mongoTemplate.getCollection(mongoTemplate.getCollectionName(QuoteTick.class))
+             .aggregate(pipeline)
+             .allowDiskUse(true)
+             .toCollection();
+         rollupRuns.increment();
+         lastRollup = to;
+         logger.debug("Rolled up quote ticks of {} symbols from {} to {}.", symbols.size(), from, to);
+      } catch (Exception e) {
+         logger.error("Quote tick rollup failed: {}", e.getMessage());
+      }
+   }
+
+   /**
+    * Hands the recorded ticks of a symbol within {@code range} to {@code sink} in time order.
+    * The range is read with one scan of the {@code (symbol, t)} index through a cursor that fetches
+    * {@code quotes.ticks.cursor-batch-size} documents per round trip, so memory use does not depend
+    * on the size of the range.
+    *
+    * @return The number of ticks streamed.
+    */
+   public long streamTicks (String symbol, TimeRange range, Consumer<com.stockdock.dto.QuoteTick> sink) {
+      return scan(mongoTemplate.getCollectionName(QuoteTick.class), symbol, range, doc -> sink.accept(
+          new com.stockdock.dto.QuoteTick(
+              doc.getDate("t").toInstant(),
+              doc.get("bp", Number.class).doubleValue(),
+              doc.get("bs", Number.class).intValue(),
+              doc.getString("bx"),
+              doc.get("ap", Number.class).doubleValue(),
+              doc.get("as", Number.class).intValue(),
+              doc.getString("ax"),
+              doc.getDate("r") == null ? null : doc.getDate("r").toInstant(),
+              doc.getString("src"))));
+   }
+
+   /**
+    * Hands the 1-minute rollups of a symbol within {@code range} to {@code sink} in time order,
+    * the same way as {@link #streamTicks}.
+    *
+    * @return The number of rollups streamed.
+    */
+   public long streamRollups (String symbol, TimeRange range, Consumer<com.stockdock.dto.QuoteRollup> sink) {
+      return scan(mongoTemplate.getCollectionName(QuoteRollup.class), symbol, range, doc -> sink.accept(
+          new com.stockdock.dto.QuoteRollup(
+              doc.getDate("t").toInstant(),
+              doc.get("n", Number.class).intValue(),
+              doc.get("open", Number.class).doubleValue(),
+              doc.get("high", Number.class).doubleValue(),
+              doc.get("low", Number.class).doubleValue(),
+              doc.get("close", Number.class).doubleValue(),
+              doc.get("avgMid", Number.class).doubleValue(),
+              doc.get("avgSpread", Number.class).doubleValue(),
+              doc.get("maxSpread", Number.class).doubleValue(),
+              doc.get("avgLatencyMs", Number.class).doubleValue())));
+   }
+
+   public QuoteTickStats stats () {
+      return new QuoteTickStats(enabled, retention.toSeconds(), pending.size(), recorded.sum(), duplicates.sum(),
+          dropped.sum(), written.sum(), flushFailures.sum(), rollupRuns.sum(), lastRollup);
+   }
+
+   /**
+    * Writes the remaining ticks before the application shuts down.
+    */
+   @PreDestroy
+   public void shutdown () {
+      flush();
+   }
+
+   private long scan (String collection, String symbol, TimeRange range, Consumer<Document> sink) {
+      Bson filter = Filters.and(
+          Filters.eq("symbol", symbol.toUpperCase(Locale.ROOT)),
+          Filters.gte("t", Date.from(range.start())),
+          Filters.lte("t", Date.from(range.end())));
+      FindIterable<Document> documents = mongoTemplate.getCollection(collection)
+          .find(filter)
+          .sort(Sorts.ascending("t"))
+          .batchSize(cursorBatchSize);
+
+      long count = 0;
+      try (MongoCursor<Document> cursor = documents.iterator()) {
+         while (cursor.hasNext()) {
+            sink.accept(cursor.next());
+            count++;
+         }
+      }
+      return count;
+   }
+}
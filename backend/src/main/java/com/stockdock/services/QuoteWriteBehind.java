@@ -0,0 +1,273 @@
+package com.stockdock.services;
+
+import com.stockdock.cluster.ShardCoordinator;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.dto.WriteBehindStats;
+import com.stockdock.events.QuoteUpdatedEvent;
+import com.stockdock.models.CurrentStock;
+import com.stockdock.repos.CurrentStockRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind stage between quote updates and the {@code current_stocks} collection.
+ *
+ * Only symbols this instance owns (see {@link ShardCoordinator}) are written, so the members of
+ * a cluster do not write the same documents.
+ *
+ * Updates are conflated per symbol: only the newest quote of a symbol, by quote timestamp, is
+ * kept until the next flush, so a symbol that ticks a hundred times between two flushes costs one
+ * write and a late, older quote never replaces a newer one. Pending
+ * quotes are written with bulk upserts either every {@code quotes.write-behind.flush-interval-ms}
+ * or as soon as {@code quotes.write-behind.batch-size} symbols are pending.
+ *
+ * The queue is bounded: once {@code quotes.write-behind.max-pending} symbols are waiting, a
+ * quote for a new symbol wakes the background writer and is dropped (and counted) instead of
+ * growing the heap or blocking the publishing thread on MongoDB. Quotes of a failed flush are
+ * re-queued only while there is room for them.
+ */
+@Service
+public class QuoteWriteBehind {
+
+   private static final Logger logger = LoggerFactory.getLogger(QuoteWriteBehind.class);
+
+   private static final String DEFAULT_CURRENCY = "USD";
+
+   private final CurrentStockRepo currentStockRepo;
+   private final ShardCoordinator shardCoordinator;
+   private final int batchSize;
+   private final int maxPending;
+   private final Timer mongoWriteTimer;
+
+   private final Map<String, CurrentStock> pending = new ConcurrentHashMap<>();
+   private final ReentrantLock flushLock = new ReentrantLock();
+   private final AtomicBoolean flushRequested = new AtomicBoolean();
+   private final ExecutorService flushExecutor =
+       Executors.newSingleThreadExecutor(Thread.ofVirtual().name("quote-write-behind").factory());
+
+   private final LongAdder submitted = new LongAdder();
+   private final LongAdder conflated = new LongAdder();
+   private final LongAdder dropped = new LongAdder();
+   private final LongAdder flushes = new LongAdder();
+   private final LongAdder flushFailures = new LongAdder();
+   private final LongAdder flushedDocuments = new LongAdder();
+   private final LongAdder totalFlushMillis = new LongAdder();
+   private final AtomicLong lastFlushMillis = new AtomicLong();
+   private final AtomicLong maxFlushMillis = new AtomicLong();
+
+   public QuoteWriteBehind (
+       CurrentStockRepo currentStockRepo,
+       ShardCoordinator shardCoordinator,
+       @Value("${quotes.write-behind.batch-size:500}") int batchSize,
+       @Value("${quotes.write-behind.max-pending:10000}") int maxPending,
+       MeterRegistry meterRegistry
+                           ) {
+      if (batchSize <= 0 || maxPending <= 0) {
+         throw new IllegalArgumentException("Write-behind batch size and max pending must be positive.");
+      }
+      this.currentStockRepo = currentStockRepo;
+      this.shardCoordinator = shardCoordinator;
+      this.batchSize = batchSize;
+      this.maxPending = maxPending;
+      this.mongoWriteTimer = Timer.builder("stockdock.mongo.write")
+          .description("Latency of bulk writes to MongoDB")
+          .tag("collection", "current_stocks")
+          .publishPercentileHistogram()
+          .register(meterRegistry);
+   }
+
+   /**
+    * Every quote update of an owned symbol, polled or streamed, ends up in the pipeline.
+    */
+   @EventListener
+   public void onQuoteUpdated (QuoteUpdatedEvent event) {
+      if (shardCoordinator.owns(event.symbol())) {
+         submit(event.symbol(), event.currency(), event.quote());
+      }
+   }
+
+   /**
+    * Queues the latest quote for a symbol. A quote that has not been written yet is replaced
+    * unless it is newer than {@code quote}. While the queue is full, quotes of symbols that are
+    * not queued yet are dropped.
+    *
+    * @param symbol   Stock symbol (e.g., AAPL).
+    * @param currency Currency of the prices, "USD" if null.
+    * @param quote    The latest quote.
+    */
+   public void submit (String symbol, String currency, StockQuote quote) {
+      if (symbol == null || quote == null) {
+         return;
+      }
+
+      // Backpressure: a new symbol may not grow the queue past its bound; the writer drains it
+      if (isFull(symbol)) {
+         requestFlush();
+         dropped.increment();
+         logger.debug("Write-behind queue full ({} symbols), dropped the quote for {}.", pending.size(), symbol);
+         return;
+      }
+
+      CurrentStock stock = new CurrentStock(symbol, currency != null ? currency : DEFAULT_CURRENCY, quote);
+      submitted.increment();
+      pending.merge(symbol, stock, (queued, update) -> {
+         conflated.increment();
+         return newer(queued, update);
+      });
+
+      if (pending.size() >= batchSize) {
+         requestFlush();
+      }
+   }
+
+   /**
+    * Asks for a flush on the background writer. Requests made while one is already queued are merged.
+    */
+   public void requestFlush () {
+      if (flushRequested.compareAndSet(false, true)) {
+         flushExecutor.execute(() -> {
+            flushRequested.set(false);
+            flush();
+         });
+      }
+   }
+
+   /**
+    * Periodic flush of whatever is pending.
+    */
+   @Scheduled (fixedDelayString = "${quotes.write-behind.flush-interval-ms:5000}")
+   public void scheduledFlush () {
+      flush();
+   }
+
+   /**
+    * Writes all pending quotes to MongoDB with bulk upserts. Only one flush runs at a time;
+    * quotes of a failed flush are re-queued unless a newer quote arrived in the meantime.
+    *
+    * @return The number of documents written.
+    */
+   public int flush () {
+      flushLock.lock();
+      try {
+         if (pending.isEmpty()) {
+            return 0;
+         }
+
+         // Drain with remove(key, value) so a quote that arrives while draining is never lost
+         List<CurrentStock> drained = new ArrayList<>(pending.size());
+         for (Map.Entry<String, CurrentStock> entry : pending.entrySet()) {
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+               drained.add(entry.getValue());
+            }
+         }
+
+         long startNanos = System.nanoTime();
+         try {
+            int written = currentStockRepo.upsertAll(drained, batchSize);
+            long elapsedNanos = System.nanoTime() - startNanos;
+            long elapsedMillis = elapsedNanos / 1_000_000;
+            mongoWriteTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+            flushes.increment();
+            flushedDocuments.add(written);
+            totalFlushMillis.add(elapsedMillis);
+            lastFlushMillis.set(elapsedMillis);
+            maxFlushMillis.accumulateAndGet(elapsedMillis, Math::max);
+
+            logger.debug("Write-behind flush: {} quotes written in {} ms.", written, elapsedMillis);
+            return written;
+         } catch (Exception e) {
+            flushFailures.increment();
+            int requeued = requeue(drained);
+            logger.error("Write-behind flush of {} quotes failed, re-queued {} of them: {}",
+                drained.size(), requeued, e.getMessage());
+            return 0;
+         }
+      } finally {
+         flushLock.unlock();
+      }
+   }
+
+   /**
+    * Puts the quotes of a failed flush back, as long as the queue has room for them and no newer
+    * quote arrived in the meantime.
+    *
+    * @return The number of quotes put back; the others are counted as dropped.
+    */
+   private int requeue (List<CurrentStock> drained) {
+      int requeued = 0;
+      for (CurrentStock stock : drained) {
+         if (isFull(stock.symbol())) {
+            dropped.increment();
+         } else {
+            pending.merge(stock.symbol(), stock, QuoteWriteBehind::newer);
+            requeued++;
+         }
+      }
+      return requeued;
+   }
+
+   private boolean isFull (String symbol) {
+      return pending.size() >= maxPending && !pending.containsKey(symbol);
+   }
+
+   /**
+    * The stock with the later quote timestamp, {@code update} on a tie or a missing timestamp.
+    */
+   private static CurrentStock newer (CurrentStock queued, CurrentStock update) {
+      Instant queuedAt = queued.latestQuote().t();
+      Instant updateAt = update.latestQuote().t();
+      return queuedAt != null && updateAt != null && queuedAt.isAfter(updateAt) ? queued : update;
+   }
+
+   /**
+    * Snapshot of the queue size, flush latency and conflation counters.
+    */
+   public WriteBehindStats stats () {
+      long flushCount = flushes.sum();
+      long documents = flushedDocuments.sum();
+      return new WriteBehindStats(
+          pending.size(),
+          maxPending,
+          submitted.sum(),
+          conflated.sum(),
+          dropped.sum(),
+          flushCount,
+          flushFailures.sum(),
+          documents,
+          lastFlushMillis.get(),
+          maxFlushMillis.get(),
+          flushCount == 0 ? 0.0 : (double) totalFlushMillis.sum() / flushCount,
+          documents == 0 ? 0.0 : (double) submitted.sum() / documents
+      );
+   }
+
+   /**
+    * Writes the remaining quotes before the application shuts down.
+    */
+   @PreDestroy
+   public void shutdown () {
+      flushExecutor.shutdown();
+      flush();
+   }
+}
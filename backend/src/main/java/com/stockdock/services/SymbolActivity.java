@@ -0,0 +1,125 @@
+package com.stockdock.services;
+
+import com.stockdock.dto.StockQuote;
+import com.stockdock.events.QuoteUpdatedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks how much attention each symbol gets, so the polling scheduler can refresh the symbols
+ * that matter every run and the quiet ones less often.
+ *
+ * Two scores are kept per symbol, both decaying with a half-life of {@code quotes.poll.activity-half-life-ms}:
+ * the number of client requests for the symbol, and the sum of its relative mid-price moves between
+ * consecutive quotes. A symbol is hot while either score reaches its threshold.
+ */
+@Service
+public class SymbolActivity {
+
+   private final double halfLifeMillis;
+   private final double hotRequests;
+   private final double hotMove;
+   private final int maxSymbols;
+
+   private final Map<String, Activity> activities = new ConcurrentHashMap<>();
+
+   public SymbolActivity (
+       @Value("${quotes.poll.activity-half-life-ms:600000}") long halfLifeMillis,
+       @Value("${quotes.poll.hot-min-requests:5}") double hotRequests,
+       @Value("${quotes.poll.hot-min-move:0.005}") double hotMove,
+       @Value("${quotes.poll.activity-max-symbols:10000}") int maxSymbols
+                         ) {
+      this.halfLifeMillis = halfLifeMillis;
+      this.hotRequests = hotRequests;
+      this.hotMove = hotMove;
+      this.maxSymbols = maxSymbols;
+   }
+
+   /**
+    * Counts a client request for a symbol.
+    */
+   public void recordRequest (String symbol) {
+      if (symbol == null) {
+         return;
+      }
+      long now = System.currentTimeMillis();
+      update(symbol.trim().toUpperCase(Locale.ROOT), now, activity -> {
+         Activity decayed = activity.decay(now, halfLifeMillis);
+         return new Activity(decayed.requests() + 1, decayed.moves(), decayed.mid(), now);
+      });
+   }
+
+   @EventListener
+   public void onQuoteUpdated (QuoteUpdatedEvent event) {
+      double mid = mid(event.quote());
+      if (Double.isNaN(mid)) {
+         return;
+      }
+      long now = System.currentTimeMillis();
+      update(event.symbol(), now, activity -> {
+         Activity decayed = activity.decay(now, halfLifeMillis);
+         double move = Double.isNaN(activity.mid()) ? 0 : Math.abs(mid - activity.mid()) / activity.mid();
+         return new Activity(decayed.requests(), decayed.moves() + move, mid, now);
+      });
+   }
+
+   /**
+    * The symbols of {@code symbols} that are currently requested often or moving fast.
+    */
+   public Set<String> hotOf (Collection<String> symbols) {
+      long now = System.currentTimeMillis();
+      return symbols.stream()
+          .filter(symbol -> {
+             Activity activity = activities.get(symbol);
+             if (activity == null) {
+                return false;
+             }
+             Activity decayed = activity.decay(now, halfLifeMillis);
+             return decayed.requests() >= hotRequests || decayed.moves() >= hotMove;
+          })
+          .collect(Collectors.toSet());
+   }
+
+   private void update (String symbol, long now, UnaryOperator<Activity> change) {
+      if (symbol == null || (!activities.containsKey(symbol) && activities.size() >= maxSymbols)) {
+         return;
+      }
+      activities.compute(symbol, (key, activity) -> change.apply(activity == null ? Activity.initial(now) : activity));
+   }
+
+   private static double mid (StockQuote quote) {
+      if (quote == null) {
+         return Double.NaN;
+      }
+      if (quote.ap() > 0 && quote.bp() > 0) {
+         return (quote.ap() + quote.bp()) / 2;
+      }
+      double price = Math.max(quote.ap(), quote.bp());
+      return price > 0 ? price : Double.NaN;
+   }
+
+   private record Activity(
+       double requests,   // Decayed number of client requests
+       double moves,      // Decayed sum of relative mid-price moves
+       double mid,        // Last mid price, NaN before the first quote
+       long updatedAt     // When the scores were last decayed (epoch millis)
+   ) {
+      static Activity initial (long now) {
+         return new Activity(0, 0, Double.NaN, now);
+      }
+
+      Activity decay (long now, double halfLifeMillis) {
+         double factor = Math.pow(0.5, Math.max(0, now - updatedAt) / halfLifeMillis);
+         return new Activity(requests * factor, moves * factor, mid, now);
+      }
+   }
+}
@@ -0,0 +1,152 @@
+package com.stockdock.services;
+
+import com.stockdock.config.SymbolConfig;
+import com.stockdock.events.SymbolsChangedEvent;
+import com.stockdock.exceptions.DataNotFoundException;
+import com.stockdock.exceptions.InvalidSymbolException;
+import com.stockdock.models.TrackedSymbol;
+import com.stockdock.repos.TrackedSymbolRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * The symbols the application tracks: polled by the schedulers, streamed, and served by
+ * {@code api/quotes/all} and {@code api/quotes/snapshots/all}.
+ *
+ * Symbols live in the {@code tracked_symbols} collection and can be changed at runtime through
+ * {@code api/symbols}. The collection is seeded with {@code symbols.predefined} (symbols.yml) when
+ * it is empty, and reloaded every {@code symbols.reload-interval-ms}, so changes made through any
+ * instance reach all of them. Until the first load, and whenever MongoDB is unavailable, the last
+ * known list (initially the predefined one) is used.
+ */
+@Service
+public class SymbolRegistry {
+
+   private static final Logger logger = LoggerFactory.getLogger(SymbolRegistry.class);
+   private static final Pattern VALID_SYMBOL = Pattern.compile("^[A-Z][A-Z0-9.\\-]{0,9}$");
+
+   private final TrackedSymbolRepo trackedSymbolRepo;
+   private final SymbolConfig symbolConfig;
+   private final ApplicationEventPublisher eventPublisher;
+   private final int maxSymbols;
+
+   private volatile List<String> symbols;
+
+   public SymbolRegistry (
+       TrackedSymbolRepo trackedSymbolRepo,
+       SymbolConfig symbolConfig,
+       ApplicationEventPublisher eventPublisher,
+       @Value("${symbols.max-tracked:5000}") int maxSymbols
+                         ) {
+      this.trackedSymbolRepo = trackedSymbolRepo;
+      this.symbolConfig = symbolConfig;
+      this.eventPublisher = eventPublisher;
+      this.maxSymbols = maxSymbols;
+      this.symbols = symbolConfig.getPredefined() == null ? List.of() : List.copyOf(symbolConfig.getPredefined());
+   }
+
+   /**
+    * All tracked symbols, in the order they were added.
+    */
+   public List<String> getSymbols () {
+      return symbols;
+   }
+
+   /**
+    * Seeds the collection with the predefined symbols on first start, then loads it.
+    */
+   @EventListener (ApplicationReadyEvent.class)
+   public void init () {
+      try {
+         if (trackedSymbolRepo.count() == 0 && !symbols.isEmpty()) {
+            Instant now = Instant.now();
+            trackedSymbolRepo.saveAll(symbols.stream().map(symbol -> new TrackedSymbol(symbol, now)).toList());
+            logger.info("Seeded tracked_symbols with {} predefined symbols.", symbols.size());
+         }
+      } catch (DataAccessException e) {
+         logger.error("Could not seed tracked_symbols: {}", e.getMessage());
+      }
+      reload();
+   }
+
+   /**
+    * Reloads the symbols from MongoDB and publishes a {@link SymbolsChangedEvent} if they changed.
+    */
+   @Scheduled (fixedDelayString = "${symbols.reload-interval-ms:30000}", initialDelayString = "${symbols.reload-interval-ms:30000}")
+   public void reload () {
+      List<String> loaded;
+      try {
+         loaded = trackedSymbolRepo.findAll().stream()
+             .sorted(Comparator.comparing(TrackedSymbol::addedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+                 .thenComparing(TrackedSymbol::symbol))
+             .map(TrackedSymbol::symbol)
+             .toList();
+      } catch (DataAccessException e) {
+         logger.warn("Could not reload tracked symbols, keeping {} known symbols: {}", symbols.size(), e.getMessage());
+         return;
+      }
+
+      if (!loaded.equals(symbols)) {
+         logger.info("Tracked symbols changed: {} -> {} symbols.", symbols.size(), loaded.size());
+         symbols = loaded;
+         eventPublisher.publishEvent(new SymbolsChangedEvent(loaded));
+      }
+   }
+
+   /**
+    * Starts tracking a symbol.
+    *
+    * @param symbol The stock symbol (e.g., "AAPL"), case-insensitive.
+    * @return The normalized symbol.
+    * @throws InvalidSymbolException if the symbol is malformed or the maximum number of symbols is reached.
+    */
+   public String add (String symbol) {
+      String normalized = normalize(symbol);
+      if (!trackedSymbolRepo.existsById(normalized)) {
+         if (trackedSymbolRepo.count() >= maxSymbols) {
+            throw new InvalidSymbolException("Cannot track more than " + maxSymbols + " symbols.");
+         }
+         trackedSymbolRepo.save(new TrackedSymbol(normalized, Instant.now()));
+         logger.info("Started tracking {}.", normalized);
+      }
+      reload();
+      return normalized;
+   }
+
+   /**
+    * Stops tracking a symbol.
+    *
+    * @param symbol The stock symbol (e.g., "AAPL"), case-insensitive.
+    * @throws DataNotFoundException if the symbol is not tracked.
+    */
+   public void remove (String symbol) {
+      String normalized = normalize(symbol);
+      if (!trackedSymbolRepo.existsById(normalized)) {
+         throw new DataNotFoundException("Symbol " + normalized + " is not tracked.");
+      }
+      trackedSymbolRepo.deleteById(normalized);
+      logger.info("Stopped tracking {}.", normalized);
+      reload();
+   }
+
+   private static String normalize (String symbol) {
+      String normalized = symbol == null ? "" : symbol.trim().toUpperCase(Locale.ROOT);
+      if (!VALID_SYMBOL.matcher(normalized).matches()) {
+         throw new InvalidSymbolException("Invalid symbol: " + symbol);
+      }
+      return normalized;
+   }
+}
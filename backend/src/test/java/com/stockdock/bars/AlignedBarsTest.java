@@ -0,0 +1,109 @@
+package com.stockdock.bars;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class AlignedBarsTest {
+
+   @Test
+   void axisIsTheSortedUnionOfAllTimestamps () {
+      Map<String, BarColumns> series = new LinkedHashMap<>();
+      series.put("AAPL", bars(100, 200, 300, 500));
+      series.put("MSFT", bars(200, 400, 500));
+      series.put("NVDA", bars(50));
+
+      AlignedBars aligned = AlignedBars.align(series);
+
+      assertArrayEquals(new long[] {50, 100, 200, 300, 400, 500}, axis(aligned));
+      assertEquals(List.of("AAPL", "MSFT", "NVDA"), aligned.symbols());
+   }
+
+   @Test
+   void positionsSkipTheGapsOfEachSymbol () {
+      Map<String, BarColumns> series = new LinkedHashMap<>();
+      BarColumns apple = bars(100, 200, 300, 500);
+      series.put("AAPL", apple);
+      series.put("MSFT", bars(200, 400, 500));
+      series.put("NVDA", bars(50));
+
+      AlignedBars aligned = AlignedBars.align(series);
+
+      assertSame(apple, aligned.bars(0));
+      assertArrayEquals(new int[] {1, 2, 3, 5}, positions(aligned, 0));
+      assertArrayEquals(new int[] {2, 4, 5}, positions(aligned, 1));
+      assertArrayEquals(new int[] {0}, positions(aligned, 2));
+      for (int s = 0; s < aligned.symbols().size(); s++) {
+         for (int i = 0; i < aligned.bars(s).size(); i++) {
+            assertEquals(aligned.bars(s).t(i), aligned.t(aligned.position(s, i)));
+         }
+      }
+   }
+
+   @Test
+   void identicalSeriesShareEveryPosition () {
+      Map<String, BarColumns> series = new LinkedHashMap<>();
+      series.put("AAPL", bars(1, 2, 3));
+      series.put("MSFT", bars(1, 2, 3));
+
+      AlignedBars aligned = AlignedBars.align(series);
+
+      assertArrayEquals(new long[] {1, 2, 3}, axis(aligned));
+      assertArrayEquals(new int[] {0, 1, 2}, positions(aligned, 0));
+      assertArrayEquals(new int[] {0, 1, 2}, positions(aligned, 1));
+   }
+
+   @Test
+   void largeInputsAlignTheSameInParallel () {
+      // Over the parallel threshold: every symbol has every other minute, shifted by its index
+      Map<String, BarColumns> series = new LinkedHashMap<>();
+      int symbols = 8;
+      int bars = 20_000;
+      for (int s = 0; s < symbols; s++) {
+         long[] times = new long[bars];
+         for (int i = 0; i < bars; i++) {
+            times[i] = (2L * i + s % 2) * 60_000;
+         }
+         series.put("S" + s, bars(times));
+      }
+
+      AlignedBars aligned = AlignedBars.align(series);
+
+      assertEquals(2 * bars, aligned.length());
+      for (int s = 0; s < symbols; s++) {
+         for (int i = 0; i < bars; i++) {
+            assertEquals(2 * i + s % 2, aligned.position(s, i));
+         }
+      }
+   }
+
+   private static BarColumns bars (long... times) {
+      BarColumns bars = new BarColumns(times.length);
+      for (long t : times) {
+         bars.add(t, 1, 1, 1, 1, 1, 1, 1);
+      }
+      return bars;
+   }
+
+   private static long[] axis (AlignedBars aligned) {
+      long[] axis = new long[aligned.length()];
+      for (int k = 0; k < axis.length; k++) {
+         axis[k] = aligned.t(k);
+      }
+      return axis;
+   }
+
+   private static int[] positions (AlignedBars aligned, int s) {
+      int[] positions = new int[aligned.bars(s).size()];
+      for (int i = 0; i < positions.length; i++) {
+         positions[i] = aligned.position(s, i);
+      }
+      return positions;
+   }
+}
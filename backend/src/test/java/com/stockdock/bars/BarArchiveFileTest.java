@@ -0,0 +1,203 @@
+package com.stockdock.bars;
+
+import com.stockdock.dto.HistoricalBar;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BarArchiveFileTest {
+
+   private static final long T0 = 1_735_828_200_000L; // 2025-01-02T14:30:00Z
+   private static final long MINUTE = 60_000;
+
+   // File layout, see BarArchiveFile
+   private static final int HEADER_BYTES = 128;
+   private static final int COMMIT_OFFSET = 16;
+   private static final int COMMIT_BYTES = 40;
+   private static final int RECORD_BYTES = 64;
+
+   @TempDir
+   Path directory;
+
+   @Test
+   void reopensAtTheCommittedBarsAndCoverage () throws IOException {
+      Path path = directory.resolve("AAPL.bars");
+      try (BarArchiveFile file = BarArchiveFile.open(path, false)) {
+         assertTrue(file.snapshot().isEmpty());
+         file.append(bars(0, 3), T0, T0 + 3 * MINUTE);
+         file.append(bars(3, 2), T0, T0 + 5 * MINUTE);
+      }
+
+      try (BarArchiveFile file = BarArchiveFile.open(path, true)) {
+         BarArchiveFile.Snapshot snapshot = file.snapshot();
+         assertEquals(5, snapshot.size());
+         assertEquals(T0, snapshot.coveredStart());
+         assertEquals(T0 + 5 * MINUTE, snapshot.coveredEnd());
+         assertTrue(snapshot.covers(T0, T0 + 5 * MINUTE));
+      }
+   }
+
+   @Test
+   void recordsPastTheCommittedCountAreNotRead () throws IOException {
+      Path path = directory.resolve("AAPL.bars");
+      try (BarArchiveFile file = BarArchiveFile.open(path, false)) {
+         file.append(bars(0, 3), T0, T0 + 3 * MINUTE);
+      }
+      // An append that crashed after writing its records, before committing them
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+         channel.write(ByteBuffer.allocate(2 * RECORD_BYTES).putLong(0, T0 + 3 * MINUTE), HEADER_BYTES + 3L * RECORD_BYTES);
+      }
+
+      try (BarArchiveFile file = BarArchiveFile.open(path, false)) {
+         assertEquals(3, file.snapshot().size());
+         assertEquals(3, read(file.snapshot(), T0, Long.MAX_VALUE).size());
+
+         // The next append overwrites the uncommitted bytes
+         file.append(bars(3, 1), T0, T0 + 4 * MINUTE);
+      }
+      try (BarArchiveFile file = BarArchiveFile.open(path, true)) {
+         BarColumns bars = read(file.snapshot(), T0, Long.MAX_VALUE);
+         assertEquals(4, bars.size());
+         assertEquals(closeOf(3), bars.c(3));
+      }
+   }
+
+   @Test
+   void tornCommitFallsBackToThePreviousCommit () throws IOException {
+      Path path = directory.resolve("AAPL.bars");
+      try (BarArchiveFile file = BarArchiveFile.open(path, false)) {
+         file.append(bars(0, 3), T0, T0 + 3 * MINUTE);
+         file.append(bars(3, 2), T0, T0 + 5 * MINUTE);
+      }
+      // The second append committed generation 2 into the first slot; tear its bar count
+      corrupt(path, COMMIT_OFFSET + 8);
+
+      try (BarArchiveFile file = BarArchiveFile.open(path, false)) {
+         assertEquals(3, file.snapshot().size());
+         assertEquals(T0 + 3 * MINUTE, file.snapshot().coveredEnd());
+
+         file.append(bars(3, 1), T0, T0 + 4 * MINUTE);
+      }
+      try (BarArchiveFile file = BarArchiveFile.open(path, true)) {
+         assertEquals(4, file.snapshot().size());
+         assertEquals(T0 + 4 * MINUTE, file.snapshot().coveredEnd());
+      }
+   }
+
+   @Test
+   void commitWhoseRecordsAreMissingFallsBackToThePreviousCommit () throws IOException {
+      Path path = directory.resolve("AAPL.bars");
+      try (BarArchiveFile file = BarArchiveFile.open(path, false)) {
+         file.append(bars(0, 3), T0, T0 + 3 * MINUTE);
+         file.append(bars(3, 2), T0, T0 + 5 * MINUTE);
+      }
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+         channel.truncate(HEADER_BYTES + 4L * RECORD_BYTES);
+      }
+
+      try (BarArchiveFile file = BarArchiveFile.open(path, true)) {
+         assertEquals(3, file.snapshot().size());
+      }
+   }
+
+   @Test
+   void rejectsAFileWithoutAnIntactCommit () throws IOException {
+      Path path = directory.resolve("AAPL.bars");
+      try (BarArchiveFile file = BarArchiveFile.open(path, false)) {
+         file.append(bars(0, 3), T0, T0 + 3 * MINUTE);
+      }
+      corrupt(path, COMMIT_OFFSET + 8);
+      corrupt(path, COMMIT_OFFSET + COMMIT_BYTES + 8);
+
+      IOException e = assertThrows(IOException.class, () -> BarArchiveFile.open(path, true));
+      assertTrue(e.getMessage().contains("Corrupt bar archive header"), e.getMessage());
+   }
+
+   @Test
+   void indexAtOrAfterAcrossBlockBoundaries () throws IOException {
+      // 1000 bars span four blocks of the sparse index (every 256th bar)
+      try (BarArchiveFile file = BarArchiveFile.open(directory.resolve("AAPL.bars"), false)) {
+         file.append(bars(0, 1000), T0, T0 + 1000 * MINUTE);
+         BarArchiveFile.Snapshot snapshot = file.snapshot();
+
+         assertEquals(0, snapshot.indexAtOrAfter(Long.MIN_VALUE));
+         assertEquals(0, snapshot.indexAtOrAfter(T0 - 1));
+         assertEquals(0, snapshot.indexAtOrAfter(T0));
+         // Exactly on an index entry, just before and just after it
+         assertEquals(256, snapshot.indexAtOrAfter(time(256)));
+         assertEquals(256, snapshot.indexAtOrAfter(time(255) + 1));
+         assertEquals(257, snapshot.indexAtOrAfter(time(256) + 1));
+         assertEquals(512, snapshot.indexAtOrAfter(time(512)));
+         assertEquals(300, snapshot.indexAtOrAfter(time(300)));
+         assertEquals(301, snapshot.indexAtOrAfter(time(300) + 1));
+         // The last block is partial
+         assertEquals(768, snapshot.indexAtOrAfter(time(768)));
+         assertEquals(999, snapshot.indexAtOrAfter(time(999)));
+         assertEquals(1000, snapshot.indexAtOrAfter(time(999) + 1));
+         assertEquals(1000, snapshot.indexAtOrAfter(Long.MAX_VALUE));
+      }
+   }
+
+   @Test
+   void replayHandsOverTheRangeInTimeOrder () throws IOException {
+      try (BarArchiveFile file = BarArchiveFile.open(directory.resolve("AAPL.bars"), false)) {
+         file.append(bars(0, 600), T0, T0 + 600 * MINUTE);
+         file.append(bars(600, 100), T0, T0 + 700 * MINUTE);
+
+         List<HistoricalBar> replayed = new ArrayList<>();
+         long count = file.snapshot().replay(time(250), time(650), replayed::add);
+
+         // Both ends are inclusive and the range spans blocks and appends
+         assertEquals(401, count);
+         assertEquals(401, replayed.size());
+         for (int i = 0; i < replayed.size(); i++) {
+            assertEquals(time(250 + i), replayed.get(i).t().toEpochMilli());
+            assertEquals(closeOf(250 + i), replayed.get(i).c());
+         }
+         assertEquals(0, file.snapshot().replay(time(699) + 1, Long.MAX_VALUE, bar -> { }));
+      }
+   }
+
+   private static BarColumns read (BarArchiveFile.Snapshot snapshot, long start, long end) {
+      BarColumns bars = new BarColumns();
+      snapshot.read(start, end, bars);
+      return bars;
+   }
+
+   private static void corrupt (Path path, long position) throws IOException {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+         ByteBuffer value = ByteBuffer.allocate(8);
+         channel.read(value, position);
+         channel.write(ByteBuffer.allocate(8).putLong(0, value.getLong(0) ^ 0xff), position);
+      }
+   }
+
+   // Minute bars from index first, closes 100 + i
+   private static BarColumns bars (int first, int count) {
+      BarColumns bars = new BarColumns(count);
+      for (int i = first; i < first + count; i++) {
+         double close = closeOf(i);
+         bars.add(time(i), close - 0.5, close + 1, close - 1, close, 1_000 + i, 10, close);
+      }
+      return bars;
+   }
+
+   private static long time (int i) {
+      return T0 + i * MINUTE;
+   }
+
+   private static double closeOf (int i) {
+      return 100 + i;
+   }
+}
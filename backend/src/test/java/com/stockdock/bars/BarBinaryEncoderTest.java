@@ -0,0 +1,119 @@
+package com.stockdock.bars;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class BarBinaryEncoderTest {
+
+   private static final byte[] MAGIC = {'S', 'D', 'B', 'R'};
+
+   @Test
+   void encodesAnEmptySliceAsHeaderOnly () throws IOException {
+      ByteBuffer in = encode(ColumnarBarSeries.EMPTY.all());
+
+      assertEquals(BarBinaryEncoder.HEADER_BYTES, in.remaining());
+      assertHeader(in, 0, 0);
+   }
+
+   @Test
+   void roundTripsTheColumns () throws IOException {
+      // Larger than the encoder's buffer, with overnight gaps and volumes beyond 2^53
+      BarColumns columns = new BarColumns();
+      Random random = new Random(7);
+      long t = 1_735_828_200_000L;
+      for (int i = 0; i < 2_000; i++) {
+         t += i % 390 == 389 ? 63_000_000L : 60_000L;
+         long volume = i % 100 == 0 ? (1L << 53) + i : random.nextInt(1_000_000);
+         columns.add(t, 100 + random.nextDouble(), 101 + random.nextDouble(), 99 + random.nextDouble(),
+             100 + random.nextDouble(), volume, random.nextInt(50_000), i == 5 ? Double.NaN : 100.5);
+      }
+      BarSlice bars = ColumnarBarSeries.of(columns, false).all();
+
+      ByteBuffer in = encode(bars);
+      int count = bars.size();
+      assertHeader(in, count, bars.t(0));
+
+      double[][] doubles = new double[5][count];
+      for (double[] column : doubles) {
+         for (int i = 0; i < count; i++) {
+            column[i] = in.getDouble();
+         }
+      }
+      long previous = bars.t(0);
+      for (int i = 0; i < count; i++) {
+         long time = previous + readVarint(in);
+         assertEquals(bars.t(i), time, "t of bar " + i);
+         previous = time;
+      }
+      for (int i = 0; i < count; i++) {
+         assertEquals(bars.v(i), readVarint(in), "v of bar " + i);
+      }
+      for (int i = 0; i < count; i++) {
+         assertEquals(bars.n(i), readVarint(in), "n of bar " + i);
+      }
+      assertFalse(in.hasRemaining());
+
+      for (int i = 0; i < count; i++) {
+         assertEquals(bars.o(i), doubles[0][i], "o of bar " + i);
+         assertEquals(bars.h(i), doubles[1][i], "h of bar " + i);
+         assertEquals(bars.l(i), doubles[2][i], "l of bar " + i);
+         assertEquals(bars.c(i), doubles[3][i], "c of bar " + i);
+         assertEquals(bars.vw(i), doubles[4][i], "vw of bar " + i);
+      }
+   }
+
+   @Test
+   void encodesVarintsCompactly () throws IOException {
+      BarColumns columns = new BarColumns();
+      columns.add(1_735_828_200_000L, 1, 1, 1, 1, 63, 1, 1);
+      columns.add(1_735_828_260_000L, 1, 1, 1, 1, 64, 0, 1);
+      ByteBuffer in = encode(ColumnarBarSeries.of(columns, false).all());
+
+      in.position(BarBinaryEncoder.HEADER_BYTES + 2 * 5 * Double.BYTES);
+      byte[] varints = new byte[in.remaining()];
+      in.get(varints);
+      // t: 0, then one minute in 3 bytes; v: 63 in one byte, 64 (zigzag 128) in two; n: 1, 0
+      assertArrayEquals(new byte[] {0, (byte) 0xC0, (byte) 0xA9, 0x07, 126, (byte) 0x80, 0x01, 2, 0}, varints);
+   }
+
+   private static ByteBuffer encode (BarSlice bars) throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      BarBinaryEncoder.write(bars, out);
+      return ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+   }
+
+   private static void assertHeader (ByteBuffer in, int count, long t0) {
+      byte[] magic = new byte[4];
+      in.get(magic);
+      assertArrayEquals(MAGIC, magic);
+      assertEquals(BarBinaryEncoder.VERSION, in.get());
+      assertEquals(0, in.get());
+      assertEquals(0, in.get());
+      assertEquals(0, in.get());
+      assertEquals(count, in.getInt());
+      assertEquals(0, in.getInt());
+      assertEquals(t0, in.getLong());
+   }
+
+   // Unsigned LEB128, then zigzag decoded
+   private static long readVarint (ByteBuffer in) {
+      long zigzag = 0;
+      int shift = 0;
+      byte b;
+      do {
+         b = in.get();
+         zigzag |= (long) (b & 0x7F) << shift;
+         shift += 7;
+      } while ((b & 0x80) != 0);
+      return (zigzag >>> 1) ^ -(zigzag & 1);
+   }
+}
@@ -0,0 +1,115 @@
+package com.stockdock.bars;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.stockdock.dto.BarSeriesResponse;
+import com.stockdock.dto.ColumnarBarsResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to serialize 100,000 minute bars in each response encoding: JSON rows ({@link BarSeriesResponse}),
+ * JSON columns ({@link ColumnarBarsResponse}) and {@link BarBinaryEncoder}. The payload size of each
+ * encoding is printed during setup.
+ *
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="BarEncodingBenchmark"}.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class BarEncodingBenchmark {
+
+   private static final int BARS = 100_000;
+
+   @Param ({"rows", "columns", "binary"})
+   public String encoding;
+
+   // Configured like the auto-configured mapper of the controllers
+   private ObjectMapper mapper;
+   private BarSlice bars;
+   private CountingOutputStream out;
+
+   @Setup
+   public void setUp () throws IOException {
+      mapper = JsonMapper.builder()
+          .findAndAddModules()
+          .addModule(new BlackbirdModule())
+          .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+          .build();
+
+      BarColumns columns = new BarColumns(BARS);
+      Random random = new Random(42);
+      double close = 100;
+      long t = 1_704_205_800_000L; // 2024-01-02T14:30:00Z
+      for (int i = 0; i < BARS; i++) {
+         // Prices in cents and a 6-digit vw, like Alpaca's
+         double open = close;
+         close = cents(Math.max(1, close + random.nextGaussian() * 0.05));
+         double high = cents(Math.max(open, close) + random.nextDouble() * 0.02);
+         double low = cents(Math.min(open, close) - random.nextDouble() * 0.02);
+         double vw = Math.round((high + low + close) / 3 * 1e6) / 1e6;
+         columns.add(t, open, high, low, close, 100 + random.nextInt(5000), 1 + random.nextInt(40), vw);
+         t += i % 390 == 389 ? 63_060_000L : 60_000L;
+      }
+      bars = ColumnarBarSeries.of(columns, false).all();
+
+      out = new CountingOutputStream();
+      encode();
+      System.out.printf("%n%s payload: %,d bytes (%.1f per bar)%n", encoding, out.count, (double) out.count / BARS);
+   }
+
+   @Benchmark
+   public long encode () throws IOException {
+      out.count = 0;
+      switch (encoding) {
+         case "rows" -> mapper.writeValue(out, new BarSeriesResponse(bars));
+         case "columns" -> mapper.writeValue(out, new ColumnarBarsResponse(bars));
+         case "binary" -> BarBinaryEncoder.write(bars, out);
+         default -> throw new IllegalArgumentException("Unknown encoding: " + encoding);
+      }
+      return out.count;
+   }
+
+   private static double cents (double price) {
+      return Math.round(price * 100) / 100.0;
+   }
+
+   // Discards the payload and keeps its size, so no buffer growth is measured
+   private static final class CountingOutputStream extends OutputStream {
+
+      private long count;
+
+      @Override
+      public void write (int b) {
+         count++;
+      }
+
+      @Override
+      public void write (byte[] b, int off, int len) {
+         count += len;
+      }
+
+      @Override
+      public void close () {
+      }
+   }
+}
@@ -0,0 +1,66 @@
+package com.stockdock.bars;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of deriving coarser bars from a year of regular-session minute bars (about 98k bars).
+ *
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="BarResamplerBenchmark"}.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class BarResamplerBenchmark {
+
+   private static final int TRADING_DAYS = 252;
+   private static final int MINUTES_PER_SESSION = 390;
+
+   @Param ({"5Min", "1Hour", "1Day", "1Week", "1Month"})
+   public String timeframe;
+
+   private BarColumns minutes;
+   private Timeframe target;
+
+   @Setup
+   public void setUp () {
+      target = Timeframe.parse(timeframe);
+      minutes = new BarColumns(TRADING_DAYS * MINUTES_PER_SESSION);
+      Random random = new Random(42);
+      double close = 100;
+      // Weekdays from 2024-01-02, 14:30 to 21:00 UTC
+      long day = Instant.parse("2024-01-02T14:30:00Z").toEpochMilli();
+      for (int d = 0; d < TRADING_DAYS; d++) {
+         for (int m = 0; m < MINUTES_PER_SESSION; m++) {
+            double open = close;
+            close = Math.max(1, close + random.nextGaussian() * 0.05);
+            double high = Math.max(open, close) + random.nextDouble() * 0.02;
+            double low = Math.min(open, close) - random.nextDouble() * 0.02;
+            minutes.add(day + m * 60_000L, open, high, low, close, 100 + random.nextInt(5000),
+                1 + random.nextInt(40), (high + low + close) / 3);
+         }
+         day += (d % 5 == 4 ? 3 : 1) * 86_400_000L;
+      }
+   }
+
+   @Benchmark
+   public BarColumns resample () {
+      return BarResampler.resample(minutes, target);
+   }
+}
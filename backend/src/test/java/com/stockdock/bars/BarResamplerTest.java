@@ -0,0 +1,128 @@
+package com.stockdock.bars;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BarResamplerTest {
+
+   private static final double TOLERANCE = 1e-9;
+
+   @Test
+   void minuteAndHourBucketsAreAlignedToUtc () {
+      assertBucket("5Min", "2025-01-02T14:33:20Z", "2025-01-02T14:30:00Z", "2025-01-02T14:35:00Z");
+      assertBucket("1Hour", "2025-03-09T06:59:59Z", "2025-03-09T06:00:00Z", "2025-03-09T07:00:00Z");
+      assertBucket("4Hour", "2025-01-02T14:30:00Z", "2025-01-02T12:00:00Z", "2025-01-02T16:00:00Z");
+   }
+
+   @Test
+   void dayBucketsStartAtNewYorkMidnight () {
+      // 00:00 EST is 05:00 UTC; the instant of midnight belongs to the new day
+      assertBucket("1Day", "2025-01-03T05:00:00Z", "2025-01-03T05:00:00Z", "2025-01-04T05:00:00Z");
+      assertBucket("1Day", "2025-01-03T04:59:59.999Z", "2025-01-02T05:00:00Z", "2025-01-03T05:00:00Z");
+   }
+
+   @Test
+   void dayBucketsFollowDaylightSavingTime () {
+      // 2025-03-09 springs forward: 23 hours from 00:00 EST to 00:00 EDT
+      assertBucket("1Day", "2025-03-09T12:00:00Z", "2025-03-09T05:00:00Z", "2025-03-10T04:00:00Z");
+      // 2025-11-02 falls back: 25 hours from 00:00 EDT to 00:00 EST
+      assertBucket("1Day", "2025-11-03T04:30:00Z", "2025-11-02T04:00:00Z", "2025-11-03T05:00:00Z");
+   }
+
+   @Test
+   void weekBucketsStartOnMondayInNewYork () {
+      // Sunday 23:00 EDT, the last hour of the week of Monday 2025-03-03 (which started in EST)
+      assertBucket("1Week", "2025-03-10T03:00:00Z", "2025-03-03T05:00:00Z", "2025-03-10T04:00:00Z");
+      assertBucket("1Week", "2025-03-10T04:00:00Z", "2025-03-10T04:00:00Z", "2025-03-17T04:00:00Z");
+   }
+
+   @Test
+   void monthBucketsStartOnTheFirstInNewYork () {
+      // 2025-03-31 23:30 EDT is already April in UTC
+      assertBucket("1Month", "2025-04-01T03:30:00Z", "2025-03-01T05:00:00Z", "2025-04-01T04:00:00Z");
+      assertBucket("1Month", "2025-04-01T04:00:00Z", "2025-04-01T04:00:00Z", "2025-05-01T04:00:00Z");
+      // Multi-month buckets are aligned to the calendar year (quarters for 3Month)
+      assertBucket("3Month", "2025-05-15T16:00:00Z", "2025-04-01T04:00:00Z", "2025-07-01T04:00:00Z");
+      assertBucket("3Month", "2025-12-31T12:00:00Z", "2025-10-01T04:00:00Z", "2026-01-01T05:00:00Z");
+   }
+
+   @Test
+   void aggregatesOhlcvAndVwapPerBucket () {
+      BarColumns minutes = new BarColumns();
+      add(minutes, "2025-01-02T14:30:00Z", 10.0, 10.5, 9.8, 10.2, 100, 5, 10.1);
+      add(minutes, "2025-01-02T14:31:00Z", 10.2, 11.0, 10.1, 10.9, 300, 7, 10.6);
+      add(minutes, "2025-01-02T14:33:00Z", 10.9, 10.9, 9.5, 9.7, 100, 2, 10.0);
+      // Next bucket after a gap
+      add(minutes, "2025-01-02T14:41:00Z", 9.7, 9.9, 9.6, 9.8, 50, 1, 9.75);
+
+      BarColumns bars = BarResampler.resample(minutes, Timeframe.parse("5Min"));
+
+      assertEquals(2, bars.size());
+      assertBar(bars, 0, "2025-01-02T14:30:00Z", 10.0, 11.0, 9.5, 9.7, 500, 14,
+          (10.1 * 100 + 10.6 * 300 + 10.0 * 100) / 500);
+      assertBar(bars, 1, "2025-01-02T14:40:00Z", 9.7, 9.9, 9.6, 9.8, 50, 1, 9.75);
+   }
+
+   @Test
+   void bucketWithoutVolumeKeepsTheLastVwap () {
+      BarColumns minutes = new BarColumns();
+      add(minutes, "2025-01-02T14:30:00Z", 10, 10, 10, 10, 0, 0, 10.0);
+      add(minutes, "2025-01-02T14:31:00Z", 10, 10, 10, 10, 0, 0, 10.5);
+
+      BarColumns bars = BarResampler.resample(minutes, Timeframe.parse("5Min"));
+
+      assertEquals(1, bars.size());
+      assertEquals(10.5, bars.vw(0), TOLERANCE);
+   }
+
+   @Test
+   void dailyBarsSplitAtNewYorkMidnightAcrossTheDaylightSavingChange () {
+      BarColumns minutes = new BarColumns();
+      add(minutes, "2025-03-08T20:00:00Z", 10, 11, 9, 10.5, 100, 1, 10);   // Saturday 15:00 EST
+      add(minutes, "2025-03-09T04:59:00Z", 10.5, 12, 10, 11, 100, 1, 11);  // Saturday 23:59 EST
+      add(minutes, "2025-03-09T05:00:00Z", 11, 11, 8, 9, 200, 2, 9);       // Sunday 00:00 EST
+      add(minutes, "2025-03-10T03:59:00Z", 9, 9.5, 8.5, 9.2, 100, 1, 9.1); // Sunday 23:59 EDT
+      add(minutes, "2025-03-10T04:00:00Z", 9.2, 9.4, 9.0, 9.3, 100, 1, 9.3); // Monday 00:00 EDT
+
+      BarColumns bars = BarResampler.resample(minutes, Timeframe.parse("1Day"));
+
+      assertEquals(3, bars.size());
+      assertBar(bars, 0, "2025-03-08T05:00:00Z", 10, 12, 9, 11, 200, 2, 10.5);
+      assertBar(bars, 1, "2025-03-09T05:00:00Z", 11, 11, 8, 9.2, 300, 3, (9.0 * 200 + 9.1 * 100) / 300);
+      assertBar(bars, 2, "2025-03-10T04:00:00Z", 9.2, 9.4, 9.0, 9.3, 100, 1, 9.3);
+   }
+
+   @Test
+   void emptySourceGivesNoBars () {
+      assertEquals(0, BarResampler.resample(new BarColumns(), Timeframe.parse("1Day")).size());
+   }
+
+   private static void assertBucket (String timeframe, String t, String start, String end) {
+      Timeframe parsed = Timeframe.parse(timeframe);
+      long bucketStart = BarResampler.bucketStart(parsed, millis(t));
+      assertEquals(Instant.parse(start), Instant.ofEpochMilli(bucketStart), "start of " + t);
+      assertEquals(Instant.parse(end), Instant.ofEpochMilli(BarResampler.bucketEnd(parsed, bucketStart)), "end of " + t);
+   }
+
+   private static void assertBar (BarColumns bars, int i, String t, double o, double h, double l, double c, long v, int n, double vw) {
+      assertEquals(Instant.parse(t), Instant.ofEpochMilli(bars.t(i)));
+      assertEquals(o, bars.o(i), TOLERANCE);
+      assertEquals(h, bars.h(i), TOLERANCE);
+      assertEquals(l, bars.l(i), TOLERANCE);
+      assertEquals(c, bars.c(i), TOLERANCE);
+      assertEquals(v, bars.v(i));
+      assertEquals(n, bars.n(i));
+      assertEquals(vw, bars.vw(i), TOLERANCE);
+   }
+
+   private static void add (BarColumns bars, String t, double o, double h, double l, double c, long v, int n, double vw) {
+      bars.add(millis(t), o, h, l, c, v, n, vw);
+   }
+
+   private static long millis (String t) {
+      return Instant.parse(t).toEpochMilli();
+   }
+}
@@ -0,0 +1,67 @@
+package com.stockdock.cache;
+
+import com.stockdock.bars.BarSlice;
+import com.stockdock.bars.TimeRange;
+import com.stockdock.bars.Timeframe;
+import com.stockdock.dto.HistoricalBar;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BarSeriesCacheTest {
+
+   private static final long SETTLE_DELAY_MS = Duration.ofMinutes(15).toMillis();
+
+   private final BarSeriesCache cache = new BarSeriesCache(1 << 20, false, SETTLE_DELAY_MS);
+   private final List<TimeRange> loaded = new ArrayList<>();
+
+   // One bar per minute of the requested range
+   private final Function<TimeRange, List<HistoricalBar>> loader = range -> {
+      loaded.add(range);
+      List<HistoricalBar> bars = new ArrayList<>();
+      for (Instant t = range.start().truncatedTo(ChronoUnit.MINUTES); !t.isAfter(range.end()); t = t.plus(1, ChronoUnit.MINUTES)) {
+         if (!t.isBefore(range.start())) {
+            bars.add(new HistoricalBar(1, 1, 1, 1, 1, t, 1, 1));
+         }
+      }
+      return bars;
+   };
+
+   @Test
+   void cachesOnlyBarsBeforeTheStoreSettleHorizon () {
+      Instant now = Instant.now();
+      TimeRange range = new TimeRange(now.minus(Duration.ofHours(2)), now);
+
+      BarSlice first = cache.getBars("AAPL", Timeframe.ONE_MINUTE, range, loader);
+      assertEquals(2, loaded.size(), "settled part and unsettled tail");
+
+      loaded.clear();
+      BarSlice second = cache.getBars("AAPL", Timeframe.ONE_MINUTE, range, loader);
+
+      // Nothing before the bar store's horizon (one bar plus the settle delay) is loaded again
+      Instant horizon = now.minus(Duration.ofMinutes(1)).minusMillis(SETTLE_DELAY_MS);
+      assertTrue(loaded.stream().allMatch(r -> r.start().isAfter(horizon)), "reloaded " + loaded);
+      assertTrue(loaded.getLast().start().isBefore(horizon.plusSeconds(5)), "tail starts at " + loaded.getLast().start());
+      assertEquals(first.size(), second.size());
+   }
+
+   @Test
+   void doesNotCacheRangesThatHaveNotSettled () {
+      Instant now = Instant.now();
+      TimeRange recent = new TimeRange(now.minus(Duration.ofMinutes(10)), now);
+
+      cache.getBars("AAPL", Timeframe.ONE_MINUTE, recent, loader);
+      cache.getBars("AAPL", Timeframe.ONE_MINUTE, recent, loader);
+
+      assertEquals(List.of(recent, recent), loaded);
+      assertEquals(0, cache.stats().series());
+   }
+}
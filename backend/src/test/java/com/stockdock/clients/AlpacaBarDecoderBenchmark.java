@@ -0,0 +1,126 @@
+package com.stockdock.clients;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.stockdock.bars.BarColumns;
+import com.stockdock.dto.HistoricalBarsResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of decoding a page of 10,000 Alpaca minute bars: databinding into {@link HistoricalBarsResponse}
+ * (as configured by {@code JacksonConfig}) against the streaming {@link AlpacaBarDecoder}, and of
+ * parsing its timestamps with {@link Instant#parse} against {@link Rfc3339}.
+ *
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="AlpacaBarDecoderBenchmark"}.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class AlpacaBarDecoderBenchmark {
+
+   private static final int BARS = 10_000;
+
+   private ObjectMapper mapper;
+   private byte[] page;
+   private String[] timestamps;
+
+   @Setup
+   public void setUp () throws IOException {
+      mapper = JsonMapper.builder()
+          .findAndAddModules()
+          .addModule(new SimpleModule().addDeserializer(Instant.class, new FastInstantDeserializer()))
+          .addModule(new BlackbirdModule())
+          .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+          .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+          .build();
+
+      Random random = new Random(42);
+      timestamps = new String[BARS];
+      StringBuilder json = new StringBuilder("{\"bars\":[");
+      double close = 100;
+      long t = Instant.parse("2025-01-02T14:30:00Z").toEpochMilli();
+      for (int i = 0; i < BARS; i++) {
+         double open = close;
+         close = Math.max(1, close + random.nextGaussian() * 0.05);
+         double high = Math.max(open, close) + random.nextDouble() * 0.02;
+         double low = Math.min(open, close) - random.nextDouble() * 0.02;
+         timestamps[i] = Instant.ofEpochMilli(t + i * 60_000L).toString();
+         json.append(i == 0 ? "" : ",")
+             .append("{\"t\":\"").append(timestamps[i])
+             .append("\",\"o\":").append(open)
+             .append(",\"h\":").append(high)
+             .append(",\"l\":").append(low)
+             .append(",\"c\":").append(close)
+             .append(",\"v\":").append(100 + random.nextInt(5000))
+             .append(",\"n\":").append(1 + random.nextInt(40))
+             .append(",\"vw\":").append((high + low + close) / 3)
+             .append('}');
+      }
+      json.append("],\"symbol\":\"AAPL\",\"next_page_token\":null}");
+      page = json.toString().getBytes();
+   }
+
+   @Benchmark
+   public HistoricalBarsResponse databind () throws IOException {
+      return mapper.readValue(page, HistoricalBarsResponse.class);
+   }
+
+   @Benchmark
+   public BarColumns streaming () throws IOException {
+      BarColumns columns = new BarColumns(BARS);
+      AlpacaBarDecoder decoder = new AlpacaBarDecoder();
+      try (JsonParser parser = mapper.createParser(page)) {
+         parser.nextToken();
+         while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (field.equals("bars")) {
+               while (parser.nextToken() == JsonToken.START_OBJECT) {
+                  decoder.decodeInto(parser, columns);
+               }
+            } else {
+               parser.skipChildren();
+            }
+         }
+      }
+      return columns;
+   }
+
+   @Benchmark
+   public void instantParse (Blackhole blackhole) {
+      for (String timestamp : timestamps) {
+         blackhole.consume(Instant.parse(timestamp).toEpochMilli());
+      }
+   }
+
+   @Benchmark
+   public void rfc3339 (Blackhole blackhole) {
+      for (String timestamp : timestamps) {
+         blackhole.consume(Rfc3339.parseEpochMillis(timestamp));
+      }
+   }
+}
@@ -0,0 +1,110 @@
+package com.stockdock.clients;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.stockdock.bars.BarColumns;
+import com.stockdock.dto.HistoricalBar;
+import com.stockdock.dto.HistoricalBarsResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AlpacaBarDecoderTest {
+
+   // Configured like the auto-configured mapper the RestClient used before the streaming decoder
+   private static final ObjectMapper MAPPER = JsonMapper.builder()
+       .findAndAddModules()
+       .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+       .build();
+
+   @Test
+   void decodesTheSameBarsAsDatabinding () throws IOException {
+      List<HistoricalBar> expected = databind();
+
+      List<HistoricalBar> decoded = new ArrayList<>();
+      AlpacaBarDecoder decoder = new AlpacaBarDecoder();
+      forEachBar(parser -> decoded.add(decoder.decode(parser)));
+
+      assertEquals(11, expected.size());
+      assertEquals(expected, decoded);
+   }
+
+   @Test
+   void decodesTheSameColumnsAsDatabinding () throws IOException {
+      BarColumns expected = BarColumns.of(databind());
+
+      BarColumns decoded = new BarColumns();
+      AlpacaBarDecoder decoder = new AlpacaBarDecoder();
+      forEachBar(parser -> decoder.decodeInto(parser, decoded));
+
+      assertEquals(expected.size(), decoded.size());
+      for (int i = 0; i < expected.size(); i++) {
+         assertEquals(expected.t(i), decoded.t(i), "t of bar " + i);
+         assertEquals(expected.o(i), decoded.o(i), "o of bar " + i);
+         assertEquals(expected.h(i), decoded.h(i), "h of bar " + i);
+         assertEquals(expected.l(i), decoded.l(i), "l of bar " + i);
+         assertEquals(expected.c(i), decoded.c(i), "c of bar " + i);
+         assertEquals(expected.v(i), decoded.v(i), "v of bar " + i);
+         assertEquals(expected.n(i), decoded.n(i), "n of bar " + i);
+         assertEquals(expected.vw(i), decoded.vw(i), "vw of bar " + i);
+      }
+   }
+
+   @Test
+   void rejectsBarsWithoutTimestamp () throws IOException {
+      try (JsonParser parser = MAPPER.createParser("{\"o\": 1.0, \"c\": 2.0}")) {
+         parser.nextToken();
+         assertThrows(JsonParseException.class, () -> new AlpacaBarDecoder().decode(parser));
+      }
+   }
+
+   @Test
+   void rejectsInvalidTimestamps () throws IOException {
+      try (JsonParser parser = MAPPER.createParser("{\"t\": \"2025-02-30T14:30:00Z\"}")) {
+         parser.nextToken();
+         assertThrows(JsonParseException.class, () -> new AlpacaBarDecoder().decode(parser));
+      }
+   }
+
+   private static List<HistoricalBar> databind () throws IOException {
+      try (InputStream in = page()) {
+         return MAPPER.readValue(in, HistoricalBarsResponse.class).bars();
+      }
+   }
+
+   // Feeds every bar object of the page to the action, positioned at its START_OBJECT
+   private static void forEachBar (BarAction action) throws IOException {
+      try (InputStream in = page(); JsonParser parser = MAPPER.createParser(in)) {
+         parser.nextToken();
+         while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (field.equals("bars")) {
+               while (parser.nextToken() == JsonToken.START_OBJECT) {
+                  action.accept(parser);
+               }
+            } else {
+               parser.skipChildren();
+            }
+         }
+      }
+   }
+
+   private static InputStream page () {
+      return AlpacaBarDecoderTest.class.getResourceAsStream("/alpaca/bars-page.json");
+   }
+
+   private interface BarAction {
+      void accept (JsonParser parser) throws IOException;
+   }
+}
@@ -0,0 +1,23 @@
+package com.stockdock.clients;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AlpacaPayloadMetricsTest {
+
+   @ParameterizedTest
+   @CsvSource ({
+       "/v2/stocks/quotes/latest,       batch_quotes",
+       "/v2/stocks/AAPL/quotes/latest,  latest_quote",
+       "/v2/stocks/snapshots,           snapshots",
+       "/v2/stocks/AAPL/snapshot,       snapshot",
+       "/v2/stocks/bars,                multi_bars",
+       "/v2/stocks/AAPL/bars,           bars",
+       "/v2/account,                    other"
+   })
+   void mapsPathsToEndpointNames (String path, String endpoint) {
+      assertEquals(endpoint, AlpacaPayloadMetrics.endpointOf(path));
+   }
+}
@@ -0,0 +1,156 @@
+package com.stockdock.clients;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.stockdock.config.AlpacaProperties;
+import com.stockdock.config.RestClientConfig;
+import com.stockdock.dto.HistoricalBarsResponse;
+import com.stockdock.dto.StockSnapshotResponse;
+import com.stockdock.resilience.AlpacaCallExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concurrent calls through {@link CurrentStockClient} against a local stub of the Alpaca API:
+ * callers with the same endpoint and parameters share one upstream request.
+ */
+class CurrentStockClientTest {
+
+   private static final int CALLERS = 8;
+   private static final long TIMEOUT_SECONDS = 5;
+
+   private static final String BARS_PAGE = """
+       {"bars": [{"t": "2025-01-02T14:30:00Z", "o": 1.0, "h": 2.0, "l": 0.5, "c": 1.5, "v": 100, "n": 3, "vw": 1.2}],
+        "symbol": "AAPL", "next_page_token": null}""";
+
+   private final SingleFlight singleFlight = new SingleFlight();
+   private final CountDownLatch release = new CountDownLatch(1);
+   private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+
+   private StubHttpServer server;
+   private CurrentStockClient client;
+
+   @BeforeEach
+   void setUp () throws IOException {
+      // Holds every response until the test has all callers waiting
+      server = new StubHttpServer(exchange -> {
+         await(release);
+         String path = exchange.getRequestURI().getPath();
+         StubHttpServer.respond(exchange, 200, path.endsWith("/bars") ? BARS_PAGE : "{}");
+      });
+      client = newClient(server.baseUrl(), singleFlight);
+   }
+
+   @AfterEach
+   void tearDown () {
+      release.countDown();
+      callers.shutdownNow();
+      server.close();
+   }
+
+   @Test
+   void concurrentSnapshotCallsForOneSymbolMakeOneRequest () throws Exception {
+      List<Future<StockSnapshotResponse>> aapl = submit(() -> client.getStockSnapshot("AAPL"));
+      List<Future<StockSnapshotResponse>> msft = submit(() -> client.getStockSnapshot("MSFT"));
+      awaitWaiters("snapshot:AAPL");
+      awaitWaiters("snapshot:MSFT");
+      release.countDown();
+
+      assertSameResult(aapl);
+      assertSameResult(msft);
+      assertEquals(1, server.requests("/v2/stocks/AAPL/snapshot"));
+      assertEquals(1, server.requests("/v2/stocks/MSFT/snapshot"));
+      assertEquals(2, server.totalRequests());
+   }
+
+   @Test
+   void concurrentBarCallsForOneRangeMakeOneRequest () throws Exception {
+      List<Future<HistoricalBarsResponse>> january = submit(() -> client.getHistoricalBars("AAPL", "1Min", "2025-01-02", "2025-01-03"));
+      List<Future<HistoricalBarsResponse>> february = submit(() -> client.getHistoricalBars("AAPL", "1Min", "2025-02-03", "2025-02-04"));
+      awaitWaiters("bars:AAPL:1Min:2025-01-02:2025-01-03");
+      awaitWaiters("bars:AAPL:1Min:2025-02-03:2025-02-04");
+      release.countDown();
+
+      assertEquals(1, assertSameResult(january).bars().size());
+      assertSameResult(february);
+      assertEquals(1, server.requests("/v2/stocks/AAPL/bars?timeframe=1Min&start=2025-01-02&end=2025-01-03&limit=10000"));
+      assertEquals(1, server.requests("/v2/stocks/AAPL/bars?timeframe=1Min&start=2025-02-03&end=2025-02-04&limit=10000"));
+      assertEquals(2, server.totalRequests());
+   }
+
+   @Test
+   void sequentialCallsEachMakeARequest () {
+      release.countDown();
+
+      client.getStockSnapshot("AAPL");
+      client.getStockSnapshot("AAPL");
+
+      assertEquals(2, server.requests("/v2/stocks/AAPL/snapshot"));
+   }
+
+   // Client wired like the application: RestClientConfig's transport and interceptors, default resilience settings
+   static CurrentStockClient newClient (String baseUrl, SingleFlight singleFlight) {
+      SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+      ObjectMapper objectMapper = JsonMapper.builder()
+          .findAndAddModules()
+          .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+          .build();
+      AlpacaProperties properties = new AlpacaProperties();
+      RestClientConfig config = new RestClientConfig();
+      RestClient restClient = config.alpacaRestClient(RestClient.builder(), config.alpacaRequestFactory(properties),
+          properties, meterRegistry, "key", "secret", baseUrl);
+      AlpacaCallExecutor alpacaCalls = new AlpacaCallExecutor(meterRegistry, 60_000, 1_000, 2_000, 3, 10, 100, 20, 10, 0.5, 30_000);
+      return new CurrentStockClient(singleFlight, alpacaCalls, objectMapper, restClient, 200, 4, 200, 4, 10_000, 100, 4);
+   }
+
+   private <T> List<Future<T>> submit (Callable<T> call) {
+      List<Future<T>> futures = new ArrayList<>();
+      for (int i = 0; i < CALLERS; i++) {
+         futures.add(callers.submit(call));
+      }
+      return futures;
+   }
+
+   // Waits until one caller is in flight for the key and all others wait on it
+   private void awaitWaiters (String key) throws InterruptedException {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+      while (!Integer.valueOf(CALLERS - 1).equals(singleFlight.stats().inFlight().get(key))) {
+         assertTrue(System.nanoTime() < deadline, "Callers did not coalesce on " + key + ": " + singleFlight.stats());
+         Thread.sleep(5);
+      }
+   }
+
+   private static <T> T assertSameResult (List<Future<T>> futures) throws Exception {
+      T first = futures.getFirst().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      for (Future<T> future : futures) {
+         assertSame(first, future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+      }
+      return first;
+   }
+
+   private static void await (CountDownLatch latch) {
+      try {
+         latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+}
@@ -0,0 +1,369 @@
+package com.stockdock.clients;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.stockdock.cluster.ShardCoordinator;
+import com.stockdock.events.QuoteUpdatedEvent;
+import com.stockdock.events.ShardAssignmentChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QuoteStreamClientTest {
+
+   private static final long TIMEOUT_SECONDS = 5;
+   private static final long PING_INTERVAL_MILLIS = 200;
+
+   // Configured like the auto-configured mapper: Alpaca messages carry fields StockQuote doesn't have
+   private final ObjectMapper objectMapper = JsonMapper.builder()
+       .findAndAddModules()
+       .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+       .build();
+   private final ShardCoordinator shardCoordinator = mock(ShardCoordinator.class);
+   private final BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+
+   private StubStreamServer server;
+   private QuoteStreamClient client;
+
+   @BeforeEach
+   void setUp () throws IOException {
+      when(shardCoordinator.getOwnedSymbols()).thenReturn(Set.of("AAPL", "MSFT"));
+      server = new StubStreamServer();
+      client = new QuoteStreamClient(shardCoordinator, objectMapper, events::add, true,
+          "ws://localhost:" + server.port() + "/v2/iex", "key", "secret", 50, PING_INTERVAL_MILLIS);
+   }
+
+   @AfterEach
+   void tearDown () throws IOException {
+      client.stop();
+      server.close();
+   }
+
+   @Test
+   void authenticatesSubscribesAndPublishesQuotes () throws Exception {
+      client.start();
+      StubStreamServer.Connection connection = server.accept();
+
+      assertEquals(Set.of("AAPL", "MSFT"), authenticate(connection));
+
+      connection.sendText("""
+          [{"T": "q", "S": "AAPL", "bx": "V", "bp": 189.5, "bs": 2, "ax": "V", "ap": 189.55, "as": 1,
+            "c": ["R"], "z": "C", "t": "2025-01-02T14:30:00.123456789Z"}]""");
+      QuoteUpdatedEvent event = assertInstanceOf(QuoteUpdatedEvent.class, events.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+      assertEquals("AAPL", event.symbol());
+      assertEquals(QuoteUpdatedEvent.Source.STREAM, event.source());
+      assertEquals(189.5, event.quote().bp());
+      assertEquals(189.55, event.quote().ap());
+      assertEquals(List.of("R"), event.quote().c());
+      assertEquals(Instant.parse("2025-01-02T14:30:00.123456789Z"), event.quote().t());
+   }
+
+   @Test
+   void ignoresMessagesOtherThanQuotes () throws Exception {
+      client.start();
+      StubStreamServer.Connection connection = server.accept();
+      authenticate(connection);
+
+      connection.sendText("""
+          [{"T": "error", "code": 405, "msg": "symbol limit exceeded"},
+           {"T": "t", "S": "AAPL", "p": 189.5},
+           {"T": "q", "S": "MSFT", "bp": 420.1, "ap": 420.2, "t": "2025-01-02T14:30:01Z"}]""");
+      QuoteUpdatedEvent event = assertInstanceOf(QuoteUpdatedEvent.class, events.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+      assertEquals("MSFT", event.symbol());
+      assertTrue(events.isEmpty());
+   }
+
+   @Test
+   void followsTheOwnedSymbolsOnTheOpenConnection () throws Exception {
+      client.start();
+      StubStreamServer.Connection connection = server.accept();
+      authenticate(connection);
+      awaitConnected();
+
+      client.onShardAssignmentChanged(new ShardAssignmentChangedEvent(Set.of("AAPL", "TSLA")));
+
+      JsonNode unsubscribe = connection.readJson();
+      assertEquals("unsubscribe", unsubscribe.path("action").asText());
+      assertEquals(Set.of("MSFT"), symbols(unsubscribe));
+      JsonNode subscribe = connection.readJson();
+      assertEquals("subscribe", subscribe.path("action").asText());
+      assertEquals(Set.of("TSLA"), symbols(subscribe));
+   }
+
+   @Test
+   void reconnectsAndSubscribesAgainAfterTheConnectionIsLost () throws Exception {
+      client.start();
+      authenticate(server.accept());
+
+      // Closed by the server with a close frame
+      StubStreamServer.Connection second = server.acceptAfter(lost -> lost.sendClose(1001));
+      assertEquals(Set.of("AAPL", "MSFT"), authenticate(second));
+
+      // Dropped without a close frame
+      when(shardCoordinator.getOwnedSymbols()).thenReturn(Set.of("AAPL"));
+      StubStreamServer.Connection third = server.acceptAfter(StubStreamServer.Connection::drop);
+      assertEquals(Set.of("AAPL"), authenticate(third));
+
+      third.sendText("[{\"T\": \"q\", \"S\": \"AAPL\", \"bp\": 189.5, \"ap\": 189.55, \"t\": \"2025-01-02T14:30:00Z\"}]");
+      assertNotNull(events.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+   }
+
+   @Test
+   void keepsAnAnsweringConnectionAndReplacesASilentOne () throws Exception {
+      client.start();
+      StubStreamServer.Connection connection = server.accept();
+      authenticate(connection);
+
+      // Pings are answered: the connection is kept
+      Thread.sleep(4 * PING_INTERVAL_MILLIS);
+      assertTrue(client.isConnected());
+      connection.sendText("[{\"T\": \"q\", \"S\": \"AAPL\", \"bp\": 189.5, \"ap\": 189.55, \"t\": \"2025-01-02T14:30:00Z\"}]");
+      assertNotNull(events.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+      // Half-open: no frame arrives anymore, the client aborts it and connects again
+      StubStreamServer.Connection next = server.acceptAfter(StubStreamServer.Connection::stopAnswering);
+      assertEquals(Set.of("AAPL", "MSFT"), authenticate(next));
+   }
+
+   // Runs the handshake on a new connection, returns the symbols subscribed afterwards
+   private Set<String> authenticate (StubStreamServer.Connection connection) throws IOException, InterruptedException {
+      connection.sendText("[{\"T\": \"success\", \"msg\": \"connected\"}]");
+      JsonNode auth = connection.readJson();
+      assertEquals("auth", auth.path("action").asText());
+      assertEquals("key", auth.path("key").asText());
+      assertEquals("secret", auth.path("secret").asText());
+
+      connection.sendText("[{\"T\": \"success\", \"msg\": \"authenticated\"}]");
+      JsonNode subscribe = connection.readJson();
+      assertEquals("subscribe", subscribe.path("action").asText());
+      connection.sendText("[{\"T\": \"subscription\", \"quotes\": " + subscribe.path("quotes") + "}]");
+      return symbols(subscribe);
+   }
+
+   private void awaitConnected () throws InterruptedException {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+      while (!client.isConnected()) {
+         assertTrue(System.nanoTime() < deadline, "Client did not connect");
+         Thread.sleep(10);
+      }
+   }
+
+   private static Set<String> symbols (JsonNode message) {
+      Set<String> symbols = new HashSet<>();
+      message.path("quotes").forEach(symbol -> symbols.add(symbol.asText()));
+      return symbols;
+   }
+
+   /**
+    * Minimal RFC 6455 server standing in for Alpaca's market-data stream: one connection at a time,
+    * unfragmented text frames only. Each connection reads the client's frames on its own thread,
+    * answering pings and queueing text messages.
+    */
+   private final class StubStreamServer implements AutoCloseable {
+
+      private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+      private final ServerSocket serverSocket;
+      private Connection current;
+
+      StubStreamServer () throws IOException {
+         serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+         serverSocket.setSoTimeout((int) TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+      }
+
+      int port () {
+         return serverSocket.getLocalPort();
+      }
+
+      Connection accept () throws IOException {
+         Socket socket = serverSocket.accept();
+         socket.setSoTimeout((int) TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+         Connection connection = new Connection(socket);
+         connection.handshake();
+         return connection;
+      }
+
+      // Ends the current connection, then waits for the client to come back
+      Connection acceptAfter (ConnectionAction ending) throws IOException {
+         ending.run(current);
+         return accept();
+      }
+
+      @Override
+      public void close () throws IOException {
+         if (current != null) {
+            current.drop();
+         }
+         serverSocket.close();
+      }
+
+      final class Connection {
+
+         private final Socket socket;
+         private final DataInputStream in;
+         private final OutputStream out;
+         private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+         private volatile boolean answering = true;
+
+         Connection (Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(socket.getInputStream());
+            this.out = socket.getOutputStream();
+            current = this;
+         }
+
+         void sendText (String text) throws IOException {
+            sendFrame(0x1, text.getBytes(StandardCharsets.UTF_8));
+         }
+
+         void sendClose (int statusCode) throws IOException {
+            sendFrame(0x8, new byte[] {(byte) (statusCode >> 8), (byte) statusCode});
+         }
+
+         JsonNode readJson () throws IOException, InterruptedException {
+            String text = received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            assertNotNull(text, "No message from the client");
+            return objectMapper.readTree(text);
+         }
+
+         // Keeps the connection open without answering pings, like a peer that is gone
+         void stopAnswering () {
+            answering = false;
+         }
+
+         void drop () throws IOException {
+            socket.close();
+         }
+
+         private void handshake () throws IOException {
+            String key = null;
+            for (String line = readLine(); !line.isEmpty(); line = readLine()) {
+               int colon = line.indexOf(':');
+               if (colon > 0 && line.substring(0, colon).equalsIgnoreCase("Sec-WebSocket-Key")) {
+                  key = line.substring(colon + 1).trim();
+               }
+            }
+            assertNotNull(key, "No Sec-WebSocket-Key in the upgrade request");
+            out.write(("HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + acceptKey(key) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            socket.setSoTimeout(0);
+            Thread.ofPlatform().daemon().name("stub-stream-reader").start(this::readFrames);
+         }
+
+         private String readLine () throws IOException {
+            StringBuilder line = new StringBuilder();
+            for (int b = in.read(); b != '\n'; b = in.read()) {
+               if (b < 0) {
+                  throw new IOException("Connection closed during the handshake");
+               }
+               if (b != '\r') {
+                  line.append((char) b);
+               }
+            }
+            return line.toString();
+         }
+
+         // Reads the client's frames until it closes; client frames are always masked
+         private void readFrames () {
+            try {
+               readFramesUntilClose();
+            } catch (IOException e) {
+               // Dropped by the test or the client
+            }
+         }
+
+         private void readFramesUntilClose () throws IOException {
+            while (true) {
+               int first = in.readUnsignedByte();
+               int second = in.readUnsignedByte();
+               long length = second & 0x7F;
+               if (length == 126) {
+                  length = in.readUnsignedShort();
+               } else if (length == 127) {
+                  length = in.readLong();
+               }
+               byte[] mask = new byte[4];
+               if ((second & 0x80) != 0) {
+                  in.readFully(mask);
+               }
+               byte[] payload = new byte[(int) length];
+               in.readFully(payload);
+               for (int i = 0; i < payload.length; i++) {
+                  payload[i] ^= mask[i % 4];
+               }
+
+               switch (first & 0x0F) {
+                  case 0x1 -> received.add(new String(payload, StandardCharsets.UTF_8));
+                  case 0x8 -> {
+                     return;
+                  }
+                  case 0x9 -> {
+                     if (answering) {
+                        sendFrame(0xA, payload);
+                     }
+                  }
+                  default -> {
+                     // Pong: not part of the conversation
+                  }
+               }
+            }
+         }
+
+         private synchronized void sendFrame (int opcode, byte[] payload) throws IOException {
+            out.write(0x80 | opcode);
+            if (payload.length < 126) {
+               out.write(payload.length);
+            } else {
+               out.write(126);
+               out.write(payload.length >> 8);
+               out.write(payload.length);
+            }
+            out.write(payload);
+            out.flush();
+         }
+      }
+
+      private static String acceptKey (String key) {
+         try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest((key + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+         } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+         }
+      }
+   }
+
+   private interface ConnectionAction {
+      void run (StubStreamServer.Connection connection) throws IOException;
+   }
+}
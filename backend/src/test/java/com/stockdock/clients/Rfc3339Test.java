@@ -0,0 +1,98 @@
+package com.stockdock.clients;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class Rfc3339Test {
+
+   @ParameterizedTest
+   @ValueSource (strings = {
+       "2025-01-02T14:30:00Z",
+       "2025-01-02T14:30:00z",
+       "1970-01-01T00:00:00Z",
+       "1969-12-31T23:59:59.9995Z",
+       "0001-01-01T00:00:00Z",
+       "9999-12-31T23:59:59.999999999Z",
+       // 1 to 9 fraction digits
+       "2025-01-02T14:30:00.1Z",
+       "2025-01-02T14:30:00.12Z",
+       "2025-01-02T14:30:00.123Z",
+       "2025-01-02T14:30:00.1234Z",
+       "2025-01-02T14:30:00.12345Z",
+       "2025-01-02T14:30:00.123456Z",
+       "2025-01-02T14:30:00.1234567Z",
+       "2025-01-02T14:30:00.12345678Z",
+       "2025-01-02T14:30:00.123456789Z",
+       "2025-01-02T14:30:00.000000001Z",
+       // Offsets
+       "2025-01-02T09:30:00-05:00",
+       "2025-01-02T20:00:00+05:30",
+       "2025-01-02T14:30:00.5+00:00",
+       "2025-01-02T14:30:00-00:00",
+       "2025-01-01T00:30:00+18:00",
+       "2025-12-31T23:30:00-18:00",
+       "2025-01-02T14:30:00.987654321-09:45",
+       // Leap days and month ends
+       "2024-02-29T12:00:00Z",
+       "2000-02-29T12:00:00Z",
+       "2025-02-28T23:59:59Z",
+       "2025-04-30T00:00:00Z",
+       "2025-12-31T23:59:59Z",
+       // Not on the fast path, still parsed like Instant.parse
+       "2016-12-31T23:59:60Z",
+       "2025-01-02T24:00:00Z",
+       "2025-01-02T14:30:00.Z"
+   })
+   void parsesLikeInstantParse (String text) {
+      Instant expected = Instant.parse(text);
+
+      assertEquals(expected, Rfc3339.parseInstant(text));
+      assertEquals(expected.toEpochMilli(), Rfc3339.parseEpochMillis(text));
+   }
+
+   @ParameterizedTest
+   @ValueSource (strings = {
+       "2025-01-02T14:30:00Z",
+       "2025-01-02T14:30:00.123456789-05:00"
+   })
+   void parsesWithinALargerBuffer (String text) {
+      char[] buffer = ("\"t\": \"" + text + "\"").toCharArray();
+      int offset = 6;
+
+      assertEquals(Instant.parse(text), Rfc3339.parseInstant(buffer, offset, text.length()));
+      assertEquals(Instant.parse(text).toEpochMilli(), Rfc3339.parseEpochMillis(buffer, offset, text.length()));
+   }
+
+   @ParameterizedTest
+   @ValueSource (strings = {
+       "2023-02-29T12:00:00Z",
+       "2100-02-29T12:00:00Z",
+       "2025-04-31T00:00:00Z",
+       "2025-13-01T00:00:00Z",
+       "2025-00-10T00:00:00Z",
+       "2025-01-00T00:00:00Z",
+       "2025-01-02T14:60:00Z",
+       "2025-01-02T14:30:61Z",
+       "2025-01-02T14:30:00",
+       "2025-01-02T14:30:00.1234567890Z",
+       "2025-01-02T14:30:00+19:00",
+       "2025-01-02T14:30:00+05:60",
+       "2025-01-02T14:30:00+0500",
+       "2025-01-02T14:30:00ZZ",
+       "2025-01-02 14:30:00Z",
+       "2025-1-02T14:30:00Z",
+       "2025-01-02T14:3a:00Z",
+       "2025-01-02"
+   })
+   void rejectsWhatInstantParseRejects (String text) {
+      assertThrows(DateTimeParseException.class, () -> Instant.parse(text));
+      assertThrows(DateTimeParseException.class, () -> Rfc3339.parseInstant(text));
+      assertThrows(DateTimeParseException.class, () -> Rfc3339.parseEpochMillis(text));
+   }
+}
@@ -0,0 +1,133 @@
+package com.stockdock.clients;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+   private static final int CALLERS = 16;
+   private static final String KEY = "quotes:AAPL";
+
+   private final SingleFlight singleFlight = new SingleFlight();
+
+   @Test
+   void concurrentCallersShareOneExecutionAndItsResult () throws Exception {
+      AtomicInteger loads = new AtomicInteger();
+      CountDownLatch finish = new CountDownLatch(1);
+      Object value = new Object();
+
+      List<Object> results = runConcurrently(() -> {
+         loads.incrementAndGet();
+         await(finish);
+         return value;
+      }, finish);
+
+      assertEquals(1, loads.get());
+      results.forEach(result -> assertSame(value, result));
+      assertEquals(1, singleFlight.stats().executions());
+      assertEquals(CALLERS - 1, singleFlight.stats().coalesced());
+      assertReleased();
+   }
+
+   @Test
+   void concurrentCallersShareTheSameException () throws Exception {
+      AtomicInteger loads = new AtomicInteger();
+      CountDownLatch finish = new CountDownLatch(1);
+      IllegalStateException failure = new IllegalStateException("upstream down");
+
+      List<Object> results = runConcurrently(() -> {
+         loads.incrementAndGet();
+         await(finish);
+         throw failure;
+      }, finish);
+
+      assertEquals(1, loads.get());
+      results.forEach(result -> assertSame(failure, result));
+      assertReleased();
+   }
+
+   @Test
+   void keyIsReleasedSoTheNextCallExecutesAgain () {
+      AtomicInteger loads = new AtomicInteger();
+
+      assertEquals(1, singleFlight.execute(KEY, loads::incrementAndGet));
+      assertEquals(2, singleFlight.execute(KEY, loads::incrementAndGet));
+      assertEquals(0, singleFlight.stats().coalesced());
+      assertReleased();
+   }
+
+   @Test
+   void differentKeysDoNotShare () {
+      assertEquals("a", singleFlight.execute("a", () -> "a"));
+      assertEquals("b", singleFlight.execute("b", () -> "b"));
+      assertEquals(2, singleFlight.stats().executions());
+   }
+
+   /**
+    * Starts all callers at once behind a latch, lets the call finish once every other caller waits
+    * on it, and returns what each caller got: the value or the exception it threw.
+    */
+   private List<Object> runConcurrently (Supplier<Object> call, CountDownLatch finish) throws Exception {
+      CountDownLatch start = new CountDownLatch(1);
+      ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+      try {
+         List<Future<Object>> futures = new ArrayList<>();
+         for (int i = 0; i < CALLERS; i++) {
+            futures.add(executor.submit(() -> {
+               start.await();
+               try {
+                  return singleFlight.execute(KEY, call);
+               } catch (RuntimeException e) {
+                  return e;
+               }
+            }));
+         }
+         start.countDown();
+
+         long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+         while (waiting() < CALLERS - 1) {
+            assertTrue(System.nanoTime() < deadline, "callers did not join the running call");
+            Thread.sleep(1);
+         }
+         finish.countDown();
+
+         List<Object> results = new ArrayList<>();
+         for (Future<Object> future : futures) {
+            results.add(future.get(5, TimeUnit.SECONDS));
+         }
+         return results;
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   private int waiting () {
+      return singleFlight.stats().inFlight().getOrDefault(KEY, 0);
+   }
+
+   private void assertReleased () {
+      assertEquals(Map.of(), singleFlight.stats().inFlight());
+   }
+
+   private static void await (CountDownLatch latch) {
+      try {
+         assertTrue(latch.await(5, TimeUnit.SECONDS));
+      } catch (InterruptedException e) {
+         throw new IllegalStateException(e);
+      }
+   }
+}
@@ -0,0 +1,102 @@
+package com.stockdock.clients;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local HTTP server standing in for the Alpaca REST API. Every request is counted by its URI
+ * (path and query) and handed to the handler on its own virtual thread, so handlers may block.
+ * Public so the transport tests in {@code config} can use it as well.
+ */
+public final class StubHttpServer implements AutoCloseable {
+
+   private final HttpServer server;
+   private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+   private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+   private final AtomicInteger inFlight = new AtomicInteger();
+   private final AtomicInteger maxInFlight = new AtomicInteger();
+
+   public StubHttpServer (HttpHandler handler) throws IOException {
+      server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+      server.setExecutor(executor);
+      server.createContext("/", exchange -> {
+         requests.computeIfAbsent(exchange.getRequestURI().toString(), uri -> new AtomicInteger()).incrementAndGet();
+         maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+         try (exchange) {
+            handler.handle(exchange);
+         } finally {
+            inFlight.decrementAndGet();
+         }
+      });
+      server.start();
+   }
+
+   public String baseUrl () {
+      return "http://localhost:" + server.getAddress().getPort();
+   }
+
+   // Requests received for the URI, e.g. "/v2/stocks/AAPL/snapshot"
+   public int requests (String uri) {
+      AtomicInteger count = requests.get(uri);
+      return count == null ? 0 : count.get();
+   }
+
+   public int totalRequests () {
+      return requests.values().stream().mapToInt(AtomicInteger::get).sum();
+   }
+
+   // Most requests the stub was handling at the same time
+   public int maxInFlight () {
+      return maxInFlight.get();
+   }
+
+   public static void respond (HttpExchange exchange, int status, String json) throws IOException {
+      byte[] body = json.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+         out.write(body);
+      }
+   }
+
+   /**
+    * Answers 200 with {@code json}, gzip-encoded if the request accepts gzip, as Alpaca does.
+    */
+   public static void respondCompressible (HttpExchange exchange, String json) throws IOException {
+      String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+      if (acceptEncoding == null || !acceptEncoding.contains("gzip")) {
+         respond(exchange, 200, json);
+         return;
+      }
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+      try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+         gzip.write(json.getBytes(StandardCharsets.UTF_8));
+      }
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+      exchange.sendResponseHeaders(200, compressed.size());
+      try (OutputStream out = exchange.getResponseBody()) {
+         compressed.writeTo(out);
+      }
+   }
+
+   @Override
+   public void close () {
+      server.stop(0);
+      executor.shutdownNow();
+   }
+}
@@ -0,0 +1,102 @@
+package com.stockdock.config;
+
+import com.stockdock.clients.StubHttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calls to a local stub of the batch quotes endpoint (200 symbols, about 30 KB of JSON, answered
+ * after 5 ms) from 16 threads, through each Alpaca transport of {@link RestClientConfig} and through
+ * the plain {@code RestClient.builder().build()} used before. Reports throughput and, in sample
+ * mode, the latency percentiles.
+ *
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="AlpacaTransportBenchmark"}.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode ({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+@Threads (16)
+public class AlpacaTransportBenchmark {
+
+   private static final String URI = "/v2/stocks/quotes/latest?symbols=AAPL,MSFT";
+
+   @Param ({"apache", "jdk", "default"})
+   public String transport;
+
+   private StubHttpServer stub;
+   private ClientHttpRequestFactory requestFactory;
+   private RestClient restClient;
+
+   @Setup (Level.Trial)
+   public void setUp () throws IOException {
+      String quotes = quotes(200);
+      stub = new StubHttpServer(exchange -> {
+         try {
+            Thread.sleep(5);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+         StubHttpServer.respondCompressible(exchange, quotes);
+      });
+
+      if (transport.equals("default")) {
+         restClient = RestClient.builder().baseUrl(stub.baseUrl()).build();
+         return;
+      }
+      AlpacaProperties properties = new AlpacaProperties();
+      properties.setTransport(AlpacaProperties.Transport.valueOf(transport.toUpperCase()));
+      RestClientConfig config = new RestClientConfig();
+      requestFactory = config.alpacaRequestFactory(properties);
+      restClient = config.alpacaRestClient(RestClient.builder(), requestFactory, properties,
+          new SimpleMeterRegistry(), "key", "secret", stub.baseUrl());
+   }
+
+   @TearDown (Level.Trial)
+   public void tearDown () throws Exception {
+      if (requestFactory instanceof HttpComponentsClientHttpRequestFactory apache) {
+         apache.destroy();
+      }
+      stub.close();
+   }
+
+   @Benchmark
+   public String latestQuotes () {
+      return restClient.get().uri(URI).retrieve().body(String.class);
+   }
+
+   // Body shaped like Alpaca's multi-symbol latest quotes response
+   private static String quotes (int symbols) {
+      Random random = new Random(42);
+      StringJoiner json = new StringJoiner(",", "{\"quotes\":{", "}}");
+      for (int i = 0; i < symbols; i++) {
+         double bid = 10 + random.nextDouble() * 500;
+         json.add("\"S" + i + "\":{\"ap\":" + (bid + 0.01) + ",\"as\":" + random.nextInt(10) + ",\"ax\":\"V\",\"bp\":" + bid
+             + ",\"bs\":" + random.nextInt(10) + ",\"bx\":\"V\",\"c\":[\"R\"],\"t\":\"2025-01-02T15:04:05.123456789Z\",\"z\":\"C\"}");
+      }
+      return json.toString();
+   }
+}
@@ -0,0 +1,199 @@
+package com.stockdock.config;
+
+import com.stockdock.clients.StubHttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The Alpaca transports against a local stub: selection, gzip, pool limits and timeouts as configured.
+ */
+class RestClientConfigTest {
+
+   private static final String QUOTE = "{\"symbol\":\"AAPL\",\"quote\":{\"ap\":101.5,\"bp\":101.4}}";
+
+   private final RestClientConfig config = new RestClientConfig();
+   private final Map<String, String> acceptEncodings = new ConcurrentHashMap<>();
+   private final List<ClientHttpRequestFactory> factories = new ArrayList<>();
+   private StubHttpServer stub;
+
+   @AfterEach
+   void tearDown () throws Exception {
+      for (ClientHttpRequestFactory factory : factories) {
+         if (factory instanceof HttpComponentsClientHttpRequestFactory apache) {
+            apache.destroy();
+         }
+      }
+      if (stub != null) {
+         stub.close();
+      }
+   }
+
+   @Test
+   void selectsTheConfiguredTransport () {
+      AlpacaProperties properties = new AlpacaProperties();
+      assertInstanceOf(HttpComponentsClientHttpRequestFactory.class, factory(properties));
+
+      properties.setTransport(AlpacaProperties.Transport.JDK);
+      assertInstanceOf(JdkClientHttpRequestFactory.class, factory(properties));
+   }
+
+   @ParameterizedTest
+   @EnumSource (AlpacaProperties.Transport.class)
+   void inflatesGzipEncodedResponses (AlpacaProperties.Transport transport) throws IOException {
+      stub = new StubHttpServer(exchange -> {
+         acceptEncodings.put("quote", String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding")));
+         StubHttpServer.respondCompressible(exchange, QUOTE);
+      });
+      AlpacaProperties properties = new AlpacaProperties();
+      properties.setTransport(transport);
+
+      String body = restClient(properties).get().uri("/v2/stocks/AAPL/quotes/latest").retrieve().body(String.class);
+
+      assertEquals(QUOTE, body);
+      assertTrue(acceptEncodings.get("quote").contains("gzip"), acceptEncodings.get("quote"));
+   }
+
+   @ParameterizedTest
+   @EnumSource (AlpacaProperties.Transport.class)
+   void asksForNoEncodingWithCompressionOff (AlpacaProperties.Transport transport) throws IOException {
+      stub = new StubHttpServer(exchange -> {
+         String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+         if (acceptEncoding != null) {
+            acceptEncodings.put("quote", acceptEncoding);
+         }
+         StubHttpServer.respondCompressible(exchange, QUOTE);
+      });
+      AlpacaProperties properties = new AlpacaProperties();
+      properties.setTransport(transport);
+      properties.setCompression(false);
+
+      String body = restClient(properties).get().uri("/v2/stocks/AAPL/quotes/latest").retrieve().body(String.class);
+
+      assertEquals(QUOTE, body);
+      assertNull(acceptEncodings.get("quote"));
+   }
+
+   @ParameterizedTest
+   @EnumSource (AlpacaProperties.Transport.class)
+   void readTimeoutEndsASlowCall (AlpacaProperties.Transport transport) throws IOException {
+      CountDownLatch release = new CountDownLatch(1);
+      stub = new StubHttpServer(exchange -> {
+         await(release, 10_000);
+         StubHttpServer.respond(exchange, 200, QUOTE);
+      });
+      AlpacaProperties properties = new AlpacaProperties();
+      properties.setTransport(transport);
+      properties.setReadTimeout(Duration.ofMillis(200));
+      RestClient restClient = restClient(properties);
+
+      long startNanos = System.nanoTime();
+      assertThrows(ResourceAccessException.class,
+          () -> restClient.get().uri("/v2/stocks/AAPL/quotes/latest").retrieve().body(String.class));
+      long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+      release.countDown();
+
+      assertTrue(elapsedMillis >= 150 && elapsedMillis < 5_000, "timed out after " + elapsedMillis + " ms");
+   }
+
+   @Test
+   void apachePoolLimitsConnectionsPerRoute () throws Exception {
+      CountDownLatch release = new CountDownLatch(1);
+      stub = new StubHttpServer(exchange -> {
+         await(release, 10_000);
+         StubHttpServer.respond(exchange, 200, QUOTE);
+      });
+      AlpacaProperties properties = new AlpacaProperties();
+      properties.setMaxConnectionsPerRoute(2);
+      properties.setConnectionRequestTimeout(Duration.ofSeconds(10));
+      RestClient restClient = restClient(properties);
+
+      try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+         List<Future<String>> calls = new ArrayList<>();
+         for (int i = 0; i < 6; i++) {
+            calls.add(callers.submit(() -> restClient.get().uri("/v2/stocks/AAPL/quotes/latest").retrieve().body(String.class)));
+         }
+         // Give the callers time to queue up on the pool
+         Thread.sleep(300);
+         assertEquals(2, stub.maxInFlight());
+
+         release.countDown();
+         for (Future<String> call : calls) {
+            assertEquals(QUOTE, call.get(10, TimeUnit.SECONDS));
+         }
+      }
+      assertEquals(2, stub.maxInFlight());
+      assertEquals(6, stub.totalRequests());
+   }
+
+   @Test
+   void apacheGivesUpWaitingForAPooledConnection () throws Exception {
+      CountDownLatch release = new CountDownLatch(1);
+      CountDownLatch received = new CountDownLatch(1);
+      stub = new StubHttpServer(exchange -> {
+         received.countDown();
+         await(release, 10_000);
+         StubHttpServer.respond(exchange, 200, QUOTE);
+      });
+      AlpacaProperties properties = new AlpacaProperties();
+      properties.setMaxConnectionsPerRoute(1);
+      properties.setConnectionRequestTimeout(Duration.ofMillis(200));
+      RestClient restClient = restClient(properties);
+
+      try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+         Future<String> first = callers.submit(() -> restClient.get().uri("/v2/stocks/AAPL/quotes/latest").retrieve().body(String.class));
+         assertTrue(received.await(5, TimeUnit.SECONDS));
+
+         // The only connection of the route is busy
+         assertThrows(ResourceAccessException.class,
+             () -> restClient.get().uri("/v2/stocks/MSFT/quotes/latest").retrieve().body(String.class));
+
+         release.countDown();
+         assertEquals(QUOTE, first.get(10, TimeUnit.SECONDS));
+      }
+   }
+
+   private ClientHttpRequestFactory factory (AlpacaProperties properties) {
+      ClientHttpRequestFactory factory = config.alpacaRequestFactory(properties);
+      factories.add(factory);
+      return factory;
+   }
+
+   private RestClient restClient (AlpacaProperties properties) {
+      return config.alpacaRestClient(RestClient.builder(), factory(properties), properties,
+          new SimpleMeterRegistry(), "key", "secret", stub.baseUrl());
+   }
+
+   private static void await (CountDownLatch latch, long millis) {
+      try {
+         latch.await(millis, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+}
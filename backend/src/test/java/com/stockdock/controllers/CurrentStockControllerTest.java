@@ -0,0 +1,121 @@
+package com.stockdock.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockdock.cache.BarSeriesCache;
+import com.stockdock.cache.RefreshingCache;
+import com.stockdock.clients.CurrentStockClient;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.dto.StockQuoteResponse;
+import com.stockdock.dto.StockSnapshotResponse;
+import com.stockdock.exceptions.GlobalExceptionHandler;
+import com.stockdock.exceptions.UpstreamUnavailableException;
+import com.stockdock.models.CurrentStock;
+import com.stockdock.repos.CurrentStockRepo;
+import com.stockdock.services.BarArchive;
+import com.stockdock.services.CurrentStockService;
+import com.stockdock.services.HistoricalBarStore;
+import com.stockdock.services.IndicatorService;
+import com.stockdock.services.MarketMovers;
+import com.stockdock.services.QuoteTickStore;
+import com.stockdock.services.QuoteWriteBehind;
+import com.stockdock.services.SymbolActivity;
+import com.stockdock.services.SymbolRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The stale fallback of the quote endpoint, from the upstream failure in the client down to the
+ * response headers.
+ */
+class CurrentStockControllerTest {
+
+   private static final Instant AS_OF = Instant.parse("2025-01-02T20:59:58Z");
+
+   private final CurrentStockClient currentStockClient = mock(CurrentStockClient.class);
+   private final CurrentStockRepo currentStockRepo = mock(CurrentStockRepo.class);
+   private MockMvc mvc;
+
+   @BeforeEach
+   void setUp () {
+      CurrentStockService service = new CurrentStockService(
+          currentStockClient,
+          mock(SymbolRegistry.class),
+          new RefreshingCache<StockQuote>("quotes", 100, 60_000, 60_000, Runnable::run),
+          new RefreshingCache<StockSnapshotResponse>("snapshots", 100, 60_000, 60_000, Runnable::run),
+          1000,
+          mock(QuoteWriteBehind.class),
+          currentStockRepo,
+          mock(HistoricalBarStore.class),
+          false,
+          mock(BarSeriesCache.class),
+          false,
+          mock(BarArchive.class),
+          mock(SymbolActivity.class),
+          900_000,
+          100,
+          mock(ApplicationEventPublisher.class));
+      CurrentStockController controller = new CurrentStockController(
+          service, mock(IndicatorService.class), mock(QuoteTickStore.class), mock(MarketMovers.class),
+          new ObjectMapper().findAndRegisterModules(), 5, 15, 86_400);
+      mvc = MockMvcBuilders.standaloneSetup(controller)
+          .setControllerAdvice(new GlobalExceptionHandler())
+          .build();
+   }
+
+   @Test
+   void servesTheLastKnownQuoteFlaggedAsStaleWhileAlpacaIsUnavailable () throws Exception {
+      when(currentStockClient.getSingleQuoteBySymbol("AAPL"))
+          .thenThrow(new UpstreamUnavailableException("Alpaca latest_quote is unavailable (circuit open).", Duration.ofSeconds(30)));
+      when(currentStockRepo.findAllById(any())).thenReturn(List.of(new CurrentStock("AAPL", "USD", quote(AS_OF))));
+
+      mvc.perform(get("/api/quotes/AAPL"))
+          .andExpect(status().isOk())
+          .andExpect(header().string("X-Data-Stale", "true"))
+          .andExpect(header().string("X-Data-As-Of", AS_OF.toString()))
+          .andExpect(header().string(HttpHeaders.WARNING, "110 - \"Response is Stale\""))
+          .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+          .andExpect(jsonPath("$.ap").value(101.0));
+   }
+
+   @Test
+   void liveQuoteIsNotFlagged () throws Exception {
+      when(currentStockClient.getSingleQuoteBySymbol("AAPL")).thenReturn(new StockQuoteResponse("AAPL", quote(AS_OF)));
+
+      mvc.perform(get("/api/quotes/AAPL"))
+          .andExpect(status().isOk())
+          .andExpect(header().doesNotExist("X-Data-Stale"))
+          .andExpect(header().doesNotExist("X-Data-As-Of"))
+          .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=5"));
+   }
+
+   @Test
+   void answers503WhenNoQuoteIsKnown () throws Exception {
+      when(currentStockClient.getSingleQuoteBySymbol("AAPL"))
+          .thenThrow(new UpstreamUnavailableException("Alpaca latest_quote is unavailable (circuit open).", Duration.ofSeconds(30)));
+      when(currentStockRepo.findAllById(any())).thenReturn(List.of());
+
+      mvc.perform(get("/api/quotes/AAPL"))
+          .andExpect(status().isServiceUnavailable())
+          .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"));
+   }
+
+   private static StockQuote quote (Instant t) {
+      return new StockQuote(101.0, 100, "V", 100.0, 100, "V", List.of(), t, "C");
+   }
+}
@@ -0,0 +1,84 @@
+package com.stockdock.indicators;
+
+import com.stockdock.bars.BarColumns;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to feed 1,000,000 regular-session minute bars (about ten years) through each indicator,
+ * and through all of them at once, writing the outputs into columns as {@link IndicatorSeries} does.
+ *
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="IndicatorsBenchmark"}.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class IndicatorsBenchmark {
+
+   private static final int BARS = 1_000_000;
+   private static final int MINUTES_PER_SESSION = 390;
+
+   @Param ({"sma:20", "ema:20", "rsi:14", "macd:12:26:9", "bollinger:20:2", "vwap",
+       "sma:20,ema:20,rsi:14,macd:12:26:9,bollinger:20:2,vwap"})
+   public String names;
+
+   private BarColumns bars;
+   private double[][] columns;
+
+   @Setup
+   public void setUp () {
+      bars = new BarColumns(BARS);
+      Random random = new Random(42);
+      double close = 100;
+      // Weekdays from 2015-01-05, 14:30 to 21:00 UTC
+      long day = Instant.parse("2015-01-05T14:30:00Z").toEpochMilli();
+      for (int d = 0; bars.size() < BARS; d++) {
+         for (int m = 0; m < MINUTES_PER_SESSION && bars.size() < BARS; m++) {
+            double open = close;
+            close = Math.max(1, close + random.nextGaussian() * 0.05);
+            double high = Math.max(open, close) + random.nextDouble() * 0.02;
+            double low = Math.min(open, close) - random.nextDouble() * 0.02;
+            bars.add(day + m * 60_000L, open, high, low, close, 100 + random.nextInt(5000),
+                1 + random.nextInt(40), (high + low + close) / 3);
+         }
+         day += (d % 5 == 4 ? 3 : 1) * 86_400_000L;
+      }
+
+      int outputs = IndicatorSpec.parse(names).stream().mapToInt(indicator -> indicator.outputs().length).sum();
+      columns = new double[outputs][BARS];
+   }
+
+   @Benchmark
+   public double[][] compute () {
+      // Indicators keep state, so every invocation starts from fresh ones
+      Indicator[] indicators = IndicatorSpec.parse(names).toArray(Indicator[]::new);
+      double[] scratch = new double[3];
+      for (int i = 0; i < BARS; i++) {
+         int column = 0;
+         for (Indicator indicator : indicators) {
+            indicator.update(bars, i, scratch);
+            int width = indicator.outputs().length;
+            for (int k = 0; k < width; k++) {
+               columns[column++][i] = scratch[k];
+            }
+         }
+      }
+      return columns;
+   }
+}
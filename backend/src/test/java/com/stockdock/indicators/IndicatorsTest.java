@@ -0,0 +1,174 @@
+package com.stockdock.indicators;
+
+import com.stockdock.bars.BarColumns;
+import com.stockdock.dto.HistoricalBar;
+import com.stockdock.dto.IndicatorLine;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IndicatorsTest {
+
+   private static final double TOLERANCE = 1e-9;
+
+   @Test
+   void smaAveragesTheLastPeriodCloses () {
+      assertValues(new double[] {Double.NaN, Double.NaN, 2, 3, 4}, run(new Sma(3), 1, 2, 3, 4, 5), 0);
+   }
+
+   @Test
+   void emaIsSeededWithTheSimpleAverage () {
+      // alpha = 2 / (3 + 1) = 0.5 after the seed (1 + 2 + 3) / 3
+      assertValues(new double[] {Double.NaN, Double.NaN, 2, 3, 4, 5}, run(new Ema(3), 1, 2, 3, 4, 5, 6), 0);
+   }
+
+   @Test
+   void rsiMatchesWildersExample () {
+      // Closes of the classic 14-period example; the first value needs 14 changes
+      double[][] out = run(new Rsi(14),
+          44.34, 44.09, 44.15, 43.61, 44.33, 44.83, 45.10, 45.42, 45.84, 46.08,
+          45.89, 46.03, 45.61, 46.28, 46.28, 46.00, 46.03, 46.41, 46.22, 45.64);
+
+      for (int i = 0; i < 14; i++) {
+         assertEquals(Double.NaN, out[i][0]);
+      }
+      double[] expected = {70.46, 66.25, 66.48, 69.35, 66.29, 57.92};
+      for (int i = 0; i < expected.length; i++) {
+         assertEquals(expected[i], out[14 + i][0], 0.005, "bar " + (14 + i));
+      }
+   }
+
+   @Test
+   void rsiIsHundredWithoutLosses () {
+      assertEquals(100.0, run(new Rsi(2), 1, 2, 3, 4)[3][0]);
+   }
+
+   @Test
+   void macdSubtractsTheSlowFromTheFastEma () {
+      double[][] out = run(new Macd(2, 4, 3), 10, 11, 12.5, 11.5, 13, 14.5, 13.5, 15);
+
+      assertValues(new double[] {Double.NaN, Double.NaN, Double.NaN, 0.361111111111, 0.587037037037, 0.875679012346,
+          0.433226337449, 0.629208779150}, out, 0, 1e-11);
+      assertValues(new double[] {Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, 0.607942386831,
+          0.520584362140, 0.574896570645}, out, 1, 1e-11);
+      assertValues(new double[] {Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, 0.267736625514,
+          -0.087358024691, 0.054312208505}, out, 2, 1e-11);
+   }
+
+   @Test
+   void bollingerBandsUseThePopulationDeviation () {
+      double[][] out = run(new BollingerBands(3, 2), 1, 2, 3, 3, 3, 3);
+
+      double deviation = Math.sqrt(2.0 / 3);
+      assertValues(new double[] {Double.NaN, Double.NaN, 2, 8.0 / 3, 3, 3}, out, 0);
+      assertEquals(2 + 2 * deviation, out[2][1], TOLERANCE);
+      assertEquals(2 - 2 * deviation, out[2][2], TOLERANCE);
+      // A flat window has no width
+      assertEquals(3, out[5][1], TOLERANCE);
+      assertEquals(3, out[5][2], TOLERANCE);
+   }
+
+   @Test
+   void vwapWeighsByVolumeAndResetsEverySession () {
+      BarColumns bars = new BarColumns();
+      bars.add(nyTime("2025-01-02T09:30"), 10, 10, 10, 10, 100, 1, 10);
+      bars.add(nyTime("2025-01-02T15:59"), 20, 20, 20, 20, 300, 1, 20);
+      // 23:30 in New York is already the next UTC day, but the same session
+      bars.add(nyTime("2025-01-02T23:30"), 30, 30, 30, 30, 0, 0, 30);
+      // Next session; no VWAP on the bar, so the typical price (12 + 6 + 9) / 3 is used
+      bars.add(nyTime("2025-01-03T09:30"), 9, 12, 6, 9, 50, 1, 0);
+
+      double[][] out = run(new Vwap(), bars);
+
+      assertValues(new double[] {10, 17.5, 17.5, 9}, out, 0);
+   }
+
+   @Test
+   void appendingInChunksGivesTheSameColumnsAsOnePass () {
+      List<HistoricalBar> bars = randomWalk(600);
+      String names = "sma:20,ema:12,rsi:14,macd:12:26:9,bollinger:20:2,vwap";
+
+      IndicatorSeries whole = new IndicatorSeries(IndicatorSpec.parse(names));
+      assertEquals(600, whole.append(bars));
+
+      IndicatorSeries chunked = new IndicatorSeries(IndicatorSpec.parse(names));
+      int[] ends = {1, 7, 26, 27, 300, 599, 600};
+      int from = 0;
+      for (int end : ends) {
+         // Each chunk repeats the last bar of the previous one, as extensions with an inclusive start do
+         chunked.append(bars.subList(Math.max(0, from - 1), end));
+         from = end;
+      }
+
+      assertEquals(whole.size(), chunked.size());
+      assertArrayEquals(whole.times(600), chunked.times(600));
+      List<IndicatorLine> expected = whole.lines(600);
+      List<IndicatorLine> actual = chunked.lines(600);
+      assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++) {
+         assertEquals(expected.get(i).name(), actual.get(i).name());
+         assertEquals(expected.get(i).output(), actual.get(i).output());
+         assertEquals(expected.get(i).offset(), actual.get(i).offset());
+         assertArrayEquals(expected.get(i).values(), actual.get(i).values(), expected.get(i).name());
+      }
+   }
+
+   // Outputs per bar of an indicator fed with bars of the given closes, one minute apart
+   private static double[][] run (Indicator indicator, double... closes) {
+      BarColumns bars = new BarColumns();
+      long t = Instant.parse("2025-01-02T14:30:00Z").toEpochMilli();
+      for (double close : closes) {
+         bars.add(t, close, close, close, close, 100, 1, close);
+         t += 60_000;
+      }
+      return run(indicator, bars);
+   }
+
+   private static double[][] run (Indicator indicator, BarColumns bars) {
+      double[][] out = new double[bars.size()][indicator.outputs().length];
+      for (int i = 0; i < bars.size(); i++) {
+         indicator.update(bars, i, out[i]);
+      }
+      return out;
+   }
+
+   private static void assertValues (double[] expected, double[][] out, int output) {
+      assertValues(expected, out, output, TOLERANCE);
+   }
+
+   private static void assertValues (double[] expected, double[][] out, int output, double tolerance) {
+      assertEquals(expected.length, out.length);
+      for (int i = 0; i < expected.length; i++) {
+         assertEquals(expected[i], out[i][output], tolerance, "bar " + i);
+      }
+   }
+
+   private static long nyTime (String localDateTime) {
+      return ZonedDateTime.parse(localDateTime + ":00-05:00[America/New_York]").toInstant().toEpochMilli();
+   }
+
+   private static List<HistoricalBar> randomWalk (int count) {
+      Random random = new Random(42);
+      List<HistoricalBar> bars = new ArrayList<>(count);
+      Instant t = Instant.parse("2025-01-02T14:30:00Z");
+      double close = 100;
+      for (int i = 0; i < count; i++) {
+         double open = close;
+         close = Math.max(1, close + random.nextGaussian());
+         double high = Math.max(open, close) + random.nextDouble();
+         double low = Math.min(open, close) - random.nextDouble();
+         long volume = 100 + random.nextInt(10_000);
+         bars.add(new HistoricalBar(close, high, low, 1 + random.nextInt(50), open, t, volume, (high + low + close) / 3));
+         // Minute bars spanning several sessions, so VWAP resets along the way
+         t = t.plusSeconds(i % 100 == 99 ? 18 * 3600 : 60);
+      }
+      return bars;
+   }
+}
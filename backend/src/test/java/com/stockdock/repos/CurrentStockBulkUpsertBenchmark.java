@@ -0,0 +1,95 @@
+package com.stockdock.repos;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.models.CurrentStock;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Time to write one refresh of {@code current_stocks} to an embedded mongod, once through
+ * {@link CurrentStockRepoCustomImpl#upsertAll} and once with one {@code save()} per symbol
+ * as the refresh did before. Every invocation rewrites existing documents, like a refresh
+ * after the first one.
+ *
+ * The mongod binary is downloaded by flapdoodle on first use, so the first run needs access
+ * to fastdl.mongodb.org.
+ *
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="CurrentStockBulkUpsertBenchmark"}.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class CurrentStockBulkUpsertBenchmark {
+
+   private static final int BATCH_SIZE = 500;
+
+   @Param ({"100", "1000", "10000"})
+   public int symbols;
+
+   private TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+   private MongoClient client;
+   private MongoTemplate mongoTemplate;
+   private CurrentStockRepoCustomImpl repo;
+   private List<CurrentStock> stocks;
+
+   @Setup (Level.Trial)
+   public void setUp () {
+      mongod = Mongod.instance().start(Version.Main.V7_0);
+      client = MongoClients.create("mongodb://" + mongod.current().getServerAddress());
+      mongoTemplate = new MongoTemplate(client, "stockdock-benchmark");
+      repo = new CurrentStockRepoCustomImpl(mongoTemplate, new SimpleMeterRegistry());
+
+      Instant now = Instant.now();
+      stocks = IntStream.range(0, symbols)
+          .mapToObj(i -> new CurrentStock("S" + i, "USD",
+              new StockQuote(100.5 + i, 100, "V", 100.0 + i, 200, "V", List.of("R"), now, "C")))
+          .toList();
+      repo.upsertAll(stocks, BATCH_SIZE);
+   }
+
+   @TearDown (Level.Trial)
+   public void tearDown () {
+      client.close();
+      mongod.close();
+   }
+
+   @Benchmark
+   public int bulkUpsert () {
+      return repo.upsertAll(stocks, BATCH_SIZE);
+   }
+
+   @Benchmark
+   public int savePerSymbol () {
+      for (CurrentStock stock : stocks) {
+         mongoTemplate.save(stock);
+      }
+      return stocks.size();
+   }
+}
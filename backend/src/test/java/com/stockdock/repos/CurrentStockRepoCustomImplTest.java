@@ -0,0 +1,111 @@
+package com.stockdock.repos;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.stockdock.models.CurrentStock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonString;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CurrentStockRepoCustomImplTest {
+
+   private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+   private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+   private final CurrentStockRepoCustomImpl repo = new CurrentStockRepoCustomImpl(mongoTemplate, meterRegistry);
+   private final List<BulkOperations> bulks = new ArrayList<>();
+
+   @Test
+   void issuesOneUnorderedBulkWritePerBatch () {
+      // 5 documents in batches of 2: each batch has 1 existing document, the rest are inserted
+      when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CurrentStock.class))
+          .thenAnswer(invocation -> bulk(1, 1))
+          .thenAnswer(invocation -> bulk(1, 1))
+          .thenAnswer(invocation -> bulk(0, 1));
+
+      int written = repo.upsertAll(stocks(5), 2);
+
+      assertEquals(5, written);
+      verify(mongoTemplate, times(3)).bulkOps(BulkOperations.BulkMode.UNORDERED, CurrentStock.class);
+      assertEquals(3, bulks.size());
+      int[] expectedSizes = {2, 2, 1};
+      List<String> symbols = new ArrayList<>();
+      for (int batch = 0; batch < bulks.size(); batch++) {
+         BulkOperations bulk = bulks.get(batch);
+         ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+         ArgumentCaptor<CurrentStock> documents = ArgumentCaptor.forClass(CurrentStock.class);
+         ArgumentCaptor<FindAndReplaceOptions> options = ArgumentCaptor.forClass(FindAndReplaceOptions.class);
+         verify(bulk, times(expectedSizes[batch])).replaceOne(queries.capture(), documents.capture(), options.capture());
+         verify(bulk).execute();
+
+         options.getAllValues().forEach(option -> assertTrue(option.isUpsert()));
+         for (int i = 0; i < queries.getAllValues().size(); i++) {
+            String symbol = documents.getAllValues().get(i).symbol();
+            assertEquals(symbol, queries.getAllValues().get(i).getQueryObject().get("_id"));
+            symbols.add(symbol);
+         }
+      }
+      assertEquals(List.of("S0", "S1", "S2", "S3", "S4"), symbols);
+   }
+
+   @Test
+   void recordsEveryBatchInTheMeters () {
+      when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CurrentStock.class))
+          .thenAnswer(invocation -> bulk(1, 1))
+          .thenAnswer(invocation -> bulk(0, 1));
+
+      repo.upsertAll(stocks(3), 2);
+
+      assertEquals(2, meterRegistry.get("stockdock.mongo.bulk.upsert").tag("collection", "current_stocks").timer().count());
+      assertEquals(2.0, meterRegistry.get("stockdock.mongo.bulk.upsert.documents").tag("result", "upserted").counter().count());
+      assertEquals(1.0, meterRegistry.get("stockdock.mongo.bulk.upsert.documents").tag("result", "modified").counter().count());
+   }
+
+   @Test
+   void writesNothingForNoDocuments () {
+      assertEquals(0, repo.upsertAll(List.of(), 100));
+      verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(CurrentStock.class));
+   }
+
+   @Test
+   void rejectsNonPositiveBatchSizes () {
+      assertThrows(IllegalArgumentException.class, () -> repo.upsertAll(stocks(1), 0));
+   }
+
+   private BulkOperations bulk (int matched, int upserted) {
+      BulkWriteResult result = mock(BulkWriteResult.class);
+      when(result.getMatchedCount()).thenReturn(matched);
+      when(result.getModifiedCount()).thenReturn(matched);
+      when(result.getUpserts()).thenReturn(IntStream.range(0, upserted)
+          .mapToObj(i -> new BulkWriteUpsert(i, new BsonString("id" + i)))
+          .toList());
+
+      BulkOperations bulk = mock(BulkOperations.class);
+      when(bulk.execute()).thenReturn(result);
+      bulks.add(bulk);
+      return bulk;
+   }
+
+   private static List<CurrentStock> stocks (int count) {
+      return IntStream.range(0, count).mapToObj(i -> new CurrentStock("S" + i, "USD", null)).toList();
+   }
+}
@@ -0,0 +1,87 @@
+package com.stockdock.resilience;
+
+import com.stockdock.dto.UpstreamStats;
+import com.stockdock.exceptions.UpstreamUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlpacaCallExecutorTest {
+
+   @AfterEach
+   void clearInterrupt () {
+      Thread.interrupted();
+   }
+
+   @Test
+   void errorThrownByTheHalfOpenTrialReleasesIt () {
+      // Opens after 2 failures and lets a trial through right away
+      AlpacaCallExecutor executor = executor(1, 10_000, 0);
+      for (int i = 0; i < 2; i++) {
+         assertThrows(UpstreamUnavailableException.class, () -> executor.execute("quotes", () -> {
+            throw new ResourceAccessException("connection reset");
+         }));
+      }
+      assertEquals("OPEN", breakerState(executor));
+
+      assertThrows(StackOverflowError.class, () -> executor.execute("quotes", () -> {
+         throw new StackOverflowError();
+      }));
+      assertEquals("HALF_OPEN", breakerState(executor));
+
+      // The next call gets the trial instead of being refused as if the breaker were open
+      assertEquals("quote", executor.execute("quotes", () -> "quote"));
+      assertEquals("CLOSED", breakerState(executor));
+   }
+
+   @Test
+   void interruptStopsTheRetries () {
+      AlpacaCallExecutor executor = executor(5, 60_000, 60_000);
+      AtomicInteger calls = new AtomicInteger();
+
+      Thread.currentThread().interrupt();
+      UpstreamUnavailableException e = assertThrows(UpstreamUnavailableException.class,
+          () -> executor.execute("bars", () -> {
+             calls.incrementAndGet();
+             throw new ResourceAccessException("read timed out");
+          }));
+
+      assertEquals(1, calls.get());
+      assertTrue(e.getMessage().contains("Interrupted"));
+      assertTrue(Thread.currentThread().isInterrupted());
+   }
+
+   @Test
+   void retriesTransientFailures () {
+      AlpacaCallExecutor executor = new AlpacaCallExecutor(new SimpleMeterRegistry(), 60_000, 100, 0,
+          3, 1, 1, 10, 10, 0.5, 60_000);
+      AtomicInteger calls = new AtomicInteger();
+
+      String result = executor.execute("bars", () -> {
+         if (calls.incrementAndGet() < 3) {
+            throw new ResourceAccessException("read timed out");
+         }
+         return "bars";
+      });
+
+      assertEquals("bars", result);
+      assertEquals(2, executor.stats().retries());
+   }
+
+   private static AlpacaCallExecutor executor (int maxAttempts, long baseDelayMillis, long breakerOpenMillis) {
+      return new AlpacaCallExecutor(new SimpleMeterRegistry(), 60_000, 100, 0,
+          maxAttempts, baseDelayMillis, Math.max(baseDelayMillis, 1), 2, 2, 0.5, breakerOpenMillis);
+   }
+
+   private static String breakerState (AlpacaCallExecutor executor) {
+      UpstreamStats.CircuitBreakerStats breaker = executor.stats().breakers().getFirst();
+      return breaker.state();
+   }
+}
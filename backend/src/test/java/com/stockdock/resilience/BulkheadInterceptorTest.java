@@ -0,0 +1,144 @@
+package com.stockdock.resilience;
+
+import com.stockdock.config.BulkheadProperties;
+import com.stockdock.exceptions.GlobalExceptionHandler;
+import com.stockdock.exceptions.InvalidSymbolException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class BulkheadInterceptorTest {
+
+   private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+   private final TestController controller = new TestController();
+   private MockMvc mvc;
+
+   @BeforeEach
+   void setUp () {
+      BulkheadProperties properties = new BulkheadProperties();
+      properties.setLimits(Map.of("test", 1));
+      mvc = MockMvcBuilders.standaloneSetup(controller)
+          .addInterceptors(new BulkheadInterceptor(properties, meterRegistry))
+          .setControllerAdvice(new GlobalExceptionHandler())
+          .build();
+   }
+
+   @Test
+   void rejectsWith503AndRetryAfterWhileTheSlotIsTaken () throws Exception {
+      MvcResult streaming = mvc.perform(get("/api/stream")).andExpect(request().asyncStarted()).andReturn();
+      assertTrue(controller.streamStarted.await(5, TimeUnit.SECONDS));
+
+      // The stream is still being written, so its slot is still taken
+      mvc.perform(get("/api/ok"))
+          .andExpect(status().isServiceUnavailable())
+          .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+      assertEquals(1.0, rejected());
+      assertEquals(1.0, active());
+
+      controller.finishStream.countDown();
+      mvc.perform(asyncDispatch(streaming)).andExpect(status().isOk()).andExpect(content().string("done\n"));
+
+      assertEquals(0.0, active());
+      mvc.perform(get("/api/ok")).andExpect(status().isOk());
+   }
+
+   @Test
+   void releasesTheSlotWhenTheHandlerThrows () throws Exception {
+      mvc.perform(get("/api/fail")).andExpect(status().isBadRequest());
+
+      assertEquals(0.0, active());
+      mvc.perform(get("/api/ok")).andExpect(status().isOk());
+   }
+
+   @Test
+   void releasesTheSlotWhenTheStreamFails () throws Exception {
+      MvcResult streaming = mvc.perform(get("/api/stream-fail")).andExpect(request().asyncStarted()).andReturn();
+      mvc.perform(asyncDispatch(streaming)).andExpect(status().isInternalServerError());
+
+      assertEquals(0.0, active());
+      mvc.perform(get("/api/ok")).andExpect(status().isOk());
+   }
+
+   @Test
+   void releasesTheSlotWhenTheAsyncRequestEndsWithoutDispatch () throws Exception {
+      MvcResult streaming = mvc.perform(get("/api/stream")).andExpect(request().asyncStarted()).andReturn();
+      assertEquals(1.0, active());
+
+      // E.g. the client went away: the container completes the request without an async dispatch
+      streaming.getRequest().getAsyncContext().complete();
+
+      assertEquals(0.0, active());
+      controller.finishStream.countDown();
+   }
+
+   private double active () {
+      return meterRegistry.get("stockdock.bulkhead.active").tag("bulkhead", "test").gauge().value();
+   }
+
+   private double rejected () {
+      return meterRegistry.get("stockdock.bulkhead.rejected").tag("bulkhead", "test").counter().count();
+   }
+
+   @RestController
+   static class TestController {
+
+      final CountDownLatch streamStarted = new CountDownLatch(1);
+      final CountDownLatch finishStream = new CountDownLatch(1);
+
+      @GetMapping ("/api/ok")
+      @Bulkhead ("test")
+      String ok () {
+         return "ok";
+      }
+
+      @GetMapping ("/api/fail")
+      @Bulkhead ("test")
+      String fail () {
+         throw new InvalidSymbolException("Symbol cannot be null or blank.");
+      }
+
+      @GetMapping ("/api/stream")
+      @Bulkhead ("test")
+      StreamingResponseBody stream () {
+         return out -> {
+            streamStarted.countDown();
+            try {
+               finishStream.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+            out.write("done\n".getBytes(StandardCharsets.UTF_8));
+         };
+      }
+
+      @GetMapping ("/api/stream-fail")
+      @Bulkhead ("test")
+      StreamingResponseBody streamFail () {
+         return out -> {
+            throw new IOException("upstream closed");
+         };
+      }
+   }
+}
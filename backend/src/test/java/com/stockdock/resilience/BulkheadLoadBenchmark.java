@@ -0,0 +1,300 @@
+package com.stockdock.resilience;
+
+import com.stockdock.clients.StubHttpServer;
+import com.stockdock.config.BulkheadProperties;
+import com.stockdock.exceptions.GlobalExceptionHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bursts of concurrent requests against an embedded Tomcat whose quote endpoint waits on a local
+ * stub of Alpaca that answers after 500 ms, as a request to an overloaded upstream does:
+ * <ul>
+ *    <li>{@code platform}: the previous setup, 200 Tomcat platform threads and no bulkheads</li>
+ *    <li>{@code virtual}: virtual threads without bulkheads</li>
+ *    <li>{@code virtual-bulkhead}: virtual threads with the {@code quotes} bulkhead at its default of 500</li>
+ * </ul>
+ * Besides the time per burst, reports per burst the requests answered 200 ({@code ok}), those
+ * rejected with 503 ({@code rejected}), the most requests inside the handler at once
+ * ({@code inFlight}), the peak live platform threads, and the peak used heap and resident set size in MB.
+ * Client, server and stub share the JVM, so heap and RSS include the same client and stub load
+ * in every setup.
+ *
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="BulkheadLoadBenchmark"}.
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.SingleShotTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 1, batchSize = 1)
+@Measurement (iterations = 1, batchSize = 1)
+@Fork (value = 1, jvmArgs = {"-Xmx1g"})
+public class BulkheadLoadBenchmark {
+
+   private static final long UPSTREAM_DELAY_MILLIS = 500;
+
+   @Param ({"platform", "virtual", "virtual-bulkhead"})
+   public String setup;
+
+   @Param ({"2000"})
+   public int callers;
+
+   private StubHttpServer stub;
+   private ConfigurableApplicationContext context;
+   private HttpClient client;
+   private URI uri;
+
+   @Setup (Level.Trial)
+   public void setUp () throws IOException {
+      stub = new StubHttpServer(exchange -> {
+         try {
+            Thread.sleep(UPSTREAM_DELAY_MILLIS);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+         StubHttpServer.respond(exchange, 200, "{\"symbol\":\"AAPL\",\"quote\":{\"ap\":101.5,\"bp\":101.4}}");
+      });
+
+      // Arguments, so they win over the application.properties on the classpath
+      SpringApplication application = new SpringApplication(LoadTestApplication.class);
+      application.setWebApplicationType(WebApplicationType.SERVLET);
+      context = application.run(
+          "--server.port=0",
+          "--server.tomcat.threads.max=200",
+          "--server.tomcat.max-connections=8192",
+          "--server.tomcat.accept-count=1000",
+          "--spring.threads.virtual.enabled=" + !setup.equals("platform"),
+          "--api.bulkhead.enabled=" + setup.equals("virtual-bulkhead"),
+          "--api.bulkhead.limits.quotes=500",
+          "--stub.base-url=" + stub.baseUrl(),
+          "--logging.level.root=WARN");
+
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      uri = URI.create("http://localhost:" + port + "/api/stocks/AAPL");
+      client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+   }
+
+   @TearDown (Level.Trial)
+   public void tearDown () {
+      client.close();
+      context.close();
+      stub.close();
+   }
+
+   @Benchmark
+   public void burst (BurstCounters counters) throws Exception {
+      LoadTestController controller = context.getBean(LoadTestController.class);
+      controller.maxInFlight.set(0);
+      Sampler sampler = new Sampler();
+      sampler.start();
+
+      try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+         List<Future<Integer>> responses = new ArrayList<>(callers);
+         for (int i = 0; i < callers; i++) {
+            responses.add(executor.submit(() -> client.send(
+                HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode()));
+         }
+         for (Future<Integer> response : responses) {
+            switch (response.get()) {
+               case 200 -> counters.ok++;
+               case 503 -> counters.rejected++;
+               default -> counters.failed++;
+            }
+         }
+      } finally {
+         sampler.interrupt();
+         sampler.join();
+      }
+      counters.inFlight = controller.maxInFlight.get();
+      counters.threads = sampler.peakThreads;
+      counters.heapMb = sampler.peakHeapBytes >> 20;
+      counters.rssMb = sampler.peakRssKb >> 10;
+   }
+
+   /**
+    * Results of the burst measured last, reported next to its time.
+    */
+   @State (Scope.Thread)
+   @AuxCounters (AuxCounters.Type.EVENTS)
+   public static class BurstCounters {
+
+      public long ok;
+      public long rejected;
+      public long failed;
+      public long inFlight;
+      public long threads;
+      public long heapMb;
+      public long rssMb;
+
+      @Setup (Level.Iteration)
+      public void reset () {
+         ok = 0;
+         rejected = 0;
+         failed = 0;
+         inFlight = 0;
+         threads = 0;
+         heapMb = 0;
+         rssMb = 0;
+      }
+   }
+
+   /**
+    * Records the peak live platform threads, used heap and RSS of this JVM every 10 ms while a burst runs.
+    */
+   private static final class Sampler extends Thread {
+
+      private static final Path STATUS = Path.of("/proc/self/status");
+
+      volatile long peakThreads;
+      volatile long peakHeapBytes;
+      volatile long peakRssKb;
+
+      Sampler () {
+         setDaemon(true);
+      }
+
+      @Override
+      public void run () {
+         while (!isInterrupted()) {
+            sample();
+            try {
+               Thread.sleep(10);
+            } catch (InterruptedException e) {
+               break;
+            }
+         }
+         sample();
+      }
+
+      private void sample () {
+         peakThreads = Math.max(peakThreads, ManagementFactory.getThreadMXBean().getThreadCount());
+         peakHeapBytes = Math.max(peakHeapBytes, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+         peakRssKb = Math.max(peakRssKb, rssKb());
+      }
+
+      // VmRSS of /proc/self/status, 0 where there is none
+      private static long rssKb () {
+         try {
+            for (String line : Files.readAllLines(STATUS)) {
+               if (line.startsWith("VmRSS:")) {
+                  return Long.parseLong(line.replaceAll("\\D", ""));
+               }
+            }
+         } catch (IOException e) {
+            // Not on Linux
+         }
+         return 0;
+      }
+   }
+
+   @Configuration (proxyBeanMethods = false)
+   @ImportAutoConfiguration ({ConfigurationPropertiesAutoConfiguration.class, ServletWebServerFactoryAutoConfiguration.class,
+       DispatcherServletAutoConfiguration.class, WebMvcAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class,
+       JacksonAutoConfiguration.class, EmbeddedWebServerFactoryCustomizerAutoConfiguration.class})
+   @Import ({BulkheadProperties.class, BulkheadInterceptor.class, GlobalExceptionHandler.class, LoadTestController.class})
+   static class LoadTestApplication implements WebMvcConfigurer {
+
+      private final BulkheadInterceptor bulkheadInterceptor;
+
+      LoadTestApplication (BulkheadInterceptor bulkheadInterceptor) {
+         this.bulkheadInterceptor = bulkheadInterceptor;
+      }
+
+      @Bean
+      static MeterRegistry meterRegistry () {
+         return new SimpleMeterRegistry();
+      }
+
+      @Bean
+      static RestClient upstream (Environment environment) {
+         return RestClient.builder()
+             .baseUrl(environment.getRequiredProperty("stub.base-url"))
+             .requestFactory(new JdkClientHttpRequestFactory())
+             .build();
+      }
+
+      @Override
+      public void addInterceptors (InterceptorRegistry registry) {
+         registry.addInterceptor(bulkheadInterceptor).addPathPatterns("/api/**");
+      }
+   }
+
+   /**
+    * Stands in for {@code CurrentStockController#getSingleQuote}: one upstream call per request.
+    */
+   @RestController
+   static class LoadTestController {
+
+      final AtomicInteger inFlight = new AtomicInteger();
+      final AtomicInteger maxInFlight = new AtomicInteger();
+      private final RestClient upstream;
+
+      LoadTestController (RestClient upstream) {
+         this.upstream = upstream;
+      }
+
+      @GetMapping ("/api/stocks/AAPL")
+      @Bulkhead ("quotes")
+      String quote () {
+         maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+         try {
+            return upstream.get().uri("/v2/stocks/AAPL/quotes/latest").retrieve().body(String.class);
+         } finally {
+            inFlight.decrementAndGet();
+         }
+      }
+   }
+}
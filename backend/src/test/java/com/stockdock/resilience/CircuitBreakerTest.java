@@ -0,0 +1,100 @@
+package com.stockdock.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+   @Test
+   void opensOnceTheFailureRateIsReachedOverTheMinimumCalls () {
+      CircuitBreaker breaker = new CircuitBreaker("quotes", 4, 4, 0.5, Duration.ofMinutes(1));
+
+      breaker.onFailure();
+      breaker.onFailure();
+      breaker.onSuccess();
+      // 2 of 3 failed, but fewer than minimumCalls are recorded
+      assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+      breaker.onSuccess();
+      // 2 of 4: the threshold is reached on a failure only
+      assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+      breaker.onFailure();
+
+      assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+      assertFalse(breaker.tryAcquirePermission());
+      assertTrue(breaker.getRemainingOpenTime().compareTo(Duration.ZERO) > 0);
+   }
+
+   @Test
+   void keepsOnlyTheLastWindowOfCalls () {
+      CircuitBreaker breaker = new CircuitBreaker("quotes", 4, 4, 0.75, Duration.ofMinutes(1));
+
+      breaker.onFailure();
+      breaker.onFailure();
+      breaker.onSuccess();
+      breaker.onSuccess();
+      breaker.onSuccess();
+      // The window is now failure, success, success, success
+      assertEquals(0.25, breaker.getFailureRate());
+
+      breaker.onFailure();
+      breaker.onFailure();
+      assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+      assertEquals(0.5, breaker.getFailureRate());
+   }
+
+   @Test
+   void halfOpenLetsOneTrialThroughAndClosesOnSuccess () {
+      CircuitBreaker breaker = opened();
+
+      assertTrue(breaker.tryAcquirePermission());
+      assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+      assertFalse(breaker.tryAcquirePermission());
+
+      breaker.onSuccess();
+      assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+      assertEquals(0.0, breaker.getFailureRate());
+      assertTrue(breaker.tryAcquirePermission());
+   }
+
+   @Test
+   void failedTrialOpensTheBreakerAgain () {
+      CircuitBreaker breaker = new CircuitBreaker("quotes", 2, 2, 0.5, Duration.ofMinutes(1));
+      breaker.onFailure();
+      breaker.onFailure();
+      assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+      // Still open: no trial before the open duration has passed
+      assertFalse(breaker.tryAcquirePermission());
+
+      CircuitBreaker expired = opened();
+      assertTrue(expired.tryAcquirePermission());
+      expired.onFailure();
+      assertEquals(CircuitBreaker.State.OPEN, expired.getState());
+   }
+
+   @Test
+   void ignoredTrialReleasesThePermission () {
+      CircuitBreaker breaker = opened();
+
+      assertTrue(breaker.tryAcquirePermission());
+      breaker.onIgnored();
+
+      assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+      assertTrue(breaker.tryAcquirePermission());
+   }
+
+   // A breaker that has just opened and lets a trial through on the next call
+   private static CircuitBreaker opened () {
+      CircuitBreaker breaker = new CircuitBreaker("quotes", 2, 2, 0.5, Duration.ZERO);
+      breaker.onFailure();
+      breaker.onFailure();
+      assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+      return breaker;
+   }
+}
@@ -0,0 +1,48 @@
+package com.stockdock.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+
+   private final RetryPolicy policy = new RetryPolicy(6, Duration.ofMillis(100), Duration.ofMillis(1_000));
+
+   @Test
+   void jitterStaysWithinTheExponentialCeiling () {
+      long[] ceilings = {100, 200, 400, 800, 1_000};
+      for (int attempt = 1; attempt <= ceilings.length; attempt++) {
+         long max = 0;
+         for (int i = 0; i < 2_000; i++) {
+            long delay = policy.backoff(attempt, null).toMillis();
+            assertTrue(delay >= 0 && delay <= ceilings[attempt - 1], "attempt " + attempt + ": " + delay + " ms");
+            max = Math.max(max, delay);
+         }
+         // Full jitter covers the whole range, not just its lower part
+         assertTrue(max > ceilings[attempt - 1] / 2, "attempt " + attempt + " never exceeded " + max + " ms");
+      }
+   }
+
+   @Test
+   void givesUpAfterTheLastAttempt () {
+      assertNull(policy.backoff(6, null));
+      assertNull(new RetryPolicy(1, Duration.ofMillis(100), Duration.ofMillis(1_000)).backoff(1, null));
+   }
+
+   @Test
+   void honoursRetryAfterOnlyWithinTheMaximumDelay () {
+      assertEquals(Duration.ofMillis(500), policy.backoff(1, Duration.ofMillis(500)));
+      assertEquals(Duration.ofSeconds(1), policy.backoff(1, Duration.ofSeconds(1)));
+      assertNull(policy.backoff(1, Duration.ofSeconds(2)));
+   }
+
+   @Test
+   void requiresAtLeastOneAttempt () {
+      assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(0, Duration.ofMillis(100), Duration.ofMillis(1_000)));
+   }
+}
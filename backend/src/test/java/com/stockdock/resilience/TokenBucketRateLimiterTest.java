@@ -0,0 +1,57 @@
+package com.stockdock.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketRateLimiterTest {
+
+   @Test
+   void allowsTheBurstThenRefusesCallersThatWillNotWait () {
+      TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 3);
+
+      assertTrue(limiter.tryAcquire(Duration.ZERO));
+      assertTrue(limiter.tryAcquire(Duration.ZERO));
+      assertTrue(limiter.tryAcquire(Duration.ZERO));
+      assertFalse(limiter.tryAcquire(Duration.ZERO));
+      // The next token is about a second away
+      assertFalse(limiter.tryAcquire(Duration.ofMillis(100)));
+   }
+
+   @Test
+   void refillsAtTheConfiguredRateUpToTheCapacity () throws InterruptedException {
+      TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(50, 2);
+      assertTrue(limiter.tryAcquire(Duration.ZERO));
+      assertTrue(limiter.tryAcquire(Duration.ZERO));
+      assertTrue(limiter.availableTokens() < 1);
+
+      // 50 tokens per second would add 15, but the bucket holds 2
+      Thread.sleep(300);
+
+      double available = limiter.availableTokens();
+      assertTrue(available > 1.99 && available <= 2.0, "available tokens: " + available);
+   }
+
+   @Test
+   void waitsForTheNextTokenWithinTheMaximumWait () {
+      TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 1);
+      assertTrue(limiter.tryAcquire(Duration.ZERO));
+
+      long startNanos = System.nanoTime();
+      assertTrue(limiter.tryAcquire(Duration.ofSeconds(1)));
+      long waitedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+      // One token every 100 ms
+      assertTrue(waitedMillis >= 50, "waited " + waitedMillis + " ms");
+   }
+
+   @Test
+   void rejectsNonPositiveSettings () {
+      assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter(0, 1));
+      assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter(1, 0));
+   }
+}
@@ -0,0 +1,163 @@
+package com.stockdock.schedulers;
+
+import com.stockdock.cluster.ShardCoordinator;
+import com.stockdock.services.CurrentStockService;
+import com.stockdock.services.SymbolActivity;
+import com.stockdock.services.SymbolRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.TriggerContext;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.scheduling.config.TriggerTask;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CurrentStockSchedulerTest {
+
+   private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+   private static final List<String> SYMBOLS = List.of("AAPL", "MSFT", "TSLA");
+
+   private final CurrentStockService currentStockService = mock(CurrentStockService.class);
+   private final SymbolRegistry symbolRegistry = mock(SymbolRegistry.class);
+   private final ShardCoordinator shardCoordinator = mock(ShardCoordinator.class);
+   private final SymbolActivity symbolActivity = mock(SymbolActivity.class);
+   private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+   @BeforeEach
+   void setUp () {
+      when(symbolRegistry.getSymbols()).thenReturn(SYMBOLS);
+      when(shardCoordinator.ownedOf(anyCollection())).thenReturn(SYMBOLS);
+      when(symbolActivity.hotOf(anyCollection())).thenReturn(Set.of("TSLA"));
+   }
+
+   @Test
+   void firstRunIsRightAway () {
+      Instant now = at("2025-01-15T11:00");
+      SimpleTriggerContext context = new SimpleTriggerContext(Clock.fixed(now, ZoneOffset.UTC));
+
+      assertEquals(now, saveTrigger().nextExecution(context));
+      assertEquals(now, warmTrigger().nextExecution(context));
+   }
+
+   @Test
+   void nextRunIsOnePhaseIntervalAfterTheLastCompletion () {
+      assertEquals(at("2025-01-15T11:00:10"), warmTrigger().nextExecution(completedAt("2025-01-15T11:00")));
+      assertEquals(at("2025-01-15T11:05"), saveTrigger().nextExecution(completedAt("2025-01-15T11:00")));
+      assertEquals(at("2025-01-15T07:01"), warmTrigger().nextExecution(completedAt("2025-01-15T07:00")));
+      assertEquals(at("2025-01-18T12:30"), warmTrigger().nextExecution(completedAt("2025-01-18T12:00")));
+      assertEquals(at("2025-01-18T13:00"), saveTrigger().nextExecution(completedAt("2025-01-18T12:00")));
+   }
+
+   @Test
+   void nextRunIsCappedAtTheNextPhaseChange () {
+      // Pre-market polls every minute, but the open is in 30 seconds
+      assertEquals(at("2025-01-15T09:30"), warmTrigger().nextExecution(completedAt("2025-01-15T09:29:30")));
+      assertEquals(at("2025-01-15T16:00"), saveTrigger().nextExecution(completedAt("2025-01-15T15:58")));
+      // Closed overnight polls every 30 minutes, but pre-market starts at 04:00
+      assertEquals(at("2025-01-16T04:00"), warmTrigger().nextExecution(completedAt("2025-01-16T03:45")));
+      assertEquals(at("2025-01-16T04:00"), saveTrigger().nextExecution(completedAt("2025-01-16T03:45")));
+   }
+
+   @Test
+   void coldSymbolsWaitForTheirLongerInterval () {
+      CurrentStockScheduler scheduler = scheduler();
+
+      scheduler.warmQuoteCache();
+      scheduler.warmQuoteCache();
+
+      // Nothing was polled before the first run; then only the hot symbol is due
+      verify(currentStockService).refreshQuotes(SYMBOLS);
+      verify(currentStockService).refreshQuotes(List.of("TSLA"));
+      assertEquals(2.0, polled("hot"));
+      assertEquals(2.0, polled("cold"));
+      assertEquals(1, scheduler.stats().hotSymbols());
+      assertEquals(4, scheduler.stats().symbolsPolled());
+   }
+
+   @Test
+   void skipsARunWhileThePreviousOneIsInProgress () throws InterruptedException {
+      CurrentStockScheduler scheduler = scheduler();
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      doAnswer(invocation -> {
+         started.countDown();
+         release.await(5, TimeUnit.SECONDS);
+         return null;
+      }).when(currentStockService).refreshQuotes(anyList());
+
+      Thread first = Thread.ofVirtual().start(scheduler::warmQuoteCache);
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      scheduler.warmQuoteCache();
+      release.countDown();
+      first.join();
+
+      verify(currentStockService, times(1)).refreshQuotes(anyList());
+      assertEquals(1.0, meterRegistry.get("stockdock.scheduler.skipped").tag("task", "warm-quote-cache").counter().count());
+      assertEquals(1, scheduler.stats().skippedRuns());
+
+      // The guard is released afterwards
+      scheduler.warmQuoteCache();
+      verify(currentStockService, times(2)).refreshQuotes(anyList());
+   }
+
+   private CurrentStockScheduler scheduler () {
+      // Pre-market 1 min, regular 10 s, after-hours 1 min, closed 30 min; saves every 5 min, hourly while closed
+      return new CurrentStockScheduler(currentStockService, symbolRegistry, shardCoordinator, symbolActivity,
+          new MarketCalendar(List.of(), List.of()), meterRegistry,
+          60_000, 10_000, 60_000, 1_800_000, 6, 300_000, 3_600_000);
+   }
+
+   private Trigger saveTrigger () {
+      return trigger(0);
+   }
+
+   private Trigger warmTrigger () {
+      return trigger(1);
+   }
+
+   // The triggers as registered by configureTasks: the save sweep first, then the cache warmer
+   private Trigger trigger (int index) {
+      ScheduledTaskRegistrar registrar = new ScheduledTaskRegistrar();
+      scheduler().configureTasks(registrar);
+      List<TriggerTask> tasks = registrar.getTriggerTaskList();
+      assertEquals(2, tasks.size());
+      return tasks.get(index).getTrigger();
+   }
+
+   private static TriggerContext completedAt (String exchangeTime) {
+      Instant completion = at(exchangeTime);
+      SimpleTriggerContext context = new SimpleTriggerContext(Clock.fixed(completion, ZoneOffset.UTC));
+      context.update(completion.minusSeconds(1), completion.minusSeconds(1), completion);
+      return context;
+   }
+
+   private static Instant at (String exchangeTime) {
+      return LocalDateTime.parse(exchangeTime).atZone(NEW_YORK).toInstant();
+   }
+
+   private double polled (String tier) {
+      return meterRegistry.get("stockdock.scheduler.symbols.polled").tag("task", "warm-quote-cache").tag("tier", tier)
+          .counter().count();
+   }
+}
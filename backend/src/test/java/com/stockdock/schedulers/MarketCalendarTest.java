@@ -0,0 +1,103 @@
+package com.stockdock.schedulers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MarketCalendarTest {
+
+   private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+   // Martin Luther King Jr. Day and Independence Day; the day after Thanksgiving closes early
+   private final MarketCalendar calendar = new MarketCalendar(List.of("2025-01-20", "2025-07-04"), List.of("2025-11-28"));
+
+   @ParameterizedTest
+   @CsvSource ({
+       // Wednesday, standard time
+       "2025-01-15T00:00,       CLOSED",
+       "2025-01-15T03:59:59,    CLOSED",
+       "2025-01-15T04:00,       PRE_MARKET",
+       "2025-01-15T09:29:59.999,PRE_MARKET",
+       "2025-01-15T09:30,       REGULAR",
+       "2025-01-15T12:00,       REGULAR",
+       "2025-01-15T15:59:59.999,REGULAR",
+       "2025-01-15T16:00,       AFTER_HOURS",
+       "2025-01-15T19:59:59,    AFTER_HOURS",
+       "2025-01-15T20:00,       CLOSED",
+       "2025-01-15T23:59:59,    CLOSED",
+       // Weekend
+       "2025-01-18T12:00,       CLOSED",
+       "2025-01-19T09:30,       CLOSED",
+       // Holidays
+       "2025-01-20T12:00,       CLOSED",
+       "2025-07-04T09:30,       CLOSED",
+       // Early close: no after-hours session
+       "2025-11-28T09:30,       REGULAR",
+       "2025-11-28T12:59:59,    REGULAR",
+       "2025-11-28T13:00,       CLOSED",
+       "2025-11-28T16:00,       CLOSED"
+   })
+   void phaseAtExchangeTime (LocalDateTime exchangeTime, MarketCalendar.Phase expected) {
+      assertEquals(expected, calendar.phaseAt(exchangeTime.atZone(NEW_YORK).toInstant()));
+   }
+
+   @Test
+   void sessionFollowsDaylightSavingTime () {
+      // 13:30Z is 08:30 EST before the switch on 2025-03-09, and 09:30 EDT after it
+      assertEquals(MarketCalendar.Phase.PRE_MARKET, calendar.phaseAt(Instant.parse("2025-03-07T13:30:00Z")));
+      assertEquals(MarketCalendar.Phase.REGULAR, calendar.phaseAt(Instant.parse("2025-03-10T13:30:00Z")));
+      assertEquals(MarketCalendar.Phase.AFTER_HOURS, calendar.phaseAt(Instant.parse("2025-03-10T20:00:00Z")));
+      // And back to standard time on 2025-11-02
+      assertEquals(MarketCalendar.Phase.REGULAR, calendar.phaseAt(Instant.parse("2025-10-31T13:30:00Z")));
+      assertEquals(MarketCalendar.Phase.PRE_MARKET, calendar.phaseAt(Instant.parse("2025-11-03T13:30:00Z")));
+      assertEquals(MarketCalendar.Phase.REGULAR, calendar.phaseAt(Instant.parse("2025-11-03T14:30:00Z")));
+   }
+
+   @ParameterizedTest
+   @CsvSource ({
+       "2025-01-15T02:00,  2025-01-15T04:00",
+       "2025-01-15T04:00,  2025-01-15T09:30",
+       "2025-01-15T09:29,  2025-01-15T09:30",
+       "2025-01-15T09:30,  2025-01-15T16:00",
+       "2025-01-15T16:00,  2025-01-15T20:00",
+       "2025-01-15T20:00,  2025-01-16T04:00",
+       // Friday evening to Tuesday, past the weekend and the holiday
+       "2025-01-17T20:00,  2025-01-21T04:00",
+       "2025-01-18T12:00,  2025-01-21T04:00",
+       // Early close, then the weekend
+       "2025-11-28T10:00,  2025-11-28T13:00",
+       "2025-11-28T13:00,  2025-12-01T04:00",
+       // Across the switch to daylight saving time
+       "2025-03-07T20:00,  2025-03-10T04:00"
+   })
+   void nextPhaseChangeIsTheNextSessionBoundary (LocalDateTime exchangeTime, LocalDateTime expected) {
+      assertEquals(expected.atZone(NEW_YORK).toInstant(), calendar.nextPhaseChange(exchangeTime.atZone(NEW_YORK).toInstant()));
+   }
+
+   @Test
+   void nextPhaseChangeIsInUtcAfterTheSwitch () {
+      // 04:00 EDT
+      assertEquals(Instant.parse("2025-03-10T08:00:00Z"), calendar.nextPhaseChange(Instant.parse("2025-03-08T12:00:00Z")));
+      // 04:00 EST
+      assertEquals(Instant.parse("2025-11-03T09:00:00Z"), calendar.nextPhaseChange(Instant.parse("2025-11-01T12:00:00Z")));
+   }
+
+   @Test
+   void tradingDays () {
+      assertTrue(calendar.isTradingDay(LocalDate.parse("2025-01-17")));
+      assertFalse(calendar.isTradingDay(LocalDate.parse("2025-01-18")));
+      assertFalse(calendar.isTradingDay(LocalDate.parse("2025-01-19")));
+      assertFalse(calendar.isTradingDay(LocalDate.parse("2025-01-20")));
+      assertTrue(calendar.isTradingDay(LocalDate.parse("2025-11-28")));
+   }
+}
@@ -0,0 +1,52 @@
+package com.stockdock.services;
+
+import com.stockdock.models.BarCoverage.CoveredRange;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HistoricalBarStoreTest {
+
+   @Test
+   void findGapsOfEmptyCoverageIsTheWholeRange () {
+      assertEquals(List.of(range(0, 100)), HistoricalBarStore.findGaps(List.of(), at(0), at(100)));
+   }
+
+   @Test
+   void findGapsReturnsTheUncoveredParts () {
+      List<CoveredRange> covered = List.of(range(10, 20), range(40, 50));
+
+      assertEquals(List.of(range(0, 10), range(20, 40), range(50, 100)),
+          HistoricalBarStore.findGaps(covered, at(0), at(100)));
+      assertEquals(List.of(range(20, 40)), HistoricalBarStore.findGaps(covered, at(15), at(45)));
+      assertEquals(List.of(), HistoricalBarStore.findGaps(covered, at(12), at(18)));
+   }
+
+   @Test
+   void findGapsIgnoresRangesOutsideTheRequest () {
+      List<CoveredRange> covered = List.of(range(0, 5), range(200, 300));
+
+      assertEquals(List.of(range(10, 100)), HistoricalBarStore.findGaps(covered, at(10), at(100)));
+   }
+
+   @Test
+   void mergeJoinsOverlappingAndTouchingRanges () {
+      List<CoveredRange> covered = List.of(range(0, 10), range(20, 30), range(50, 60));
+
+      assertEquals(List.of(range(0, 30), range(50, 60)), HistoricalBarStore.merge(covered, range(10, 20)));
+      assertEquals(List.of(range(0, 10), range(20, 30), range(35, 40), range(50, 60)),
+          HistoricalBarStore.merge(covered, range(35, 40)));
+      assertEquals(List.of(range(0, 70)), HistoricalBarStore.merge(covered, range(5, 70)));
+   }
+
+   private static CoveredRange range (long from, long to) {
+      return new CoveredRange(at(from), at(to));
+   }
+
+   private static Instant at (long seconds) {
+      return Instant.ofEpochSecond(seconds);
+   }
+}
@@ -0,0 +1,148 @@
+package com.stockdock.services;
+
+import com.stockdock.cluster.ShardCoordinator;
+import com.stockdock.dto.Mover;
+import com.stockdock.dto.MoversResponse;
+import com.stockdock.dto.StockBar;
+import com.stockdock.dto.StockSnapshotResponse;
+import com.stockdock.dto.StockTrade;
+import com.stockdock.events.SnapshotsUpdatedEvent;
+import com.stockdock.models.MoversRanking;
+import com.stockdock.repos.MoversRankingRepo;
+import com.stockdock.schedulers.MarketCalendar;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MarketMoversTest {
+
+   private static final List<String> SYMBOLS = List.of("AAPL", "MSFT", "NVDA");
+
+   private final CurrentStockService currentStockService = mock(CurrentStockService.class);
+   private final SymbolRegistry symbolRegistry = mock(SymbolRegistry.class);
+   private final MarketCalendar marketCalendar = mock(MarketCalendar.class);
+   private final ShardCoordinator shardCoordinator = mock(ShardCoordinator.class);
+   private final MoversRankingRepo moversRankingRepo = mock(MoversRankingRepo.class);
+
+   @BeforeEach
+   void setUp () {
+      when(symbolRegistry.getSymbols()).thenReturn(SYMBOLS);
+      when(marketCalendar.phaseAt(any())).thenReturn(MarketCalendar.Phase.REGULAR);
+      when(shardCoordinator.getInstanceId()).thenReturn("instance-1");
+   }
+
+   @Test
+   void leaderRefreshesAllSymbolsAndPublishesTheRankings () {
+      MarketMovers movers = movers("leader");
+      when(shardCoordinator.isLeader()).thenReturn(true);
+      answerRefreshWithSnapshots(movers);
+
+      movers.refresh();
+
+      verify(currentStockService).refreshSnapshots(SYMBOLS);
+      ArgumentCaptor<MoversRanking> published = ArgumentCaptor.forClass(MoversRanking.class);
+      verify(moversRankingRepo).save(published.capture());
+      assertEquals(MoversRanking.LATEST, published.getValue().id());
+      assertEquals(3, published.getValue().symbols());
+      assertEquals(List.of("NVDA", "AAPL", "MSFT"), symbols(published.getValue().gainers()));
+      assertEquals(List.of("NVDA", "AAPL"), symbols(movers.getMovers(2).gainers()));
+   }
+
+   @Test
+   void followerServesTheLeadersRankingsWithoutCallingAlpaca () {
+      MarketMovers movers = movers("leader");
+      when(shardCoordinator.isLeader()).thenReturn(false);
+      Instant asOf = Instant.parse("2025-01-02T15:00:00Z");
+      List<Mover> ranked = List.of(mover("NVDA", 5), mover("AAPL", 1), mover("MSFT", -2));
+      when(moversRankingRepo.findById(MoversRanking.LATEST)).thenReturn(Optional.of(
+          new MoversRanking(MoversRanking.LATEST, "instance-0", asOf, 3, ranked, ranked.reversed(), ranked, List.of())));
+
+      movers.refresh();
+
+      verify(currentStockService, never()).refreshSnapshots(anyList());
+      verify(moversRankingRepo, never()).save(any());
+      MoversResponse response = movers.getMovers(2);
+      assertEquals(asOf, response.asOf());
+      assertEquals(3, response.symbols());
+      assertEquals(List.of("NVDA", "AAPL"), symbols(response.gainers()));
+      assertEquals(List.of("MSFT", "AAPL"), symbols(response.losers()));
+   }
+
+   @Test
+   void followerThatBecomesLeaderRefreshesEvenWhileTheMarketIsClosed () {
+      MarketMovers movers = movers("leader");
+      when(moversRankingRepo.findById(MoversRanking.LATEST)).thenReturn(Optional.of(
+          new MoversRanking(MoversRanking.LATEST, "instance-0", Instant.now(), 0, List.of(), List.of(), List.of(), List.of())));
+      when(shardCoordinator.isLeader()).thenReturn(false);
+      movers.refresh();
+      // Rankings from a snapshot this instance fetched for a request
+      movers.onSnapshotsUpdated(new SnapshotsUpdatedEvent(Map.of("AAPL", snapshot(101, 100))));
+
+      when(marketCalendar.phaseAt(any())).thenReturn(MarketCalendar.Phase.CLOSED);
+      when(shardCoordinator.isLeader()).thenReturn(true);
+      answerRefreshWithSnapshots(movers);
+      movers.refresh();
+
+      verify(currentStockService).refreshSnapshots(SYMBOLS);
+      assertEquals(3, movers.getMovers(10).symbols());
+   }
+
+   @Test
+   void everyInstanceRefreshesWithScopeAll () {
+      MarketMovers movers = movers("all");
+      when(shardCoordinator.isLeader()).thenReturn(false);
+
+      movers.refresh();
+
+      verify(currentStockService).refreshSnapshots(SYMBOLS);
+      verify(moversRankingRepo, never()).findById(any());
+      verify(moversRankingRepo, never()).save(any());
+   }
+
+   private MarketMovers movers (String scope) {
+      return new MarketMovers(currentStockService, symbolRegistry, marketCalendar, shardCoordinator, moversRankingRepo, 50, scope);
+   }
+
+   // The snapshot cache publishes what it fetched, as CurrentStockService does
+   private void answerRefreshWithSnapshots (MarketMovers movers) {
+      doAnswer(invocation -> {
+         movers.onSnapshotsUpdated(new SnapshotsUpdatedEvent(Map.of(
+             "AAPL", snapshot(101, 100),
+             "MSFT", snapshot(99, 100),
+             "NVDA", snapshot(110, 100))));
+         return null;
+      }).when(currentStockService).refreshSnapshots(anyList());
+   }
+
+   private static StockSnapshotResponse snapshot (double price, double prevClose) {
+      Instant t = Instant.parse("2025-01-02T15:00:00Z");
+      return new StockSnapshotResponse(null,
+          new StockBar(price, price, price, 10, price, t, 1000, price),
+          new StockBar(prevClose, prevClose, prevClose, 10, prevClose, t.minusSeconds(86_400), 1000, prevClose),
+          null,
+          new StockTrade(List.of(), 1, price, 100, t, "V", "C"),
+          null);
+   }
+
+   private static Mover mover (String symbol, double changePercent) {
+      return new Mover(symbol, 100 + changePercent, 100, changePercent, 1000, null);
+   }
+
+   private static List<String> symbols (List<Mover> movers) {
+      return movers.stream().map(Mover::symbol).toList();
+   }
+}
@@ -0,0 +1,175 @@
+package com.stockdock.services;
+
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.MongoCollection;
+import com.stockdock.cluster.ShardCoordinator;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.events.QuoteUpdatedEvent;
+import com.stockdock.models.QuoteRollup;
+import com.stockdock.models.QuoteTick;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QuoteTickStoreTest {
+
+   private static final Instant T0 = Instant.parse("2025-01-02T15:00:00Z");
+   private static final long LOOKBACK_MILLIS = 300_000;
+
+   private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+   private final ShardCoordinator shardCoordinator = mock(ShardCoordinator.class);
+   private final List<QuoteTick> inserted = new ArrayList<>();
+
+   @BeforeEach
+   void setUp () {
+      when(mongoTemplate.getCollectionName(QuoteTick.class)).thenReturn("quote_ticks");
+      when(mongoTemplate.getCollectionName(QuoteRollup.class)).thenReturn("quote_rollups_1m");
+      when(shardCoordinator.getOwnedSymbols()).thenReturn(Set.of("AAPL", "MSFT"));
+      // The batch is cleared after the insert, so keep a copy
+      doAnswer(invocation -> {
+         inserted.addAll(invocation.getArgument(0));
+         return invocation.getArgument(0);
+      }).when(mongoTemplate).insert(any(Collection.class), eq(QuoteTick.class));
+   }
+
+   @Test
+   void skipsQuotesThatAreNotNewerThanTheLastTick () {
+      QuoteTickStore store = store(true);
+
+      store.onQuoteUpdated(event("AAPL", quote(T0), QuoteUpdatedEvent.Source.STREAM));
+      // The poll returns the quote the stream already delivered, then an older one
+      store.onQuoteUpdated(event("AAPL", quote(T0), QuoteUpdatedEvent.Source.POLL));
+      store.onQuoteUpdated(event("AAPL", quote(T0.minusSeconds(1)), QuoteUpdatedEvent.Source.POLL));
+      store.onQuoteUpdated(event("AAPL", quote(T0.plusSeconds(1)), QuoteUpdatedEvent.Source.POLL));
+      // Other symbols keep their own last tick
+      store.onQuoteUpdated(event("MSFT", quote(T0), QuoteUpdatedEvent.Source.POLL));
+
+      assertEquals(3, store.flush());
+      assertEquals(List.of(T0, T0.plusSeconds(1), T0), inserted.stream().map(QuoteTick::t).toList());
+      assertEquals(List.of("STREAM", "POLL", "POLL"), inserted.stream().map(QuoteTick::src).toList());
+      assertEquals(3, store.stats().recorded());
+      assertEquals(2, store.stats().duplicates());
+      assertEquals(3, store.stats().written());
+   }
+
+   @Test
+   void ignoresSymbolsOfOtherInstancesAndQuotesWithoutTimestamp () {
+      QuoteTickStore store = store(true);
+
+      store.onQuoteUpdated(event("TSLA", quote(T0), QuoteUpdatedEvent.Source.STREAM));
+      store.onQuoteUpdated(event("AAPL", quote(null), QuoteUpdatedEvent.Source.STREAM));
+      store.onQuoteUpdated(event("AAPL", null, QuoteUpdatedEvent.Source.STREAM));
+
+      assertEquals(0, store.flush());
+      assertEquals(0, store.stats().recorded());
+      assertEquals(0, store.stats().duplicates());
+   }
+
+   @Test
+   void recordsNothingWhenDisabled () {
+      QuoteTickStore store = store(false);
+
+      store.onQuoteUpdated(event("AAPL", quote(T0), QuoteUpdatedEvent.Source.STREAM));
+      store.rollup();
+
+      assertEquals(0, store.flush());
+      verify(mongoTemplate, never()).getCollection(any());
+   }
+
+   @Test
+   @SuppressWarnings ("unchecked")
+   void rollupMergesOneMinuteAggregatesIntoTheRollupCollection () {
+      MongoCollection<Document> ticks = mock(MongoCollection.class);
+      AggregateIterable<Document> aggregation = mock(AggregateIterable.class);
+      when(mongoTemplate.getCollection("quote_ticks")).thenReturn(ticks);
+      when(ticks.aggregate(anyList())).thenReturn(aggregation);
+      when(aggregation.allowDiskUse(true)).thenReturn(aggregation);
+      QuoteTickStore store = store(true);
+
+      Instant before = Instant.now().truncatedTo(ChronoUnit.MINUTES);
+      store.rollup();
+      Instant after = Instant.now().truncatedTo(ChronoUnit.MINUTES);
+
+      ArgumentCaptor<List<Bson>> captor = ArgumentCaptor.forClass(List.class);
+      verify(ticks).aggregate(captor.capture());
+      verify(aggregation).toCollection();
+      List<Document> stages = captor.getValue().stream().map(Document.class::cast).toList();
+      assertEquals(List.of("$match", "$sort", "$addFields", "$group", "$project", "$merge"),
+          stages.stream().map(stage -> stage.keySet().iterator().next()).toList());
+
+      // Owned symbols, with positive prices, from the lookback up to the start of the current minute
+      Document match = stages.get(0).get("$match", Document.class);
+      assertEquals(Set.of("AAPL", "MSFT"), Set.copyOf(match.get("symbol", Document.class).getList("$in", String.class)));
+      Date to = match.get("t", Document.class).getDate("$lt");
+      Date from = match.get("t", Document.class).getDate("$gte");
+      assertTrue(!to.toInstant().isBefore(before) && !to.toInstant().isAfter(after), to.toString());
+      assertEquals(LOOKBACK_MILLIS, to.getTime() - from.getTime());
+      assertEquals(new Document("$gt", 0), match.get("bp"));
+      assertEquals(new Document("$gt", 0), match.get("ap"));
+
+      // One group per symbol and minute
+      Document groupId = stages.get(3).get("$group", Document.class).get("_id", Document.class);
+      assertEquals("$symbol", groupId.get("symbol"));
+      assertEquals(new Document("$dateTrunc", new Document("date", "$t").append("unit", "minute")), groupId.get("t"));
+
+      // Re-running a minute replaces its rollup
+      assertEquals(new Document("into", "quote_rollups_1m")
+          .append("on", "_id")
+          .append("whenMatched", "replace")
+          .append("whenNotMatched", "insert"), stages.get(5).get("$merge"));
+
+      assertEquals(1, store.stats().rollupRuns());
+      assertEquals(to.toInstant(), store.stats().lastRollup());
+   }
+
+   @Test
+   @SuppressWarnings ("unchecked")
+   void failedRollupIsNotCounted () {
+      MongoCollection<Document> ticks = mock(MongoCollection.class);
+      when(mongoTemplate.getCollection("quote_ticks")).thenReturn(ticks);
+      when(ticks.aggregate(anyList())).thenThrow(new IllegalStateException("$merge failed"));
+      QuoteTickStore store = store(true);
+
+      store.rollup();
+
+      assertEquals(0, store.stats().rollupRuns());
+      assertNull(store.stats().lastRollup());
+   }
+
+   private QuoteTickStore store (boolean enabled) {
+      return new QuoteTickStore(mongoTemplate, shardCoordinator, enabled, 604_800_000L, 7_776_000_000L,
+          LOOKBACK_MILLIS, 100, 1000, 2000, new SimpleMeterRegistry());
+   }
+
+   private static QuoteUpdatedEvent event (String symbol, StockQuote quote, QuoteUpdatedEvent.Source source) {
+      return new QuoteUpdatedEvent(symbol, "USD", quote, source);
+   }
+
+   private static StockQuote quote (Instant t) {
+      return new StockQuote(101.0, 100, "V", 100.0, 100, "V", List.of(), t, "C");
+   }
+}
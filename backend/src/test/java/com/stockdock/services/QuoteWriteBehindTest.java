@@ -0,0 +1,147 @@
+package com.stockdock.services;
+
+import com.stockdock.cluster.ShardCoordinator;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.events.QuoteUpdatedEvent;
+import com.stockdock.models.CurrentStock;
+import com.stockdock.repos.CurrentStockRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QuoteWriteBehindTest {
+
+   private static final Instant T0 = Instant.parse("2025-01-02T15:00:00Z");
+
+   private final CurrentStockRepo currentStockRepo = mock(CurrentStockRepo.class);
+   private final ShardCoordinator shardCoordinator = mock(ShardCoordinator.class);
+
+   @Test
+   void writesOnlyOwnedSymbols () {
+      QuoteWriteBehind writeBehind = writeBehind(100, 100);
+      List<CurrentStock> written = captureWrites();
+      when(shardCoordinator.owns("AAPL")).thenReturn(true);
+      when(shardCoordinator.owns("MSFT")).thenReturn(false);
+
+      writeBehind.onQuoteUpdated(new QuoteUpdatedEvent("AAPL", "USD", quote(T0), QuoteUpdatedEvent.Source.STREAM));
+      writeBehind.onQuoteUpdated(new QuoteUpdatedEvent("MSFT", "USD", quote(T0), QuoteUpdatedEvent.Source.STREAM));
+      writeBehind.flush();
+
+      assertEquals(List.of("AAPL"), written.stream().map(CurrentStock::symbol).toList());
+      assertEquals(1, writeBehind.stats().submitted());
+   }
+
+   @Test
+   void conflationKeepsTheNewerQuote () {
+      QuoteWriteBehind writeBehind = writeBehind(100, 100);
+      List<CurrentStock> written = captureWrites();
+
+      writeBehind.submit("AAPL", "USD", quote(T0.plusSeconds(2)));
+      // Arrives late but is older than the queued quote
+      writeBehind.submit("AAPL", "USD", quote(T0.plusSeconds(1)));
+      writeBehind.submit("MSFT", "USD", quote(T0));
+      writeBehind.submit("MSFT", "USD", quote(T0.plusSeconds(1)));
+      writeBehind.flush();
+
+      assertEquals(2, written.size());
+      assertEquals(T0.plusSeconds(2), quoteOf(written, "AAPL").t());
+      assertEquals(T0.plusSeconds(1), quoteOf(written, "MSFT").t());
+      assertEquals(2, writeBehind.stats().conflated());
+   }
+
+   @Test
+   void fullQueueDropsNewSymbolsAndFlushesOnTheWriter () {
+      QuoteWriteBehind writeBehind = writeBehind(100, 2);
+      List<Thread> writers = new ArrayList<>();
+      List<CurrentStock> written = new ArrayList<>();
+      when(currentStockRepo.upsertAll(any(), anyInt())).thenAnswer(invocation -> {
+         writers.add(Thread.currentThread());
+         written.addAll(invocation.getArgument(0));
+         return ((Collection<?>) invocation.getArgument(0)).size();
+      });
+
+      writeBehind.submit("S0", "USD", quote(T0));
+      writeBehind.submit("S1", "USD", quote(T0));
+      writeBehind.submit("S2", "USD", quote(T0));
+
+      verify(currentStockRepo, timeout(5_000)).upsertAll(any(), eq(100));
+      assertEquals(1, writeBehind.stats().dropped());
+      assertEquals(2, writeBehind.stats().submitted());
+      assertNotSame(Thread.currentThread(), writers.getFirst());
+      assertEquals(Set.of("S0", "S1"), written.stream().map(CurrentStock::symbol).collect(Collectors.toSet()));
+   }
+
+   @Test
+   void failedFlushRequeuesOnlyWhileThereIsRoom () {
+      QuoteWriteBehind writeBehind = writeBehind(100, 2);
+      when(currentStockRepo.upsertAll(any(), anyInt())).thenAnswer(invocation -> {
+         // Two new symbols fill the queue while the failing write is in flight
+         writeBehind.submit("S2", "USD", quote(T0));
+         writeBehind.submit("S3", "USD", quote(T0));
+         throw new IllegalStateException("MongoDB unavailable");
+      });
+
+      writeBehind.submit("S0", "USD", quote(T0));
+      writeBehind.submit("S1", "USD", quote(T0));
+
+      assertEquals(0, writeBehind.flush());
+      assertEquals(2, writeBehind.stats().pending());
+      assertEquals(2, writeBehind.stats().dropped());
+      assertEquals(1, writeBehind.stats().flushFailures());
+   }
+
+   @Test
+   void failedFlushDoesNotReplaceANewerQuote () {
+      QuoteWriteBehind writeBehind = writeBehind(100, 10);
+      when(currentStockRepo.upsertAll(any(), anyInt()))
+          .thenAnswer(invocation -> {
+             writeBehind.submit("AAPL", "USD", quote(T0.plusSeconds(1)));
+             throw new IllegalStateException("MongoDB unavailable");
+          });
+
+      writeBehind.submit("AAPL", "USD", quote(T0));
+      writeBehind.flush();
+
+      List<CurrentStock> written = captureWrites();
+      writeBehind.flush();
+      assertEquals(T0.plusSeconds(1), quoteOf(written, "AAPL").t());
+   }
+
+   private QuoteWriteBehind writeBehind (int batchSize, int maxPending) {
+      return new QuoteWriteBehind(currentStockRepo, shardCoordinator, batchSize, maxPending, new SimpleMeterRegistry());
+   }
+
+   private List<CurrentStock> captureWrites () {
+      List<CurrentStock> written = new ArrayList<>();
+      doAnswer(invocation -> {
+         written.addAll(invocation.getArgument(0));
+         return ((Collection<?>) invocation.getArgument(0)).size();
+      }).when(currentStockRepo).upsertAll(any(), anyInt());
+      return written;
+   }
+
+   private static StockQuote quoteOf (List<CurrentStock> written, String symbol) {
+      return written.stream().filter(stock -> stock.symbol().equals(symbol)).findFirst().orElseThrow().latestQuote();
+   }
+
+   private static StockQuote quote (Instant t) {
+      return new StockQuote(101.0, 100, "V", 100.0, 100, "V", List.of(), t, "C");
+   }
+}